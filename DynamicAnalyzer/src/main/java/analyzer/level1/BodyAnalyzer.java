@@ -66,8 +66,18 @@ public class BodyAnalyzer<Level> extends BodyTransformer {
 		SootMethod sootMethod = body.getMethod();
 		Chain<Unit> units  = body.getUnits();
 
+		// The level constants, that were added by the JimpleInjector, are not instrumented.
+		if (JimpleInjector.isLevelHolder(sootMethod.getDeclaringClass())) {
+			return;
+		}
+		// Bridges only forward to their label-passing clone, which is instrumented instead.
+		if (LabelPassing.isBridge(sootMethod)) {
+			return;
+		}
+		// A clone has the body and hence the typing of its original method.
+		SootMethod typedMethod = LabelPassing.typedMethod(sootMethod);
+
 		AnnotationStmtSwitch stmtSwitch =  new AnnotationStmtSwitch(body);
-		Chain<SootField> fields = sootMethod.getDeclaringClass().getFields();
 
 		// Using a copy, such that JimpleInjector could inject directly.
 		ArrayList<Unit> unMod = new ArrayList<>(units);
@@ -86,11 +96,12 @@ public class BodyAnalyzer<Level> extends BodyTransformer {
 		JimpleInjector.setBody(body);
 
 		// hand over exactly those Maps that contain Instantiation, Statement and Locals for the currently analyzed method
-		JimpleInjector.setStaticAnalaysisResults(methodTypings.getVarTyping(sootMethod),
-                                                 methodTypings.getCxTyping(sootMethod),
+		JimpleInjector.setStaticAnalaysisResults(methodTypings.getVarTyping(typedMethod),
+                                                 methodTypings.getCxTyping(typedMethod),
                                                  // We set the default type to dyn; our RT-system is able to handle untracked variables.
-                                                 methodTypings.getSingleInstantiation(sootMethod, new TypeViews.Dyn<>()),
+                                                 methodTypings.getSingleInstantiation(typedMethod, new TypeViews.Dyn<>()),
                                                  casts);
+		JimpleInjector.setWriteEffects(wec);
 
 
 
@@ -110,38 +121,6 @@ public class BodyAnalyzer<Level> extends BodyTransformer {
 
         JimpleInjector.initHandleStmtUtils(controllerIsActive, expectedException);
 
-		// <editor-fold desc="Add Fields to Object Map, either static or instance; determined by Method name">
-
-		/*
-		 * If the method is the constructor, the newly created object
-		 * has to be added to the ObjectMap and its fields are added to the
-		 * new object
-		 */
-		if (sootMethod.getName().equals("<init>")) {
-			JimpleInjector.addInstanceObjectToObjectMap();
-						
-			// Add all instance fields to ObjectMap
-			for (SootField f : fields) {
-				if (!f.isStatic()) {
-					JimpleInjector.addInstanceFieldToObjectMap(f);
-				}
-			}
-						
-		} else if (sootMethod.getName().equals("<clinit>")) {
-
-			SootClass sc = sootMethod.getDeclaringClass();
-			JimpleInjector.addClassObjectToObjectMap(sc);
-
-			// Add all static fields to ObjectMap
-			for (SootField f : fields) {
-				if (f.isStatic()) {
-					JimpleInjector.addStaticFieldToObjectMap(f);
-				}
-			}
-		}
-
-		// </editor-fold>
-
 
 		// Analyzing Every Statement, step by step.
 		for (Unit unit: unMod) {
@@ -153,13 +132,8 @@ public class BodyAnalyzer<Level> extends BodyTransformer {
 			}
 
 			// Add further statements using JimpleInjector.
+			// With the hybrid enforcement, the write effect of a branch is raised at its condition.
 			unit.apply(stmtSwitch);
-
-			if (wec != null) {
-				for (Local l : wec.get(Local.class, unit)) {
-					logger.info("Updating " + l);
-				}
-			}
 		}
 		
 		// Apply all changes.
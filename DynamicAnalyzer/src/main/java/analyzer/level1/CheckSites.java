@@ -0,0 +1,138 @@
+package analyzer.level1;
+
+import analyzer.level2.recorder.SiteProfile;
+import soot.SootMethod;
+import util.exceptions.InternalAnalyzerException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the check sites for the profile-guided instrumentation.
+ * <p>
+ * In a profiling build, selected by <code>-profile &lt;file&gt;</code>, every
+ * check, that the {@link JimpleInjector} injects, gets a number and a
+ * counter, see {@link SiteProfile}. Running the instrumented program writes
+ * the profile. A second instrumentation, selected by
+ * <code>-useprofile &lt;file&gt;</code>, reads it and specializes the hot
+ * sites, i.e. the sites that were executed at least
+ * {@link CheckSites#HOT_THRESHOLD} times. Only the checks of
+ * {@link InstrumentationMode#labelLocals} have a specialized form, so the
+ * profile requires that mode.
+ * <p>
+ * An audit build, selected by <code>-audit</code>, numbers the sites as well,
+ * such that the violations are told apart by their sites.
+ */
+public class CheckSites {
+
+    /** The number of executions, from which a site is hot. */
+    public static final long HOT_THRESHOLD = 1000;
+
+    private static final Logger logger = Logger.getLogger(CheckSites.class.getName());
+
+    /** The file of the profile, that the profiling build writes, or null. */
+    private static File profiling;
+
+    /** The keys of the sites of the profiling build, in the order of their numbers. */
+    private static final List<String> sites = new ArrayList<>();
+
+    /** The counts of the sites of the profile, that guides the instrumentation, or null. */
+    private static Map<String, Long> profile;
+
+    /**
+     * Selects a profiling build.
+     *
+     * @param file The file, to which the instrumented program writes the profile.
+     */
+    public static void startProfiling(File file) {
+        profiling = file.getAbsoluteFile();
+    }
+
+    /**
+     * Reads the profile, that guides the instrumentation.
+     */
+    public static void useProfile(File file) {
+        try {
+            profile = SiteProfile.read(file);
+        } catch (IOException | NumberFormatException e) {
+            throw new InternalAnalyzerException("Unable to read the profile " + file, e);
+        }
+        logger.info("Read " + profile.size() + " sites of the profile " + file);
+    }
+
+    /**
+     * Specifies, if a profiling build is selected.
+     */
+    public static boolean isProfiling() {
+        return profiling != null;
+    }
+
+    /**
+     * Specifies, if the checks get the numbers of their sites, i.e. in a
+     * profiling build and in an audit build, whose
+     * {@link analyzer.level2.audit.ViolationAudit} deduplicates the
+     * violations by their sites.
+     */
+    public static boolean isNumbering() {
+        return profiling != null || DynamicPolicy.audit;
+    }
+
+    /**
+     * Gets the file, to which the instrumented program writes the profile.
+     */
+    public static File getProfile() {
+        return profiling;
+    }
+
+    /**
+     * Gets the number of a new site of the profiling or audit build.
+     *
+     * @param method The instrumented method.
+     * @param unit   The index of the instrumented unit in the body before instrumentation.
+     * @param check  The name of the check.
+     */
+    public static int site(SootMethod method, int unit, String check) {
+        sites.add(SiteProfile.key(method.getSignature(), unit, check));
+        return sites.size() - 1;
+    }
+
+    /**
+     * Specifies, if the given site is hot in the profile, that guides the
+     * instrumentation. Without a profile no site is hot.
+     */
+    public static boolean isHot(SootMethod method, int unit, String check) {
+        if (profile == null) {
+            return false;
+        }
+        Long count = profile.get(SiteProfile.key(method.getSignature(), unit, check));
+        return count != null && count >= HOT_THRESHOLD;
+    }
+
+    /**
+     * Writes the keys of the sites of the profiling build, after all methods
+     * were instrumented.
+     */
+    public static void writeSites() {
+        if (profiling == null) {
+            return;
+        }
+        try {
+            SiteProfile.writeSites(profiling, sites);
+        } catch (IOException e) {
+            throw new InternalAnalyzerException("Unable to write the sites of the profile " + profiling, e);
+        }
+    }
+
+    /**
+     * Forgets the sites and the profile, for the next run.
+     */
+    public static void reset() {
+        profiling = null;
+        sites.clear();
+        profile = null;
+    }
+}
@@ -14,6 +14,13 @@ public class DynamicPolicy {
      */
     public static Policy selected = Policy.NSU_POLICY;
 
+    /**
+     * Specifies, if the instrumented program runs in audit mode: it records
+     * the violations of the policy and keeps running, instead of aborting.
+     * See {@link analyzer.level2.audit.ViolationAudit}.
+     */
+    public static boolean audit = false;
+
     /**
      * As the name suggests it is a policy for the dynamic checker.
      * In specific: Its use specifies which policy should be used
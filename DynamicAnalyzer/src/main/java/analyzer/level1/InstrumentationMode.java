@@ -0,0 +1,27 @@
+package analyzer.level1;
+
+/**
+ * This Class provides the currently selected Options of the
+ * Instrumentation. In contrast to the {@link DynamicPolicy}, these
+ * Options do not change what is enforced, but how the injected Code
+ * keeps track of the Security Levels.
+ */
+public class InstrumentationMode {
+
+    /**
+     * Specifies, if the level of every local <code>x</code> is kept in a
+     * companion local <code>x$lbl</code> of the instrumented method, instead
+     * of the LocalMap of the HandleStmt. The injected code then passes the
+     * labels directly, and no signature strings are hashed at run time.
+     */
+    public static boolean labelLocals = false;
+
+    /**
+     * Specifies, if the labels of the arguments are passed as extra
+     * parameters of label-passing clones of the instrumented methods,
+     * instead of the argument registers of the monitor. See
+     * {@link LabelPassing}. Requires {@link InstrumentationMode#labelLocals}.
+     */
+    public static boolean labelParameters = false;
+
+}
@@ -10,10 +10,12 @@ import soot.jimple.*;
 import soot.jimple.internal.JAssignStmt;
 import soot.util.Chain;
 import util.dominator.DominatorFinder;
+import util.dominator.WriteEffectCollector;
 import util.exceptions.InternalAnalyzerException;
 import util.jimple.BoolConstant;
 import util.jimple.JimpleFactory;
 import util.logging.L1Logger;
+import util.visitor.ExternalClasses;
 
 import java.util.*;
 import java.util.logging.Logger;
@@ -70,6 +72,88 @@ public class JimpleInjector {
 
     // </editor-fold>
 
+    // <editor-fold desc="Shadow Label Fields">
+
+    /**
+     * Prefix of the synthetic fields, that store the security level of an
+     * instance field of an application class, e.g. the level of
+     * <code>foo</code> is stored in <code>__jgs$lbl$foo</code>.
+     */
+    static final String LABEL_FIELD_PREFIX = "__jgs$lbl$";
+
+    /** Local where the content of a label field is loaded to, before it is passed to the HandleStmt. */
+    private static Local local_for_Labels = Jimple.v().newLocal("local_for_Labels", RefType.v("java.lang.Object"));
+
+    // </editor-fold>
+
+    // <editor-fold desc="Level Constants">
+
+    /**
+     * Suffix of the synthetic class, that holds the levels used by the
+     * instrumented methods of a class, e.g. the levels of <code>Foo</code>
+     * are static final fields of <code>Foo$jgs$Levels</code>. They are
+     * resolved once, when this class is initialised.
+     */
+    static final String LEVEL_HOLDER_SUFFIX = "$jgs$Levels";
+
+    /** Prefix of the static fields of a level holder. */
+    private static final String LEVEL_FIELD_PREFIX = "LEVEL_";
+
+    // </editor-fold>
+
+    // <editor-fold desc="Label Locals">
+
+    /**
+     * Suffix of the companion locals, that hold the level of a local, if
+     * {@link InstrumentationMode#labelLocals} is selected, e.g. the level of
+     * <code>x</code> is stored in <code>x$lbl</code>.
+     */
+    static final String LABEL_LOCAL_SUFFIX = "$lbl";
+
+    /** Maps the locals of the actual method-body to their label locals. */
+    private static Map<Local, Local> labelLocals = new HashMap<>();
+
+    /** The creation of the HandleStmt. Label locals are initialised right before it. */
+    private static Unit labelInitPos;
+
+    /** Local where Object arrays can be stored. Needed to pass more than two labels to injected methods. */
+    private static Local local_for_Object_Arrays = Jimple.v().newLocal("local_for_Object_Arrays", ArrayType.v(RefType.v("java.lang.Object"), 1));
+
+    /**
+     * The invokes of label-passing clones, that replace the invoke
+     * expressions of the statements. See {@link JimpleInjector#invokeClone}.
+     */
+    private static Map<Stmt, InvokeExpr> cloneInvokes = new HashMap<>();
+
+    // </editor-fold>
+
+    // <editor-fold desc="Write Effects">
+
+    /**
+     * The write effects of the branches of the actual method-body, if
+     * {@link DynamicPolicy.Policy#HYBRID_ENFORCEMENT} is selected, or null.
+     */
+    private static WriteEffectCollector writeEffects;
+
+    /** The locals, that are written under a branch of the actual method-body, in the order of their index. */
+    private static List<Local> writeEffectLocals = new ArrayList<>();
+
+    /** The signatures of {@link JimpleInjector#writeEffectLocals}, separated by ';'. */
+    private static String writeEffectTable = "";
+
+    // </editor-fold>
+
+    // <editor-fold desc="Check Sites">
+
+    /**
+     * The index of every unit of the actual method-body before
+     * instrumentation. Together with the method and the name of a check, it
+     * identifies a site of the {@link CheckSites}.
+     */
+    private static Map<Unit, Integer> unitIndex = new HashMap<>();
+
+    // </editor-fold>
+
     /** Logger */
     private static Logger logger = Logger.getLogger(JimpleInjector.class.getName());;
 
@@ -94,9 +178,12 @@ public class JimpleInjector {
      * @param pos   Statement / Unit where to insert setReturnLevelAfterInvokeStmt
      */
     public static void setReturnLevelAfterInvokeStmt(Local l, Unit pos) {
-        Unit invoke = fac.createStmt("setReturnLevelAfterInvokeStmt", StringConstant.v(getSignatureForLocal(l)));
         // only add setReturnLevelAfterInvokeStmt if the left side is dynamic
         if ( varTyping.getAfter(instantiation, (Stmt) pos, (Local) ((JAssignStmt) pos).leftBox.getValue() ).isDynamic() ) {
+            Unit invoke = InstrumentationMode.labelLocals
+                          ? Jimple.v().newAssignStmt(labelOf(l), fac.createExpr("joinReturnLevelWithLabel", labelOf(l),
+                                                                                   StringConstant.v(getSignatureForLocal(l))))
+                          : fac.createStmt("setReturnLevelAfterInvokeStmt", StringConstant.v(getSignatureForLocal(l)));
             units.insertAfter(invoke, pos);
         }
     }
@@ -112,6 +199,12 @@ public class JimpleInjector {
         units = b.getUnits();
         locals = b.getLocals();
         originalLocals = new ArrayList<>(locals);
+        labelLocals = new HashMap<>();
+        cloneInvokes = new HashMap<>();
+        unitIndex = new HashMap<>();
+        for (Unit u : units) {
+            unitIndex.put(u, unitIndex.size());
+        }
 
         lastPos = getUnitOf(units, getStartPos(body));
         fac.initialise();
@@ -120,21 +213,19 @@ public class JimpleInjector {
     // <editor-fold desc="HandleStmt Related Methods">
 
     /**
-     * Creates the Local hs in Jimple Code,
-     * assigns "hs = new HandleStmt()" and invokes the Constructor within the
-     * created Jimple Code.
+     * Creates the Local hs in Jimple Code and
+     * assigns "hs = HandleStmt.enter()" within the created Jimple Code.
      */
     static void invokeHS() {
         logger.info("Invoke HandleStmt in method " + b.getMethod().getName());
 
         locals.add(hs);
-        Unit in = Jimple.v().newAssignStmt(hs, Jimple.v().newNewExpr(
-                RefType.v(HANDLE_CLASS)));
+        // hs = HandleStmt.enter(), which reuses a frame of the current thread
+        Unit in = Jimple.v().newAssignStmt(hs, fac.createExpr("enter"));
 
-        Unit inv = fac.createStmt(HandleStmt.class.getName());
-
-        units.insertBefore(Arrays.asList(in, inv), lastPos);
-        lastPos = inv;
+        units.insertBefore(in, lastPos);
+        labelInitPos = in;
+        lastPos = in;
     }
 
     /**
@@ -156,7 +247,9 @@ public class JimpleInjector {
     }
 
     /**
-     * Inserts {@link HandleStmt#init()}.
+     * Inserts {@link HandleStmt#init()}, {@link HandleStmt#enableAudit()}
+     * if {@link DynamicPolicy#audit} is selected, and
+     * {@link HandleStmt#enableProfile(String)} in a profiling build.
      */
     static void initHS() {
         logger.info("Initializing HandleStmt in method: " + b.getMethod().getName());
@@ -165,6 +258,18 @@ public class JimpleInjector {
 
         units.insertAfter(init, lastPos);
         lastPos = init;
+
+        if (DynamicPolicy.audit) {
+            Unit audit = fac.createStmt("enableAudit");
+            units.insertAfter(audit, lastPos);
+            lastPos = audit;
+        }
+
+        if (CheckSites.isProfiling()) {
+            Unit profile = fac.createStmt("enableProfile", StringConstant.v(CheckSites.getProfile().getPath()));
+            units.insertAfter(profile, lastPos);
+            lastPos = profile;
+        }
     }
 
     /**
@@ -198,7 +303,8 @@ public class JimpleInjector {
     }
 
     /**
-     * Inserts {@link HandleStmt#setLocalFromString(String, String)} into the Jimple Code
+     * Inserts {@link HandleStmt#setLocalToLevel(String, Object)} into the Jimple Code,
+     * or {@link HandleStmt#labelFromLevel(String, Object)}, if the levels are kept in label locals.
      *
      * @param local local The Local with level shall be adjusted.
      * @param level the level to assign to the local
@@ -209,12 +315,24 @@ public class JimpleInjector {
 
         String signature = getSignatureForLocal(local);
 
-        Unit setLevelOfL = fac.createStmt("setLocalFromString",
-                                          StringConstant.v(signature),
-                                          StringConstant.v(level));
-
-        units.insertAfter(setLevelOfL, pos);
-        lastPos = setLevelOfL;
+        if (InstrumentationMode.labelLocals) {
+            Unit loadLevel = loadLevelConstant(level);
+            Unit setLabelOfL = Jimple.v().newAssignStmt(labelOf(local),
+                                                        fac.createExpr("labelFromLevel",
+                                                                       StringConstant.v(signature),
+                                                                       local_for_Labels));
+            units.insertAfter(loadLevel, pos);
+            units.insertAfter(setLabelOfL, loadLevel);
+            lastPos = setLabelOfL;
+        } else {
+            Unit loadLevel = loadLevelConstant(level);
+            Unit setLevelOfL = fac.createStmt("setLocalToLevel",
+                                              StringConstant.v(signature),
+                                              local_for_Labels);
+            units.insertAfter(loadLevel, pos);
+            units.insertAfter(setLevelOfL, loadLevel);
+            lastPos = setLevelOfL;
+        }
     }
 
     // </editor-fold>
@@ -222,76 +340,7 @@ public class JimpleInjector {
     // <editor-fold desc="Add To Object Map - Methods">
 
     /**
-     * Inserts a call of {@link HandleStmt#addObjectToObjectMap(Object)}
-     *
-     * Add the instance of the actual class-object to the object map.
-     * This is only done in "init".
-     */
-    static void addInstanceObjectToObjectMap() {
-        logger.info("Add object "+units.getFirst().getUseBoxes().get(0).getValue()+" to ObjectMap in method "+ b.getMethod().getName());
-        assureThisRef();
-        Unit assignExpr = fac.createStmt("addObjectToObjectMap", units.getFirst().getDefBoxes().get(0).getValue());
-        units.insertAfter(assignExpr, lastPos);
-        lastPos = assignExpr;
-    }
-
-    /**
-     * Inserts a call of {@link HandleStmt#addObjectToObjectMap(Object)}, what is
-     * needed for static fields
-     *
-     * @param sc The SootClass that represents the Class that provides the static field
-     */
-    static void addClassObjectToObjectMap(SootClass sc) {
-        logger.info("Add object "+sc.getName()+" to ObjectMap in method " + b.getMethod().getName());
-        Unit assignExpr = fac.createStmt("addObjectToObjectMap", ClassConstant.v(sc.getName().replace(".", "/")));
-        units.insertAfter(assignExpr, lastPos);
-        lastPos = assignExpr;
-    }
-
-    /**
-     * Inserts {@link HandleStmt#addFieldToObjectMap(Object, String)}
-     *
-     * @param field The Field that shall be added to the Object Map.
-     */
-    static void addInstanceFieldToObjectMap(SootField field) {
-        logger.info("Adding field "+field.getSignature()+" to ObjectMap in method " + b.getMethod().getName());
-
-        assureThisRef();
-
-        String fieldSignature = getSignatureForField(field);
-        Value tmpLocal =  units.getFirst().getDefBoxes().get(0).getValue();
-
-        // Todo: is that the same? All tests passing...-> Write Test, that fails, because it is wrong...
-        // tmpLocal = ClassConstant.v(field.getDeclaringClass().getName().replace(".", "/"));
-
-        Unit assignExpr = fac.createStmt("addFieldToObjectMap", tmpLocal, StringConstant.v(fieldSignature));
-
-        units.insertAfter(assignExpr, lastPos);
-        lastPos = assignExpr;
-    }
-
-    /**
-     * Inserts {@link HandleStmt#addFieldToObjectMap(Object, String)}
-     *
-     * @param field The Field that shall be added to the Object Map.
-     */
-    // Todo: May be the same as addInstanceField, difference could be figured out by field.isStatic() ?!
-    static void addStaticFieldToObjectMap(SootField field) {
-        logger.info("Adding static Field " + field + " to Object Map in method "+b.getMethod().getName());
-
-        String signature = getSignatureForField(field);
-        SootClass sc = field.getDeclaringClass();
-
-        Unit assignExpr = fac.createStmt("addFieldToObjectMap",
-                                    ClassConstant.v(sc.getName().replace(".", "/")),
-                                    StringConstant.v(signature));
-
-        units.insertAfter(assignExpr, lastPos);
-        lastPos = assignExpr;
-    }
-
-    /**
-     * Inserts {@link HandleStmt#addArrayToObjectMap(Object[])} call into the Jimple Code.
+     * Inserts {@link HandleStmt#addArrayToObjectMap(Object)} call into the Jimple Code.
      *
      * @param a   The Local where the array is stored.
      * @param pos Unit where the array occurs, after that position the invoke Stmt will be inserted.
@@ -325,7 +374,9 @@ public class JimpleInjector {
 
         String signature = getSignatureForLocal(local);
 
-        Unit invoke = fac.createStmt("joinLevelOfLocalAndAssignmentLevel", StringConstant.v(signature));
+        Unit invoke = InstrumentationMode.labelLocals
+                      ? fac.createStmt("joinLevelOfLocalLabelAndAssignmentLevel", labelOf(local))
+                      : fac.createStmt("joinLevelOfLocalAndAssignmentLevel", StringConstant.v(signature));
 
         // only insert the joinLevelOfLocal.. stmt if local is in fact dynamically checked
         // TODO CX is irrelevant here?
@@ -346,6 +397,17 @@ public class JimpleInjector {
     public static void addLevelInAssignStmt(InstanceFieldRef f, Unit pos) {
         logger.info("Adding level of field "+f.getField().getSignature()+" in assignStmt in method "+  b.getMethod().getName());
 
+        SootField labelField = getLabelField(f.getField());
+        if (labelField != null) {
+            // The level is stored next to the field, so we just load it and pass it.
+            Unit loadLabel = Jimple.v().newAssignStmt(local_for_Labels,
+                                                      Jimple.v().newInstanceFieldRef(f.getBase(), labelField.makeRef()));
+            Unit joinLabel = fac.createStmt("joinLevelOfFieldLabelAndAssignmentLevel", local_for_Labels);
+            units.insertBefore(Arrays.asList(loadLabel, joinLabel), pos);
+            lastPos = pos;
+            return;
+        }
+
         String fieldSignature = getSignatureForField(f.getField());
 
         Unit assignExpr = fac.createStmt("joinLevelOfFieldAndAssignmentLevel", f.getBase(), StringConstant.v(fieldSignature));
@@ -385,7 +447,7 @@ public class JimpleInjector {
 
     /**
      * Add the level of a read array field to the security-level-list.
-     * Inserts {@link HandleStmt#joinLevelOfArrayFieldAndAssignmentLevel(Object, String)} into Jimple Code
+     * Inserts {@link HandleStmt#joinLevelOfArrayElementAndAssignmentLevel(Object, int)} into Jimple Code
      *
      * @param a   -ArrayRef- The referenced array field
      * @param pos -Unit- The position where this reference occurs
@@ -393,9 +455,9 @@ public class JimpleInjector {
     public static void addLevelInAssignStmt(ArrayRef a, Unit pos) {
         logger.info("Add Level of Array " + a + " in assign stmt: "+pos);
 
-        String signature = getSignatureForArrayField(a);
+        Value index = getIndexForArrayField(a);
 
-        Unit assignExpr = fac.createStmt("joinLevelOfArrayFieldAndAssignmentLevel", a.getBase(), StringConstant.v(signature));
+        Unit assignExpr = fac.createStmt("joinLevelOfArrayElementAndAssignmentLevel", a.getBase(), index);
 
         // TODO CANNOT CAST ...
         //if (varTyping.getAfter(instantiation, (Stmt) pos, (Local) a).isDynamic()) {
@@ -422,7 +484,10 @@ public class JimpleInjector {
 
         // insert setLocalToCurrentAssingmentLevel, which accumulates the PC and the right-hand side of the assign stmt.
         // The local's sec-value is then set to that sec-value.
-        Unit invoke = fac.createStmt("setLocalToCurrentAssingmentLevel", StringConstant.v(signature));
+        Unit invoke = InstrumentationMode.labelLocals
+                      ? Jimple.v().newAssignStmt(labelOf(l), fac.createExpr("setLocalLabelToCurrentAssignmentLevel",
+                                                                               StringConstant.v(signature)))
+                      : fac.createStmt("setLocalToCurrentAssingmentLevel", StringConstant.v(signature));
 
         Stmt stmt = (Stmt) pos;
         de.unifreiburg.cs.proglang.jgs.instrumentation.Type typeBefore = varTyping.getBefore(instantiation, stmt, l);
@@ -432,7 +497,9 @@ public class JimpleInjector {
         // Also, if the variable to update is public, the PC should be "bottom"
         Unit checkLocalPCExpr = typeBefore.isPublic()
                                 ? fac.createStmt("checkNonSensitiveLocalPC")
-                                : fac.createStmt("checkLocalPC", StringConstant.v(signature));
+                                : InstrumentationMode.labelLocals
+                                  ? fac.createStmt("checkLocalPCWithLabel", labelOf(l), StringConstant.v(signature))
+                                  : fac.createStmt("checkLocalPC", StringConstant.v(signature));
 
         // TODO i did comment this out for some reason .. but why?
         // if variable l is not dynamic after stmt pos,
@@ -441,7 +508,13 @@ public class JimpleInjector {
         if (varTyping.getAfter(instantiation, (Stmt) pos, l).isDynamic()) {
             // insert NSU check only if PC is dynamic!
             if (cxTyping.get(instantiation, (Stmt) pos).isDynamic()) {
-                units.insertBefore(checkLocalPCExpr, pos);
+                List<Unit> check = Collections.singletonList(checkLocalPCExpr);
+                // the check of an untracked local is skipped anyway
+                if (InstrumentationMode.labelLocals && !typeBefore.isPublic()) {
+                    check = withBottomFastPath(pos, labelOf(l), check, checkLocalPCExpr);
+                }
+                units.insertBefore(check, pos);
+                countSite(pos, checkLocalPCExpr, check.get(0));
             }
             units.insertBefore(invoke, pos);
         }
@@ -466,7 +539,9 @@ public class JimpleInjector {
 
         // push and pop security level of instance to globalPC
         Unit pushInstanceLevelToGlobalPC
-                = fac.createStmt("pushInstanceLevelToGlobalPC",
+                = InstrumentationMode.labelLocals
+                  ? fac.createStmt("pushInstanceLabelToGlobalPC", labelOf(tmpLocal))
+                  : fac.createStmt("pushInstanceLevelToGlobalPC",
                                            StringConstant.v(getSignatureForLocal(tmpLocal)));
 
 
@@ -482,16 +557,36 @@ public class JimpleInjector {
         // and right-hand side of assign stmt sec-value join
         Unit assignExpr = fac.createStmt( "setLevelOfField", tmpLocal, StringConstant.v(fieldSignature));
 
+        SootField labelField = getLabelField(f.getField());
+        List<Unit> checkGlobalPC = Collections.singletonList(checkGlobalPCExpr);
+        List<Unit> setLevel = Collections.singletonList(assignExpr);
+        if (labelField != null) {
+            // Same as above, but the level is read from and written to the label field:
+            // local_for_Labels = base.<label>; hs.checkGlobalPCWithFieldLabel(local_for_Labels, field);
+            // local_for_Labels = hs.setLevelOfFieldLabel(field); base.<label> = local_for_Labels;
+            InstanceFieldRef labelRef = Jimple.v().newInstanceFieldRef(tmpLocal, labelField.makeRef());
+            checkGlobalPC = Arrays.asList(
+                    Jimple.v().newAssignStmt(local_for_Labels, labelRef),
+                    fac.createStmt("checkGlobalPCWithFieldLabel", local_for_Labels, StringConstant.v(fieldSignature)));
+            setLevel = Arrays.asList(
+                    Jimple.v().newAssignStmt(local_for_Labels,
+                                             fac.createExpr("setLevelOfFieldLabel", StringConstant.v(fieldSignature))),
+                    Jimple.v().newAssignStmt(Jimple.v().newInstanceFieldRef(tmpLocal, labelField.makeRef()),
+                                             local_for_Labels));
+        }
+
         // pushInstanceLevelToGlobalPC and popGlobalPC take the instance, push to global pc; and pop afterwards.
         // see NSU_FieldAccess tests why this is needed
         units.insertBefore(pushInstanceLevelToGlobalPC, pos);
 
         // only if context ist dynamic / pc is dynamc
         if (cxTyping.get(instantiation, (Stmt) pos).isDynamic()) {
-            units.insertBefore(checkGlobalPCExpr, pos);
+            units.insertBefore(checkGlobalPC, pos);
+            countSite(pos, checkGlobalPC.get(checkGlobalPC.size() - 1), checkGlobalPC.get(0));
         }
 
-        units.insertBefore(Arrays.asList(assignExpr, popGlobalPC), pos);
+        units.insertBefore(setLevel, pos);
+        units.insertBefore(popGlobalPC, pos);
         lastPos = pos;
     }
 
@@ -521,6 +616,7 @@ public class JimpleInjector {
 
         if (cxTyping.get(instantiation, (Stmt) pos).isDynamic()) {
             units.insertBefore(checkGlobalPCExpr, pos);
+            countSite(pos, checkGlobalPCExpr, checkGlobalPCExpr);
         }
 
         units.insertBefore(assignExpr, pos);
@@ -532,7 +628,8 @@ public class JimpleInjector {
      * distinguishes two cases, one case where the index of the referenced array-field
      * is a constant number and the other case, where the index is stored in a local variable.
      * In the second case, the signature of the local variable also must be passed as an
-     * argument to {@link analyzer.level2.HandleStmt#setLevelOfArrayField} .
+     * argument to {@link analyzer.level2.HandleStmt#checkArrayElementWithGlobalPC} .
+     * The element is identified by the value of the index at run time.
      *
      * @param a   -ArrayRef. The reference to the array-field
      * @param pos -Unit- The assignStmt in the analyzed methodTypings body, where this
@@ -541,33 +638,26 @@ public class JimpleInjector {
     public static void setLevelOfAssignStmt(ArrayRef a, Unit pos) {
         logger.info("Set level of array " + a.toString() + " in assign stmt");
 
-        String signatureForField = getSignatureForArrayField(a);
+        Value index = getIndexForArrayField(a);
         String signatureForObjectLocal = getSignatureForLocal((Local) a.getBase());
 
-        // List for the arguments for HandleStmt.setLevelOfArrayField()
+        // List for the arguments for HandleStmt.checkArrayElementWithGlobalPC()
         List<Value> args = new ArrayList<>();
         args.add(a.getBase());
-
-        // Store all string-arguments in locals for strings and assign the locals to the
-        // argument list.
-
-
-
-
-        args.add(StringConstant.v(signatureForField));
+        args.add(index);
         args.add(StringConstant.v(signatureForObjectLocal));
 
 
         if (!(a.getIndex() instanceof Local)) {
             // Case where the index is a constant.
-            // The needed arguments are "Object o, String field, String localForObject".
+            // The needed arguments are "Object o, int index, String localForObject".
 
             logger.fine("Index value for the array field is a constant value");
 
         } else if (a.getIndex() instanceof Local) {
             // The index is a local and must be given as a parameter.
             // The needed arguments are
-            // "Object o, String field, String localForObject, String localForIndex".
+            // "Object o, int index, String localForObject, String localForIndex".
 
             logger.fine("Index value for the array field is stored in a local");
             // add a further parameter type for String localForIndex and
@@ -576,18 +666,349 @@ public class JimpleInjector {
             args.add(StringConstant.v(localSignature));
         }
 
-        // checkArrayWithGlobalPC
-        Unit checkArrayGlobalPCExpr = fac.createStmt("checkArrayWithGlobalPC", args.toArray(new Value[0]));
+        // checkArrayElementWithGlobalPC
+        Unit checkArrayGlobalPCExpr = fac.createStmt("checkArrayElementWithGlobalPC", args.toArray(new Value[0]));
+        if (InstrumentationMode.labelLocals) {
+            // The same check, but the levels of the locals are passed as labels
+            List<Value> labelArgs = new ArrayList<>();
+            labelArgs.add(a.getBase());
+            labelArgs.add(index);
+            labelArgs.add(StringConstant.v(signatureForObjectLocal));
+            labelArgs.add(labelOf((Local) a.getBase()));
+            if (a.getIndex() instanceof Local) {
+                labelArgs.add(labelOf((Local) a.getIndex()));
+            }
+            checkArrayGlobalPCExpr = fac.createStmt("checkArrayLabelsWithGlobalPC", labelArgs.toArray(new Value[0]));
+        }
 
-        // setLevelOfArrayField
-        Unit assignExpr = fac.createStmt("setLevelOfArrayField", args.toArray(new Value[0]));
+        // setLevelOfArrayElement
+        Unit assignExpr = fac.createStmt("setLevelOfArrayElement", a.getBase(), index);
 
         units.insertBefore(Arrays.asList(checkArrayGlobalPCExpr, assignExpr), pos);
+        countSite(pos, checkArrayGlobalPCExpr, checkArrayGlobalPCExpr);
         lastPos = pos;
     }
 
     // </editor-fold>
 
+    // <editor-fold desc="Fused Assign Stmts">
+
+    /**
+     * Instruments an assign statement of a common shape by a single call of
+     * a fused method of {@link HandleStmt}, instead of the joins, checks and
+     * updates, that are inserted by addLevelInAssignStmt and
+     * setLevelOfAssignStmt. The shapes are:
+     * <ul>
+     *     <li>a local from locals and constants, e.g. <code>x = a + b</code>,
+     *     see {@link HandleStmt#assignLocal(String, String, String, int)}</li>
+     *     <li>a local from a field with a label field, e.g. <code>x = o.f</code>,
+     *     see {@link HandleStmt#assignLocalFromFieldLabel(String, Object, String, int)}</li>
+     *     <li>a field with a label field from a local or a constant, e.g. <code>o.f = x</code>,
+     *     see {@link HandleStmt#assignFieldLabel(String, Object, String, String, boolean)}</li>
+     *     <li>an array element from a dynamic local, e.g. <code>a[i] = x</code>,
+     *     see {@link HandleStmt#assignArrayElement(Object, int, String, String, String)}</li>
+     * </ul>
+     * Statements, whose left-hand side is a local with a static type, are not
+     * fused, such that they are instrumented exactly as before.
+     *
+     * @param stmt the assign statement
+     * @return true, if the statement was instrumented. Otherwise nothing was inserted.
+     */
+    public static boolean fuseAssignStmt(AssignStmt stmt) {
+        if (DynamicPolicy.selected != DynamicPolicy.Policy.NSU_POLICY) {
+            return false;
+        }
+        Value left = stmt.getLeftOp();
+        Value right = stmt.getRightOp();
+
+        List<Unit> fused = null;
+        if (left instanceof Local) {
+            if (right instanceof InstanceFieldRef) {
+                fused = fuseLocalFromField((Local) left, (InstanceFieldRef) right, stmt);
+            } else {
+                List<Local> sources = dynamicSources(right, stmt);
+                if (sources != null && sources.size() <= 2) {
+                    fused = fuseLocalFromLocals((Local) left, sources, stmt);
+                }
+            }
+        } else if (left instanceof InstanceFieldRef) {
+            List<Local> sources = dynamicSources(right, stmt);
+            if (sources != null && sources.size() <= 1 && !(right instanceof Expr)) {
+                fused = fuseFieldFromLocal((InstanceFieldRef) left, sources, stmt);
+            }
+        } else if (left instanceof ArrayRef && right instanceof Local) {
+            List<Local> sources = dynamicSources(right, stmt);
+            if (sources != null && sources.size() == 1) {
+                fused = fuseArrayStore((ArrayRef) left, sources.get(0), stmt);
+            }
+        }
+
+        if (fused == null) {
+            return false;
+        }
+        logger.info("Fused instrumentation of assign statement " + stmt);
+        units.insertBefore(fused, stmt);
+        for (Unit u : fused) {
+            if (((Stmt) u).containsInvokeExpr()) {
+                countSite(stmt, u, fused.get(0));
+            }
+        }
+        lastPos = stmt;
+        return true;
+    }
+
+    /**
+     * Gets the locals of the right-hand side, whose levels are dynamic.
+     *
+     * @return the dynamic locals, or null if the right-hand side is no local,
+     * constant or arithmetic operation on them.
+     */
+    private static List<Local> dynamicSources(Value right, Stmt pos) {
+        List<Value> operands;
+        if (right instanceof Local || right instanceof Constant) {
+            operands = Collections.singletonList(right);
+        } else if (right instanceof AddExpr || right instanceof SubExpr || right instanceof MulExpr
+                   || right instanceof DivExpr || right instanceof AndExpr || right instanceof OrExpr
+                   || right instanceof XorExpr || right instanceof ShlExpr || right instanceof ShrExpr
+                   || right instanceof UshrExpr) {
+            operands = Arrays.asList(((BinopExpr) right).getOp1(), ((BinopExpr) right).getOp2());
+        } else {
+            return null;
+        }
+        List<Local> sources = new ArrayList<>();
+        for (Value op : operands) {
+            if (op instanceof Local && varTyping.getAfter(instantiation, pos, (Local) op).isDynamic()) {
+                sources.add((Local) op);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * The NSU check, that setLevelOfAssignStmt would insert for the local.
+     */
+    private static IntConstant pcCheckFor(Local l, Stmt pos) {
+        if (!cxTyping.get(instantiation, pos).isDynamic()) {
+            return IntConstant.v(HandleStmt.PC_CHECK_NONE);
+        }
+        return IntConstant.v(varTyping.getBefore(instantiation, pos, l).isPublic()
+                             ? HandleStmt.PC_CHECK_PUBLIC : HandleStmt.PC_CHECK_LOCAL);
+    }
+
+    private static List<Unit> fuseLocalFromLocals(Local l, List<Local> sources, Stmt pos) {
+        if (!varTyping.getAfter(instantiation, pos, l).isDynamic()) {
+            return null;
+        }
+        List<Value> args = new ArrayList<>();
+        args.add(StringConstant.v(getSignatureForLocal(l)));
+        if (InstrumentationMode.labelLocals) {
+            args.add(labelOf(l));
+            for (Local source : sources) {
+                args.add(labelOf(source));
+            }
+            args.add(pcCheckFor(l, pos));
+            return Collections.singletonList(
+                    Jimple.v().newAssignStmt(labelOf(l), fac.createExpr("assignLocalLabel", args.toArray(new Value[0]))));
+        }
+        for (Local source : sources) {
+            args.add(StringConstant.v(getSignatureForLocal(source)));
+        }
+        args.add(pcCheckFor(l, pos));
+        return Collections.singletonList(fac.createStmt("assignLocal", args.toArray(new Value[0])));
+    }
+
+    private static List<Unit> fuseLocalFromField(Local l, InstanceFieldRef f, Stmt pos) {
+        SootField labelField = getLabelField(f.getField());
+        if (labelField == null || !varTyping.getAfter(instantiation, pos, l).isDynamic()) {
+            return null;
+        }
+        Local base = (Local) f.getBase();
+        boolean baseIsDynamic = varTyping.getAfter(instantiation, pos, base).isDynamic();
+        Unit loadLabel = Jimple.v().newAssignStmt(local_for_Labels,
+                                                  Jimple.v().newInstanceFieldRef(base, labelField.makeRef()));
+        List<Value> args = new ArrayList<>();
+        args.add(StringConstant.v(getSignatureForLocal(l)));
+        Unit invoke;
+        if (InstrumentationMode.labelLocals) {
+            // the label field is just another source
+            args.add(labelOf(l));
+            args.add(local_for_Labels);
+            if (baseIsDynamic) {
+                args.add(labelOf(base));
+            }
+            args.add(pcCheckFor(l, pos));
+            invoke = Jimple.v().newAssignStmt(labelOf(l), fac.createExpr("assignLocalLabel", args.toArray(new Value[0])));
+        } else {
+            args.add(local_for_Labels);
+            if (baseIsDynamic) {
+                args.add(StringConstant.v(getSignatureForLocal(base)));
+            }
+            args.add(pcCheckFor(l, pos));
+            invoke = fac.createStmt("assignLocalFromFieldLabel", args.toArray(new Value[0]));
+        }
+        return Arrays.asList(loadLabel, invoke);
+    }
+
+    private static List<Unit> fuseFieldFromLocal(InstanceFieldRef f, List<Local> sources, Stmt pos) {
+        SootField labelField = getLabelField(f.getField());
+        if (labelField == null) {
+            return null;
+        }
+        Local base = (Local) f.getBase();
+        List<Value> args = new ArrayList<>();
+        args.add(StringConstant.v(getSignatureForField(f.getField())));
+        args.add(local_for_Labels);
+        String method;
+        if (InstrumentationMode.labelLocals) {
+            method = "assignFieldLabelWithLabels";
+            args.add(labelOf(base));
+            for (Local source : sources) {
+                args.add(labelOf(source));
+            }
+        } else {
+            method = "assignFieldLabel";
+            args.add(StringConstant.v(getSignatureForLocal(base)));
+            for (Local source : sources) {
+                args.add(StringConstant.v(getSignatureForLocal(source)));
+            }
+        }
+        args.add(BoolConstant.v(cxTyping.get(instantiation, pos).isDynamic()));
+
+        // local_for_Labels = base.<label>; local_for_Labels = hs.assignFieldLabel(..); base.<label> = local_for_Labels;
+        InstanceFieldRef labelRef = Jimple.v().newInstanceFieldRef(base, labelField.makeRef());
+        return Arrays.asList(
+                Jimple.v().newAssignStmt(local_for_Labels, labelRef),
+                Jimple.v().newAssignStmt(local_for_Labels, fac.createExpr(method, args.toArray(new Value[0]))),
+                Jimple.v().newAssignStmt(Jimple.v().newInstanceFieldRef(base, labelField.makeRef()), local_for_Labels));
+    }
+
+    private static List<Unit> fuseArrayStore(ArrayRef a, Local source, Stmt pos) {
+        Local base = (Local) a.getBase();
+        Value index = getIndexForArrayField(a);
+        List<Value> args = new ArrayList<>();
+        args.add(base);
+        args.add(index);
+        if (InstrumentationMode.labelLocals) {
+            args.add(StringConstant.v(getSignatureForLocal(base)));
+            args.add(labelOf(base));
+            if (index instanceof Local) {
+                args.add(labelOf((Local) index));
+            }
+            args.add(labelOf(source));
+            return Collections.singletonList(fac.createStmt("assignArrayElementWithLabels", args.toArray(new Value[0])));
+        }
+        args.add(StringConstant.v(getSignatureForLocal(base)));
+        if (index instanceof Local) {
+            args.add(StringConstant.v(getSignatureForLocal((Local) index)));
+        }
+        args.add(StringConstant.v(getSignatureForLocal(source)));
+        return Collections.singletonList(fac.createStmt("assignArrayElement", args.toArray(new Value[0])));
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Bulk Array Operations">
+
+    /**
+     * Instruments <code>System.arraycopy(src, srcPos, dest, destPos, length)</code>.
+     * Inserts {@link HandleStmt#checkArrayCopyWithGlobalPC(Object, int, int, String)} and
+     * {@link HandleStmt#arraycopyLevels(Object, int, Object, int, int)}, such that
+     * the levels of the copied range are copied by one call.
+     *
+     * @param pos  the invoke statement
+     * @param args the arguments of the call
+     */
+    public static void arraycopy(Unit pos, List<Value> args) {
+        Value src = args.get(0), srcPos = args.get(1), dest = args.get(2),
+              destPos = args.get(3), length = args.get(4);
+        if (!(src instanceof Local) || !(dest instanceof Local)) {
+            // a null array: the call throws, so the levels are not changed
+            return;
+        }
+        logger.info("Copy levels of array elements at " + pos);
+        joinLevelsInAssignStmt(pos, dest, destPos, length);
+        Unit check = fac.createStmt("checkArrayCopyWithGlobalPC", dest, destPos, length,
+                                    StringConstant.v(getSignatureForLocal((Local) dest)));
+        units.insertBefore(check, pos);
+        countSite(pos, check, check);
+        joinLevelsInAssignStmt(pos, src, srcPos, length);
+        units.insertBefore(fac.createStmt("arraycopyLevels", src, srcPos, dest, destPos, length), pos);
+        lastPos = pos;
+    }
+
+    /**
+     * Instruments <code>Arrays.fill(a, x)</code> and <code>Arrays.fill(a, from, to, x)</code>.
+     * Inserts {@link HandleStmt#checkArrayRangeWithGlobalPC(Object, int, int, String)} and
+     * {@link HandleStmt#fillArrayLevels(Object, int, int)}, or their variants for
+     * the whole array.
+     *
+     * @param pos  the invoke statement
+     * @param args the arguments of the call
+     */
+    public static void fillArray(Unit pos, List<Value> args) {
+        Value array = args.get(0);
+        if (!(array instanceof Local)) {
+            return;
+        }
+        logger.info("Fill levels of array elements at " + pos);
+        Value signature = StringConstant.v(getSignatureForLocal((Local) array));
+        Value value = args.get(args.size() - 1);
+        Unit check;
+        if (args.size() == 2) {
+            joinLevelsInAssignStmt(pos, array);
+            check = fac.createStmt("checkArrayRangeWithGlobalPC", array, signature);
+            units.insertBefore(check, pos);
+            countSite(pos, check, check);
+            joinLevelsInAssignStmt(pos, value);
+            units.insertBefore(fac.createStmt("fillArrayLevels", array), pos);
+        } else {
+            Value from = args.get(1), to = args.get(2);
+            joinLevelsInAssignStmt(pos, array, from, to);
+            check = fac.createStmt("checkArrayRangeWithGlobalPC", array, from, to, signature);
+            units.insertBefore(check, pos);
+            countSite(pos, check, check);
+            joinLevelsInAssignStmt(pos, value, from, to);
+            units.insertBefore(fac.createStmt("fillArrayLevels", array, from, to), pos);
+        }
+        lastPos = pos;
+    }
+
+    /**
+     * Instruments an assign statement, that copies an array into a new array,
+     * like <code>b = Arrays.copyOf(a, n)</code>, <code>b = Arrays.copyOfRange(a, from, to)</code>
+     * or <code>b = a.clone()</code>. Inserts {@link HandleStmt#copyOfArrayLevels(Object, int, Object)}
+     * after the statement. The level of <code>b</code> itself is set like for
+     * every other assignment.
+     *
+     * @param pos      the statement
+     * @param original the copied array
+     * @param from     the index of the first copied element
+     */
+    public static void copyOfArray(Unit pos, Value original, Value from) {
+        if (!(pos instanceof AssignStmt) || !(((AssignStmt) pos).getLeftOp() instanceof Local)
+            || !(original instanceof Local)) {
+            // the copy is not kept, so there are no levels to set
+            return;
+        }
+        logger.info("Copy levels of array elements to a new array at " + pos);
+        Local copy = (Local) ((AssignStmt) pos).getLeftOp();
+        units.insertAfter(fac.createStmt("copyOfArrayLevels", original, from, copy), pos);
+        lastPos = pos;
+    }
+
+    /**
+     * Joins the levels of the given values, that are locals, to the assignment-level.
+     */
+    private static void joinLevelsInAssignStmt(Unit pos, Value... values) {
+        for (Value v : values) {
+            if (v instanceof Local) {
+                addLevelInAssignStmt((Local) v, pos);
+            }
+        }
+    }
+
+    // </editor-fold>
+
     // <editor-fold desc="Assign Stmt - Method -> Interesting for Identity Stmt">
 
     /**
@@ -605,12 +1026,26 @@ public class JimpleInjector {
     public static void assignArgumentToLocal(int posInArgList, Local local) {
         logger.info("Assign argument level to local " + local);
 
-        Unit assignExpr = fac.createStmt("assignArgumentToLocal",
-                                    IntConstant.v(posInArgList),
-                                    StringConstant.v(getSignatureForLocal(local)));
+        // The label parameters of a label-passing clone are read by the parameters they belong to.
+        boolean isClone = LabelPassing.isClone(b.getMethod());
+        if (isClone && posInArgList >= LabelPassing.originalParameterCount(b.getMethod())) {
+            return;
+        }
 
         // only assign Argument to Local if Argument is of Dynamic Type
         if (instantiation.get(posInArgList).isDynamic()) {
+            Unit assignExpr = InstrumentationMode.labelLocals && isClone
+                              ? Jimple.v().newAssignStmt(labelOf(local),
+                                                         fac.createExpr("assignLabelParameter",
+                                                                        LabelPassing.labelParameter(b, posInArgList),
+                                                                        StringConstant.v(getSignatureForLocal(local))))
+                              : InstrumentationMode.labelLocals
+                              ? Jimple.v().newAssignStmt(labelOf(local),
+                                                         fac.createExpr("assignArgumentToLabel", IntConstant.v(posInArgList),
+                                                                        StringConstant.v(getSignatureForLocal(local))))
+                              : fac.createStmt("assignArgumentToLocal",
+                                               IntConstant.v(posInArgList),
+                                               StringConstant.v(getSignatureForLocal(local)));
             units.insertAfter(assignExpr, lastPos);
             lastPos = assignExpr;
         }
@@ -634,9 +1069,10 @@ public class JimpleInjector {
     public static void returnLocal(Local l, Unit pos) {
         logger.info("Return Local "+ getSignatureForLocal(l));
 
-        Stmt returnL = fac.createStmt("returnLocal", StringConstant.v(getSignatureForLocal(l)));
-
         if (instantiation.getReturn().isDynamic()) {
+            Stmt returnL = InstrumentationMode.labelLocals
+                           ? fac.createStmt("returnLabel", labelOf(l))
+                           : fac.createStmt("returnLocal", StringConstant.v(getSignatureForLocal(l)));
             units.insertBefore(returnL, pos);
             lastPos = pos;
         }
@@ -645,8 +1081,11 @@ public class JimpleInjector {
     //</editor-fold>
 
     /**
-     * Store the levels of all arguments in a list in ObjectMap. If an
-     * argument is a constant, then the argument is stored as "DEFAULT_LOW".
+     * Store the levels of all arguments in the argument registers of the
+     * monitor. The registers are first set to bottom by
+     * {@link HandleStmt#beginArguments(int)}, which is the level of constants
+     * and of arguments with a static type. Then the level of each dynamic
+     * argument is stored into its register, so no array is created.
      *
      * @param pos        position of actual statement
      * @param lArguments list of arguments
@@ -662,65 +1101,72 @@ public class JimpleInjector {
 
         int length = lArguments.length;
 
-        ArrayList<Type> parameterTypes = new ArrayList<>();
-        parameterTypes.add(ArrayType.v(RefType.v("java.lang.String"), 1));
-
-        Expr paramArray = Jimple.v().newNewArrayExpr(RefType.v(
-                "java.lang.String"), IntConstant.v(length));
+        List<Unit> stores = new ArrayList<>();
+        stores.add(fac.createStmt("beginArguments", IntConstant.v(length)));
 
-        Unit assignNewStringArray = Jimple.v().newAssignStmt(
-                local_for_String_Arrays, paramArray);
-
-        Unit[] tmpUnitArray = new Unit[length];
-
-        boolean dynamicArgsExist = false;
+        // Constants (null) are bottom, like static arguments. Yet the registers
+        // are set, if there is a constant, such that the callee does not see the
+        // arguments of a former call.
+        boolean dynamicArgsExist = InstrumentationMode.labelLocals;
         for (int i = 0; i < length; i++) {
-
-            // This results in code like: local_for_String_Arrays[0] = "boolean_z0";
-            // for each local that is given as an argument, jimple code is injected that assings this local to a slot
-            // in a vector. This vector is given to the HandleStmt.storeArgumentLevels method.
-            // It's possible to get a null vector as an argument. This happens,
-            // if a constant is set as argument.
-            if (lArguments[i] != null && varTyping.getBefore(instantiation, (Stmt) pos, lArguments[i]).isDynamic()) {
-                String signature = getSignatureForLocal(lArguments[i]);
-                tmpUnitArray[i] = Jimple.v().newAssignStmt(Jimple.v().newArrayRef(
-                        local_for_String_Arrays, IntConstant.v(i)),
-                        StringConstant.v(signature));
+            if (lArguments[i] == null) {
+                dynamicArgsExist = true;
+            } else if (varTyping.getBefore(instantiation, (Stmt) pos, lArguments[i]).isDynamic()) {
+                // This results in code like: hs.setArgumentLevel(0, "boolean_z0");
+                stores.add(InstrumentationMode.labelLocals
+                           ? fac.createStmt("setArgumentLabel", IntConstant.v(i), labelOf(lArguments[i]))
+                           : fac.createStmt("setArgumentLevel", IntConstant.v(i),
+                                            StringConstant.v(getSignatureForLocal(lArguments[i]))));
                 dynamicArgsExist = true;
-                // else if () ..
-
-            } else if (lArguments[i] != null && ! varTyping.getBefore(instantiation, (Stmt) pos, lArguments[i]).isDynamic()) {
-                tmpUnitArray[i] = null;
-            } else {
-                // if arguments are all constants
-                tmpUnitArray[i] = Jimple.v().newAssignStmt(Jimple.v().newArrayRef(
-                        local_for_String_Arrays, IntConstant.v(i)),
-                        StringConstant.v("DEFAULT_LOW"));
-                dynamicArgsExist = true;        // this is neccessary, else VerifyError ...?
             }
         }
 
-        Expr storeArgs = Jimple.v().newVirtualInvokeExpr(hs, Scene.v().makeMethodRef(
-                Scene.v().getSootClass(HANDLE_CLASS), "storeArgumentLevels",
-                parameterTypes, VoidType.v(), false), local_for_String_Arrays);
-        Stmt invokeStoreArgs = Jimple.v().newInvokeStmt(storeArgs);
-
-        // only store arguments if it's even neccessary (e.g. one of the arguments is public)
-        // if no argument is dynamic, don't even call storeArgumentLevels
-        if(dynamicArgsExist) {
-            units.insertBefore(assignNewStringArray, pos);
-        }
-        for (Unit el : tmpUnitArray) {
-            if (el != null) {
-                // if el.equals(null), the corresponding local is public. See loop above.
-                units.insertBefore(el, pos);
-            }
-        }
+        // if no argument is dynamic, don't even store the arguments
         if (dynamicArgsExist) {
-            units.insertBefore(invokeStoreArgs, pos);
+            units.insertBefore(stores, pos);
             lastPos = pos;
         }
+    }
 
+    /**
+     * Redirects a call to the label-passing clone of the invoked method, see
+     * {@link LabelPassing}. The labels of the arguments are appended to the
+     * arguments, instead of being stored in the argument registers. Constants
+     * and arguments with a static type get the label <code>null</code>,
+     * which is bottom.
+     * <p>
+     * The invoke expression is replaced in {@link JimpleInjector#addUnitsToChain()},
+     * because the statement is still visited, when this method is called.
+     *
+     * @param pos        the statement, that contains the invoke expression
+     * @param invoke     the invoke expression
+     * @param lArguments the arguments, null for constants
+     */
+    public static void invokeClone(Stmt pos, InvokeExpr invoke, Local... lArguments) {
+        SootMethodRef ref = invoke.getMethodRef();
+        logger.info("Invoke label-passing clone of " + ref.name() + " in method " + b.getMethod().getName());
+
+        List<Type> types = new ArrayList<>(ref.parameterTypes());
+        List<Value> args = new ArrayList<>(invoke.getArgs());
+        for (int i = 0; i < lArguments.length; i++) {
+            types.add(RefType.v("java.lang.Object"));
+            boolean dynamic = InstrumentationMode.labelLocals
+                              && lArguments[i] != null
+                              && varTyping.getBefore(instantiation, pos, lArguments[i]).isDynamic();
+            args.add(dynamic ? labelOf(lArguments[i]) : NullConstant.v());
+        }
+        SootMethodRef cloneRef = Scene.v().makeMethodRef(ref.declaringClass(),
+                                                         ref.name() + LabelPassing.CLONE_SUFFIX,
+                                                         types, ref.returnType(), ref.isStatic());
+        InvokeExpr cloneInvoke;
+        if (invoke instanceof StaticInvokeExpr) {
+            cloneInvoke = Jimple.v().newStaticInvokeExpr(cloneRef, args);
+        } else if (invoke instanceof SpecialInvokeExpr) {
+            cloneInvoke = Jimple.v().newSpecialInvokeExpr((Local) ((InstanceInvokeExpr) invoke).getBase(), cloneRef, args);
+        } else {
+            cloneInvoke = Jimple.v().newVirtualInvokeExpr((Local) ((InstanceInvokeExpr) invoke).getBase(), cloneRef, args);
+        }
+        cloneInvokes.put(pos, cloneInvoke);
     }
 
     public static void checkThatLe(Local l, String level, Unit pos) {
@@ -739,19 +1185,29 @@ public class JimpleInjector {
 
         ArrayList<Type> paramTypes = new ArrayList<>();
         paramTypes.add(RefType.v("java.lang.String"));
-        paramTypes.add(RefType.v("java.lang.String"));
+        paramTypes.add(RefType.v("java.lang.Object"));
 
         String signature = getSignatureForLocal(l);
 
+        Unit loadLevel = loadLevelConstant(level);
         Expr invokeSetLevel = Jimple.v().newVirtualInvokeExpr(
                 hs, Scene.v().makeMethodRef(Scene.v().getSootClass(HANDLE_CLASS),
                         methodName, paramTypes, VoidType.v(), false),
-                StringConstant.v(signature), StringConstant.v(level));
-        Unit invoke = Jimple.v().newInvokeStmt(invokeSetLevel);
+                StringConstant.v(signature), local_for_Labels);
+        Unit invoke = InstrumentationMode.labelLocals
+                      ? fac.createStmt(methodName + "WithLabel", labelOf(l), StringConstant.v(signature), local_for_Labels)
+                      : Jimple.v().newInvokeStmt(invokeSetLevel);
+
+        List<Unit> check = Arrays.asList(loadLevel, invoke);
+        // a null label is bottom, which is less or equal than every level
+        if (InstrumentationMode.labelLocals && methodName.equals("checkThatLe")) {
+            check = withBottomFastPath(pos, labelOf(l), check, invoke);
+        }
 
         // TODO: why check for isDynamic here?
         // if (varTyping.getBefore(instantiation, (Stmt) pos, l).isDynamic()) {
-            units.insertBefore(invoke, pos);
+            units.insertBefore(check, pos);
+            countSite(pos, invoke, check.get(0));
             lastPos = pos;
         // }
     }
@@ -771,16 +1227,18 @@ public class JimpleInjector {
         }
 
         ArrayList<Type> paramTypes = new ArrayList<>();
-        paramTypes.add(RefType.v("java.lang.String"));
+        paramTypes.add(RefType.v("java.lang.Object"));
 
         Expr checkPC = Jimple.v().newVirtualInvokeExpr(
                 hs, Scene.v().makeMethodRef(Scene.v().getSootClass(HANDLE_CLASS),
-                        "checkThatPCLe", paramTypes, VoidType.v(), false), StringConstant.v(level));
+                        "checkThatPCLe", paramTypes, VoidType.v(), false), local_for_Labels);
         Unit invoke = Jimple.v().newInvokeStmt(checkPC);
 
         // only if PC is dynamic
         if (cxTyping.get(instantiation, (Stmt) pos).isDynamic()) {
-            units.insertBefore(invoke, pos);
+            Unit loadLevel = loadLevelConstant(level);
+            units.insertBefore(Arrays.asList(loadLevel, invoke), pos);
+            countSite(pos, invoke, loadLevel);
             lastPos = pos;
         }
     }
@@ -799,14 +1257,18 @@ public class JimpleInjector {
 
         int numberOfLocals = locals.length;
         ArrayList<Type> paramTypes = new ArrayList<>();
-        paramTypes.add(RefType.v("java.lang.String"));
+        paramTypes.add(IntType.v());
         paramTypes.add(ArrayType.v(RefType.v("java.lang.String"), 1)); // here
 
-        // Add hashvalue for immediate dominator
-        String domIdentity = DominatorFinder.getImmediateDominatorIdentity(pos);
+        // Add identity of immediate dominator
+        int domIdentity = DominatorFinder.getImmediateDominatorId(pos);
         logger.info("Identity of Dominator of \"" + pos.toString()
                 + "\" is " + domIdentity);
 
+        if (InstrumentationMode.labelLocals) {
+            checkConditionWithLabels(pos, domIdentity, locals);
+            return;
+        }
 
         // Add all locals to string array
         Expr newStringArray = Jimple.v().newNewArrayExpr(
@@ -825,11 +1287,11 @@ public class JimpleInjector {
             tmpUnitList.add(assignSignature);
         }
 
-        // Invoke HandleStmt.checkCondition(String domHash, String... locals)
+        // Invoke HandleStmt.checkCondition(int domIdentity, String... locals)
         Expr invokeCheckCondition = Jimple.v().newVirtualInvokeExpr(
                 hs, Scene.v().makeMethodRef(Scene.v().getSootClass(HANDLE_CLASS),
                         "checkCondition", paramTypes, VoidType.v(), false),
-                StringConstant.v(domIdentity), local_for_String_Arrays);
+                IntConstant.v(domIdentity), local_for_String_Arrays);
         Unit invokeCC = Jimple.v().newInvokeStmt(invokeCheckCondition);
 
 
@@ -842,7 +1304,108 @@ public class JimpleInjector {
         }
         units.insertAfter(invokeCC, lastPos);
         lastPos = invokeCC;
+        countSite(pos, invokeCC, assignNewArray);
 
+        raiseWriteEffect(pos);
+    }
+
+    /**
+     * Same as {@link JimpleInjector#checkCondition(Unit, Local...)}, but passes the labels
+     * of the locals. For up to two locals no array is needed.
+     *
+     * @param pos         Position of the ifStmt in the method body.
+     * @param domIdentity Identity of the immediate postdominator.
+     * @param locals      An array of all locals which appear in the condition.
+     */
+    private static void checkConditionWithLabels(Unit pos, int domIdentity, Local... locals) {
+        List<Unit> check = new ArrayList<>();
+        List<Value> args = new ArrayList<>();
+        args.add(IntConstant.v(domIdentity));
+        if (locals.length <= 2) {
+            for (Local l : locals) {
+                args.add(labelOf(l));
+            }
+        } else {
+            check.add(Jimple.v().newAssignStmt(local_for_Object_Arrays,
+                                               Jimple.v().newNewArrayExpr(RefType.v("java.lang.Object"),
+                                                                          IntConstant.v(locals.length))));
+            for (int i = 0; i < locals.length; i++) {
+                check.add(Jimple.v().newAssignStmt(Jimple.v().newArrayRef(local_for_Object_Arrays, IntConstant.v(i)),
+                                                   labelOf(locals[i])));
+            }
+            args.add(local_for_Object_Arrays);
+        }
+        Unit invokeCC = fac.createStmt("checkConditionWithLabels", args.toArray(new Value[0]));
+        check.add(invokeCC);
+
+        units.insertBefore(check, pos);
+        lastPos = invokeCC;
+        countSite(pos, invokeCC, check.get(0));
+
+        raiseWriteEffect(pos);
+    }
+
+    /**
+     * Sets the write effects of the branches of the actual method-body, which
+     * are raised to the new local PC by {@link JimpleInjector#raiseWriteEffect(Unit)}.
+     * Every local, that is written under some branch, gets an index in a table,
+     * that is passed as one String constant.
+     *
+     * @param wec the collected write effects, or null, if they are not raised.
+     */
+    public static void setWriteEffects(WriteEffectCollector wec) {
+        writeEffects = wec;
+        writeEffectLocals = new ArrayList<>();
+        writeEffectTable = "";
+        if (wec == null) {
+            return;
+        }
+        writeEffectLocals.addAll(wec.getAll(Local.class));
+        writeEffectLocals.sort(Comparator.comparing(Local::getName));
+        StringBuilder table = new StringBuilder();
+        for (Local l : writeEffectLocals) {
+            if (table.length() > 0) table.append(';');
+            table.append(getSignatureForLocal(l));
+        }
+        writeEffectTable = table.toString();
+    }
+
+    /**
+     * Raises the levels of all dynamic locals, that may be written under the
+     * branch at <code>pos</code>, to the new local PC by a single call of
+     * {@link HandleStmt#raiseWriteEffect(String, String)}. The written locals
+     * are passed as a String constant, whose chars are their indices in the
+     * table of the method-body. If the levels are kept in label locals, each
+     * label is raised by {@link HandleStmt#raiseLabelToLocalPC(Object, String)}.
+     * Nothing is inserted, if the write effects are not collected.
+     *
+     * @param pos the branching statement, after its condition was checked.
+     */
+    private static void raiseWriteEffect(Unit pos) {
+        if (writeEffects == null) {
+            return;
+        }
+        StringBuilder indices = new StringBuilder();
+        List<Unit> raises = new ArrayList<>();
+        for (Local l : writeEffects.getOfBranch(Local.class, pos)) {
+            if (!varTyping.getBefore(instantiation, (Stmt) pos, l).isDynamic()) {
+                continue;
+            }
+            if (InstrumentationMode.labelLocals) {
+                raises.add(Jimple.v().newAssignStmt(labelOf(l), fac.createExpr("raiseLabelToLocalPC", labelOf(l),
+                                                                                     StringConstant.v(getSignatureForLocal(l)))));
+            } else {
+                indices.append((char) writeEffectLocals.indexOf(l));
+            }
+        }
+        if (indices.length() > 0) {
+            raises.add(fac.createStmt("raiseWriteEffect", StringConstant.v(writeEffectTable),
+                                      StringConstant.v(indices.toString())));
+        }
+        if (!raises.isEmpty()) {
+            logger.info("Raise the write effect of " + pos);
+            units.insertBefore(raises, pos);
+        }
     }
 
     /**
@@ -855,16 +1418,16 @@ public class JimpleInjector {
         logger.info("Exit inner scope in method " + b.getMethod().getName());
 
         ArrayList<Type> paramTypes = new ArrayList<>();
-        paramTypes.add(RefType.v("java.lang.String"));
+        paramTypes.add(IntType.v());
 
-        String domIdentity = DominatorFinder.getIdentityForUnit(pos);
+        int domIdentity = DominatorFinder.getIdForUnit(pos);
         logger.info("Dominator \"" + pos.toString()
                 + "\" has identity " + domIdentity);
 
         Expr specialIn = Jimple.v().newVirtualInvokeExpr(
                 hs, Scene.v().makeMethodRef(Scene.v().getSootClass(HANDLE_CLASS),
                         "exitInnerScope", paramTypes, VoidType.v(), false),
-                StringConstant.v(domIdentity));
+                IntConstant.v(domIdentity));
 
         Unit inv = Jimple.v().newInvokeStmt(specialIn);
 
@@ -876,23 +1439,18 @@ public class JimpleInjector {
  * Internal methodTypings
  */
 
-    /**
-     * Assures that a "@this" reference is present
-     * @throws InternalAnalyzerException if not present.
-     */
-    private static void assureThisRef() {
-        Unit first = units.getFirst();
-        Value obj = first.getUseBoxes().get(0).getValue();
-        // Check if the first unit is a reference to the actual object
-        if (!( first instanceof IdentityStmt ) || !( obj instanceof ThisRef )) {
-            throw new InternalAnalyzerException("Expected @this reference");
-        }
-    }
-
     /**
      *
      */
     static void addUnitsToChain() {
+        for (Map.Entry<Stmt, InvokeExpr> e : cloneInvokes.entrySet()) {
+            if (e.getKey() instanceof InvokeStmt) {
+                ((InvokeStmt) e.getKey()).setInvokeExpr(e.getValue());
+            } else {
+                ((AssignStmt) e.getKey()).setRightOp(e.getValue());
+            }
+        }
+        cloneInvokes.clear();
         b.validate();
     }
 
@@ -903,10 +1461,287 @@ public class JimpleInjector {
     // Todo: Remove, when ready
     static void addNeededLocals() {
         locals.add(local_for_String_Arrays);
+        locals.add(local_for_Labels);
+        if (InstrumentationMode.labelLocals) {
+            locals.add(local_for_Object_Arrays);
+        }
 
         b.validate();
     }
 
+    // <editor-fold desc="Label Methods">
+
+    /**
+     * Creates the shadow label fields of the instance fields of the given
+     * classes. The fields must exist before the body packs run, because
+     * fields must not be added to a class while its bodies are transformed,
+     * and every body must see the same label fields, regardless of the order,
+     * in which the bodies are transformed.
+     * <p>
+     * Label fields are only created for instance fields of application
+     * classes, that are instrumented anyway. The levels of all other fields,
+     * e.g. fields of library classes, are kept in the ObjectMap. A new label
+     * field is <code>null</code>, what is interpreted as bottom, so it does
+     * not need to be initialised in the constructor, and a new object need
+     * not be added to the ObjectMap.
+     *
+     * @param classes The application classes, that are instrumented.
+     */
+    public static void createLabelFields(Collection<SootClass> classes) {
+        for (SootClass sc : new ArrayList<>(classes)) {
+            if (!sc.isApplicationClass() || sc.isPhantom() || sc.isInterface() || isLevelHolder(sc)) {
+                continue;
+            }
+            for (SootField field : new ArrayList<>(sc.getFields())) {
+                String name = LABEL_FIELD_PREFIX + field.getName();
+                if (field.isStatic() || field.getName().startsWith(LABEL_FIELD_PREFIX)
+                    || sc.declaresFieldByName(name)) {
+                    continue;
+                }
+                // Same visibility as the field itself, such that every method that may access
+                // the field is also able to access its label. Transient, because a level need not be serializable.
+                int modifiers = (field.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE))
+                                | Modifier.TRANSIENT;
+                SootField labelField = new SootField(name, RefType.v("java.lang.Object"), modifiers);
+                sc.addField(labelField);
+                logger.info("Added label field " + labelField.getSignature() + " for " + field.getSignature());
+            }
+        }
+    }
+
+    /**
+     * Gets the shadow label field for the given field, that was created by
+     * {@link JimpleInjector#createLabelFields(Collection)}.
+     *
+     * @param field The field, whose level shall be stored in a label field.
+     * @return The label field, or <code>null</code> if the level of the field is kept in the ObjectMap.
+     */
+    static SootField getLabelField(SootField field) {
+        SootClass sc = field.getDeclaringClass();
+        String name = LABEL_FIELD_PREFIX + field.getName();
+        if (field.isStatic() || !sc.declaresFieldByName(name)) {
+            return null;
+        }
+        return sc.getFieldByName(name);
+    }
+
+    /**
+     * Tells, if the given class is a holder of level constants, that was
+     * created by {@link JimpleInjector#createLevelHolders(Collection, Casts)}.
+     *
+     * @param sc The class.
+     * @return true, if the class is a level holder.
+     */
+    static boolean isLevelHolder(SootClass sc) {
+        return sc.getName().endsWith(LEVEL_HOLDER_SUFFIX);
+    }
+
+    /**
+     * Creates the level holders of the given classes, with a constant for
+     * every level, that the instrumentation of their methods loads, i.e. the
+     * levels of the special methods they call and of their value casts.
+     * The holders must exist before the body packs run, because classes must
+     * not be added to the Scene while the bodies are transformed. A class,
+     * whose methods use no level, gets no holder.
+     *
+     * @param classes The application classes, that are instrumented.
+     * @param casts   The casts, that are instrumented.
+     */
+    public static void createLevelHolders(Collection<SootClass> classes, Casts<?> casts) {
+        for (SootClass sc : new ArrayList<>(classes)) {
+            if (sc.isInterface() || sc.isPhantom() || isLevelHolder(sc)) {
+                continue;
+            }
+            SortedSet<String> levels = new TreeSet<>();
+            for (SootMethod m : new ArrayList<>(sc.getMethods())) {
+                if (!m.isConcrete()) {
+                    continue;
+                }
+                for (Unit u : m.retrieveActiveBody().getUnits()) {
+                    Stmt s = (Stmt) u;
+                    if (s.containsInvokeExpr()) {
+                        ExternalClasses.levelOf(s.getInvokeExpr().getMethodRef().getSignature())
+                                       .ifPresent(levels::add);
+                    }
+                    if (s instanceof AssignStmt && casts.isValueCast(s)) {
+                        castLevel(casts.getValueCast(s)).ifPresent(levels::add);
+                    }
+                }
+            }
+            if (!levels.isEmpty()) {
+                SootClass holder = createLevelHolder(sc);
+                for (String level : levels) {
+                    addLevelConstant(holder, level);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the level, that the instrumentation of a value cast loads, see
+     * {@link JimpleInjector#handleCast(AssignStmt)}.
+     *
+     * @param conversion The value cast.
+     * @return The level, or nothing if the cast is not instrumented.
+     */
+    private static Optional<String> castLevel(Casts.ValueConversion<?> conversion) {
+        de.unifreiburg.cs.proglang.jgs.instrumentation.Type<?> src = conversion.getSrcType();
+        de.unifreiburg.cs.proglang.jgs.instrumentation.Type<?> dest = conversion.getDestType();
+        if (src.isDynamic() && !dest.isDynamic() && conversion.getSrcValue().isDefined()) {
+            return Optional.of(dest.getLevel().toString());
+        } else if (!src.isDynamic() && dest.isDynamic()) {
+            return Optional.of((src.isPublic() ? CurrentSecurityDomain.bottom() : src.getLevel()).toString());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the static final field, that holds the given level for the class
+     * of the actual method. It is initialised by
+     * <code>LEVEL_x = HandleStmt.levelConstant("x")</code> in the static
+     * initializer of the level holder, such that the string is read only
+     * once, and not every time a check is executed.
+     *
+     * @param level The string representation of the level.
+     * @return The field holding the level, or <code>null</code> if the
+     * level holder of the class does not declare it.
+     */
+    static SootField getLevelConstant(String level) {
+        String holder = b.getMethod().getDeclaringClass().getName() + LEVEL_HOLDER_SUFFIX;
+        String name = LEVEL_FIELD_PREFIX + encodeLevelName(level);
+        if (!Scene.v().containsClass(holder) || !Scene.v().getSootClass(holder).declaresFieldByName(name)) {
+            return null;
+        }
+        return Scene.v().getSootClass(holder).getFieldByName(name);
+    }
+
+    /**
+     * Gets the value, that is the given level: the level constant of the
+     * class of the actual method, or, if
+     * {@link JimpleInjector#createLevelHolders(Collection, Casts)} did not
+     * create it, the call <code>HandleStmt.levelConstant("x")</code>, which
+     * is correct but resolves the level on every execution.
+     *
+     * @param level The string representation of the level.
+     * @return The value of the level.
+     */
+    private static Value levelValue(String level) {
+        SootField constant = getLevelConstant(level);
+        if (constant != null) {
+            return Jimple.v().newStaticFieldRef(constant.makeRef());
+        }
+        logger.warning("No level constant for " + level + " in " + b.getMethod().getDeclaringClass()
+                       + ", the level is resolved on every execution");
+        return Jimple.v().newStaticInvokeExpr(levelConstantRef(), StringConstant.v(level));
+    }
+
+    /**
+     * Creates the statement <code>local_for_Labels = Holder.LEVEL_x</code>,
+     * that loads the given level before it is passed to the HandleStmt.
+     *
+     * @param level The string representation of the level.
+     * @return The load statement.
+     */
+    private static Unit loadLevelConstant(String level) {
+        return Jimple.v().newAssignStmt(local_for_Labels, levelValue(level));
+    }
+
+    /**
+     * Creates the level holder of the given class. A new holder only
+     * consists of a static initializer, that returns immediately.
+     */
+    private static SootClass createLevelHolder(SootClass sc) {
+        String name = sc.getName() + LEVEL_HOLDER_SUFFIX;
+        if (Scene.v().containsClass(name)) {
+            return Scene.v().getSootClass(name);
+        }
+        SootClass holder = new SootClass(name, Modifier.PUBLIC | Modifier.FINAL);
+        holder.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(holder);
+        holder.setApplicationClass();
+
+        SootMethod clinit = new SootMethod(SootMethod.staticInitializerName,
+                                           Collections.<Type>emptyList(), VoidType.v(), Modifier.STATIC);
+        holder.addMethod(clinit);
+        JimpleBody body = Jimple.v().newBody(clinit);
+        body.getUnits().add(Jimple.v().newReturnVoidStmt());
+        clinit.setActiveBody(body);
+        return holder;
+    }
+
+    /**
+     * Adds the constant of the given level to a level holder, and its
+     * initialisation to the static initializer of the holder.
+     */
+    private static void addLevelConstant(SootClass holder, String level) {
+        String name = LEVEL_FIELD_PREFIX + encodeLevelName(level);
+        if (holder.declaresFieldByName(name)) {
+            return;
+        }
+        SootField field = new SootField(name, RefType.v("java.lang.Object"),
+                                        Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL);
+        holder.addField(field);
+
+        Body clinit = holder.getMethodByName(SootMethod.staticInitializerName).getActiveBody();
+        Local resolved = Jimple.v().newLocal("level" + clinit.getLocalCount(), RefType.v("java.lang.Object"));
+        clinit.getLocals().add(resolved);
+        clinit.getUnits().insertBefore(Arrays.<Unit>asList(
+                Jimple.v().newAssignStmt(resolved,
+                                         Jimple.v().newStaticInvokeExpr(levelConstantRef(), StringConstant.v(level))),
+                Jimple.v().newAssignStmt(Jimple.v().newStaticFieldRef(field.makeRef()), resolved)),
+                clinit.getUnits().getLast());
+        logger.info("Added level constant " + field.getSignature() + " for " + level);
+    }
+
+    /**
+     * Gets the reference to {@link HandleStmt#levelConstant(String)}.
+     */
+    private static SootMethodRef levelConstantRef() {
+        return Scene.v().makeMethodRef(
+                Scene.v().getSootClass(HANDLE_CLASS), "levelConstant",
+                Collections.<Type>singletonList(RefType.v("java.lang.String")),
+                RefType.v("java.lang.Object"), true);
+    }
+
+    /**
+     * Encodes a level as part of a field name: letters and digits are kept,
+     * every other character c is written as <code>$hex(c)_</code>.
+     */
+    private static String encodeLevelName(String level) {
+        StringBuilder name = new StringBuilder();
+        for (char c : level.toCharArray()) {
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                name.append(c);
+            } else {
+                name.append('$').append(Integer.toHexString(c)).append('_');
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Gets the label local, that holds the level of the given local, if
+     * {@link InstrumentationMode#labelLocals} is selected. It is created on
+     * the first request and initialised with <code>null</code>, i.e. untracked,
+     * before the HandleStmt is created, such that it is definitely assigned
+     * wherever the injected code uses it.
+     *
+     * @param l The local of the original method-body.
+     * @return The label local of l.
+     */
+    private static Local labelOf(Local l) {
+        Local label = labelLocals.get(l);
+        if (label == null) {
+            label = Jimple.v().newLocal(l.getName() + LABEL_LOCAL_SUFFIX, RefType.v("java.lang.Object"));
+            locals.add(label);
+            units.insertBefore(Jimple.v().newAssignStmt(label, NullConstant.v()), labelInitPos);
+            labelLocals.put(l, label);
+        }
+        return label;
+    }
+
+    // </editor-fold>
+
     // <editor-fold desc="Signature Calculation Methods">
 
     /**
@@ -931,18 +1766,71 @@ public class JimpleInjector {
     }
 
     /**
-     * Creates the signature of an array-field based on the index.
-     * It simply returns the int-value as string.
+     * Gets the index of an array-field, that is passed to the HandleStmt.
+     * It is either an int constant or the local, that holds the index,
+     * such that the level of the element is looked up by its index at run time.
      *
-     * @param a The ArrayRef of which the Signature is required.
-     * @return The signature for the array-field.
+     * @param a The ArrayRef of which the index is required.
+     * @return The index of the array-field.
      * @throws InternalAnalyzerException if the index type is not int.
      */
-    private static String getSignatureForArrayField(ArrayRef a) {
+    private static Value getIndexForArrayField(ArrayRef a) {
         if (!Objects.equals(a.getIndex().getType().toString(), "int")) {
             throw new InternalAnalyzerException("Unexpected type of index");
         }
-        return a.getIndex().toString();
+        return a.getIndex();
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Check Site Methods">
+
+    /**
+     * Inserts {@link HandleStmt#countSite(int)} before the first unit of a
+     * check, that was inserted for the unit pos, if a profiling or an audit
+     * build is selected. See {@link CheckSites}.
+     *
+     * @param pos   The instrumented unit.
+     * @param check The unit, that invokes the check.
+     * @param first The first unit, that was inserted for the check.
+     */
+    private static void countSite(Unit pos, Unit check, Unit first) {
+        Integer index = unitIndex.get(pos);
+        if (!CheckSites.isNumbering() || index == null) {
+            return;
+        }
+        int site = CheckSites.site(b.getMethod(), index, checkName(check));
+        units.insertBefore(fac.createStmt("countSite", IntConstant.v(site)), first);
+    }
+
+    /**
+     * Guards the units of a check of a label by a jump over them, if the
+     * label is null, i.e. bottom or untracked, and the check would pass
+     * anyway. Only the hot sites of the profile, that guides the
+     * instrumentation, get the guard, such that the cold sites stay small.
+     *
+     * @param pos    The instrumented unit.
+     * @param label  The label, which is checked.
+     * @param check  The units of the check.
+     * @param invoke The unit, that invokes the check.
+     * @return The guarded units, or the units of the check, if the site is not hot.
+     */
+    private static List<Unit> withBottomFastPath(Unit pos, Local label, List<Unit> check, Unit invoke) {
+        Integer index = unitIndex.get(pos);
+        if (index == null || !CheckSites.isHot(b.getMethod(), index, checkName(invoke))) {
+            return check;
+        }
+        logger.info("Bottom fast path for hot site of " + checkName(invoke) + " at " + pos);
+        Unit end = Jimple.v().newNopStmt();
+        List<Unit> guarded = new ArrayList<>();
+        guarded.add(Jimple.v().newIfStmt(Jimple.v().newEqExpr(label, NullConstant.v()), end));
+        guarded.addAll(check);
+        guarded.add(end);
+        return guarded;
+    }
+
+    private static String checkName(Unit check) {
+        return ((Stmt) check).getInvokeExpr().getMethodRef().name();
     }
 
     // </editor-fold>
@@ -1032,30 +1920,24 @@ public class JimpleInjector {
                 if (srcValue.isDefined()) {
                     Local rightHandLocal = (Local) srcValue.get();
 
-                    Object destLevel = conversion.getDestType().getLevel();
+                    String destLevel = castLevel(conversion).get();
                     logger.fine( "Inserting check: "
                                  + getSignatureForLocal(rightHandLocal)
                                  + " <= "
                                  + destLevel);
-                    checkThatLe(rightHandLocal, destLevel.toString(), aStmt, "checkCastToStatic");
+                    checkThatLe(rightHandLocal, destLevel, aStmt, "checkCastToStatic");
 
                     logger.fine("Setting destination variable to: " + destLevel);
-                    makeLocal((Local) aStmt.getLeftOp(), destLevel.toString(), aStmt);
+                    makeLocal((Local) aStmt.getLeftOp(), destLevel, aStmt);
                 } else {
                     logger.info("Source value is pubilc. Not inserting checks.");
                 }
             } else if ( !conversion.getSrcType().isDynamic() && conversion.getDestType().isDynamic()) {
                 // Initialisierung eines Security Wert: x = (H => ? ) y
                 logger.fine("Conversion is: static->dynamic");
-                Object srcLevel;
-                de.unifreiburg.cs.proglang.jgs.instrumentation.Type type = conversion.getSrcType();
-                if (type.isPublic()) {
-                    srcLevel = CurrentSecurityDomain.bottom();
-                } else {
-                    srcLevel = type.getLevel();
-                }
+                String srcLevel = castLevel(conversion).get();
                 logger.fine("Setting destination variable to: " + srcLevel);
-                makeLocal((Local) aStmt.getLeftOp(), srcLevel.toString(), aStmt);
+                makeLocal((Local) aStmt.getLeftOp(), srcLevel, aStmt);
             } else if ( conversion.getSrcType().isDynamic() && conversion.getDestType().isDynamic()) {
                 logger.fine("Conversion is: dynamic->dynamic");
                 logger.fine("Ignoring trivial conversion.");
@@ -1074,6 +1956,9 @@ public class JimpleInjector {
      * Insert "stopTrackingLocal" call.
      */
     public static void stopTrackingLocal(Local l, Stmt callStmt) {
-        units.insertBefore(fac.createStmt("stopTrackingLocal", StringConstant.v(getSignatureForLocal(l))), callStmt);
+        Unit stop = InstrumentationMode.labelLocals
+                    ? Jimple.v().newAssignStmt(labelOf(l), NullConstant.v())
+                    : fac.createStmt("stopTrackingLocal", StringConstant.v(getSignatureForLocal(l)));
+        units.insertBefore(stop, callStmt);
     }
 }
@@ -0,0 +1,261 @@
+package analyzer.level1;
+
+import analyzer.level2.HandleStmt;
+import soot.*;
+import soot.jimple.*;
+import soot.util.Chain;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Creates the label-passing clones of the instrumented methods, if
+ * {@link InstrumentationMode#labelParameters} is selected.
+ * <p>
+ * A method <code>R m(T0 p0, ..., Tn pn)</code> gets a clone
+ * <code>R m$jgs(T0 p0, ..., Tn pn, Object l0, ..., Object ln)</code>, whose
+ * extra parameters are the labels of the arguments. The clone takes over the
+ * body of the original method, such that the typing of its statements is
+ * kept. The original method becomes a bridge for callers, that are not
+ * instrumented or call through an interface: it reads the labels from the
+ * argument registers of the monitor and calls the clone. Instrumented call
+ * sites call the clone directly, so the labels are passed like the values,
+ * if the call cannot dispatch to an override, see
+ * {@link LabelPassing#callsCloneDirectly(InvokeExpr)}.
+ * The level of the return value is still passed in the per-thread return
+ * slot of the monitor.
+ * <p>
+ * The clones have to be created before Soot runs the body packs, because
+ * methods must not be added to a class, while its bodies are transformed.
+ */
+public class LabelPassing {
+
+    /** The suffix of the name of a clone. */
+    public static final String CLONE_SUFFIX = "$jgs";
+
+    private static final Logger logger = Logger.getLogger(LabelPassing.class.getName());
+
+    /** Maps the original methods, which became bridges, to their clones. */
+    private static final Map<SootMethod, SootMethod> clones = new HashMap<>();
+
+    /** Maps the clones to the original methods. */
+    private static final Map<SootMethod, SootMethod> originals = new HashMap<>();
+
+    /**
+     * Creates the clones and bridges for all methods of the given classes,
+     * that can be cloned.
+     * @param classes The application classes, that are instrumented.
+     */
+    public static void createClones(Collection<SootClass> classes) {
+        for (SootClass c : new ArrayList<>(classes)) {
+            if (c.isInterface() || c.isPhantom() || JimpleInjector.isLevelHolder(c)) {
+                continue;
+            }
+            for (SootMethod m : new ArrayList<>(c.getMethods())) {
+                if (isCloneable(m)) {
+                    createClone(m);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets all clones, e.g. after Soot was reset.
+     */
+    public static void reset() {
+        clones.clear();
+        originals.clear();
+    }
+
+    /**
+     * Only concrete methods with parameters are cloned. Constructors,
+     * static initializers and main methods keep their signature, because
+     * they are called by the JVM or need special invokes.
+     */
+    private static boolean isCloneable(SootMethod m) {
+        return m.isConcrete()
+               && m.getParameterCount() > 0
+               && !m.isConstructor()
+               && !m.isStaticInitializer()
+               && !m.isMain()
+               && !m.getName().endsWith(CLONE_SUFFIX)
+               && (m.hasActiveBody() || m.getSource() != null);
+    }
+
+    private static void createClone(SootMethod m) {
+        int n = m.getParameterCount();
+        List<Type> types = new ArrayList<>(m.getParameterTypes());
+        for (int i = 0; i < n; i++) {
+            types.add(RefType.v("java.lang.Object"));
+        }
+        SootClass c = m.getDeclaringClass();
+        String name = m.getName() + CLONE_SUFFIX;
+        if (c.declaresMethod(name, types, m.getReturnType())) {
+            return;
+        }
+        Body body = m.retrieveActiveBody();
+        SootMethod clone = new SootMethod(name, types, m.getReturnType(), m.getModifiers(),
+                                          new ArrayList<>(m.getExceptions()));
+        c.addMethod(clone);
+
+        // The clone takes over the body, with identity statements for the labels.
+        body.setMethod(clone);
+        clone.setActiveBody(body);
+        Unit lastIdentity = null;
+        for (Unit u : body.getUnits()) {
+            if (u instanceof IdentityStmt) lastIdentity = u;
+        }
+        List<Unit> labelIdentities = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Local label = Jimple.v().newLocal("jgs$label" + i, RefType.v("java.lang.Object"));
+            body.getLocals().add(label);
+            labelIdentities.add(Jimple.v().newIdentityStmt(
+                    label, Jimple.v().newParameterRef(RefType.v("java.lang.Object"), n + i)));
+        }
+        if (lastIdentity == null) {
+            body.getUnits().insertBefore(labelIdentities, body.getUnits().getFirst());
+        } else {
+            body.getUnits().insertAfter(labelIdentities, lastIdentity);
+        }
+
+        m.setActiveBody(createBridge(m, clone));
+        clones.put(m, clone);
+        originals.put(clone, m);
+        logger.info("Created label-passing clone " + clone.getSignature());
+    }
+
+    /**
+     * Creates the body of the bridge: it reads the labels of the arguments
+     * by {@link HandleStmt#argumentLabel(int)} and calls the clone.
+     */
+    private static Body createBridge(SootMethod m, SootMethod clone) {
+        JimpleBody bridge = Jimple.v().newBody(m);
+        Chain<Unit> units = bridge.getUnits();
+        int n = m.getParameterCount();
+
+        Local self = null;
+        if (!m.isStatic()) {
+            self = Jimple.v().newLocal("this", m.getDeclaringClass().getType());
+            bridge.getLocals().add(self);
+            units.add(Jimple.v().newIdentityStmt(self, Jimple.v().newThisRef(m.getDeclaringClass().getType())));
+        }
+        List<Value> args = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Local p = Jimple.v().newLocal("p" + i, m.getParameterType(i));
+            bridge.getLocals().add(p);
+            units.add(Jimple.v().newIdentityStmt(p, Jimple.v().newParameterRef(m.getParameterType(i), i)));
+            args.add(p);
+        }
+        SootMethodRef argumentLabel = Scene.v().makeMethodRef(
+                Scene.v().getSootClass(HandleStmt.class.getName()), "argumentLabel",
+                Collections.<Type>singletonList(IntType.v()), RefType.v("java.lang.Object"), true);
+        for (int i = 0; i < n; i++) {
+            Local label = Jimple.v().newLocal("l" + i, RefType.v("java.lang.Object"));
+            bridge.getLocals().add(label);
+            units.add(Jimple.v().newAssignStmt(
+                    label, Jimple.v().newStaticInvokeExpr(argumentLabel, IntConstant.v(i))));
+            args.add(label);
+        }
+
+        InvokeExpr call;
+        if (m.isStatic()) {
+            call = Jimple.v().newStaticInvokeExpr(clone.makeRef(), args);
+        } else if (m.isPrivate()) {
+            call = Jimple.v().newSpecialInvokeExpr(self, clone.makeRef(), args);
+        } else {
+            call = Jimple.v().newVirtualInvokeExpr(self, clone.makeRef(), args);
+        }
+        if (m.getReturnType() instanceof VoidType) {
+            units.add(Jimple.v().newInvokeStmt(call));
+            units.add(Jimple.v().newReturnVoidStmt());
+        } else {
+            Local result = Jimple.v().newLocal("r", m.getReturnType());
+            bridge.getLocals().add(result);
+            units.add(Jimple.v().newAssignStmt(result, call));
+            units.add(Jimple.v().newReturnStmt(result));
+        }
+        return bridge;
+    }
+
+    /**
+     * @return true, if the method is a bridge, that must not be instrumented.
+     */
+    public static boolean isBridge(SootMethod m) {
+        return clones.containsKey(m);
+    }
+
+    /**
+     * @return true, if the method is a label-passing clone.
+     */
+    public static boolean isClone(SootMethod m) {
+        return originals.containsKey(m);
+    }
+
+    /**
+     * @return the clone of the given method, or null if it has none.
+     */
+    public static SootMethod cloneOf(SootMethod m) {
+        return clones.get(m);
+    }
+
+    /**
+     * Specifies, if an instrumented call site may call the clone of the
+     * invoked method directly. That is only the case, if the call cannot
+     * dispatch to an override: the invoked method is static, private or
+     * final, its class is final, or the call is a special invoke. Other
+     * virtual calls go through the original method, i.e. the bridge, because
+     * an override in a subclass without a clone, e.g. an uninstrumented
+     * subclass or a proxy, would be bypassed by a call of the clone.
+     *
+     * @param invoke the invoke expression of the call site
+     * @return true, if the invoked method has a clone, that may be called directly.
+     */
+    public static boolean callsCloneDirectly(InvokeExpr invoke) {
+        if (invoke instanceof InterfaceInvokeExpr || invoke instanceof DynamicInvokeExpr) {
+            return false;
+        }
+        SootMethod m = invoke.getMethod();
+        if (cloneOf(m) == null) {
+            return false;
+        }
+        return invoke instanceof StaticInvokeExpr
+               || invoke instanceof SpecialInvokeExpr
+               || m.isStatic()
+               || m.isPrivate()
+               || m.isFinal()
+               || m.getDeclaringClass().isFinal();
+    }
+
+    /**
+     * Gets the method, whose typing applies to the given method: the
+     * original method for a clone, otherwise the method itself.
+     */
+    public static SootMethod typedMethod(SootMethod m) {
+        SootMethod original = originals.get(m);
+        return original == null ? m : original;
+    }
+
+    /**
+     * @return the number of parameters of the original method, if m is a clone.
+     */
+    public static int originalParameterCount(SootMethod m) {
+        return typedMethod(m).getParameterCount();
+    }
+
+    /**
+     * Gets the local, that holds the label of the i-th argument in the
+     * body of a clone.
+     * @throws IllegalStateException if the body has no such parameter.
+     */
+    public static Local labelParameter(Body body, int i) {
+        int index = originalParameterCount(body.getMethod()) + i;
+        for (Unit u : body.getUnits()) {
+            if (u instanceof IdentityStmt
+                && ((IdentityStmt) u).getRightOp() instanceof ParameterRef
+                && ((ParameterRef) ((IdentityStmt) u).getRightOp()).getIndex() == index) {
+                return (Local) ((IdentityStmt) u).getLeftOp();
+            }
+        }
+        throw new IllegalStateException("No label parameter " + i + " in " + body.getMethod());
+    }
+}
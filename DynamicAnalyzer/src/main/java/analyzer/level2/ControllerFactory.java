@@ -7,11 +7,14 @@ import analyzer.level2.PassivController;
  * Created by Nicolas Müller on 06.02.17.
  */
 public class ControllerFactory {
+    /** The passive controller does nothing, so all HandleStmts can share it. */
+    private static final PassivController PASSIVE = new PassivController();
+
     public static PassivController returnSuperfluousInstrumentationController(boolean isActive, int expectedException) {
         if (isActive) {
             return new ActiveController(expectedException);
         } else {
-            return new PassivController();
+            return PASSIVE;
         }
     }
 }
@@ -1,18 +1,29 @@
 package analyzer.level2;
 
+import analyzer.level2.audit.ViolationAudit;
+import analyzer.level2.jfr.JfrEvents;
+import analyzer.level2.recorder.MonitorOperation;
+import analyzer.level2.recorder.EventRecorder;
+import analyzer.level2.recorder.OperationRecorder;
+import analyzer.level2.recorder.SiteProfile;
 import analyzer.level2.storage.LocalMap;
+import analyzer.level2.storage.MonitorContext;
 import analyzer.level2.storage.ObjectMap;
 import de.unifreiburg.cs.proglang.jgs.constraints.SecDomain;
-import util.exceptions.IllegalFlowError;
+import de.unifreiburg.cs.proglang.jgs.support.LabeledExecutors;
 import util.exceptions.InternalAnalyzerException;
-import util.exceptions.NSUError;
+import util.logging.L2Trace;
 import util.logging.SOutHandler;
 
-import java.util.ArrayList;
+import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.logging.Logger;
 
-import static analyzer.level2.HandleStmtUtils.NSU_ERROR_MESSAGE;
+import static analyzer.level2.HandleStmtUtils.MONITOR_EVENTS;
+import static analyzer.level2.HandleStmtUtils.TIMED_CHECKS;
+import static analyzer.level2.HandleStmtUtils.beginCheck;
+import static analyzer.level2.HandleStmtUtils.endCheck;
+import static analyzer.level2.HandleStmtUtils.monitorEvent;
 
 /**
  * MethodTypings for JGS' run-time enforcement. This class makes up the main
@@ -25,15 +36,24 @@ public class HandleStmt<Level> {
 
     /**
      * Logger used by the run-time enforcement. Verbose message are available by
-     * setting the environment variable JGS_VERBOSE_LOGGING=1.
+     * setting the environment variable JGS_VERBOSE_LOGGING=1 or the system
+     * property jgs.trace=true, see {@link L2Trace}. Every message is guarded
+     * by {@link L2Trace#ENABLED}.
      */
     private static final Logger logger = Logger.getLogger(HandleStmt.class.getName());
 
+    /** Specifies, if the handler for the trace messages is already installed. */
+    private static boolean traceHandlerInstalled = false;
+
     private LocalMap localmap;
     private static ObjectMap objectmap;
+    private MonitorContext context;
     private HandleStmtUtils handleStatementUtils;
     PassivController controller;
 
+    /** The index of the frame in the {@link MonitorContext}, or -1 if this HandleStmt is not pooled. */
+    private int frameIndex = -1;
+
     private SecDomain<Level> secDomain = CurrentSecurityDomain.getInstance();
 
     /**
@@ -42,8 +62,42 @@ public class HandleStmt<Level> {
      * {@link CurrentSecurityDomain} of the globalPC
      */
     public HandleStmt() {
+        this(ObjectMap.getInstance().getContext());
+    }
+
+    /**
+     * Creates a HandleStmt, that belongs to the thread of the given context.
+     *
+     * @param context the MonitorContext of the current thread
+     */
+    private HandleStmt(MonitorContext context) {
         localmap = new LocalMap();
         objectmap = ObjectMap.getInstance();
+        this.context = context;
+    }
+
+    /**
+     * This must be called at the beginning of every method in the analyzed
+     * code instead of creating a new HandleStmt. It reuses a frame of the
+     * current thread, that is not used by a running method, and resets its
+     * LocalMap. Only if the methods are nested deeper than ever before in
+     * this thread, a new HandleStmt is created. The frame is released by
+     * {@link HandleStmt#close()}.
+     *
+     * @return the HandleStmt for the invoked method
+     */
+    public static HandleStmt enter() {
+        MonitorContext context = ObjectMap.getInstance().getContext();
+        int index = context.enterFrame();
+        HandleStmt frame = (HandleStmt) context.getFrame(index);
+        if (frame == null) {
+            frame = new HandleStmt(context);
+            context.setFrame(index, frame);
+        } else {
+            frame.localmap.reset();
+        }
+        frame.frameIndex = index;
+        return frame;
     }
 
     @SuppressWarnings("unused")
@@ -53,14 +107,21 @@ public class HandleStmt<Level> {
      */
     public void initHandleStmtUtils(boolean controllerIsActive, int exptectedException) {
         this.controller = ControllerFactory.returnSuperfluousInstrumentationController(controllerIsActive, exptectedException);
-        handleStatementUtils = new HandleStmtUtils(localmap, objectmap, this.controller);
-        objectmap.pushGlobalPC( handleStatementUtils.joinLevels(objectmap.getGlobalPC(), localmap.getLocalPC()) );
+        if (handleStatementUtils == null) {
+            handleStatementUtils = new HandleStmtUtils(localmap, objectmap, context, this.controller);
+        } else {
+            handleStatementUtils.controller = this.controller;
+        }
+        context.pushGlobalPC( handleStatementUtils.joinLevels(context.getGlobalPC(), localmap.getLocalPC()) );
+        if (OperationRecorder.ENABLED) OperationRecorder.record(MonitorOperation.ENTER);
     }
 
     /**
      * This method must be called just once at the beginning of the main
      * method.
-     * It triggers the setup of the logger.
+     * It triggers the setup of the logger and installs the {@link TaskPropagator},
+     * such that tasks decorated by {@link LabeledExecutors} run in the context
+     * of the submitting thread.
      */
     public static void init() {
         /*
@@ -72,23 +133,66 @@ public class HandleStmt<Level> {
         }
         // Do not need */
         // Todo: Put this logger stuff somewhere else.
-        logger.setLevel(java.util.logging.Level.INFO);
-        logger.addHandler(new SOutHandler());
-        logger.info("HandleStatement initialized!!!!");
+        if (L2Trace.ENABLED && !traceHandlerInstalled) {
+            logger.setLevel(java.util.logging.Level.INFO);
+            logger.addHandler(new SOutHandler());
+            traceHandlerInstalled = true;
+        }
+        if (L2Trace.ENABLED) logger.info("HandleStatement initialized!!!!");
         if (objectmap == null) {
             objectmap = ObjectMap.getInstance();
         }
         objectmap.flush();
         objectmap.clearAssignmentLevel();
+        LabeledExecutors.setPropagator(TaskPropagator.INSTANCE);
+    }
+
+    /**
+     * Selects the audit mode, in which violations are recorded by the
+     * {@link ViolationAudit} instead of aborting the program. It is called
+     * right after {@link HandleStmt#init()}, if the program was instrumented
+     * with the option <code>-audit</code>.
+     */
+    public static void enableAudit() {
+        ViolationAudit.setEnabled(true);
+    }
+
+    /**
+     * Starts counting the executions of the check sites, if the program was
+     * instrumented with the option <code>-profile</code>. It is called right
+     * after {@link HandleStmt#init()}. See {@link SiteProfile}.
+     *
+     * @param profile The file, to which the profile is written at shutdown.
+     */
+    public static void enableProfile(String profile) {
+        SiteProfile.start(profile);
+    }
+
+    /**
+     * Counts an execution of a check site of a profiling build, and tells
+     * the site to the check, which passes it to the {@link ViolationAudit}
+     * of an audit build. It is inserted right before the check.
+     *
+     * @param site The number of the site.
+     */
+    public void countSite(int site) {
+        context.setSite(site);
+        SiteProfile.count(site);
     }
 
     /**
      * This must be called at the end of every method in the analyzed code. It
-     * resets the globalPC to its initial value
+     * resets the globalPC to its initial value and releases the frame, if the
+     * HandleStmt was obtained by {@link HandleStmt#enter()}.
      */
     public void close() {
-        logger.info("Close HandleStatement");
-        objectmap.popGlobalPC();
+        if (L2Trace.ENABLED) logger.info("Close HandleStatement");
+        if (OperationRecorder.ENABLED) OperationRecorder.record(MonitorOperation.CLOSE);
+        context.popGlobalPC();
+        if (frameIndex >= 0) {
+            context.exitFrame(frameIndex);
+            frameIndex = -1;
+        }
         localmap.isEmptyLPC();
     }
 
@@ -99,7 +203,7 @@ public class HandleStmt<Level> {
      * @return The new security-level.
      */
     protected void setActualReturnLevel(Object securityLevel) {
-        objectmap.setActualReturnLevel(securityLevel);
+        context.setActualReturnLevel(securityLevel);
     }
 
     /**
@@ -108,7 +212,7 @@ public class HandleStmt<Level> {
      * @return The securitylevel of the last return-statement.
      */
     protected Object getActualReturnLevel() {
-        return objectmap.getActualReturnLevel();
+        return context.getActualReturnLevel();
     }
 
     /**
@@ -117,7 +221,7 @@ public class HandleStmt<Level> {
      * @param object object
      */
     public void addObjectToObjectMap(Object object) {
-        logger.info("Insert Object "+object+" to ObjectMap");
+        if (L2Trace.ENABLED) logger.info("Insert Object "+object+" to ObjectMap");
         objectmap.insertNewObject(object);
         if (!objectmap.containsObject(object)) {
             throw new InternalAnalyzerException("Add object " + object + " to ObjectMap failed.");
@@ -125,17 +229,17 @@ public class HandleStmt<Level> {
     }
 
     /**
-     * Add a field of an object to ObjectMap.
+     * Add a field of an object to ObjectMap. An object, that is not yet
+     * tracked, is added with it, as all its fields are bottom anyway.
      *
      * @param object    an object
      * @param signature signature of the field of the object
      * @return SecurityLevel of the newly set field
      */
     public Object addFieldToObjectMap(Object object, String signature) {
-        logger.info("Add Field "+signature+" to object" + object);
-        handleStatementUtils.checkIfObjectExists(object);
+        if (L2Trace.ENABLED) logger.info("Add Field "+signature+" to object" + object);
         Level fieldLevel = secDomain.bottom();
-        objectmap.setField(object, signature, fieldLevel);
+        objectmap.addField(object, signature);
         if (!objectmap.containsField(object, signature)) {
             throw new InternalAnalyzerException("Add field " + signature
                                                 + " to ObjectMap failed");
@@ -144,16 +248,16 @@ public class HandleStmt<Level> {
     }
 
     /**
-     * Add an array to ObjectMap.
+     * Add an array to ObjectMap. The levels of its elements are stored in a
+     * level array of the same length, so the array may also be an array of
+     * primitives. The levels of inner arrays of a multi-dimensional array
+     * are tracked, as soon as they are assigned.
      *
      * @param array array
      */
-    public void addArrayToObjectMap(Object[] array) {
-        logger.info("Add Array "+array+"(size="+array.length+") to ObjectMap");
-        addObjectToObjectMap(array);
-        for (int i = 0; i < array.length; i++) {
-            addFieldToObjectMap(array, Integer.toString(i));
-        }
+    public void addArrayToObjectMap(Object array) {
+        if (L2Trace.ENABLED) logger.info("Add Array "+array+"(size="+ Array.getLength(array)+") to ObjectMap");
+        objectmap.insertNewArray(array);
 
         if (!containsObjectInObjectMap(array)) {
             throw new InternalAnalyzerException("Add Object " + array + " to ObjectMap failed");
@@ -175,10 +279,10 @@ public class HandleStmt<Level> {
      *
      * @param object    object of the field
      * @param signature signature of the field
-     * @return true, if field is found in ObjectMap
+     * @return true, if field is found in ObjectMap, false also for an
+     *         object, that is not tracked
      */
     protected boolean containsFieldInObjectMap(Object object, String signature) {
-        handleStatementUtils.checkIfObjectExists(object);
         return objectmap.containsField(object, signature);
     }
 
@@ -203,14 +307,14 @@ public class HandleStmt<Level> {
     }
 
     /**
-     * Get the SecurityLevel for a field in ObjectMap.
+     * Get the SecurityLevel for a field in ObjectMap. The field of an object,
+     * that is not contained in the ObjectMap, is bottom.
      *
      * @param object    object of the field
      * @param signature signature of the field
      * @return SecurityLevel
      */
     protected Object getFieldLevel(Object object, String signature) {
-        handleStatementUtils.checkIfObjectExists(object);
         return objectmap.getFieldLevel(object, signature);
     }
 
@@ -221,8 +325,7 @@ public class HandleStmt<Level> {
      * @param signature signature of the field
      */
     public void makeFieldHigh(Object object, String signature) {
-        logger.info("Set SecurityLevel of field "+signature+" to HIGH");
-        handleStatementUtils.checkIfObjectExists(object);
+        if (L2Trace.ENABLED) logger.info("Set SecurityLevel of field "+signature+" to HIGH");
         objectmap.setField(object, signature, CurrentSecurityDomain.top());
     }
 
@@ -233,8 +336,7 @@ public class HandleStmt<Level> {
      * @param signature signature of the field
      */
     public void makeFieldLow(Object object, String signature) {
-        logger.info("Set SecurityLevel of field "+signature+" to LOW");
-        handleStatementUtils.checkIfObjectExists(object);
+        if (L2Trace.ENABLED) logger.info("Set SecurityLevel of field "+signature+" to LOW");
         objectmap.setField(object, signature, CurrentSecurityDomain.bottom());
     }
 
@@ -245,9 +347,10 @@ public class HandleStmt<Level> {
      * @param level     SecurityLevel for the new local
      */
     public void addLocal(String signature, Object level) {
-        logger.info("Insert Local "+signature+" with Level "+level+" to LocalMap");
+        if (L2Trace.ENABLED) logger.info("Insert Local "+signature+" with Level "+level+" to LocalMap");
         handleStatementUtils.checkThatLocalDoesNotExist(signature);
         localmap.setLevel(signature, level);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.ADD_LOCAL, signature, level);
     }
 
     /**
@@ -261,7 +364,7 @@ public class HandleStmt<Level> {
      */
     @Deprecated
     public void addLocal(String signature) {
-        logger.info("Add Local "+signature+" with SecurityLevel.bottom() to LocalMap");
+        if (L2Trace.ENABLED) logger.info("Add Local "+signature+" with SecurityLevel.bottom() to LocalMap");
         handleStatementUtils.checkThatLocalDoesNotExist(signature);
     }
 
@@ -276,8 +379,33 @@ public class HandleStmt<Level> {
     }
 
     public void setLocalFromString(String signature, String level) {
-        logger.info("Set level of local " + signature + " to " + level);
-        localmap.setLevel(signature, CurrentSecurityDomain.readLevel(level));
+        setLocalToLevel(signature, CurrentSecurityDomain.readLevel(level));
+    }
+
+    /**
+     * Same as {@link HandleStmt#setLocalFromString(String, String)}, with a
+     * level, that was already resolved by {@link HandleStmt#levelConstant(String)}.
+     *
+     * @param signature signature of the local
+     * @param level     the level
+     */
+    public void setLocalToLevel(String signature, Object level) {
+        if (L2Trace.ENABLED) logger.info("Set level of local " + signature + " to " + level);
+        localmap.setLevel(signature, level);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.SET_LOCAL, signature, level);
+    }
+
+    /**
+     * Resolves the string representation of a level. The instrumented code
+     * calls this only once per level and class, when the class holding its
+     * level constants is initialised, and passes the resolved level to the
+     * checks afterwards.
+     *
+     * @param level the string representation of the level.
+     * @return the level.
+     */
+    public static Object levelConstant(String level) {
+        return CurrentSecurityDomain.readLevel(level);
     }
 
 
@@ -341,7 +469,7 @@ public class HandleStmt<Level> {
      */
     protected Object pushLocalPC(Object securityLevel, int dominatorIdentity) {
         localmap.pushLocalPC(securityLevel, dominatorIdentity);
-        logger.info("New LPC: " + localmap.getLocalPC().toString());
+        if (L2Trace.ENABLED) logger.info("New LPC: " + localmap.getLocalPC().toString());
         return localmap.getLocalPC();
     }
 
@@ -352,7 +480,7 @@ public class HandleStmt<Level> {
      * @param dominatorIdentity Hidentity for actual dominator.
      */
     protected void popLocalPC(int dominatorIdentity) {
-        logger.info("Pop local pc.");
+        if (L2Trace.ENABLED) logger.info("Pop local pc.");
         localmap.popLocalPC(dominatorIdentity);
     }
 
@@ -372,9 +500,10 @@ public class HandleStmt<Level> {
      * @return new SecurityLevel
      */
     protected Object pushGlobalPC(Object securityLevel) {
-        logger.info("Set globalPC to " + securityLevel);
-        objectmap.pushGlobalPC(securityLevel);
-        return objectmap.getGlobalPC();
+        if (L2Trace.ENABLED) logger.info("Set globalPC to " + securityLevel);
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.PUSH_PC, securityLevel);
+        context.pushGlobalPC(securityLevel);
+        return context.getGlobalPC();
     }
 
     /**
@@ -383,7 +512,7 @@ public class HandleStmt<Level> {
      * @return SecurityLevel
      */
     protected Object getGlobalPC() {
-        return objectmap.getGlobalPC();
+        return context.getGlobalPC();
     }
 
     /**
@@ -392,7 +521,8 @@ public class HandleStmt<Level> {
      * @return SecurityLevel of last GPC
      */
     public Object popGlobalPC() {
-        return objectmap.popGlobalPC();
+        if (OperationRecorder.ENABLED) OperationRecorder.record(MonitorOperation.POP_PC);
+        return context.popGlobalPC();
     }
 
     /**
@@ -408,7 +538,10 @@ public class HandleStmt<Level> {
         // here. In Jimple, argument-to-local assignments (JIdentityStmt) are always
         // the beginning of the method, where the context is public
 
-        localmap.setLevel(signature, handleStatementUtils.joinWithLPC(objectmap.getArgLevelAt(pos)));
+        localmap.setLevel(signature, handleStatementUtils.joinWithLPC(context.getArgLevelAt(pos)));
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.SET_LOCAL, signature, localmap.getLevel(signature));
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.ASSIGN_ARG_TO_LOCAL,
+                                         EventRecorder.UNKNOWN_SITE, localmap.getLevel(signature), null);
         return localmap.getLevel(signature);
     }
 
@@ -420,25 +553,27 @@ public class HandleStmt<Level> {
      * @param signature signature of local
      */
     public void assignReturnLevelToLocal(String signature) {
-        Object returnLevel = objectmap.getActualReturnLevel();
+        Object returnLevel = context.getActualReturnLevel();
 
         checkLocalPC(signature);
         setLocal(signature, returnLevel);
-        objectmap.setActualReturnLevel(CurrentSecurityDomain.top());
+        context.setActualReturnLevel(CurrentSecurityDomain.top());
     }
 
     /**
      * Set Returnlevel to SecurityLevel.bottom().
      */
     public void returnConstant() {
-        logger.info("Return a constant value.");
+        if (L2Trace.ENABLED) logger.info("Return a constant value.");
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.RETURN_CONSTANT,
+                                         EventRecorder.UNKNOWN_SITE, localmap.getLocalPC(), null);
 
-        objectmap.setActualReturnLevel(handleStatementUtils
+        context.setActualReturnLevel(handleStatementUtils
                                                .joinWithLPC
                                                        (CurrentSecurityDomain
                                                                 .bottom
                                                                         ()));
-        logger.info("Actual return level is: "
+        if (L2Trace.ENABLED) logger.info("Actual return level is: "
                     + handleStatementUtils.joinWithLPC(CurrentSecurityDomain
                                                                .bottom())
                                           .toString());
@@ -451,8 +586,10 @@ public class HandleStmt<Level> {
      */
     public void returnLocal(String signature) {
         Object level = localmap.getLevel(signature);
-        logger.info("Return Local "+signature+" with level " + level);
-        objectmap.setActualReturnLevel(level);
+        if (L2Trace.ENABLED) logger.info("Return Local "+signature+" with level " + level);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.RETURN_LOCAL,
+                                         EventRecorder.UNKNOWN_SITE, level, null);
+        context.setActualReturnLevel(level);
     }
 
     /**
@@ -461,13 +598,35 @@ public class HandleStmt<Level> {
      * @param arguments List of arguments
      */
     public void storeArgumentLevels(String... arguments) {
-        logger.info("Store arguments " + Arrays.toString(arguments)
+        if (L2Trace.ENABLED) logger.info("Store arguments " + Arrays.toString(arguments)
                     + " in LocalMap");
-        ArrayList<Object> levelArr = new ArrayList<Object>();
-        for (String el : arguments) {
-            levelArr.add(localmap.getLevel(el));
+        context.beginArguments(arguments.length);
+        for (int i = 0; i < arguments.length; i++) {
+            context.setArgumentRegister(i, localmap.getLevel(arguments[i]));
         }
-        objectmap.setActualArguments(levelArr);
+    }
+
+    /**
+     * Starts the arguments of the next invoked method. All arguments are
+     * bottom, until they are set by {@link HandleStmt#setArgumentLevel(int, String)}
+     * or {@link HandleStmt#setArgumentLabel(int, Object)}. In contrast to
+     * {@link HandleStmt#storeArgumentLevels(String...)} no array is needed.
+     *
+     * @param count the number of arguments.
+     */
+    public void beginArguments(int count) {
+        context.beginArguments(count);
+    }
+
+    /**
+     * Sets the level of the argument at the given position to the level of a local.
+     *
+     * @param pos       position of the argument.
+     * @param signature signature of the local, that is passed.
+     */
+    public void setArgumentLevel(int pos, String signature) {
+        if (L2Trace.ENABLED) logger.info("Store argument " + pos + ": " + signature);
+        context.setArgumentRegister(pos, localmap.getLevel(signature));
     }
 
     /**
@@ -480,15 +639,42 @@ public class HandleStmt<Level> {
      * @param args              List of signatore-string of all locals.
      */
     public void checkCondition(String dominatorIdentity, String... args) {
-        logger.info("Check condition of ifStmt");
-        localmap.pushLocalPC(handleStatementUtils
-                                     .joinWithLPC(handleStatementUtils
-                                                          .joinLocals(args)),
-                             Integer
-                                     .valueOf(dominatorIdentity));
-        objectmap.pushGlobalPC(handleStatementUtils.joinWithGPC(localmap
+        checkCondition(Integer.parseInt(dominatorIdentity), args);
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCondition(String, String...)}, with the
+     * identity of the postdominator as int.
+     *
+     * @param dominatorIdentity identity of the postdominator.
+     * @param args              List of signatore-string of all locals.
+     */
+    public void checkCondition(int dominatorIdentity, String... args) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("Check condition of ifStmt");
+        if (OperationRecorder.ENABLED) {
+            for (String arg : args) {
+                OperationRecorder.local(MonitorOperation.JOIN_LOCAL, arg);
+            }
+        }
+        pushConditionLevel(handleStatementUtils.joinLocals(args), dominatorIdentity);
+        if (TIMED_CHECKS) endCheck("checkCondition", context.getSite(), start);
+    }
+
+    /**
+     * Push the level of a condition, joined with the actual localPC, as new
+     * localPC together with the identity of the corresponding postdominator.
+     *
+     * @param conditionLevel    the joined level of all locals of the condition.
+     * @param dominatorIdentity identity of the postdominator.
+     */
+    private void pushConditionLevel(Object conditionLevel, int dominatorIdentity) {
+        if (OperationRecorder.ENABLED) OperationRecorder.branch(MonitorOperation.BRANCH, dominatorIdentity);
+        localmap.pushLocalPC(handleStatementUtils.joinWithLPC(conditionLevel),
+                             dominatorIdentity);
+        context.pushGlobalPC(handleStatementUtils.joinWithGPC(localmap
                                                                         .getLocalPC()));
-        logger.info("New LPC is " + localmap.getLocalPC().toString());
+        if (L2Trace.ENABLED) logger.info("New LPC is " + localmap.getLocalPC().toString());
     }
 
     /**
@@ -499,12 +685,45 @@ public class HandleStmt<Level> {
      * @param dominatorIdentity identity of the dominator.
      */
     public void exitInnerScope(String dominatorIdentity) {
-        while (localmap.dominatorIdentityEquals(Integer
-                                                        .valueOf
-                                                                (dominatorIdentity))) {
-            logger.info("Pop LPC for identity " + dominatorIdentity);
-            localmap.popLocalPC(Integer.valueOf(dominatorIdentity));
-            objectmap.popGlobalPC();    // pop needs to be removed
+        exitInnerScope(Integer.parseInt(dominatorIdentity));
+    }
+
+    /**
+     * Same as {@link HandleStmt#exitInnerScope(String)}, with the identity
+     * of the dominator as int.
+     *
+     * @param dominatorIdentity identity of the dominator.
+     */
+    public void exitInnerScope(int dominatorIdentity) {
+        if (OperationRecorder.ENABLED) OperationRecorder.branch(MonitorOperation.EXIT_BRANCH, dominatorIdentity);
+        while (localmap.dominatorIdentityEquals(dominatorIdentity)) {
+            if (L2Trace.ENABLED) logger.info("Pop LPC for identity " + dominatorIdentity);
+            localmap.popLocalPC(dominatorIdentity);
+            context.popGlobalPC();    // pop needs to be removed
+        }
+    }
+
+    /**
+     * Raise the levels of the locals, that may be written under a branch, to
+     * the local PC, which was just pushed by the check of its condition. This
+     * is the hybrid enforcement: the locals get the level of the branch,
+     * whether they are written or not. Locals, that are not tracked, are
+     * skipped. The write effect is computed
+     * statically and passed as constants, such that one call raises it.
+     *
+     * @param locals      the signatures of the locals of the method, that are written
+     *                    under some branch, separated by ';'.
+     * @param writeEffect the indices of the written locals in <code>locals</code>,
+     *                    each as one char.
+     */
+    public void raiseWriteEffect(String locals, String writeEffect) {
+        if (L2Trace.ENABLED) logger.info("Raise write effect of " + writeEffect.length() + " locals to " + localmap.getLocalPC());
+        localmap.raiseLevels(locals, writeEffect, localmap.getLocalPC());
+        if (OperationRecorder.ENABLED) {
+            String[] signatures = locals.split(";");
+            for (int i = 0; i < writeEffect.length(); i++) {
+                OperationRecorder.local(MonitorOperation.RAISE, signatures[writeEffect.charAt(i)]);
+            }
         }
     }
 
@@ -520,10 +739,11 @@ public class HandleStmt<Level> {
     public Object joinLevelOfLocalAndAssignmentLevel(String local) {
 
         Object localLevel = localmap.getLevel(local);
-        objectmap.setAssignmentLevel(handleStatementUtils.joinLevels(
-                objectmap.getAssignmentLevel(), localLevel));
-        logger.info("Set assignment-level to level "+ objectmap.getAssignmentLevel() + " because of " + local);
-        return objectmap.getAssignmentLevel();
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.JOIN_LOCAL, local);
+        context.setAssignmentLevel(handleStatementUtils.joinLevels(
+                context.getAssignmentLevel(), localLevel));
+        if (L2Trace.ENABLED) logger.info("Set assignment-level to level "+ context.getAssignmentLevel() + " because of " + local);
+        return context.getAssignmentLevel();
     }
 
     /**
@@ -537,10 +757,11 @@ public class HandleStmt<Level> {
     public Object joinLevelOfFieldAndAssignmentLevel(Object object, String
             field) {
         Object fieldLevel = objectmap.getFieldLevel(object, field);
-        logger.info("Set assignment-level to level "+fieldLevel+" of local " + field);
-        objectmap.setAssignmentLevel(handleStatementUtils.joinLevels(
-                objectmap.getAssignmentLevel(), fieldLevel));
-        return objectmap.getAssignmentLevel();
+        if (L2Trace.ENABLED) logger.info("Set assignment-level to level "+fieldLevel+" of local " + field);
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, fieldLevel);
+        context.setAssignmentLevel(handleStatementUtils.joinLevels(
+                context.getAssignmentLevel(), fieldLevel));
+        return context.getAssignmentLevel();
     }
 
     /**
@@ -552,11 +773,23 @@ public class HandleStmt<Level> {
      */
     public Object joinLevelOfArrayFieldAndAssignmentLevel(Object object,
                                                           String field) {
-        Object fieldLevel = objectmap.getFieldLevel(object, field);
-        logger.info("Set assignment-level to level "+fieldLevel+" of local " + field);
-        objectmap.setAssignmentLevel(handleStatementUtils.joinLevels(
-                objectmap.getAssignmentLevel(), fieldLevel));
-        return objectmap.getAssignmentLevel();
+        return joinLevelOfArrayElementAndAssignmentLevel(object, arrayIndex(field));
+    }
+
+    /**
+     * Join the level of the array element to the assignment-level.
+     *
+     * @param array The array.
+     * @param index The index of the element.
+     * @return The new assignment-level.
+     */
+    public Object joinLevelOfArrayElementAndAssignmentLevel(Object array, int index) {
+        Object elementLevel = objectmap.getArrayFieldLevel(array, index);
+        if (L2Trace.ENABLED) logger.info("Set assignment-level to level "+elementLevel+" of array-element " + index);
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, elementLevel);
+        context.setAssignmentLevel(handleStatementUtils.joinLevels(
+                context.getAssignmentLevel(), elementLevel));
+        return context.getAssignmentLevel();
     }
 
     /**
@@ -567,8 +800,9 @@ public class HandleStmt<Level> {
      * @return The new security-level
      */
     public Object setLocal(String signature, Object securitylevel) {
-        logger.info("Set level of local "+signature+" to " +  securitylevel);
+        if (L2Trace.ENABLED) logger.info("Set level of local "+signature+" to " +  securitylevel);
         localmap.setLevel(signature, securitylevel);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.SET_LOCAL, signature, securitylevel);
         return localmap.getLevel(signature);
     }
 
@@ -582,9 +816,12 @@ public class HandleStmt<Level> {
 
         Object leftHandSideSecValue = localmap.getLevel(signature);
         leftHandSideSecValue =
-                handleStatementUtils.joinLevels(objectmap
+                handleStatementUtils.joinLevels(context
                                                         .getActualReturnLevel(),
                                                 leftHandSideSecValue);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.SET_RETURN_LEVEL_AFTER_INVOKE_STMT,
+                                         EventRecorder.UNKNOWN_SITE, context.getActualReturnLevel(),
+                                         leftHandSideSecValue);
         setLocal(signature, leftHandSideSecValue);
     }
 
@@ -601,14 +838,15 @@ public class HandleStmt<Level> {
         // the local PC (for example, if inside a high-security if), or on either
         // of the right-hand variables' sec-levels, which is accumulated
         // in the assignmentLevel
-        Object newSecValue = handleStatementUtils.joinWithLPC(objectmap
+        Object newSecValue = handleStatementUtils.joinWithLPC(context
                                                                       .getAssignmentLevel());
-        logger.info("Set level of local "+signature+" to " + newSecValue);
+        if (L2Trace.ENABLED) logger.info("Set level of local "+signature+" to " + newSecValue);
 
         localmap.setLevel(signature, newSecValue);
-        logger.info("New level of local "+signature+" is " +  localmap.getLevel(signature));
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.ASSIGN, signature);
+        if (L2Trace.ENABLED) logger.info("New level of local "+signature+" is " +  localmap.getLevel(signature));
 
-        objectmap.clearAssignmentLevel();
+        context.clearAssignmentLevel();
         return localmap.getLevel(signature);
     }
 
@@ -620,16 +858,84 @@ public class HandleStmt<Level> {
      * @return The security-level of the field.
      */
     public Object setLevelOfField(Object object, String field) {
-        logger.info("Set level of field "+field+" to " +
-                        handleStatementUtils.joinWithGPC(objectmap
+        if (L2Trace.ENABLED) logger.info("Set level of field "+field+" to " +
+                        handleStatementUtils.joinWithGPC(context
                                                                  .getAssignmentLevel()));
         objectmap.setField(object, field, handleStatementUtils
-                .joinWithGPC(objectmap.getAssignmentLevel()));
-        logger.info("New level of field "+field+" is " +  objectmap.getFieldLevel(object, field));
-        objectmap.clearAssignmentLevel();
+                .joinWithGPC(context.getAssignmentLevel()));
+        if (L2Trace.ENABLED) logger.info("New level of field "+field+" is " +  objectmap.getFieldLevel(object, field));
+        context.clearAssignmentLevel();
         return objectmap.getFieldLevel(object, field);
     }
 
+    // <editor-fold desc="Shadow Label Fields">
+
+    /**
+     * Join the level, that is stored in the shadow label field of an
+     * instrumented class, to the assignment-level. The label is read by the
+     * injected code directly from the object, so no lookup in the ObjectMap
+     * is needed.
+     *
+     * @param label The content of the shadow label field. <code>null</code>
+     *              if the field was never written, which means bottom.
+     * @return The new assignment-level.
+     */
+    public Object joinLevelOfFieldLabelAndAssignmentLevel(Object label) {
+        Object fieldLevel = handleStatementUtils.levelOfLabel(label);
+        if (L2Trace.ENABLED) logger.info("Set assignment-level to level "+fieldLevel+" of field label");
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, fieldLevel);
+        context.setAssignmentLevel(handleStatementUtils.joinLevels(
+                context.getAssignmentLevel(), fieldLevel));
+        return context.getAssignmentLevel();
+    }
+
+    /**
+     * Check if the level, that is stored in a shadow label field, is greater
+     * or equal than the global PC.
+     *
+     * @param label The content of the shadow label field.
+     * @param field Signature of the field, only used for the error message.
+     */
+    public void checkGlobalPCWithFieldLabel(Object label, String field) {
+        checkFieldLabel(label, context.getGlobalPC(), field, "checkGlobalPCWithFieldLabel");
+    }
+
+    /**
+     * Check if the level in a shadow label field is greater or equal than the given global PC.
+     *
+     * @param check the name of the check, for its timing.
+     */
+    private void checkFieldLabel(Object label, Object globalPC, String field, String check) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        Object fieldLevel = handleStatementUtils.levelOfLabel(label);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.CHECK_FIELD, field, fieldLevel);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.CHECK_GLOBAL_PC_LE_PUTFIELD,
+                                         context.getSite(), globalPC, fieldLevel);
+        boolean permitted = CurrentSecurityDomain.le(globalPC, fieldLevel);
+        if (TIMED_CHECKS) endCheck(check, context.getSite(), start);
+
+        if (!permitted) {
+            handleStatementUtils.nsuViolation(field);
+        }
+    }
+
+    /**
+     * Calculate the new level of a field, whose level is kept in a shadow
+     * label field. That is the assignment-level joined with the gpc. The
+     * injected code stores the returned level in the label field.
+     *
+     * @param field Signature of the field, only used for logging.
+     * @return The new security-level of the field.
+     */
+    public Object setLevelOfFieldLabel(String field) {
+        Object newLevel = handleStatementUtils.joinWithGPC(context.getAssignmentLevel());
+        if (L2Trace.ENABLED) logger.info("Set level of field "+field+" to " + newLevel);
+        context.clearAssignmentLevel();
+        return newLevel;
+    }
+
+    // </editor-fold>
+
     /**
      * Check the array-field and the local-level of the object against the gpc,
      * and read the level stored as assignment-level. This level - joined with
@@ -648,15 +954,7 @@ public class HandleStmt<Level> {
     public Object setLevelOfArrayField(Object object, String field,
                                        String localForObject, String
                                                localForIndex) {
-        logger.info( "Set level of array-field "+field+" to "+
-                        handleStatementUtils.joinWithGPC(objectmap
-                                                                 .getAssignmentLevel()));
-
-        objectmap.setField(object, field, handleStatementUtils
-                .joinWithGPC(objectmap.getAssignmentLevel()));
-        logger.info("New level of array-field "+field+" is " +  objectmap.getFieldLevel(object, field));
-        objectmap.clearAssignmentLevel();
-        return objectmap.getFieldLevel(object, field);
+        return setLevelOfArrayElement(object, arrayIndex(field));
     }
 
     /**
@@ -675,15 +973,23 @@ public class HandleStmt<Level> {
      */
     public Object setLevelOfArrayField(Object object, String field,
                                        String localForObject) {
-        logger.info("Set level of array-field "+field+" to " +
-                        handleStatementUtils.joinWithGPC(objectmap
-                                                                 .getAssignmentLevel()));
+        return setLevelOfArrayElement(object, arrayIndex(field));
+    }
 
-        objectmap.setField(object, field, handleStatementUtils
-                .joinWithGPC(objectmap.getAssignmentLevel()));
-        logger.info("New level of array-field "+field+" is "+ objectmap.getFieldLevel(object, field));
-        objectmap.clearAssignmentLevel();
-        return objectmap.getFieldLevel(object, field);
+    /**
+     * Read the level stored as assignment-level. This level - joined with
+     * the gpc - is set as the new level of the given array element.
+     *
+     * @param array the array
+     * @param index the index of the element
+     * @return Returns the new SecurityLevel of the array-element
+     */
+    public Object setLevelOfArrayElement(Object array, int index) {
+        Object newLevel = handleStatementUtils.joinWithGPC(context.getAssignmentLevel());
+        if (L2Trace.ENABLED) logger.info("Set level of array-element "+index+" to " + newLevel);
+        objectmap.setArrayField(array, index, newLevel);
+        context.clearAssignmentLevel();
+        return newLevel;
     }
 
     /**
@@ -695,7 +1001,7 @@ public class HandleStmt<Level> {
      */
     public void checkArrayWithGlobalPC(Object object, String signature,
                                        String localForObject) {
-        handleStatementUtils.checkArrayWithGlobalPC(object, signature,
+        handleStatementUtils.checkArrayWithGlobalPC(object, arrayIndex(signature),
                                                     localForObject);
     }
 
@@ -710,11 +1016,53 @@ public class HandleStmt<Level> {
     public void checkArrayWithGlobalPC(Object object, String signature,
                                        String localForObject, String
                                                localForIndex) {
-        handleStatementUtils.checkArrayWithGlobalPC(object, signature,
+        handleStatementUtils.checkArrayWithGlobalPC(object, arrayIndex(signature),
                                                     localForObject,
                                                     localForIndex);
     }
 
+    /**
+     * Same as {@link HandleStmt#checkArrayWithGlobalPC(Object, String, String)},
+     * but the element is given by its index.
+     *
+     * @param array          the array
+     * @param index          the index of the element
+     * @param localForObject the signature of the local where the array is stored
+     */
+    public void checkArrayElementWithGlobalPC(Object array, int index,
+                                              String localForObject) {
+        handleStatementUtils.checkArrayWithGlobalPC(array, index, localForObject);
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkArrayWithGlobalPC(Object, String, String, String)},
+     * but the element is given by its index.
+     *
+     * @param array          the array
+     * @param index          the index of the element
+     * @param localForObject the signature of the local where the array is stored
+     * @param localForIndex  the signature of the local where the index is stored
+     */
+    public void checkArrayElementWithGlobalPC(Object array, int index,
+                                              String localForObject, String localForIndex) {
+        handleStatementUtils.checkArrayWithGlobalPC(array, index, localForObject,
+                                                    localForIndex);
+    }
+
+    /**
+     * Parses the signature of an array-field, that is its index.
+     *
+     * @param field the index as decimal string
+     * @return the index
+     */
+    private static int arrayIndex(String field) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new InternalAnalyzerException("Invalid index of array-field: " + field);
+        }
+    }
+
     /**
      * Check if level of field is greater then global PC
      *
@@ -722,11 +1070,17 @@ public class HandleStmt<Level> {
      * @param field
      */
     public void checkGlobalPC(Object object, String field) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
         Object fieldLevel = objectmap.getFieldLevel(object, field);
-        Object globalPC = objectmap.getGlobalPC();
-
-        if (!CurrentSecurityDomain.le(globalPC, fieldLevel)) {
-            handleStatementUtils.abort(new NSUError(NSU_ERROR_MESSAGE + field));
+        Object globalPC = context.getGlobalPC();
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.CHECK_FIELD, field, fieldLevel);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.CHECK_GLOBAL_PC_LE_PUTFIELD,
+                                         context.getSite(), globalPC, fieldLevel);
+        boolean permitted = CurrentSecurityDomain.le(globalPC, fieldLevel);
+        if (TIMED_CHECKS) endCheck("checkGlobalPC", context.getSite(), start);
+
+        if (!permitted) {
+            handleStatementUtils.nsuViolation(field);
         }
     }
 
@@ -741,22 +1095,28 @@ public class HandleStmt<Level> {
     // TODO: checking the local pc is only a "partial" enforcement primitive, that is, it is never useful by itself. E.g. it is used in assignments and method returns. So, it should be packed together with the other actions needed for the "complete" enforcement primitive.
     // TODO: before fixing the issue above, check why returning from functions and assignments are different cases.
     public void checkLocalPC(String signature) {
-        logger.info("NSU check for local " +  signature);
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("NSU check for local " +  signature);
         if (localmap == null) {
             throw new InternalAnalyzerException("LocalMap is null");
         }
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.CHECK_LOCAL, signature);
         //check if local is initialized
         if (!localmap.isTracked(signature)) {
-            logger.info("Local "+signature+" is not tracked; skipping NSU check");
+            if (L2Trace.ENABLED) logger.info("Local "+signature+" is not tracked; skipping NSU check");
             return;
         }
 
         // the following check must only be executed if local is initialised
         Object level = localmap.getLevel(signature);
         Object lpc = localmap.getLocalPC();
-        logger.info("Check for local "+signature+" if: "+level+" >= lpc: "+lpc);
-        if (!CurrentSecurityDomain.le(lpc, level)) {
-            handleStatementUtils.abort(new NSUError(NSU_ERROR_MESSAGE + signature));
+        if (L2Trace.ENABLED) logger.info("Check for local "+signature+" if: "+level+" >= lpc: "+lpc);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.CHECK_LOCAL_PC_CALLED,
+                                         context.getSite(), lpc, level);
+        boolean permitted = CurrentSecurityDomain.le(lpc, level);
+        if (TIMED_CHECKS) endCheck("checkLocalPC", context.getSite(), start);
+        if (!permitted) {
+            handleStatementUtils.nsuViolation(signature);
         }
     }
 
@@ -766,10 +1126,11 @@ public class HandleStmt<Level> {
      * don't require a cast.
      */
     public void checkNonSensitiveLocalPC() {
-        logger.info("NSU check for updating public a variable");
+        if (L2Trace.ENABLED) logger.info("NSU check for updating public a variable");
+        if (OperationRecorder.ENABLED) OperationRecorder.record(MonitorOperation.CHECK_PUBLIC);
        if (!CurrentSecurityDomain.le(localmap.getLocalPC(),
                                      CurrentSecurityDomain.bottom())) {
-          handleStatementUtils.abort(new NSUError("Sensitive update to public variable"));
+          handleStatementUtils.nsuViolation("public variable");
        }
     }
 
@@ -782,28 +1143,76 @@ public class HandleStmt<Level> {
     // TODO: This method is called whenever a local variable is compared to a security level. This comparison happens in several cases: casts, passing of arguments, maybe more. These cases should be distinguished.
     // against remove in favor of more specific checks (casts, etc)
     public void checkThatLe(String signature, String level) {
-        checkThatLe(signature, level,
-                    "Passed argument " + signature + " with level "
-                    + localmap.getLevel(signature) + " to some method" +
-                    " which requires a"
-                    + " security level of less/equal " + level);
+        checkThatLe(signature, CurrentSecurityDomain.readLevel(level));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkThatLe(String, String)}, with a level,
+     * that was already resolved by {@link HandleStmt#levelConstant(String)}.
+     *
+     * @param signature signature of the local to test
+     * @param level     level which mustn't be exceeded
+     */
+    public void checkThatLe(String signature, Object level) {
+        if (!isLocalLe(signature, level)) {
+            handleStatementUtils.illegalFlow(signature, passedArgumentMessage(signature, localmap.getLevel(signature), level));
+        }
     }
 
     public void checkCastToStatic(String signature, String level) {
-        checkThatLe(signature, level, "Illegal cast to static type " + level +
-                                      " of " + signature + "("
-                                      + localmap.getLevel(signature) + ")");
+        checkCastToStatic(signature, CurrentSecurityDomain.readLevel(level));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCastToStatic(String, String)}, with a
+     * level, that was already resolved by {@link HandleStmt#levelConstant(String)}.
+     *
+     * @param signature signature of the casted local
+     * @param level     the level of the static type
+     */
+    public void checkCastToStatic(String signature, Object level) {
+        if (JfrEvents.AVAILABLE) JfrEvents.castCheck(signature, localmap.getLevel(signature), level);
+        if (!isLocalLe(signature, level)) {
+            handleStatementUtils.illegalFlow(signature, illegalCastMessage(signature, localmap.getLevel(signature), level));
+        }
     }
 
     public void checkThatLe(String signature, String level, String msg) {
-        logger.info("Check if " + signature + " <= " + level);
+        checkThatLe(signature, CurrentSecurityDomain.readLevel(level), msg);
+    }
 
-        if (!CurrentSecurityDomain.le(localmap.getLevel(signature),
-                                      CurrentSecurityDomain.readLevel(level))) {
-            handleStatementUtils.abort(new IllegalFlowError(msg));
+    public void checkThatLe(String signature, Object level, String msg) {
+        if (!isLocalLe(signature, level)) {
+            handleStatementUtils.illegalFlow(signature, msg);
         }
     }
 
+    /**
+     * Performs the check of {@link HandleStmt#checkThatLe(String, Object, String)}.
+     * The message of a violation is only built by the callers, if the check fails.
+     *
+     * @return true, if the level of the local is less/equal than the given level
+     */
+    private boolean isLocalLe(String signature, Object level) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("Check if " + signature + " <= " + level);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.CHECK_LE, signature, level);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.CHECK_THAT_LE,
+                                         context.getSite(), localmap.getLevel(signature), level);
+        boolean permitted = CurrentSecurityDomain.le(localmap.getLevel(signature), level);
+        if (TIMED_CHECKS) endCheck("checkThatLe", context.getSite(), start);
+        return permitted;
+    }
+
+    private static String passedArgumentMessage(String signature, Object actual, Object level) {
+        return "Passed argument " + signature + " with level " + actual + " to some method"
+               + " which requires a security level of less/equal " + level;
+    }
+
+    private static String illegalCastMessage(String signature, Object actual, Object level) {
+        return "Illegal cast to static type " + level + " of " + signature + "(" + actual + ")";
+    }
+
     /**
      * This method is used if a print statement is identified. Print statements
      * require the PC to be on a less/equal a certain level (lessThan LOW for
@@ -813,27 +1222,799 @@ public class HandleStmt<Level> {
      */
     @SuppressWarnings("unused")
     public void checkThatPCLe(String level) {
+        checkThatPCLe(CurrentSecurityDomain.readLevel(level));
+    }
 
-        logger.info(
+    /**
+     * Same as {@link HandleStmt#checkThatPCLe(String)}, with a level, that
+     * was already resolved by {@link HandleStmt#levelConstant(String)}.
+     *
+     * @param level level the PC must be less/equal than.
+     */
+    public void checkThatPCLe(Object level) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+
+        if (L2Trace.ENABLED) logger.info(
                 "About to print something somewhere. Requires to check that "
                 + "PC is less than "
                 + level);
-
-        if (!CurrentSecurityDomain.le(localmap.getLocalPC(),
-                                      CurrentSecurityDomain.readLevel(level))) {
-            handleStatementUtils.abort(new IllegalFlowError("Invalid security "
-                                                            + "context: PC "
-                                                            + "must be "
-                                                            + "less/eqal " +
-                                                            level + ", but PC "
-                                                            + "was " +
-                                                            localmap
-                                                                    .getLocalPC()));
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.CHECK_PC_LE, level);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.CHECK_THAT_PC_LE,
+                                         context.getSite(), localmap.getLocalPC(), level);
+        if (JfrEvents.AVAILABLE) JfrEvents.sinkCheck(localmap.getLocalPC(), level);
+        boolean permitted = CurrentSecurityDomain.le(localmap.getLocalPC(), level);
+        if (TIMED_CHECKS) endCheck("checkThatPCLe", context.getSite(), start);
+
+        if (!permitted) {
+            handleStatementUtils.illegalFlow("PC", "Invalid security "
+                                             + "context: PC "
+                                             + "must be "
+                                             + "less/eqal " +
+                                             level + ", but PC "
+                                             + "was " +
+                                             localmap
+                                                     .getLocalPC());
         }
     }
 
     public void stopTrackingLocal(String signature) {
-        logger.info("Stop tracking local "+ signature);
+        if (L2Trace.ENABLED) logger.info("Stop tracking local "+ signature);
         localmap.removeLocal(signature);
     }
+
+    // <editor-fold desc="Fused Assignments">
+
+    /*
+     * The following methods instrument an assign statement of a common shape
+     * by a single call: they join the levels of the right-hand side, perform
+     * the NSU check and compute the new level of the left-hand side. Unlike
+     * the separate joins, checks and updates, they do not pass the level of
+     * the right-hand side through the assignment-level of the MonitorContext.
+     * Only the levels of dynamic locals are passed; constants are bottom.
+     */
+
+    /** No NSU check is needed for the assignment, because the context is static. */
+    public static final int PC_CHECK_NONE = 0;
+
+    /** The level of the local must be greater or equal than the local PC, see {@link HandleStmt#checkLocalPC(String)}. */
+    public static final int PC_CHECK_LOCAL = 1;
+
+    /** The local is public, so the local PC must be bottom, see {@link HandleStmt#checkNonSensitiveLocalPC()}. */
+    public static final int PC_CHECK_PUBLIC = 2;
+
+    /**
+     * Assign a value without a dynamic level, e.g. a constant, to a local:
+     * <code>x = 5</code>.
+     *
+     * @param target  signature of the local, that is assigned
+     * @param pcCheck one of {@link HandleStmt#PC_CHECK_NONE}, {@link HandleStmt#PC_CHECK_LOCAL}
+     *                or {@link HandleStmt#PC_CHECK_PUBLIC}
+     * @return the new level of the local
+     */
+    public Object assignLocal(String target, int pcCheck) {
+        return assignLocalLevel(target, CurrentSecurityDomain.bottom(), pcCheck);
+    }
+
+    /**
+     * Assign a local to a local: <code>x = a</code>.
+     * Same as {@link HandleStmt#assignLocal(String, int)}.
+     */
+    public Object assignLocal(String target, String source, int pcCheck) {
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.JOIN_LOCAL, source);
+        return assignLocalLevel(target, localmap.getLevel(source), pcCheck);
+    }
+
+    /**
+     * Assign an operation on two locals to a local: <code>x = a + b</code>.
+     * Same as {@link HandleStmt#assignLocal(String, int)}.
+     */
+    public Object assignLocal(String target, String source1, String source2, int pcCheck) {
+        if (OperationRecorder.ENABLED) {
+            OperationRecorder.local(MonitorOperation.JOIN_LOCAL, source1);
+            OperationRecorder.local(MonitorOperation.JOIN_LOCAL, source2);
+        }
+        return assignLocalLevel(target, CurrentSecurityDomain.lub(localmap.getLevel(source1),
+                                                                  localmap.getLevel(source2)), pcCheck);
+    }
+
+    /**
+     * Assign a field, whose level is kept in a shadow label field, to a local:
+     * <code>x = o.f</code>, where the level of <code>o</code> is static.
+     *
+     * @param target     signature of the local, that is assigned
+     * @param fieldLabel the content of the label field
+     * @param pcCheck    see {@link HandleStmt#assignLocal(String, int)}
+     * @return the new level of the local
+     */
+    public Object assignLocalFromFieldLabel(String target, Object fieldLabel, int pcCheck) {
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, handleStatementUtils.levelOfLabel(fieldLabel));
+        return assignLocalLevel(target, handleStatementUtils.levelOfLabel(fieldLabel), pcCheck);
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignLocalFromFieldLabel(String, Object, int)},
+     * where the level of the local <code>base</code>, that holds the object, is dynamic.
+     */
+    public Object assignLocalFromFieldLabel(String target, Object fieldLabel, String base, int pcCheck) {
+        if (OperationRecorder.ENABLED) {
+            OperationRecorder.level(MonitorOperation.JOIN_LEVEL, handleStatementUtils.levelOfLabel(fieldLabel));
+            OperationRecorder.local(MonitorOperation.JOIN_LOCAL, base);
+        }
+        return assignLocalLevel(target, CurrentSecurityDomain.lub(handleStatementUtils.levelOfLabel(fieldLabel),
+                                                                  localmap.getLevel(base)), pcCheck);
+    }
+
+    private Object assignLocalLevel(String target, Object level, int pcCheck) {
+        if (pcCheck == PC_CHECK_LOCAL) {
+            checkLocalPC(target);
+        } else if (pcCheck == PC_CHECK_PUBLIC) {
+            checkNonSensitiveLocalPC();
+        }
+        Object newLevel = handleStatementUtils.joinWithLPC(level);
+        if (L2Trace.ENABLED) logger.info("Set level of local " + target + " to " + newLevel);
+        localmap.setLevel(target, newLevel);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.ASSIGN, target);
+        return newLevel;
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignLocal(String, int)}, if the levels of
+     * the locals are kept in label locals. A source may also be the content
+     * of a label field.
+     *
+     * @param target      signature of the local, only used for the error message
+     * @param targetLabel the label of the local, that is assigned
+     * @param pcCheck     see {@link HandleStmt#assignLocal(String, int)}
+     * @return the new label of the local
+     */
+    public Object assignLocalLabel(String target, Object targetLabel, int pcCheck) {
+        return assignLocalLabelLevel(target, targetLabel, CurrentSecurityDomain.bottom(), pcCheck);
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignLocalLabel(String, Object, int)} with one source.
+     */
+    public Object assignLocalLabel(String target, Object targetLabel, Object source, int pcCheck) {
+        return assignLocalLabelLevel(target, targetLabel, handleStatementUtils.levelOfLabel(source), pcCheck);
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignLocalLabel(String, Object, int)} with two sources.
+     */
+    public Object assignLocalLabel(String target, Object targetLabel, Object source1, Object source2,
+                                   int pcCheck) {
+        return assignLocalLabelLevel(target, targetLabel,
+                                     CurrentSecurityDomain.lub(handleStatementUtils.levelOfLabel(source1),
+                                                               handleStatementUtils.levelOfLabel(source2)),
+                                     pcCheck);
+    }
+
+    private Object assignLocalLabelLevel(String target, Object targetLabel, Object level, int pcCheck) {
+        if (pcCheck == PC_CHECK_LOCAL) {
+            checkLocalPCWithLabel(targetLabel, target);
+        } else if (pcCheck == PC_CHECK_PUBLIC) {
+            checkNonSensitiveLocalPC();
+        }
+        Object newLevel = handleStatementUtils.joinWithLPC(level);
+        if (L2Trace.ENABLED) logger.info("Set label of local " + target + " to " + newLevel);
+        if (OperationRecorder.ENABLED) {
+            OperationRecorder.level(MonitorOperation.JOIN_LEVEL, level);
+            OperationRecorder.local(MonitorOperation.ASSIGN, target);
+        }
+        return newLevel;
+    }
+
+    /**
+     * Assign a constant to a field, whose level is kept in a shadow label
+     * field: <code>o.f = 5</code>. The level of the local <code>base</code>,
+     * that holds the object, is joined to the global PC, like
+     * {@link HandleStmt#pushInstanceLevelToGlobalPC(String)} does.
+     *
+     * @param field      signature of the field, only used for the error message
+     * @param fieldLabel the content of the label field
+     * @param base       signature of the local, that holds the object
+     * @param checkPC    if the level of the field must be checked against the global PC
+     * @return the new content of the label field
+     */
+    public Object assignFieldLabel(String field, Object fieldLabel, String base, boolean checkPC) {
+        return assignFieldLabelLevel(field, fieldLabel, localmap.getLevel(base),
+                                     CurrentSecurityDomain.bottom(), checkPC);
+    }
+
+    /**
+     * Assign a local to a field: <code>o.f = x</code>.
+     * Same as {@link HandleStmt#assignFieldLabel(String, Object, String, boolean)}.
+     */
+    public Object assignFieldLabel(String field, Object fieldLabel, String base, String source,
+                                   boolean checkPC) {
+        return assignFieldLabelLevel(field, fieldLabel, localmap.getLevel(base),
+                                     localmap.getLevel(source), checkPC);
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignFieldLabel(String, Object, String, boolean)},
+     * if the levels of the locals are kept in label locals.
+     */
+    public Object assignFieldLabelWithLabels(String field, Object fieldLabel, Object baseLabel,
+                                             boolean checkPC) {
+        return assignFieldLabelLevel(field, fieldLabel, handleStatementUtils.levelOfLabel(baseLabel),
+                                     CurrentSecurityDomain.bottom(), checkPC);
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignFieldLabel(String, Object, String, String, boolean)},
+     * if the levels of the locals are kept in label locals.
+     */
+    public Object assignFieldLabelWithLabels(String field, Object fieldLabel, Object baseLabel,
+                                             Object sourceLabel, boolean checkPC) {
+        return assignFieldLabelLevel(field, fieldLabel, handleStatementUtils.levelOfLabel(baseLabel),
+                                     handleStatementUtils.levelOfLabel(sourceLabel), checkPC);
+    }
+
+    private Object assignFieldLabelLevel(String field, Object fieldLabel, Object baseLevel,
+                                         Object level, boolean checkPC) {
+        Object globalPC = handleStatementUtils.joinWithGPC(baseLevel);
+        if (checkPC) {
+            checkFieldLabel(fieldLabel, globalPC, field, "assignFieldLabel");
+        }
+        Object newLevel = CurrentSecurityDomain.lub(globalPC, level);
+        if (L2Trace.ENABLED) logger.info("Set level of field " + field + " to " + newLevel);
+        return newLevel;
+    }
+
+    /**
+     * Assign a local to an array element, whose index is a constant:
+     * <code>a[0] = x</code>. Performs the check of
+     * {@link HandleStmt#checkArrayElementWithGlobalPC(Object, int, String)}.
+     *
+     * @param array          the array
+     * @param index          the index of the element
+     * @param localForObject signature of the local, that holds the array
+     * @param source         signature of the local, that is assigned
+     * @return the new level of the element
+     */
+    public Object assignArrayElement(Object array, int index, String localForObject, String source) {
+        handleStatementUtils.checkArrayWithGlobalPC(array, index, localForObject);
+        return assignArrayElementLevel(array, index, localmap.getLevel(source));
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignArrayElement(Object, int, String, String)},
+     * where the index is stored in the local <code>localForIndex</code>.
+     */
+    public Object assignArrayElement(Object array, int index, String localForObject,
+                                     String localForIndex, String source) {
+        handleStatementUtils.checkArrayWithGlobalPC(array, index, localForObject, localForIndex);
+        return assignArrayElementLevel(array, index, localmap.getLevel(source));
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignArrayElement(Object, int, String, String)},
+     * if the levels of the locals are kept in label locals.
+     */
+    public Object assignArrayElementWithLabels(Object array, int index, String localForObject,
+                                               Object labelForObject, Object sourceLabel) {
+        handleStatementUtils.checkArrayLabelsWithGlobalPC(array, index, localForObject,
+                                                          handleStatementUtils.levelOfLabel(labelForObject));
+        return assignArrayElementLevel(array, index, handleStatementUtils.levelOfLabel(sourceLabel));
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignArrayElement(Object, int, String, String, String)},
+     * if the levels of the locals are kept in label locals.
+     */
+    public Object assignArrayElementWithLabels(Object array, int index, String localForObject,
+                                               Object labelForObject, Object labelForIndex,
+                                               Object sourceLabel) {
+        handleStatementUtils.checkArrayLabelsWithGlobalPC(array, index, localForObject,
+                CurrentSecurityDomain.lub(handleStatementUtils.levelOfLabel(labelForObject),
+                                          handleStatementUtils.levelOfLabel(labelForIndex)));
+        return assignArrayElementLevel(array, index, handleStatementUtils.levelOfLabel(sourceLabel));
+    }
+
+    private Object assignArrayElementLevel(Object array, int index, Object level) {
+        Object newLevel = handleStatementUtils.joinWithGPC(level);
+        if (L2Trace.ENABLED) logger.info("Set level of array-element " + index + " to " + newLevel);
+        objectmap.setArrayField(array, index, newLevel);
+        return newLevel;
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Bulk Array Operations">
+
+    /*
+     * The following methods model the bulk operations of the Java library on
+     * arrays: System.arraycopy, Arrays.fill, Arrays.copyOf, Arrays.copyOfRange
+     * and clone. Each of them changes the levels of a range of elements by
+     * one operation of the ObjectMap, instead of one operation per element.
+     * Like an assignment of an array element, a bulk write is instrumented
+     * by a check and an update: the levels of the locals, that select the
+     * written range, are joined to the assignment-level before the check, and
+     * the levels of the locals, that select the written values, before the
+     * update. Both clear the assignment-level.
+     */
+
+    /**
+     * Check if all elements of the array are greater or equal than the
+     * assignment-level joined with the gpc, before they are written by
+     * <code>Arrays.fill(a, x)</code>.
+     *
+     * @param array          the written array
+     * @param localForObject the signature of the local, that holds the array
+     */
+    public void checkArrayRangeWithGlobalPC(Object array, String localForObject) {
+        checkArrayRangeWithGlobalPC(array, 0, Array.getLength(array), localForObject);
+    }
+
+    /**
+     * Check if the elements from <code>from</code>, inclusive, to <code>to</code>,
+     * exclusive, are greater or equal than the assignment-level joined with the
+     * gpc, before they are written by <code>Arrays.fill(a, from, to, x)</code>.
+     *
+     * @param array          the written array
+     * @param from           the index of the first written element
+     * @param to             the index after the last written element
+     * @param localForObject the signature of the local, that holds the array
+     */
+    public void checkArrayRangeWithGlobalPC(Object array, int from, int to, String localForObject) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        handleStatementUtils.checkArrayRangeWithGlobalPC(array, from, to, localForObject,
+                                                         context.getAssignmentLevel());
+        context.clearAssignmentLevel();
+        if (TIMED_CHECKS) endCheck("checkArrayRangeWithGlobalPC", context.getSite(), start);
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkArrayRangeWithGlobalPC(Object, int, int, String)} for
+     * the elements, that are written by <code>System.arraycopy(src, srcPos, dest, destPos, length)</code>.
+     *
+     * @param dest         the written array
+     * @param destPos      the index of the first written element
+     * @param length       the number of written elements
+     * @param localForDest the signature of the local, that holds the written array
+     */
+    public void checkArrayCopyWithGlobalPC(Object dest, int destPos, int length, String localForDest) {
+        checkArrayRangeWithGlobalPC(dest, destPos, destPos + length, localForDest);
+    }
+
+    /**
+     * Set the level of all elements of the array to the assignment-level joined
+     * with the gpc: <code>Arrays.fill(a, x)</code>.
+     *
+     * @param array the written array
+     * @return the new level of the elements
+     */
+    public Object fillArrayLevels(Object array) {
+        return fillArrayLevels(array, 0, Array.getLength(array));
+    }
+
+    /**
+     * Set the level of the elements from <code>from</code>, inclusive, to
+     * <code>to</code>, exclusive, to the assignment-level joined with the gpc:
+     * <code>Arrays.fill(a, from, to, x)</code>.
+     *
+     * @param array the written array
+     * @param from  the index of the first written element
+     * @param to    the index after the last written element
+     * @return the new level of the elements
+     */
+    public Object fillArrayLevels(Object array, int from, int to) {
+        Object newLevel = handleStatementUtils.joinWithGPC(context.getAssignmentLevel());
+        context.clearAssignmentLevel();
+        if (L2Trace.ENABLED) logger.info("Set level of array-elements " + from + " to " + to + " to " + newLevel);
+        objectmap.fillArrayFields(array, from, to, newLevel);
+        return newLevel;
+    }
+
+    /**
+     * Copy the levels of the elements, that are copied by
+     * <code>System.arraycopy(src, srcPos, dest, destPos, length)</code>. Each
+     * copied level is joined with the assignment-level and the gpc.
+     *
+     * @param src     the source array
+     * @param srcPos  the index of the first copied element
+     * @param dest    the written array
+     * @param destPos the index of the first written element
+     * @param length  the number of copied elements
+     */
+    public void arraycopyLevels(Object src, int srcPos, Object dest, int destPos, int length) {
+        Object extraLevel = handleStatementUtils.joinWithGPC(context.getAssignmentLevel());
+        context.clearAssignmentLevel();
+        if (L2Trace.ENABLED) logger.info("Copy levels of " + length + " array-elements, joined with " + extraLevel);
+        objectmap.copyArrayFields(src, srcPos, dest, destPos, length, extraLevel);
+    }
+
+    /**
+     * Set the levels of the elements of a copy of an array, that was just created by
+     * <code>Arrays.copyOf(original, n)</code>, <code>Arrays.copyOfRange(original, from, to)</code>
+     * or <code>original.clone()</code>: the element <code>i</code> of the copy gets
+     * the level of the element <code>from + i</code> of the original joined with the
+     * gpc. The elements, that have no original, keep the level bottom. The level of the
+     * copy itself is the level of the local, it is assigned to.
+     *
+     * @param original the copied array
+     * @param from     the index of the first copied element
+     * @param copy     the new array
+     */
+    public void copyOfArrayLevels(Object original, int from, Object copy) {
+        int length = Math.min(Array.getLength(copy), Array.getLength(original) - from);
+        Object extraLevel = handleStatementUtils.joinWithGPC(CurrentSecurityDomain.bottom());
+        if (L2Trace.ENABLED) logger.info("Copy levels of " + length + " array-elements to a new array");
+        objectmap.insertNewArray(copy);
+        objectmap.copyArrayFields(original, from, copy, 0, length, extraLevel);
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Label Locals">
+
+    /*
+     * The following methods are used, if the instrumentation keeps the level
+     * of every local x in a companion local x$lbl instead of the LocalMap.
+     * The injected code passes the label, and stores the returned label, if
+     * the level of the local changes. A label of null stands for a local,
+     * that is not tracked, which means bottom. The LocalMap then only holds
+     * the localPC.
+     */
+
+    /**
+     * Same as {@link HandleStmt#raiseWriteEffect(String, String)} for a
+     * single local, whose level is kept in a label local. A local, that is
+     * not tracked, stays untracked.
+     *
+     * @param label     the label of the local, that may be written under the branch.
+     * @param signature the signature of the local, only used for recording.
+     * @return the new label of the local.
+     */
+    public Object raiseLabelToLocalPC(Object label, String signature) {
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.RAISE, signature);
+        return label == null ? null : handleStatementUtils.joinWithLPC(label);
+    }
+
+    /**
+     * Join the level of a label local to the assignment-level.
+     *
+     * @param label the label of the local.
+     * @return the new assignment-level.
+     */
+    public Object joinLevelOfLocalLabelAndAssignmentLevel(Object label) {
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, handleStatementUtils.levelOfLabel(label));
+        context.setAssignmentLevel(handleStatementUtils.joinLevels(
+                context.getAssignmentLevel(), handleStatementUtils.levelOfLabel(label)));
+        if (L2Trace.ENABLED) logger.info("Set assignment-level to level "+ context.getAssignmentLevel() + " because of label " + label);
+        return context.getAssignmentLevel();
+    }
+
+    /**
+     * Calculate the new label of an assigned local, that is the
+     * assignment-level joined with the localPC, and clear the assignment-level.
+     *
+     * @param signature the signature of the local, only used for logging and recording.
+     * @return the new label of the local.
+     */
+    public Object setLocalLabelToCurrentAssignmentLevel(String signature) {
+        Object newSecValue = handleStatementUtils.joinWithLPC(context.getAssignmentLevel());
+        if (L2Trace.ENABLED) logger.info("Set label of local " + signature + " to " + newSecValue);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.ASSIGN, signature);
+        context.clearAssignmentLevel();
+        return newSecValue;
+    }
+
+    /**
+     * NSU check for a local, whose level is stored in a label local. Same as
+     * {@link HandleStmt#checkLocalPC(String)}.
+     *
+     * @param label     the label of the local, null if it is not tracked.
+     * @param signature the signature of the local, used for the error message.
+     */
+    public void checkLocalPCWithLabel(Object label, String signature) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (label == null) {
+            if (L2Trace.ENABLED) logger.info("Local "+signature+" is not tracked; skipping NSU check");
+            return;
+        }
+        Object lpc = localmap.getLocalPC();
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.CHECK_LOCAL, signature);
+        if (L2Trace.ENABLED) logger.info("Check for local "+signature+" if: "+label+" >= lpc: "+lpc);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.CHECK_LOCAL_PC_CALLED,
+                                         context.getSite(), lpc, label);
+        boolean permitted = CurrentSecurityDomain.le(lpc, label);
+        if (TIMED_CHECKS) endCheck("checkLocalPCWithLabel", context.getSite(), start);
+        if (!permitted) {
+            handleStatementUtils.nsuViolation(signature);
+        }
+    }
+
+    /**
+     * Read a level, that shall be stored as label of a local. Same as
+     * {@link HandleStmt#setLocalFromString(String, String)}.
+     *
+     * @param signature the signature of the local, only used for logging and recording.
+     * @param level     the string representation of the level.
+     * @return the level.
+     */
+    public Object labelFromString(String signature, String level) {
+        return labelFromLevel(signature, CurrentSecurityDomain.readLevel(level));
+    }
+
+    /**
+     * Same as {@link HandleStmt#labelFromString(String, String)}, with a
+     * level, that was already resolved by {@link HandleStmt#levelConstant(String)}.
+     * Same as {@link HandleStmt#setLocalToLevel(String, Object)}.
+     *
+     * @param signature the signature of the local, only used for logging and recording.
+     * @param level     the level
+     * @return the level.
+     */
+    public Object labelFromLevel(String signature, Object level) {
+        if (L2Trace.ENABLED) logger.info("Set label of local " + signature + " to " + level);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.SET_LOCAL, signature, level);
+        return level;
+    }
+
+    /**
+     * Same as {@link HandleStmt#setReturnLevelAfterInvokeStmt(String)}.
+     *
+     * @param label     the label of the left-hand side.
+     * @param signature the signature of the left-hand side, only used for recording.
+     * @return the new label of the left-hand side.
+     */
+    public Object joinReturnLevelWithLabel(Object label, String signature) {
+        Object newLevel = handleStatementUtils.joinLevels(context.getActualReturnLevel(),
+                                                          handleStatementUtils.levelOfLabel(label));
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.SET_LOCAL, signature, newLevel);
+        return newLevel;
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignArgumentToLocal(int, String)}.
+     *
+     * @param pos       position of argument
+     * @param signature the signature of the local, only used for recording.
+     * @return the label of the local, the argument is assigned to.
+     */
+    public Object assignArgumentToLabel(int pos, String signature) {
+        Object newLevel = handleStatementUtils.joinWithLPC(context.getArgLevelAt(pos));
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.SET_LOCAL, signature, newLevel);
+        return newLevel;
+    }
+
+    /**
+     * Same as {@link HandleStmt#assignArgumentToLabel(int, String)}, for a method,
+     * that gets the label of the argument as an extra parameter.
+     * The clones are created by LabelPassing of level 1.
+     *
+     * @param label     the label parameter of the argument, null for constants.
+     * @param signature the signature of the local, only used for recording.
+     * @return the label of the local, the argument is assigned to.
+     */
+    public Object assignLabelParameter(Object label, String signature) {
+        Object newLevel = handleStatementUtils.joinWithLPC(handleStatementUtils.levelOfLabel(label));
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.SET_LOCAL, signature, newLevel);
+        return newLevel;
+    }
+
+    /**
+     * Reads the level of an argument from the argument registers of the
+     * current thread. It is called by the bridges of the label-passing
+     * clones, which have no HandleStmt, to pass the level as a parameter.
+     *
+     * @param pos position of the argument
+     * @return the level of the argument.
+     */
+    public static Object argumentLabel(int pos) {
+        return ObjectMap.getInstance().getContext().getArgLevelAt(pos);
+    }
+
+    /**
+     * Set returnlevel to the level of a label local.
+     *
+     * @param label the label of the returned local.
+     */
+    public void returnLabel(Object label) {
+        Object level = handleStatementUtils.levelOfLabel(label);
+        if (L2Trace.ENABLED) logger.info("Return Local with level " + level);
+        context.setActualReturnLevel(level);
+    }
+
+    /**
+     * Store the levels of the arguments, given by their labels.
+     *
+     * @param labels the labels of the arguments, null for constants.
+     */
+    public void storeArgumentLabels(Object[] labels) {
+        if (L2Trace.ENABLED) logger.info("Store arguments " + Arrays.toString(labels));
+        context.beginArguments(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            context.setArgumentRegister(i, handleStatementUtils.levelOfLabel(labels[i]));
+        }
+    }
+
+    /**
+     * Same as {@link HandleStmt#setArgumentLevel(int, String)}, with the label of the local.
+     *
+     * @param pos   position of the argument.
+     * @param label the label of the local, that is passed.
+     */
+    public void setArgumentLabel(int pos, Object label) {
+        context.setArgumentRegister(pos, handleStatementUtils.levelOfLabel(label));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCondition(String, String...)} for a
+     * condition without locals.
+     *
+     * @param dominatorIdentity identity of the postdominator.
+     */
+    public void checkConditionWithLabels(int dominatorIdentity) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("Check condition of ifStmt");
+        pushConditionLevel(CurrentSecurityDomain.bottom(), dominatorIdentity);
+        if (TIMED_CHECKS) endCheck("checkConditionWithLabels", context.getSite(), start);
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCondition(String, String...)} for a
+     * condition with one local.
+     *
+     * @param dominatorIdentity identity of the postdominator.
+     * @param label             label of the local.
+     */
+    public void checkConditionWithLabels(int dominatorIdentity, Object label) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("Check condition of ifStmt");
+        Object level = handleStatementUtils.levelOfLabel(label);
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, level);
+        pushConditionLevel(level, dominatorIdentity);
+        if (TIMED_CHECKS) endCheck("checkConditionWithLabels", context.getSite(), start);
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCondition(String, String...)} for a
+     * condition with two locals.
+     *
+     * @param dominatorIdentity identity of the postdominator.
+     * @param label1            label of the first local.
+     * @param label2            label of the second local.
+     */
+    public void checkConditionWithLabels(int dominatorIdentity, Object label1, Object label2) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("Check condition of ifStmt");
+        Object level = CurrentSecurityDomain.lub(handleStatementUtils.levelOfLabel(label1),
+                                                 handleStatementUtils.levelOfLabel(label2));
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, level);
+        pushConditionLevel(level, dominatorIdentity);
+        if (TIMED_CHECKS) endCheck("checkConditionWithLabels", context.getSite(), start);
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCondition(String, String...)} for a
+     * condition with an arbitrary number of locals.
+     *
+     * @param dominatorIdentity identity of the postdominator.
+     * @param labels            labels of all locals.
+     */
+    public void checkConditionWithLabels(int dominatorIdentity, Object[] labels) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("Check condition of ifStmt");
+        Object level = CurrentSecurityDomain.bottom();
+        for (Object label : labels) {
+            level = CurrentSecurityDomain.lub(level, handleStatementUtils.levelOfLabel(label));
+        }
+        if (OperationRecorder.ENABLED) OperationRecorder.level(MonitorOperation.JOIN_LEVEL, level);
+        pushConditionLevel(level, dominatorIdentity);
+        if (TIMED_CHECKS) endCheck("checkConditionWithLabels", context.getSite(), start);
+    }
+
+    /**
+     * Same as {@link HandleStmt#pushInstanceLevelToGlobalPC(String)}.
+     *
+     * @param label label of the local, that holds the instance.
+     */
+    public void pushInstanceLabelToGlobalPC(Object label) {
+        pushGlobalPC(handleStatementUtils.joinWithGPC(handleStatementUtils.levelOfLabel(label)));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkArrayElementWithGlobalPC(Object, int, String)}.
+     *
+     * @param array          the array
+     * @param index          the index of the element
+     * @param localForObject the signature of the local where the array is stored
+     * @param labelForObject the label of the local where the array is stored
+     */
+    public void checkArrayLabelsWithGlobalPC(Object array, int index, String localForObject,
+                                             Object labelForObject) {
+        handleStatementUtils.checkArrayLabelsWithGlobalPC(array, index, localForObject,
+                                                          handleStatementUtils.levelOfLabel(labelForObject));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkArrayElementWithGlobalPC(Object, int, String, String)}.
+     *
+     * @param array          the array
+     * @param index          the index of the element
+     * @param localForObject the signature of the local where the array is stored
+     * @param labelForObject the label of the local where the array is stored
+     * @param labelForIndex  the label of the local where the index is stored
+     */
+    public void checkArrayLabelsWithGlobalPC(Object array, int index, String localForObject,
+                                             Object labelForObject, Object labelForIndex) {
+        handleStatementUtils.checkArrayLabelsWithGlobalPC(array, index, localForObject,
+                CurrentSecurityDomain.lub(handleStatementUtils.levelOfLabel(labelForObject),
+                                          handleStatementUtils.levelOfLabel(labelForIndex)));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkThatLe(String, String)}.
+     *
+     * @param label     label of the local to test
+     * @param signature signature of the local, used for the error message
+     * @param level     level which mustn't be exceeded
+     */
+    public void checkThatLeWithLabel(Object label, String signature, String level) {
+        checkThatLeWithLabel(label, signature, CurrentSecurityDomain.readLevel(level));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkThatLe(String, Object)}.
+     *
+     * @param label     label of the local to test
+     * @param signature signature of the local, used for the error message
+     * @param level     level which mustn't be exceeded
+     */
+    public void checkThatLeWithLabel(Object label, String signature, Object level) {
+        Object actual = handleStatementUtils.levelOfLabel(label);
+        if (!isLabelLe(actual, signature, level, "checkThatLeWithLabel")) {
+            handleStatementUtils.illegalFlow(signature, passedArgumentMessage(signature, actual, level));
+        }
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCastToStatic(String, String)}.
+     *
+     * @param label     label of the casted local
+     * @param signature signature of the local, used for the error message
+     * @param level     the level of the static type
+     */
+    public void checkCastToStaticWithLabel(Object label, String signature, String level) {
+        checkCastToStaticWithLabel(label, signature, CurrentSecurityDomain.readLevel(level));
+    }
+
+    /**
+     * Same as {@link HandleStmt#checkCastToStatic(String, Object)}.
+     *
+     * @param label     label of the casted local
+     * @param signature signature of the local, used for the error message
+     * @param level     the level of the static type
+     */
+    public void checkCastToStaticWithLabel(Object label, String signature, Object level) {
+        Object actual = handleStatementUtils.levelOfLabel(label);
+        if (JfrEvents.AVAILABLE) JfrEvents.castCheck(signature, actual, level);
+        if (!isLabelLe(actual, signature, level, "checkCastToStaticWithLabel")) {
+            handleStatementUtils.illegalFlow(signature, illegalCastMessage(signature, actual, level));
+        }
+    }
+
+    /**
+     * Performs the check of {@link HandleStmt#checkThatLeWithLabel(Object, String, Object)},
+     * like {@link HandleStmt#isLocalLe(String, Object)}.
+     *
+     * @param actual the level of the label
+     * @param check  the name of the check, for its timing.
+     * @return true, if the level of the label is less/equal than the given level
+     */
+    private boolean isLabelLe(Object actual, String signature, Object level, String check) {
+        long start = TIMED_CHECKS ? beginCheck() : 0L;
+        if (L2Trace.ENABLED) logger.info("Check if " + signature + " <= " + level);
+        if (OperationRecorder.ENABLED) OperationRecorder.local(MonitorOperation.CHECK_LE, signature, level);
+        if (MONITOR_EVENTS) monitorEvent(SecurityMonitoringEvent.CHECK_THAT_LE,
+                                         context.getSite(), actual, level);
+        boolean permitted = CurrentSecurityDomain.le(actual, level);
+        if (TIMED_CHECKS) endCheck(check, context.getSite(), start);
+        return permitted;
+    }
+
+    // </editor-fold>
 }
@@ -1,11 +1,18 @@
 package analyzer.level2;
 
+import analyzer.level2.audit.ViolationAudit;
+import analyzer.level2.jfr.JfrEvents;
+import analyzer.level2.metrics.MonitorMetrics;
+import analyzer.level2.recorder.EventRecorder;
 import analyzer.level2.storage.LocalMap;
+import analyzer.level2.storage.MonitorContext;
 import analyzer.level2.storage.ObjectMap;
 import util.exceptions.IFCError;
+import util.exceptions.IllegalFlowError;
 import util.exceptions.InternalAnalyzerException;
 import util.exceptions.NSUError;
 import util.logging.L2Logger;
+import util.logging.L2Trace;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -17,11 +24,28 @@ public class HandleStmtUtils {
 	Logger logger = L2Logger.getLogger();
 	private LocalMap localmap;
 	private static ObjectMap objectmap;
+	private MonitorContext context;
 
 	public final static String NSU_ERROR_MESSAGE = "Sensitive update to ";
+
+	/**
+	 * Specifies, if the events of the monitor are recorded by the
+	 * {@link EventRecorder} or counted by the {@link MonitorMetrics}.
+	 * Every call of {@link HandleStmtUtils#monitorEvent} is guarded by it.
+	 */
+	static final boolean MONITOR_EVENTS = EventRecorder.ENABLED || MonitorMetrics.ENABLED;
+
+	/**
+	 * Specifies, if the checks of {@link HandleStmt} may be timed, either for
+	 * the {@link MonitorMetrics} or for the JFR events of {@link JfrEvents}.
+	 * Every call of {@link HandleStmtUtils#beginCheck} and
+	 * {@link HandleStmtUtils#endCheck} is guarded by it.
+	 */
+	static final boolean TIMED_CHECKS = MonitorMetrics.ENABLED || JfrEvents.AVAILABLE;
 	
-	protected HandleStmtUtils(LocalMap lm, ObjectMap om, PassivController controller) {
+	protected HandleStmtUtils(LocalMap lm, ObjectMap om, MonitorContext context, PassivController controller) {
 		this.localmap = lm;
+		this.context = context;
 		this.controller = controller;
 		if (lm == null) {
 			throw new InternalAnalyzerException("LocalMap initialization has failed.");
@@ -38,9 +62,120 @@ public class HandleStmtUtils {
 	 * the analysis aborts with an {@link IFCError}.
 	 */
 	protected void abort(IFCError e) {
+		if (MONITOR_EVENTS) monitorEvent(e instanceof NSUError
+		                                 ? SecurityMonitoringEvent.NSU_FAILURE
+		                                 : SecurityMonitoringEvent.ILLEGAL_FLOW,
+		                                 context.getSite(), context.getGlobalPC(), localmap.getLocalPC());
+		if (JfrEvents.AVAILABLE) JfrEvents.violation(e, context.getGlobalPC(), localmap.getLocalPC());
 		throw e;
 	}
+
+	/**
+	 * Reports a violation of the NSU policy. It aborts with an
+	 * {@link NSUError}, or it is recorded by the {@link ViolationAudit}, if
+	 * the audit mode is selected. Then no exception is created.
+	 * @param subject The local or field, that was updated.
+	 */
+	protected void nsuViolation(String subject) {
+		nsuViolation(subject, "");
+	}
+
+	/**
+	 * Same as {@link HandleStmtUtils#nsuViolation(String)} for a part of the
+	 * subject, e.g. an element of an array. The {@link ViolationAudit}
+	 * deduplicates the violations by the subject without the detail.
+	 * @param subject The local, that holds the updated array.
+	 * @param detail The updated part, e.g. <code>[3]</code>.
+	 */
+	protected void nsuViolation(String subject, String detail) {
+		if (ViolationAudit.isEnabled()) {
+			Object globalPC = context.getGlobalPC();
+			Object localPC = localmap.getLocalPC();
+			notifyViolation(ViolationAudit.NSU, SecurityMonitoringEvent.NSU_FAILURE, NSU_ERROR_MESSAGE, subject,
+			                detail, globalPC, localPC);
+			ViolationAudit.report(ViolationAudit.NSU, context.getSite(), NSU_ERROR_MESSAGE, subject, detail,
+			                      globalPC, localPC);
+		} else {
+			abort(new NSUError(NSU_ERROR_MESSAGE + subject + detail));
+		}
+	}
+
+	/**
+	 * Reports an illegal flow, like {@link HandleStmtUtils#nsuViolation(String)}.
+	 * @param subject The local, field or method signature, whose check failed,
+	 *                or <code>PC</code>. It must not contain levels, as the
+	 *                {@link ViolationAudit} deduplicates the violations by it.
+	 * @param message The message of the {@link IllegalFlowError}.
+	 */
+	protected void illegalFlow(String subject, String message) {
+		if (ViolationAudit.isEnabled()) {
+			Object globalPC = context.getGlobalPC();
+			Object localPC = localmap.getLocalPC();
+			notifyViolation(ViolationAudit.ILLEGAL_FLOW, SecurityMonitoringEvent.ILLEGAL_FLOW, "", message, "",
+			                globalPC, localPC);
+			ViolationAudit.report(ViolationAudit.ILLEGAL_FLOW, context.getSite(), subject, message,
+			                      globalPC, localPC);
+		} else {
+			abort(new IllegalFlowError(message));
+		}
+	}
+
+	/**
+	 * Passes a violation, that is recorded by the {@link ViolationAudit}
+	 * instead of aborting, to the monitor events and the JFR events.
+	 */
+	private void notifyViolation(String kind, SecurityMonitoringEvent event, String prefix, String subject,
+	                             String detail, Object globalPC, Object localPC) {
+		if (MONITOR_EVENTS) monitorEvent(event, context.getSite(), globalPC, localPC);
+		if (JfrEvents.AVAILABLE) JfrEvents.violation(kind, prefix, subject + detail, globalPC, localPC);
+	}
 	
+	/**
+	 * Passes an event of the monitor to the {@link EventRecorder} and the
+	 * {@link MonitorMetrics}, if they are enabled.
+	 * @param callSite The site of the check, that caused the event, see
+	 *                 {@link MonitorContext#getSite()}, or
+	 *                 {@link EventRecorder#UNKNOWN_SITE} for an event, that
+	 *                 is not caused by a check.
+	 * @param level1 The first level of the event, or null.
+	 * @param level2 The second level of the event, or null.
+	 */
+	static void monitorEvent(SecurityMonitoringEvent event, int callSite, Object level1, Object level2) {
+		if (EventRecorder.ENABLED) {
+			EventRecorder.record(event, callSite, level1, level2);
+		}
+		if (MonitorMetrics.ENABLED) {
+			MonitorMetrics.event(event);
+		}
+	}
+
+	/**
+	 * Starts the timing of a check.
+	 * @return the start time, or 0 if nobody wants the duration.
+	 */
+	static long beginCheck() {
+		return MonitorMetrics.ENABLED || JfrEvents.AVAILABLE && JfrEvents.checkDurationsEnabled()
+		       ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Ends the timing of a check, that was started by {@link HandleStmtUtils#beginCheck()}.
+	 * @param check The name of the check.
+	 * @param callSite The site of the check, see {@link MonitorContext#getSite()}.
+	 * @param start The start time.
+	 */
+	static void endCheck(String check, int callSite, long start) {
+		if (start == 0L) {
+			return;
+		}
+		if (MonitorMetrics.ENABLED) {
+			MonitorMetrics.check(start);
+		}
+		if (JfrEvents.AVAILABLE) {
+			JfrEvents.checkDuration(check, callSite, start);
+		}
+	}
+
 	//
 	// PC check operations
 	//
@@ -49,17 +184,16 @@ public class HandleStmtUtils {
 	 * Check if level of given array field is greater than globalPC.
 	 * This method is for the case, that the index is stored in a variable.
 	 */
-	protected void checkArrayWithGlobalPC(Object object, String signature,
+	protected void checkArrayWithGlobalPC(Object object, int index,
 			String localForObject, String localForIndex) {
-		logger.log(Level.INFO, "Check if level of array-field {0} ({1}) >= gpc ({1})",
+		Object fieldLevel = objectmap.getArrayFieldLevel(object, index);
+		if (L2Trace.ENABLED) logger.log(Level.INFO, "Check if level of array-field {0} ({1}) >= gpc ({2})",
 				new Object[] {
-				 signature, objectmap.getFieldLevel(object, signature),
-				 objectmap.getGlobalPC()
+				 index, fieldLevel, context.getGlobalPC()
 				});
 		Object localsAndGPC = joinWithGPC(joinLocals(localForObject, localForIndex));
-		Object fieldLevel = objectmap.getFieldLevel(object, signature);
 		if (!CurrentSecurityDomain.le(localsAndGPC, fieldLevel)) {
-			abort(new NSUError(NSU_ERROR_MESSAGE + signature));
+			nsuViolation(localForObject, "[" + index + "]");
 		}	
 	}
 	
@@ -67,17 +201,52 @@ public class HandleStmtUtils {
 	 * Check if level of given array field is greater than globalPC.
 	 * This method is for the case, that the index is given as a constant.
 	 */
-	protected void checkArrayWithGlobalPC(Object object, String signature,
+	protected void checkArrayWithGlobalPC(Object object, int index,
 			String localForObject) {
-		logger.log(Level.INFO, "Check if level of array-field {0} ({1}) >= gpc ({1})",
+		Object fieldLevel = objectmap.getArrayFieldLevel(object, index);
+		if (L2Trace.ENABLED) logger.log(Level.INFO, "Check if level of array-field {0} ({1}) >= gpc ({2})",
 					new Object[] {
-					 signature, objectmap.getFieldLevel(object, signature),
-					 objectmap.getGlobalPC()
+					 index, fieldLevel, context.getGlobalPC()
 					});
 		Object localsAndGPC = joinWithGPC(localmap.getLevel(localForObject));
-		Object fieldLevel = objectmap.getFieldLevel(object, signature);
 		if (!CurrentSecurityDomain.le(localsAndGPC, fieldLevel)) {
-			abort(new NSUError(NSU_ERROR_MESSAGE + signature));
+			nsuViolation(localForObject, "[" + index + "]");
+		}
+	}
+
+	/**
+	 * Check if level of given array field is greater than globalPC joined with
+	 * the given level of the locals, that hold the array and the index. This
+	 * method is used, if the levels of locals are stored in label locals.
+	 */
+	protected void checkArrayLabelsWithGlobalPC(Object object, int index,
+			String localForObject, Object localsLevel) {
+		Object localsAndGPC = joinWithGPC(localsLevel);
+		Object fieldLevel = objectmap.getArrayFieldLevel(object, index);
+		if (L2Trace.ENABLED) logger.log(Level.INFO, "Check if level of array-field {0} ({1}) >= gpc ({2})",
+				new Object[] { index, fieldLevel, localsAndGPC });
+		if (!CurrentSecurityDomain.le(localsAndGPC, fieldLevel)) {
+			nsuViolation(localForObject, "[" + index + "]");
+		}
+	}
+
+	/**
+	 * Check if the level of each element of the given range of an array is
+	 * greater than globalPC joined with the given level of the locals, that
+	 * select the range. The check takes constant time, if all elements of the
+	 * array have the same level.
+	 * @param from the index of the first element
+	 * @param to the index after the last element
+	 * @param localForObject the signature of the local, that holds the array
+	 */
+	protected void checkArrayRangeWithGlobalPC(Object object, int from, int to,
+			String localForObject, Object localsLevel) {
+		Object localsAndGPC = joinWithGPC(localsLevel);
+		Object rangeLevel = objectmap.getArrayRangeLevel(object, from, to);
+		if (L2Trace.ENABLED) logger.log(Level.INFO, "Check if level of array-fields {0} to {1} ({2}) >= gpc ({3})",
+				new Object[] { from, to, rangeLevel, localsAndGPC });
+		if (!CurrentSecurityDomain.le(localsAndGPC, rangeLevel)) {
+			nsuViolation(localForObject, "[" + from + ".." + to + "]");
 		}
 	}
 
@@ -101,20 +270,20 @@ public class HandleStmtUtils {
 	
 	/**
 	 * Join given security-level with localPC.
-	 * @param securityLevel security-level - is retrieved via objectmap.getAssignmentLevel()
+	 * @param securityLevel security-level - is retrieved via context.getAssignmentLevel()
 	 * @return new security-level
 	 */
 	protected Object joinWithLPC(Object securityLevel) {
 		Object localPC = localmap.getLocalPC();
 		Object result = CurrentSecurityDomain.lub(localPC, securityLevel);
-		logger.log(Level.INFO, "Local PC is {0}, security Level/assignementLevel is {1}, results in {2}",
+		if (L2Trace.ENABLED) logger.log(Level.INFO, "Local PC is {0}, security Level/assignementLevel is {1}, results in {2}",
 				new Object[] { localPC, securityLevel, result });
 		return result;
 	}
 	
 
 	protected Object joinWithGPC(Object securityLevel) {
-		Object globalPC = objectmap.getGlobalPC();
+		Object globalPC = context.getGlobalPC();
 		Object result = CurrentSecurityDomain.lub(globalPC, securityLevel);
 		return result;
 	}
@@ -128,6 +297,17 @@ public class HandleStmtUtils {
 		return res;
 	}
 	
+	/**
+	 * Gives the level, that is stored in a shadow label field.
+	 * Label fields are initialised with <code>null</code> by the JVM,
+	 * which stands for bottom.
+	 * @param label the content of the label field
+	 * @return the security-level
+	 */
+	protected Object levelOfLabel(Object label) {
+		return label == null ? CurrentSecurityDomain.bottom() : label;
+	}
+	
 	/**
 	 * Called when trying to add a new local to localmap via addLocal(String signature)
 	 * Throws InternalAnalyzerException if already present
@@ -0,0 +1,99 @@
+package analyzer.level2;
+
+import analyzer.level2.storage.MonitorContext;
+import analyzer.level2.storage.ObjectMap;
+import de.unifreiburg.cs.proglang.jgs.support.LabeledExecutors;
+import de.unifreiburg.cs.proglang.jgs.support.TaskContextPropagator;
+
+/**
+ * Carries the context of the monitor over to the tasks, that are decorated by
+ * {@link LabeledExecutors}. At submission, it captures the global PC of the
+ * submitting thread, which already contains the local PC of the enclosing
+ * branches, and its argument registers. The worker runs the task with the
+ * captured PC joined to its own global PC. If no arguments are stored, the
+ * captured context is just the level, so the capture does not allocate.
+ * <p>
+ * Values, that the pool passes to a task, get the captured PC as level.
+ * Otherwise, the registers of the submitting thread are restored, which
+ * hold the levels of the arguments of the submission. The registers of the
+ * thread, that runs the task, are saved before and restored after the task,
+ * which matters, if the task runs on the submitting thread itself.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public final class TaskPropagator implements TaskContextPropagator {
+
+    public static final TaskPropagator INSTANCE = new TaskPropagator();
+
+    private TaskPropagator() {
+    }
+
+    /**
+     * The captured context, if arguments were stored.
+     */
+    private static final class Captured {
+        final Object pc;
+        final Object[] arguments;
+
+        Captured(Object pc, Object[] arguments) {
+            this.pc = pc;
+            this.arguments = arguments;
+        }
+    }
+
+    @Override
+    public Object capture() {
+        MonitorContext context = ObjectMap.getInstance().getContext();
+        Object pc = context.getGlobalPC();
+        Object[] arguments = context.captureArguments();
+        return arguments == null ? pc : new Captured(pc, arguments);
+    }
+
+    /**
+     * The token of a task, if the thread had arguments stored before.
+     */
+    private static final class Entered {
+        final MonitorContext context;
+        final Object[] arguments;
+
+        Entered(MonitorContext context, Object[] arguments) {
+            this.context = context;
+            this.arguments = arguments;
+        }
+    }
+
+    @Override
+    public Object enter(Object captured, int arity) {
+        MonitorContext context = ObjectMap.getInstance().getContext();
+        Object pc;
+        Object[] arguments;
+        if (captured instanceof Captured) {
+            pc = ((Captured) captured).pc;
+            arguments = ((Captured) captured).arguments;
+        } else {
+            pc = captured;
+            arguments = null;
+        }
+        Object[] saved = context.captureArguments();
+        context.pushGlobalPC(CurrentSecurityDomain.lub(context.getGlobalPC(), pc));
+        if (arity > 0) {
+            context.beginArguments(arity);
+            for (int i = 0; i < arity; i++) {
+                context.setArgumentRegister(i, pc);
+            }
+        } else {
+            context.restoreArguments(arguments);
+        }
+        return saved == null ? context : new Entered(context, saved);
+    }
+
+    @Override
+    public void exit(Object token) {
+        if (token instanceof Entered) {
+            ((Entered) token).context.popGlobalPC();
+            ((Entered) token).context.restoreArguments(((Entered) token).arguments);
+        } else {
+            ((MonitorContext) token).popGlobalPC();
+            ((MonitorContext) token).restoreArguments(null);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package analyzer.level2.audit;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The audit mode of the run-time monitor: a violation of the policy is
+ * recorded, and the analyzed program keeps running, instead of aborting
+ * with an {@link util.exceptions.IFCError}. This allows to roll out the
+ * instrumentation on existing programs and to collect their violations.
+ * <p>
+ * The violations are deduplicated per site, which is the call site of the
+ * check, together with the kind of the violation and its subject, i.e. the
+ * violated local or field, the signature of the checked local or the PC,
+ * without the levels of the violation. An audit build numbers the call
+ * sites of its checks, like a profiling build does; otherwise
+ * the call site is -1. The elements of an array are one site, which is
+ * named by the local, that holds the array. Every violation is counted, but only the first
+ * <code>jgs.audit.budget</code> violations (default 10) of a site are
+ * written as a record, such that a violating loop can not flood the memory
+ * or the output. At most <code>jgs.audit.sites</code> sites (default 10000)
+ * are told apart; the violations of further sites are only counted as overflow.
+ * <p>
+ * The records are put into a bounded buffer of <code>jgs.audit.buffer</code>
+ * records (default 4096), that is written every <code>jgs.audit.interval</code>
+ * milliseconds (default 1000) by a daemon thread, to the file
+ * <code>jgs.audit.file</code> or to stderr. Records, that do not fit into the
+ * buffer, are dropped and counted. At shutdown, the remaining records and a
+ * summary of the counts per site are written. No exception is created for a
+ * violation; only the first record of a site contains a stack trace.
+ * <p>
+ * The audit mode is selected at run time by the system property
+ * <code>jgs.audit=true</code> or {@link ViolationAudit#setEnabled(boolean)},
+ * or at instrumentation time by the option <code>-audit</code>, which
+ * enables it at the start of the instrumented program.
+ */
+public final class ViolationAudit {
+
+    /** The kind of a violation of the NSU policy. */
+    public static final String NSU = "NSUError";
+
+    /** The kind of an illegal flow. */
+    public static final String ILLEGAL_FLOW = "IllegalFlowError";
+
+    private static final Logger logger = Logger.getLogger(ViolationAudit.class.getName());
+
+    private static final int BUDGET = Integer.getInteger("jgs.audit.budget", 10);
+
+    private static final int MAX_SITES = Integer.getInteger("jgs.audit.sites", 10000);
+
+    private static final long INTERVAL = Long.getLong("jgs.audit.interval", 1000);
+
+    private static volatile boolean enabled = Boolean.getBoolean("jgs.audit");
+
+    private static final ConcurrentHashMap<Site, Site> sites = new ConcurrentHashMap<>();
+
+    private static final ArrayBlockingQueue<String> buffer =
+            new ArrayBlockingQueue<>(Integer.getInteger("jgs.audit.buffer", 4096));
+
+    private static final AtomicLong overflow = new AtomicLong();
+
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static final AtomicLong violations = new AtomicLong();
+
+    /** Specifies, if the flusher thread and the shutdown hook were started. */
+    private static volatile boolean started = false;
+
+    private ViolationAudit() {
+    }
+
+    /**
+     * @return true, if violations are recorded instead of aborting the program.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Selects the audit mode at run time.
+     */
+    public static void setEnabled(boolean enabled) {
+        ViolationAudit.enabled = enabled;
+    }
+
+    // <editor-fold desc="Recording">
+
+    /**
+     * Records a violation, whose message was already built.
+     *
+     * @param kind     {@link ViolationAudit#NSU} or {@link ViolationAudit#ILLEGAL_FLOW}
+     * @param callSite the call site of the check, or -1 if it is unknown
+     * @param subject  the violated local or field, or the method signature,
+     *                 without levels, such that it tells the site apart
+     * @param message  the message of the record
+     * @param globalPC the global PC at the violation
+     * @param localPC  the local PC at the violation
+     */
+    public static void report(String kind, int callSite, String subject, String message,
+                              Object globalPC, Object localPC) {
+        long count = count(kind, callSite, subject);
+        if (count > 0) {
+            write(kind, callSite, globalPC, localPC, count, message);
+        }
+    }
+
+    /**
+     * Records a violation, like
+     * {@link ViolationAudit#report(String, int, String, String, Object, Object)},
+     * whose message is <code>prefix + subject + detail</code>. It is only
+     * built, if the budget of the site is not exhausted. The site is given
+     * by the subject without the detail, e.g. by an array without the index
+     * of the violated element.
+     *
+     * @param prefix the first part of the message
+     * @param detail the part of the message, that does not tell the site apart
+     */
+    public static void report(String kind, int callSite, String prefix, String subject, String detail,
+                              Object globalPC, Object localPC) {
+        long count = count(kind, callSite, subject);
+        if (count > 0) {
+            write(kind, callSite, globalPC, localPC, count, prefix + subject + detail);
+        }
+    }
+
+    /**
+     * Counts a violation at its site.
+     *
+     * @return the number of violations of the site, or 0, if the record is
+     * not written, because the budget of the site is exhausted or the site
+     * is not told apart.
+     */
+    private static long count(String kind, int callSite, String subject) {
+        violations.incrementAndGet();
+        Site key = new Site(kind, callSite, subject);
+        Site site = sites.get(key);
+        if (site == null) {
+            if (sites.size() >= MAX_SITES) {
+                overflow.incrementAndGet();
+                return 0;
+            }
+            Site previous = sites.putIfAbsent(key, key);
+            site = previous == null ? key : previous;
+        }
+        long count = site.count.incrementAndGet();
+        return count > BUDGET ? 0 : count;
+    }
+
+    private static void write(String kind, int callSite, Object globalPC, Object localPC, long count,
+                              String message) {
+        StringBuilder record = new StringBuilder();
+        record.append(System.currentTimeMillis()).append(' ').append(kind)
+              .append(" site=").append(callSite)
+              .append(" thread=").append(Thread.currentThread().getName())
+              .append(" gpc=").append(globalPC)
+              .append(" lpc=").append(localPC)
+              .append(" #").append(count)
+              .append(": ").append(message);
+        if (count == 1) {
+            // The first record of a site shows, where the violation happened.
+            for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+                if (!frame.getClassName().startsWith("analyzer.level2.")
+                    && !frame.getClassName().startsWith("java.lang.Thread")) {
+                    record.append(System.lineSeparator()).append("\tat ").append(frame);
+                }
+            }
+        }
+        if (!buffer.offer(record.toString())) {
+            dropped.incrementAndGet();
+        }
+        if (!started) {
+            start();
+        }
+    }
+
+    /**
+     * A site of violations. The key of the map of sites is the site itself.
+     */
+    private static final class Site {
+        final String kind;
+        final int callSite;
+        final String subject;
+        final int hash;
+        final AtomicLong count = new AtomicLong();
+
+        Site(String kind, int callSite, String subject) {
+            this.kind = kind;
+            this.callSite = callSite;
+            this.subject = subject;
+            this.hash = (31 * kind.hashCode() + callSite) * 31 + subject.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Site)) {
+                return false;
+            }
+            Site other = (Site) o;
+            return callSite == other.callSite && kind.equals(other.kind) && subject.equals(other.subject);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " site=" + callSite + ": " + subject;
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Reporting">
+
+    /**
+     * @return the number of all reported violations.
+     */
+    public static long getViolations() {
+        return violations.get();
+    }
+
+    /**
+     * @return the number of violations per site.
+     */
+    public static Map<String, Long> getSiteCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Site site : sites.keySet()) {
+            result.put(site.toString(), site.count.get());
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of violations, whose site was not recorded, because there were too many sites.
+     */
+    public static long getOverflow() {
+        return overflow.get();
+    }
+
+    /**
+     * @return the number of records, that were dropped, because the buffer was full.
+     */
+    public static long getDroppedRecords() {
+        return dropped.get();
+    }
+
+    /**
+     * Removes the records from the buffer and writes them.
+     * @return the number of written records.
+     */
+    public static synchronized int flush() {
+        List<String> records = new ArrayList<>();
+        buffer.drainTo(records);
+        if (records.isEmpty()) {
+            return 0;
+        }
+        try (PrintWriter out = openOutput()) {
+            for (String record : records) {
+                out.println(record);
+            }
+        } catch (IOException e) {
+            logger.warning("Unable to write audit records: " + e);
+        }
+        return records.size();
+    }
+
+    /**
+     * Writes the remaining records and the counts per site.
+     */
+    private static synchronized void summary() {
+        flush();
+        try (PrintWriter out = openOutput()) {
+            out.println("JGS audit: " + violations.get() + " violations at " + sites.size() + " sites, "
+                        + overflow.get() + " at further sites, " + dropped.get() + " records dropped");
+            for (Map.Entry<String, Long> e : getSiteCounts().entrySet()) {
+                out.println("\t" + e.getValue() + "\t" + e.getKey());
+            }
+        } catch (IOException e) {
+            logger.warning("Unable to write audit summary: " + e);
+        }
+    }
+
+    private static PrintWriter openOutput() throws IOException {
+        String file = System.getProperty("jgs.audit.file");
+        if (file == null) {
+            // do not close stderr
+            return new PrintWriter(new OutputStreamWriter(System.err)) {
+                @Override
+                public void close() {
+                    flush();
+                }
+            };
+        }
+        return new PrintWriter(new FileWriter(file, true));
+    }
+
+    /**
+     * Starts the thread, that writes the records, and the shutdown hook,
+     * when the first record is made.
+     */
+    private static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Thread flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(INTERVAL);
+                        flush();
+                    }
+                } catch (InterruptedException e) {
+                    // stop flushing
+                }
+            }
+        }, "jgs-audit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                summary();
+            }
+        }, "jgs-audit-shutdown"));
+    }
+
+    /**
+     * Forgets all sites, counts and buffered records.
+     */
+    public static synchronized void reset() {
+        sites.clear();
+        buffer.clear();
+        overflow.set(0);
+        dropped.set(0);
+        violations.set(0);
+    }
+
+    // </editor-fold>
+}
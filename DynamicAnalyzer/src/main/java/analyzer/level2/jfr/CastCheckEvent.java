@@ -0,0 +1,32 @@
+package analyzer.level2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted for every cast of a dynamic value to a static type.
+ */
+@Name("jgs.CastCheck")
+@Label("Cast Check")
+@Description("A dynamic value is cast to a static security type")
+@Category({"JGS", "Monitor"})
+@Enabled(false)
+@StackTrace(false)
+class CastCheckEvent extends jdk.jfr.Event {
+
+    @Label("Local")
+    String local;
+
+    @Label("Level of the Local")
+    String level;
+
+    @Label("Static Level")
+    String staticLevel;
+
+    @Label("Passed")
+    boolean passed;
+}
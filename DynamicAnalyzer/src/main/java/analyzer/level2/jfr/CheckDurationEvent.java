@@ -0,0 +1,33 @@
+package analyzer.level2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted for a sample of the checks of {@link analyzer.level2.HandleStmt},
+ * see {@link JfrEvents#checkDuration(String, long)}.
+ */
+@Name("jgs.CheckDuration")
+@Label("Check Duration")
+@Description("A sampled check of the run-time monitor and the time it took")
+@Category({"JGS", "Monitor"})
+@Enabled(false)
+@StackTrace(false)
+class CheckDurationEvent extends jdk.jfr.Event {
+
+    @Label("Check")
+    String check;
+
+    /** The site of the check, or {@link analyzer.level2.recorder.EventRecorder#UNKNOWN_SITE}, see there. */
+    @Label("Call Site")
+    int callSite;
+
+    @Label("Check Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long checkDuration;
+}
@@ -0,0 +1,32 @@
+package analyzer.level2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted, when the monitor aborts due to an NSU failure or an illegal flow.
+ */
+@Name("jgs.IFCViolation")
+@Label("IFC Violation")
+@Description("The run-time monitor detected a sensitive upgrade or an illegal flow")
+@Category({"JGS", "Monitor"})
+@Enabled(false)
+@StackTrace(true)
+class IFCViolationEvent extends jdk.jfr.Event {
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Message")
+    String message;
+
+    @Label("Global PC")
+    String globalPC;
+
+    @Label("Local PC")
+    String localPC;
+}
@@ -0,0 +1,134 @@
+package analyzer.level2.jfr;
+
+import analyzer.level2.CurrentSecurityDomain;
+import analyzer.level2.recorder.EventRecorder;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+/**
+ * Emits the JDK Flight Recorder events of the run-time monitor:
+ * <ul>
+ *     <li><code>jgs.IFCViolation</code> for NSU failures and illegal flows,</li>
+ *     <li><code>jgs.CastCheck</code> for casts to static types,</li>
+ *     <li><code>jgs.SinkCheck</code> for checks of the PC before outputs,</li>
+ *     <li><code>jgs.CheckDuration</code> for every n-th check, where n is
+ *     given by the system property <code>jgs.jfr.sample</code> (default 100).</li>
+ * </ul>
+ * All events are disabled by default and have to be enabled in the settings
+ * of a recording, e.g. <code>jfr configure +jgs.IFCViolation#enabled=true</code>.
+ * The calls into this class are guarded by {@link JfrEvents#AVAILABLE}, so
+ * the monitor also runs on JVMs without <code>jdk.jfr</code>.
+ */
+public final class JfrEvents {
+
+    /** Specifies, if the JVM supports the JDK Flight Recorder API. */
+    public static final boolean AVAILABLE = isAvailable();
+
+    private static final int SAMPLE_INTERVAL = Math.max(1, Integer.getInteger("jgs.jfr.sample", 100));
+
+    /** Specifies, if a recording has enabled jgs.CheckDuration. Updated when recordings change. */
+    private static volatile boolean durationsEnabled = false;
+
+    /** Counts the timed checks for sampling. Races only distort the sampling. */
+    private static int sampleCounter = 0;
+
+    static {
+        if (AVAILABLE) {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recordingStateChanged(Recording recording) {
+                    durationsEnabled = EventType.getEventType(CheckDurationEvent.class).isEnabled();
+                }
+            });
+        }
+    }
+
+    private JfrEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Emits <code>jgs.IFCViolation</code>.
+     */
+    public static void violation(Throwable error, Object globalPC, Object localPC) {
+        violation(error.getClass().getSimpleName(), error.getMessage(), "", globalPC, localPC);
+    }
+
+    /**
+     * Emits <code>jgs.IFCViolation</code> for a violation, that was recorded
+     * by the audit mode without an exception. The message is
+     * <code>prefix + subject</code>.
+     */
+    public static void violation(String kind, String prefix, String subject,
+                                 Object globalPC, Object localPC) {
+        IFCViolationEvent event = new IFCViolationEvent();
+        if (event.isEnabled()) {
+            event.kind = kind;
+            event.message = prefix + subject;
+            event.globalPC = String.valueOf(globalPC);
+            event.localPC = String.valueOf(localPC);
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits <code>jgs.CastCheck</code>.
+     */
+    public static void castCheck(String local, Object level, Object staticLevel) {
+        CastCheckEvent event = new CastCheckEvent();
+        if (event.isEnabled()) {
+            event.local = local;
+            event.level = String.valueOf(level);
+            event.staticLevel = String.valueOf(staticLevel);
+            event.passed = CurrentSecurityDomain.le(level, staticLevel);
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits <code>jgs.SinkCheck</code>.
+     */
+    public static void sinkCheck(Object pc, Object requiredLevel) {
+        SinkCheckEvent event = new SinkCheckEvent();
+        if (event.isEnabled()) {
+            event.pc = String.valueOf(pc);
+            event.requiredLevel = String.valueOf(requiredLevel);
+            event.passed = CurrentSecurityDomain.le(pc, requiredLevel);
+            event.commit();
+        }
+    }
+
+    /**
+     * @return true, if a recording wants the durations of the checks.
+     */
+    public static boolean checkDurationsEnabled() {
+        return durationsEnabled;
+    }
+
+    /**
+     * Emits <code>jgs.CheckDuration</code> for every n-th call.
+     * @param check      The name of the check.
+     * @param callSite   The site of the check, or {@link EventRecorder#UNKNOWN_SITE}.
+     * @param startNanos The {@link System#nanoTime()} at the start of the check.
+     */
+    public static void checkDuration(String check, int callSite, long startNanos) {
+        if (!durationsEnabled || ++sampleCounter % SAMPLE_INTERVAL != 0) {
+            return;
+        }
+        CheckDurationEvent event = new CheckDurationEvent();
+        event.check = check;
+        event.callSite = callSite;
+        event.checkDuration = System.nanoTime() - startNanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,29 @@
+package analyzer.level2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted for every check of the PC before an output, e.g. a print statement.
+ */
+@Name("jgs.SinkCheck")
+@Label("Sink Check")
+@Description("The PC is checked before a value reaches an output sink")
+@Category({"JGS", "Monitor"})
+@Enabled(false)
+@StackTrace(false)
+class SinkCheckEvent extends jdk.jfr.Event {
+
+    @Label("PC")
+    String pc;
+
+    @Label("Required Level")
+    String requiredLevel;
+
+    @Label("Passed")
+    boolean passed;
+}
@@ -0,0 +1,18 @@
+package analyzer.level2.metrics;
+
+import java.util.Map;
+
+/**
+ * Receives the counters of {@link MonitorMetrics} periodically and at
+ * shutdown, e.g. to forward them to a metrics library. Hooks are added by
+ * {@link MonitorMetrics#addHook(MetricsHook)} or named in the system property
+ * <code>jgs.metrics.hooks</code> (comma separated class names, each with a
+ * public no-argument constructor).
+ */
+public interface MetricsHook {
+
+    /**
+     * @param counters The current counters, see {@link MonitorMetrics#snapshot()}.
+     */
+    void report(Map<String, Long> counters);
+}
@@ -0,0 +1,276 @@
+package analyzer.level2.metrics;
+
+import analyzer.level2.SecurityMonitoringEvent;
+import analyzer.level2.storage.ObjectMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Counters of the run-time monitor, which show how much work it does:
+ * the {@link SecurityMonitoringEvent}s, the aborts, the sizes of the label
+ * stores, the depths of the PC stacks and the time spent in the checks of
+ * {@link analyzer.level2.HandleStmt}.
+ * <p>
+ * The counters are collected, if the system property
+ * <code>jgs.metrics=true</code> is set. They are striped
+ * {@link LongAdder}s, such that threads, that run instrumented code, do not
+ * contend on them. The counters are exposed as the MXBean
+ * <code>jgs:type=MonitorMetrics</code> and passed to the registered
+ * {@link MetricsHook}s every <code>jgs.metrics.interval</code> milliseconds
+ * (default 10000) and at shutdown.
+ */
+public final class MonitorMetrics implements MonitorMetricsMXBean {
+
+    /** Specifies, if the counters are collected. */
+    public static final boolean ENABLED = Boolean.getBoolean("jgs.metrics");
+
+    /** The name of the MXBean. */
+    public static final String OBJECT_NAME = "jgs:type=MonitorMetrics";
+
+    private static final Logger logger = Logger.getLogger(MonitorMetrics.class.getName());
+
+    private static final SecurityMonitoringEvent[] EVENTS = SecurityMonitoringEvent.values();
+
+    private static final LongAdder[] events = new LongAdder[EVENTS.length];
+
+    private static final LongAdder checkCalls = new LongAdder();
+
+    private static final LongAdder checkNanos = new LongAdder();
+
+    private static final AtomicInteger maxGlobalPCDepth = new AtomicInteger();
+
+    private static final AtomicInteger maxLocalPCDepth = new AtomicInteger();
+
+    private static final List<MetricsHook> hooks = new CopyOnWriteArrayList<>();
+
+    private static final MonitorMetrics instance = new MonitorMetrics();
+
+    static {
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new LongAdder();
+        }
+        if (ENABLED) {
+            start();
+        }
+    }
+
+    private MonitorMetrics() {
+    }
+
+    /**
+     * @return the instance, that is registered as MXBean.
+     */
+    public static MonitorMetrics getInstance() {
+        return instance;
+    }
+
+    // <editor-fold desc="Recording">
+
+    /**
+     * Counts an event.
+     */
+    public static void event(SecurityMonitoringEvent event) {
+        events[event.ordinal()].increment();
+    }
+
+    /**
+     * Counts a timed check.
+     * @param startNanos The {@link System#nanoTime()} at the start of the check.
+     */
+    public static void check(long startNanos) {
+        checkCalls.increment();
+        checkNanos.add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Notes the depth of a global PC after a push.
+     */
+    public static void globalPCDepth(int depth) {
+        raise(maxGlobalPCDepth, depth);
+    }
+
+    /**
+     * Notes the depth of a local PC after a push.
+     */
+    public static void localPCDepth(int depth) {
+        raise(maxLocalPCDepth, depth);
+    }
+
+    /**
+     * Raises the high-water mark. The mark is only written, if the depth
+     * exceeds it, which is rare once the program is warm.
+     */
+    private static void raise(AtomicInteger mark, int depth) {
+        int current;
+        while (depth > (current = mark.get())) {
+            if (mark.compareAndSet(current, depth)) {
+                return;
+            }
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Reporting">
+
+    /**
+     * Adds a hook, that receives the counters.
+     */
+    public static void addHook(MetricsHook hook) {
+        hooks.add(hook);
+    }
+
+    /**
+     * Passes the current counters to all hooks.
+     */
+    public static void report() {
+        if (hooks.isEmpty()) {
+            return;
+        }
+        Map<String, Long> counters = instance.snapshot();
+        for (MetricsHook hook : hooks) {
+            try {
+                hook.report(counters);
+            } catch (RuntimeException e) {
+                logger.warning("Metrics hook " + hook + " failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * @return all counters by name. The events are named after their
+     * {@link SecurityMonitoringEvent}, the other counters after the
+     * properties of {@link MonitorMetricsMXBean}.
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> result = new LinkedHashMap<>(getEventCounts());
+        result.put("TrackedObjects", (long) getTrackedObjects());
+        result.put("TrackedArrays", (long) getTrackedArrays());
+        result.put("MaxGlobalPCDepth", (long) getMaxGlobalPCDepth());
+        result.put("MaxLocalPCDepth", (long) getMaxLocalPCDepth());
+        result.put("CheckCalls", getCheckCalls());
+        result.put("CheckNanos", getCheckNanos());
+        return result;
+    }
+
+    /**
+     * Registers the MXBean, the hooks of <code>jgs.metrics.hooks</code> and
+     * the thread, that reports to them.
+     */
+    private static void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(instance, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            logger.warning("Unable to register " + OBJECT_NAME + ": " + e);
+        }
+        String hookNames = System.getProperty("jgs.metrics.hooks", "");
+        for (String name : hookNames.split(",")) {
+            if (name.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                addHook((MetricsHook) Class.forName(name.trim()).getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                logger.warning("Unable to create metrics hook " + name + ": " + e);
+            }
+        }
+        final long interval = Long.getLong("jgs.metrics.interval", 10000);
+        Thread reporter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(interval);
+                        report();
+                    }
+                } catch (InterruptedException e) {
+                    // stop reporting
+                }
+            }
+        }, "jgs-metrics-reporter");
+        reporter.setDaemon(true);
+        reporter.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                report();
+            }
+        }, "jgs-metrics-shutdown"));
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="MXBean">
+
+    @Override
+    public Map<String, Long> getEventCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < EVENTS.length; i++) {
+            result.put(EVENTS[i].name(), events[i].sum());
+        }
+        return result;
+    }
+
+    @Override
+    public long getNsuFailures() {
+        return events[SecurityMonitoringEvent.NSU_FAILURE.ordinal()].sum();
+    }
+
+    @Override
+    public long getIllegalFlows() {
+        return events[SecurityMonitoringEvent.ILLEGAL_FLOW.ordinal()].sum();
+    }
+
+    @Override
+    public int getTrackedObjects() {
+        return ObjectMap.getInstance().getNumberOfObjects();
+    }
+
+    @Override
+    public int getTrackedArrays() {
+        return ObjectMap.getInstance().getNumberOfArrays();
+    }
+
+    @Override
+    public int getMaxGlobalPCDepth() {
+        return maxGlobalPCDepth.get();
+    }
+
+    @Override
+    public int getMaxLocalPCDepth() {
+        return maxLocalPCDepth.get();
+    }
+
+    @Override
+    public long getCheckCalls() {
+        return checkCalls.sum();
+    }
+
+    @Override
+    public long getCheckNanos() {
+        return checkNanos.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : events) {
+            adder.reset();
+        }
+        checkCalls.reset();
+        checkNanos.reset();
+        maxGlobalPCDepth.set(0);
+        maxLocalPCDepth.set(0);
+    }
+
+    // </editor-fold>
+}
@@ -0,0 +1,62 @@
+package analyzer.level2.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link MonitorMetrics}. It is registered as
+ * <code>jgs:type=MonitorMetrics</code>, so that it can be read with any JMX
+ * client, e.g. jconsole.
+ */
+public interface MonitorMetricsMXBean {
+
+    /**
+     * @return the number of events per {@link analyzer.level2.SecurityMonitoringEvent}.
+     */
+    Map<String, Long> getEventCounts();
+
+    /**
+     * @return the number of aborts due to sensitive upgrades.
+     */
+    long getNsuFailures();
+
+    /**
+     * @return the number of aborts due to illegal flows.
+     */
+    long getIllegalFlows();
+
+    /**
+     * @return the number of objects, whose fields are tracked.
+     */
+    int getTrackedObjects();
+
+    /**
+     * @return the number of arrays, whose elements are tracked.
+     */
+    int getTrackedArrays();
+
+    /**
+     * @return the largest depth of the global PC of any thread so far.
+     */
+    int getMaxGlobalPCDepth();
+
+    /**
+     * @return the largest depth of the local PC of any method so far.
+     */
+    int getMaxLocalPCDepth();
+
+    /**
+     * @return the number of timed checks of {@link analyzer.level2.HandleStmt}.
+     */
+    long getCheckCalls();
+
+    /**
+     * @return the nanoseconds, that were spent in the timed checks of
+     * {@link analyzer.level2.HandleStmt}.
+     */
+    long getCheckNanos();
+
+    /**
+     * Sets all counters to zero. The sizes of the label stores are not affected.
+     */
+    void reset();
+}
@@ -0,0 +1,139 @@
+package analyzer.level2.recorder;
+
+import analyzer.level2.SecurityMonitoringEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Reads the traces of the {@link EventRecorder}.
+ * <p>
+ * Usage: <code>EventDecoder [--summary] &lt;trace&gt;</code>. Without
+ * <code>--summary</code> every record is printed as one line, otherwise the
+ * number of events per event type and call site.
+ */
+public final class EventDecoder {
+
+    /**
+     * A decoded record.
+     */
+    public static final class Record {
+        public final SecurityMonitoringEvent event;
+        public final int callSite;
+        public final String level1;
+        public final String level2;
+        public final long threadId;
+        public final long nanoTime;
+
+        Record(SecurityMonitoringEvent event, int callSite, String level1,
+               String level2, long threadId, long nanoTime) {
+            this.event = event;
+            this.callSite = callSite;
+            this.level1 = level1;
+            this.level2 = level2;
+            this.threadId = threadId;
+            this.nanoTime = nanoTime;
+        }
+
+        @Override
+        public String toString() {
+            return nanoTime + " thread=" + threadId + " " + event + " site=" + callSite
+                   + " " + level1 + " " + level2;
+        }
+    }
+
+    private EventDecoder() {
+    }
+
+    /**
+     * Reads all records of a trace. The level names are taken from the file
+     * <code>&lt;trace&gt;.levels</code>, if it exists; otherwise levels are
+     * shown as <code>#ordinal</code>.
+     *
+     * @throws IOException if the file is not a trace.
+     */
+    public static List<Record> read(File trace) throws IOException {
+        List<String> levels = SymbolTable.read(new File(trace.getPath() + ".levels"));
+        SecurityMonitoringEvent[] events = SecurityMonitoringEvent.values();
+        List<Record> result = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(trace.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.remaining() < EventTraceWriter.HEADER_SIZE || buf.getInt() != EventTraceWriter.MAGIC) {
+                throw new IOException("Not an event trace: " + trace);
+            }
+            int version = buf.getInt();
+            int recordSize = buf.getInt();
+            buf.getInt();
+            if (version != EventTraceWriter.VERSION || recordSize != EventRingBuffer.RECORD_SIZE) {
+                throw new IOException("Unsupported event trace version " + version + ": " + trace);
+            }
+            while (buf.remaining() >= recordSize) {
+                long header = buf.getLong();
+                long levelPair = buf.getLong();
+                long threadId = buf.getLong();
+                long nanoTime = buf.getLong();
+                int event = (int) (header >>> 32) - 1;
+                if (event < 0) {
+                    break; // the unused rest of a trace, that was not closed
+                }
+                result.add(new Record(event < events.length ? events[event] : null,
+                                      (int) header,
+                                      levelName(levels, (int) (levelPair >>> 32)),
+                                      levelName(levels, (int) levelPair),
+                                      threadId, nanoTime));
+            }
+        }
+        return result;
+    }
+
+    private static String levelName(List<String> levels, int ordinal) {
+        if (ordinal == EventRecorder.NO_LEVEL) {
+            return "-";
+        }
+        return ordinal < levels.size() ? levels.get(ordinal) : "#" + ordinal;
+    }
+
+    /**
+     * Prints the number of records per event type and call site, most frequent first.
+     */
+    public static void printSummary(List<Record> records, PrintStream out) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Record r : records) {
+            String key = r.event + " site=" + r.callSite;
+            Integer c = counts.get(key);
+            counts.put(key, c == null ? 1 : c + 1);
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(Map.Entry<String, Integer> e1, Map.Entry<String, Integer> e2) {
+                return e2.getValue().compareTo(e1.getValue());
+            }
+        });
+        out.println(records.size() + " events");
+        for (Map.Entry<String, Integer> e : entries) {
+            out.println(e.getValue() + "\t" + e.getKey());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean summary = args.length == 2 && args[0].equals("--summary");
+        if (args.length != 1 && !summary) {
+            System.err.println("Usage: EventDecoder [--summary] <trace>");
+            System.exit(1);
+        }
+        List<Record> records = read(new File(args[args.length - 1]));
+        if (summary) {
+            printSummary(records, System.out);
+        } else {
+            for (Record r : records) {
+                System.out.println(r);
+            }
+        }
+    }
+}
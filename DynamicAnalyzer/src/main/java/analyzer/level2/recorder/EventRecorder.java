@@ -0,0 +1,98 @@
+package analyzer.level2.recorder;
+
+import analyzer.level2.SecurityMonitoringEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the {@link SecurityMonitoringEvent}s of the run-time monitor as
+ * binary records, such that traces can be kept on with little overhead.
+ * <p>
+ * Recording is switched on by the system property
+ * <code>jgs.events=&lt;file&gt;</code>. Every thread writes into its own
+ * preallocated {@link EventRingBuffer}, whose size is given by
+ * <code>jgs.events.buffer</code> (records per thread, default 16384). A
+ * daemon thread moves the records into the memory-mapped trace file
+ * periodically and at shutdown. Levels are recorded as ordinals; their names
+ * are written to <code>&lt;file&gt;.levels</code>, one per line. Use
+ * {@link EventDecoder} to print or aggregate a trace.
+ * <p>
+ * As {@link EventRecorder#ENABLED} is static final, the calls, that are
+ * guarded by it, are removed by the JIT, if recording is off.
+ */
+public final class EventRecorder {
+
+    /** The system property, that names the trace file. */
+    public static final String FILE_PROPERTY = "jgs.events";
+
+    /** Specifies, if events are recorded. */
+    public static final boolean ENABLED = System.getProperty(FILE_PROPERTY) != null;
+
+    /**
+     * The call-site id of events, whose call site is not known. The checks
+     * of the {@link analyzer.level2.HandleStmt} are told their site only by a
+     * profiling or an audit build, see {@link SiteProfile}. The events of
+     * other builds, and the events, that are not caused by a check, e.g. of
+     * returns, are recorded with this id.
+     */
+    public static final int UNKNOWN_SITE = -1;
+
+    /** The level ordinal of a missing level. */
+    static final int NO_LEVEL = -1;
+
+    private static final int BUFFER_RECORDS = Integer.getInteger("jgs.events.buffer", 1 << 14);
+
+    private static final List<EventRingBuffer> buffers = new CopyOnWriteArrayList<>();
+
+    private static final ThreadLocal<EventRingBuffer> buffer = new ThreadLocal<EventRingBuffer>() {
+        @Override
+        protected EventRingBuffer initialValue() {
+            EventRingBuffer b = new EventRingBuffer(BUFFER_RECORDS, Thread.currentThread());
+            buffers.add(b);
+            return b;
+        }
+    };
+
+    private static final SymbolTable levels = new SymbolTable();
+
+    static {
+        if (ENABLED) {
+            start(new File(System.getProperty(FILE_PROPERTY)));
+        }
+    }
+
+    private EventRecorder() {
+    }
+
+    /**
+     * Records an event of the current thread.
+     *
+     * @param event    The event.
+     * @param callSite The id of the call site, or {@link EventRecorder#UNKNOWN_SITE}.
+     * @param level1   The first level of the event, e.g. the level, that is checked, or null.
+     * @param level2   The second level of the event, e.g. the bound, or null.
+     */
+    public static void record(SecurityMonitoringEvent event, int callSite, Object level1, Object level2) {
+        buffer.get().record(event.ordinal(), callSite, ordinal(level1), ordinal(level2), System.nanoTime());
+    }
+
+    /**
+     * @return the ordinal of the level in the level table of the trace.
+     */
+    static int ordinal(Object level) {
+        return level == null ? NO_LEVEL : levels.ordinal(level);
+    }
+
+    private static void start(final File file) {
+        TraceFlusher.start(file, EventTraceWriter.MAGIC, buffers, "jgs-event-flusher", "jgs.events.buffer",
+                           new TraceFlusher.Finisher() {
+                               @Override
+                               public void finish() throws IOException {
+                                   levels.write(new File(file.getPath() + ".levels"));
+                               }
+                           });
+    }
+}
@@ -0,0 +1,185 @@
+package analyzer.level2.recorder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated ring of fixed-size event records, that is written by one
+ * thread and drained by the flusher. A record consists of four longs:
+ * <ol>
+ *     <li>event ordinal + 1 (high int) and call-site id (low int),</li>
+ *     <li>the ordinals of the first and the second level,</li>
+ *     <li>the id of the thread,</li>
+ *     <li>{@link System#nanoTime()}.</li>
+ * </ol>
+ * Recording neither allocates nor locks. If the flusher falls behind by more
+ * than the capacity, the oldest records are overwritten and counted as
+ * dropped. Once the owner thread has died and its buffer is drained, the
+ * flusher forgets the buffer, see {@link EventRingBuffer#isOwnerAlive()}.
+ */
+final class EventRingBuffer {
+
+    /** The number of longs of a record. */
+    static final int RECORD_LONGS = 4;
+
+    /** The number of bytes of a record. */
+    static final int RECORD_SIZE = 8 * RECORD_LONGS;
+
+    /**
+     * <code>Unsafe.loadFence()</code>, which keeps the copies of the slots
+     * from being reordered after the second read of
+     * {@link EventRingBuffer#published}, like <code>StampedLock.validate</code>.
+     * If it is not available, a read-modify-write of the counter is used.
+     */
+    private static final MethodHandle LOAD_FENCE = loadFence();
+
+    private final long[] slots;
+    private final int mask;
+    private final long threadId;
+
+    /** The thread, that writes to the buffer, or null, if it is not known. */
+    private final Thread owner;
+
+    /** The number of records, that were recorded so far. Written by the owner thread only. */
+    private long next = 0;
+
+    /** Publishes {@link EventRingBuffer#next} to the flusher. */
+    private final AtomicLong published = new AtomicLong();
+
+    /** The number of records, that the flusher has taken so far. Read by the owner thread in {@link EventRingBuffer#isFull()}. */
+    private volatile long consumed = 0;
+
+    /** The number of records, that were overwritten before the flusher took them. */
+    private long dropped = 0;
+
+    /**
+     * @param capacity The number of records, rounded up to a power of two.
+     * @param threadId The id of the thread, that writes to the buffer.
+     */
+    EventRingBuffer(int capacity, long threadId) {
+        this(capacity, threadId, null);
+    }
+
+    /**
+     * @param capacity The number of records, rounded up to a power of two.
+     * @param owner    The thread, that writes to the buffer.
+     */
+    EventRingBuffer(int capacity, Thread owner) {
+        this(capacity, owner.getId(), owner);
+    }
+
+    private EventRingBuffer(int capacity, long threadId, Thread owner) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new long[size * RECORD_LONGS];
+        this.mask = size - 1;
+        this.threadId = threadId;
+        this.owner = owner;
+    }
+
+    /**
+     * @return The number of records, that the buffer holds.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Specifies, if the next record could overwrite or tear a record, that
+     * the flusher has not taken yet. Writers, that must not lose records,
+     * drain the buffer before recording, see {@link TraceFlusher#drainNow}.
+     * Must only be called by the owner thread.
+     */
+    boolean isFull() {
+        return next - consumed >= mask;
+    }
+
+    /**
+     * @return false, if the owner thread has died, such that no records
+     * are added any more. A buffer without a known owner is alive.
+     */
+    boolean isOwnerAlive() {
+        return owner == null || owner.isAlive();
+    }
+
+    /**
+     * Appends a record. Must only be called by the owner thread.
+     */
+    void record(int event, int callSite, int level1, int level2, long nanoTime) {
+        int i = (int) (next & mask) * RECORD_LONGS;
+        slots[i] = ((long) (event + 1) << 32) | (callSite & 0xFFFFFFFFL);
+        slots[i + 1] = ((long) level1 << 32) | (level2 & 0xFFFFFFFFL);
+        slots[i + 2] = threadId;
+        slots[i + 3] = nanoTime;
+        published.lazySet(++next);
+    }
+
+    /**
+     * Moves the records, that were published since the last call, to the
+     * given buffer, as far as it has room for them. Must only be called by
+     * one flushing thread at a time.
+     *
+     * @param scratch An array of the flusher of at least {@link EventRingBuffer#capacity()}
+     *                records, such that torn records are not written out.
+     * @return The number of records, that were written to out.
+     */
+    int drainTo(ByteBuffer out, long[] scratch) {
+        int capacity = mask + 1;
+        long end = published.get();
+        long start = Math.max(consumed, end - capacity);
+        dropped += start - consumed;
+        int n = (int) Math.min(end - start, out.remaining() / RECORD_SIZE);
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(slots, (int) ((start + r) & mask) * RECORD_LONGS,
+                             scratch, r * RECORD_LONGS, RECORD_LONGS);
+        }
+        // the writer may have lapped the copied records in the meantime,
+        // including the record, that it overwrites, but has not published yet
+        long torn = Math.max(0, republished() - capacity - start + 1);
+        int skip = (int) Math.min(torn, n);
+        dropped += skip;
+        for (int k = skip * RECORD_LONGS; k < n * RECORD_LONGS; k++) {
+            out.putLong(scratch[k]);
+        }
+        consumed = start + n;
+        return n - skip;
+    }
+
+    /**
+     * Reads {@link EventRingBuffer#published} again, after the slots were copied.
+     */
+    private long republished() {
+        if (LOAD_FENCE == null) {
+            return published.getAndAdd(0);
+        }
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (Throwable e) {
+            return published.getAndAdd(0);
+        }
+        return published.get();
+    }
+
+    private static MethodHandle loadFence() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                                .findVirtual(unsafeClass, "loadFence", MethodType.methodType(void.class))
+                                .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The number of records, that were lost, because the buffer was full.
+     */
+    long dropped() {
+        return dropped;
+    }
+}
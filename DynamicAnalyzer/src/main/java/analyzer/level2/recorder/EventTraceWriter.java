@@ -0,0 +1,107 @@
+package analyzer.level2.recorder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes event records to a trace file, that is mapped into memory chunk by
+ * chunk. The file starts with a header of {@link EventTraceWriter#HEADER_SIZE}
+ * bytes (magic number, version, record size, reserved), that is followed by
+ * the records. A record never has the event ordinal 0, so a reader stops at
+ * the first zero record, if the writer did not close the file.
+ */
+final class EventTraceWriter implements Closeable {
+
+    /** The first four bytes of a trace of events, "JGSE". */
+    static final int MAGIC = 0x4A475345;
+
+    /** The first four bytes of a trace of monitor operations, "JGSO", see {@link OperationRecorder}. */
+    static final int OPERATIONS_MAGIC = 0x4A47534F;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    /** The number of bytes, that are mapped at once. */
+    private static final long CHUNK_SIZE = 4L << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+
+    /** The copies of the records of a buffer, shared by all buffers, see {@link EventRingBuffer#drainTo}. */
+    private long[] scratch = new long[0];
+
+    EventTraceWriter(File file) throws IOException {
+        this(file, MAGIC);
+    }
+
+    /**
+     * @param magic The first four bytes of the trace, that tell the kind of its records.
+     */
+    EventTraceWriter(File file, int magic) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        map(0);
+        chunk.putInt(magic);
+        chunk.putInt(VERSION);
+        chunk.putInt(EventRingBuffer.RECORD_SIZE);
+        chunk.putInt(0);
+    }
+
+    private void map(long start) throws IOException {
+        chunkStart = start;
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, start, CHUNK_SIZE);
+    }
+
+    /**
+     * Writes all records, that are published in the given ring buffer.
+     */
+    void drain(EventRingBuffer buffer) throws IOException {
+        if (scratch.length < buffer.capacity() * EventRingBuffer.RECORD_LONGS) {
+            scratch = new long[buffer.capacity() * EventRingBuffer.RECORD_LONGS];
+        }
+        while (true) {
+            if (chunk.remaining() < EventRingBuffer.RECORD_SIZE) {
+                map(chunkStart + chunk.position());
+            }
+            if (buffer.drainTo(chunk, scratch) == 0 && chunk.remaining() >= EventRingBuffer.RECORD_SIZE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true, if the file was closed, such that no records can be written.
+     */
+    boolean isClosed() {
+        return chunk == null;
+    }
+
+    /**
+     * @return The number of bytes written so far, including the header.
+     */
+    long size() {
+        return chunkStart + chunk.position();
+    }
+
+    /**
+     * Forces the written records to the file system and cuts off the unused
+     * rest of the last chunk.
+     */
+    @Override
+    public void close() throws IOException {
+        chunk.force();
+        long size = size();
+        chunk = null;
+        try {
+            channel.truncate(size);
+        } catch (IOException e) {
+            // some platforms refuse to truncate a mapped file; readers stop at the zero records
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,73 @@
+package analyzer.level2.recorder;
+
+/**
+ * The operations of the run-time monitor, that are recorded by the
+ * {@link OperationRecorder} and re-executed by {@link TraceReplay}. They are
+ * the operations of {@link analyzer.level2.HandleStmt} on the levels of
+ * locals and on the PCs, reduced to a small instruction set. Levels, that
+ * come from the heap, from labels or from arguments, are recorded as they
+ * were observed.
+ * <p>
+ * Each record has an operand, which is the ordinal of the signature of a
+ * local in the name table, or the identity of a postdominator, and a level
+ * ordinal.
+ */
+public enum MonitorOperation {
+
+    /** A method is entered: a new frame with empty locals. */
+    ENTER,
+
+    /** The method of the current frame is left. */
+    CLOSE,
+
+    /** Local <i>operand</i> is tracked with <i>level</i>. */
+    ADD_LOCAL,
+
+    /** Local <i>operand</i> gets <i>level</i>, without checks. */
+    SET_LOCAL,
+
+    /** The level of local <i>operand</i> is joined to the pending level. */
+    JOIN_LOCAL,
+
+    /** <i>level</i> is joined to the pending level. */
+    JOIN_LEVEL,
+
+    /**
+     * Local <i>operand</i> gets the pending level joined with the local PC;
+     * the pending level is cleared.
+     */
+    ASSIGN,
+
+    /** NSU check: the local PC must be less or equal than the level of local <i>operand</i>, if it is tracked. */
+    CHECK_LOCAL,
+
+    /** NSU check: the local PC must be bottom, because a public local is updated. */
+    CHECK_PUBLIC,
+
+    /**
+     * A branch on the pending level starts, that ends at the postdominator
+     * <i>operand</i>; the pending level is cleared.
+     */
+    BRANCH,
+
+    /** The branches, that end at the postdominator <i>operand</i>, are left. */
+    EXIT_BRANCH,
+
+    /** Local <i>operand</i>, if it is tracked, is raised to the local PC, because it is in the write effect of a branch. */
+    RAISE,
+
+    /** The level of local <i>operand</i> must be less or equal than <i>level</i>. */
+    CHECK_LE,
+
+    /** The local PC must be less or equal than <i>level</i>, e.g. before an output. */
+    CHECK_PC_LE,
+
+    /** The global PC must be less or equal than <i>level</i>, the observed level of an updated field. */
+    CHECK_FIELD,
+
+    /** <i>level</i> is joined to the global PC, e.g. the level of the receiver of a call. */
+    PUSH_PC,
+
+    /** The global PC, that was pushed by {@link MonitorOperation#PUSH_PC}, is popped. */
+    POP_PC
+}
@@ -0,0 +1,129 @@
+package analyzer.level2.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the {@link MonitorOperation}s of the run-time monitor, such that
+ * they can be re-executed by {@link TraceReplay} under another security
+ * domain or policy, without running the analyzed program again.
+ * <p>
+ * Recording is switched on by the system property
+ * <code>jgs.ops=&lt;file&gt;</code>. The records have the format of the
+ * {@link EventRecorder} and are written the same way, through a
+ * preallocated {@link EventRingBuffer} per thread of
+ * <code>jgs.ops.buffer</code> records (default 65536), into a memory-mapped
+ * file. Unlike events, operations are never dropped: a replay of a trace
+ * with gaps would run frames and PCs out of step. A thread, whose buffer is
+ * full, drains it itself, before it records the next operation. A record holds the operation, its operand and a level ordinal. The
+ * signatures of the locals are interned and written to
+ * <code>&lt;file&gt;.names</code>, the levels to <code>&lt;file&gt;.levels</code>.
+ * <p>
+ * As {@link OperationRecorder#ENABLED} is static final, the calls, that are
+ * guarded by it, are removed by the JIT, if recording is off.
+ */
+public final class OperationRecorder {
+
+    /** The system property, that names the trace file. */
+    public static final String FILE_PROPERTY = "jgs.ops";
+
+    /** Specifies, if the operations are recorded. */
+    public static final boolean ENABLED = System.getProperty(FILE_PROPERTY) != null;
+
+    private static final int BUFFER_RECORDS = Integer.getInteger("jgs.ops.buffer", 1 << 16);
+
+    private static final List<EventRingBuffer> buffers = new CopyOnWriteArrayList<>();
+
+    private static final ThreadLocal<EventRingBuffer> buffer = new ThreadLocal<EventRingBuffer>() {
+        @Override
+        protected EventRingBuffer initialValue() {
+            EventRingBuffer b = new EventRingBuffer(BUFFER_RECORDS, Thread.currentThread());
+            buffers.add(b);
+            return b;
+        }
+    };
+
+    private static final SymbolTable names = new SymbolTable();
+
+    private static final SymbolTable levels = new SymbolTable();
+
+    /** The writer of the trace, or null, if nothing is recorded. */
+    private static final EventTraceWriter writer;
+
+    static {
+        if (ENABLED) {
+            final File file = new File(System.getProperty(FILE_PROPERTY));
+            writer = TraceFlusher.start(file, EventTraceWriter.OPERATIONS_MAGIC, buffers, "jgs-ops-flusher",
+                               "jgs.ops.buffer", new TraceFlusher.Finisher() {
+                        @Override
+                        public void finish() throws IOException {
+                            names.write(new File(file.getPath() + ".names"));
+                            levels.write(new File(file.getPath() + ".levels"));
+                        }
+                    });
+        } else {
+            writer = null;
+        }
+    }
+
+    private OperationRecorder() {
+    }
+
+    /**
+     * Records an operation without operands, like {@link MonitorOperation#ENTER}.
+     */
+    public static void record(MonitorOperation op) {
+        buffer().record(op.ordinal(), 0, EventRecorder.NO_LEVEL, 0, System.nanoTime());
+    }
+
+    /**
+     * Records an operation on a local.
+     *
+     * @param local The signature of the local.
+     */
+    public static void local(MonitorOperation op, String local) {
+        buffer().record(op.ordinal(), names.ordinal(local), EventRecorder.NO_LEVEL, 0, System.nanoTime());
+    }
+
+    /**
+     * Records an operation on a local and a level, like {@link MonitorOperation#SET_LOCAL}.
+     *
+     * @param level The level, or null for bottom.
+     */
+    public static void local(MonitorOperation op, String local, Object level) {
+        buffer().record(op.ordinal(), names.ordinal(local), ordinal(level), 0, System.nanoTime());
+    }
+
+    /**
+     * Records an operation on a level, like {@link MonitorOperation#JOIN_LEVEL}.
+     *
+     * @param level The level, or null for bottom.
+     */
+    public static void level(MonitorOperation op, Object level) {
+        buffer().record(op.ordinal(), 0, ordinal(level), 0, System.nanoTime());
+    }
+
+    /**
+     * Records an operation on a postdominator, like {@link MonitorOperation#BRANCH}.
+     */
+    public static void branch(MonitorOperation op, int dominatorIdentity) {
+        buffer().record(op.ordinal(), dominatorIdentity, EventRecorder.NO_LEVEL, 0, System.nanoTime());
+    }
+
+    /**
+     * Gets the buffer of the current thread, which has room for a record.
+     */
+    private static EventRingBuffer buffer() {
+        EventRingBuffer b = buffer.get();
+        if (b.isFull() && writer != null) {
+            TraceFlusher.drainNow(writer, b);
+        }
+        return b;
+    }
+
+    private static int ordinal(Object level) {
+        return level == null ? EventRecorder.NO_LEVEL : levels.ordinal(level);
+    }
+}
@@ -0,0 +1,141 @@
+package analyzer.level2.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Counts the executions of the check sites of a profiling build, and
+ * reads and writes the profile, that guides a second instrumentation.
+ * <p>
+ * Every check, that the instrumentation injects, gets a site, which is
+ * identified by the signature of the method, the index of the instrumented
+ * unit in the body before instrumentation and the name of the check. As
+ * they do not depend on the numbering of the sites, the keys of a profile
+ * stay valid after recompiling the program, as long as a method is not
+ * changed. The instrumentation numbers the sites and writes their keys to
+ * <code>&lt;profile&gt;.sites</code>, one per line. At run time, the
+ * executions of each site are counted, and at shutdown the profile is
+ * written as lines <code>method TAB unit TAB check TAB count</code>.
+ * <p>
+ * The counters are not synchronized, such that counting is as cheap as
+ * possible. Concurrent executions of a site may be lost, which does not
+ * matter to tell hot from cold sites.
+ */
+public final class SiteProfile {
+
+    /** The suffix of the file with the keys of the sites, next to the profile. */
+    public static final String SITES_SUFFIX = ".sites";
+
+    private static final Logger logger = Logger.getLogger(SiteProfile.class.getName());
+
+    private static long[] counts = new long[0];
+
+    private static boolean started = false;
+
+    private SiteProfile() {
+    }
+
+    /**
+     * Gets the key of a site.
+     *
+     * @param method The signature of the method.
+     * @param unit   The index of the instrumented unit in the body before instrumentation.
+     * @param check  The name of the check.
+     */
+    public static String key(String method, int unit, String check) {
+        return method + '\t' + unit + '\t' + check;
+    }
+
+    /**
+     * Starts counting the sites of the given profile, and writes the profile
+     * at shutdown. The keys of the sites are read from
+     * <code>&lt;profile&gt;.sites</code>.
+     */
+    public static synchronized void start(String profile) {
+        if (started) {
+            return;
+        }
+        final File file = new File(profile);
+        final List<String> sites;
+        try {
+            sites = Files.readAllLines(sitesOf(file).toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warning("Unable to read the sites of the profile " + file + ": " + e);
+            return;
+        }
+        started = true;
+        counts = new long[sites.size()];
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(file, sites, counts);
+                } catch (IOException e) {
+                    logger.warning("Writing the profile " + file + " failed: " + e);
+                }
+            }
+        }, "jgs-profile-shutdown"));
+    }
+
+    /**
+     * Counts an execution of the site with the given number.
+     */
+    public static void count(int site) {
+        long[] c = counts;
+        if (site < c.length) {
+            c[site]++;
+        }
+    }
+
+    /**
+     * Gets the file with the keys of the sites of the given profile.
+     */
+    public static File sitesOf(File profile) {
+        return new File(profile.getPath() + SITES_SUFFIX);
+    }
+
+    /**
+     * Writes the keys of the sites of a profiling build, in the order of
+     * their numbers.
+     */
+    public static void writeSites(File profile, List<String> sites) throws IOException {
+        Files.write(sitesOf(profile).toPath(), sites, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the profile, that is the keys of the sites with their counts.
+     */
+    static void write(File profile, List<String> sites, long[] counts) throws IOException {
+        List<String> lines = new ArrayList<>(sites.size());
+        for (int i = 0; i < sites.size(); i++) {
+            lines.add(sites.get(i) + '\t' + counts[i]);
+        }
+        Files.write(profile.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a profile.
+     *
+     * @return The counts of the sites by their keys. If a site occurs more
+     * than once, e.g. because profiles were concatenated, its counts are added.
+     */
+    public static Map<String, Long> read(File profile) throws IOException {
+        Map<String, Long> result = new HashMap<>();
+        for (String line : Files.readAllLines(profile.toPath(), StandardCharsets.UTF_8)) {
+            int tab = line.lastIndexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            Long count = Long.valueOf(line.substring(tab + 1));
+            result.merge(line.substring(0, tab), count, Long::sum);
+        }
+        return result;
+    }
+}
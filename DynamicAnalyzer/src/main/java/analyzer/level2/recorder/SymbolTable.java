@@ -0,0 +1,65 @@
+package analyzer.level2.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Interns the symbols of a trace, like levels or the signatures of locals,
+ * such that a record only holds their ordinals. The symbols are written to
+ * a side file, one per line, in the order of their ordinals.
+ */
+final class SymbolTable {
+
+    private final Map<Object, Integer> ordinals = new ConcurrentHashMap<>();
+
+    private final List<Object> symbols = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return the ordinal of the symbol, which is assigned on its first use.
+     */
+    int ordinal(Object symbol) {
+        Integer known = ordinals.get(symbol);
+        return known != null ? known : intern(symbol);
+    }
+
+    private synchronized int intern(Object symbol) {
+        Integer known = ordinals.get(symbol);
+        if (known != null) {
+            return known;
+        }
+        symbols.add(symbol);
+        ordinals.put(symbol, symbols.size() - 1);
+        return symbols.size() - 1;
+    }
+
+    /**
+     * Writes the symbols, one per line.
+     */
+    void write(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            for (Object symbol : new ArrayList<>(symbols)) {
+                out.println(symbol);
+            }
+        }
+    }
+
+    /**
+     * Reads the symbols, that were written by {@link SymbolTable#write(File)}.
+     *
+     * @return the symbols, or an empty list, if the file does not exist.
+     */
+    static List<String> read(File file) throws IOException {
+        return file.isFile()
+               ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)
+               : Collections.<String>emptyList();
+    }
+}
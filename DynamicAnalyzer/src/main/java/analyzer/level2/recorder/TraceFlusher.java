@@ -0,0 +1,134 @@
+package analyzer.level2.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Moves the records of the ring buffers of all threads into a trace file: a
+ * daemon thread drains them periodically, and a shutdown hook drains the
+ * rest, closes the file and writes the symbol tables of the trace. The
+ * buffers of threads, that have died, are removed, once they are drained.
+ */
+final class TraceFlusher {
+
+    private static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private static final Logger logger = Logger.getLogger(TraceFlusher.class.getName());
+
+    /**
+     * Writes the side files of a trace, when it is finished.
+     */
+    interface Finisher {
+        void finish() throws IOException;
+    }
+
+    private TraceFlusher() {
+    }
+
+    /**
+     * Starts the flusher, that writes the records of the given buffers to
+     * the given file, and registers the final flush at shutdown.
+     *
+     * @param magic          The magic number of the trace file.
+     * @param buffers        The buffers of all threads; threads may add their buffer later.
+     * @param name           The name of the flushing thread.
+     * @param bufferProperty The system property, that sets the size of the buffers.
+     * @param finisher       Writes the symbol tables at shutdown.
+     * @return The writer of the trace, or null, if the file cannot be written.
+     */
+    static EventTraceWriter start(final File file, int magic, final List<EventRingBuffer> buffers,
+                                  String name, final String bufferProperty, final Finisher finisher) {
+        final EventTraceWriter writer;
+        try {
+            writer = new EventTraceWriter(file, magic);
+        } catch (IOException e) {
+            logger.warning("Unable to record to " + file + ": " + e);
+            return null;
+        }
+        final AtomicLong retiredDrops = new AtomicLong();
+        final Thread flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Thread.sleep(FLUSH_INTERVAL_MILLIS);
+                        flush(writer, buffers, retiredDrops);
+                    }
+                } catch (InterruptedException e) {
+                    // shutdown
+                } catch (IOException e) {
+                    logger.warning("Recording to " + file + " failed: " + e);
+                }
+            }
+        }, name);
+        flusher.setDaemon(true);
+        flusher.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flusher.interrupt();
+                try {
+                    flusher.join();
+                    synchronized (writer) {
+                        flush(writer, buffers, retiredDrops);
+                        writer.close();
+                    }
+                    finisher.finish();
+                } catch (InterruptedException | IOException e) {
+                    logger.warning("Finishing the trace " + file + " failed: " + e);
+                }
+                long dropped = retiredDrops.get();
+                for (EventRingBuffer b : buffers) {
+                    dropped += b.dropped();
+                }
+                if (dropped > 0) {
+                    logger.warning(dropped + " records of " + file + " were dropped, increase "
+                                   + bufferProperty);
+                }
+            }
+        }, name + "-shutdown"));
+        return writer;
+    }
+
+    /**
+     * Drains the buffer of the current thread right away, instead of
+     * waiting for the flusher, such that a full buffer loses no records.
+     * After shutdown, when the trace is closed, nothing is written.
+     */
+    static void drainNow(EventTraceWriter writer, EventRingBuffer buffer) {
+        synchronized (writer) {
+            if (writer.isClosed()) {
+                return;
+            }
+            try {
+                writer.drain(buffer);
+            } catch (IOException e) {
+                logger.warning("Recording failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Drains all buffers, and removes the buffers of dead threads.
+     *
+     * @param retiredDrops Accumulates the dropped records of the removed buffers.
+     */
+    static void flush(EventTraceWriter writer, List<EventRingBuffer> buffers,
+                      AtomicLong retiredDrops) throws IOException {
+        synchronized (writer) {
+            for (EventRingBuffer b : buffers) {
+                // a dead owner adds no records after this check
+                boolean retired = !b.isOwnerAlive();
+                writer.drain(b);
+                if (retired) {
+                    buffers.remove(b);
+                    retiredDrops.addAndGet(b.dropped());
+                }
+            }
+        }
+    }
+}
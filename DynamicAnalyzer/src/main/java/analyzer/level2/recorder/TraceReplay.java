@@ -0,0 +1,528 @@
+package analyzer.level2.recorder;
+
+import analyzer.level2.CurrentSecurityDomain;
+import analyzer.level2.audit.ViolationAudit;
+import de.unifreiburg.cs.proglang.jgs.constraints.SecDomain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-executes a trace of the {@link OperationRecorder} under a security
+ * domain and a policy, which need not be the ones of the recorded run. So
+ * policies and lattices can be compared on a recorded workload, without
+ * instrumenting and running it again. The replay reports the violations,
+ * deduplicated by local like the {@link ViolationAudit}, and the cost of the
+ * monitor: the number of operations and checks, and the recorded time.
+ * <p>
+ * The trace is read through memory-mapped windows and executed without
+ * allocating per record. Each thread of the trace gets its own PCs and
+ * frames; the levels are read from the level table of the trace by
+ * {@link SecDomain#readLevel(String)} of the given domain.
+ * <p>
+ * The replay is as precise as the trace: levels from the heap, from labels
+ * and from arguments were recorded as observed, so they are only
+ * translated to the domain. The NSU checks are only present in traces of
+ * programs instrumented for the NSU policy, and the write effects of
+ * branches only in traces of the hybrid enforcement. Under
+ * {@link Policy#HYBRID} the NSU checks are skipped and the write effects
+ * are raised, under {@link Policy#NSU} the other way round.
+ * <p>
+ * Usage: <code>TraceReplay [--policy nsu|hybrid] [--domain &lt;class&gt;] &lt;trace&gt;</code>,
+ * where the domain class is a {@link SecDomain} with a default constructor,
+ * or a class with a static method <code>get()</code>, that returns one.
+ *
+ * @param <Level> The type of the security levels.
+ */
+public final class TraceReplay<Level> {
+
+    /**
+     * The policy, that the replay enforces.
+     */
+    public enum Policy {
+        NSU,
+        HYBRID
+    }
+
+    /** The number of records, that are mapped at once. */
+    private static final int WINDOW_RECORDS = 1 << 21;
+
+    private static final MonitorOperation[] OPERATIONS = MonitorOperation.values();
+
+    private final SecDomain<Level> domain;
+
+    private final Policy policy;
+
+    public TraceReplay(SecDomain<Level> domain, Policy policy) {
+        this.domain = domain;
+        this.policy = policy;
+    }
+
+    /**
+     * Replays the trace, whose names and levels are taken from the files
+     * <code>&lt;trace&gt;.names</code> and <code>&lt;trace&gt;.levels</code>.
+     *
+     * @throws IOException if the file is not a trace of operations.
+     * @throws IllegalArgumentException if a recorded level is not a level of the domain.
+     */
+    public Report replay(File trace) throws IOException {
+        List<String> names = SymbolTable.read(new File(trace.getPath() + ".names"));
+        List<String> levelNames = SymbolTable.read(new File(trace.getPath() + ".levels"));
+        Object[] levels = new Object[levelNames.size()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = domain.readLevel(levelNames.get(i));
+        }
+        Run run = new Run(names.toArray(new String[0]), levels);
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(trace.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(EventTraceWriter.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < EventTraceWriter.HEADER_SIZE
+                || header.getInt() != EventTraceWriter.OPERATIONS_MAGIC) {
+                throw new IOException("Not a trace of monitor operations: " + trace);
+            }
+            int version = header.getInt();
+            int recordSize = header.getInt();
+            if (version != EventTraceWriter.VERSION || recordSize != EventRingBuffer.RECORD_SIZE) {
+                throw new IOException("Unsupported trace version " + version + ": " + trace);
+            }
+            long size = channel.size();
+            long position = EventTraceWriter.HEADER_SIZE;
+            while (size - position >= recordSize) {
+                long length = Math.min(size - position, (long) WINDOW_RECORDS * recordSize);
+                length -= length % recordSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (!run.execute(window)) {
+                    break;
+                }
+                position += length;
+            }
+        }
+        return run.report(System.nanoTime() - start);
+    }
+
+    // <editor-fold desc="Replay">
+
+    /**
+     * The state of one replay.
+     */
+    private final class Run {
+        final String[] names;
+        final Object[] levels;
+        final long[] counts = new long[OPERATIONS.length];
+        final Map<String, long[]> violations = new LinkedHashMap<>();
+        final Map<Long, ThreadState> threads = new HashMap<>();
+        long checks = 0;
+        long operations = 0;
+
+        /** The thread of the last record, which is mostly the thread of the next one. */
+        ThreadState current;
+
+        Run(String[] names, Object[] levels) {
+            this.names = names;
+            this.levels = levels;
+        }
+
+        /**
+         * Executes the records of a window.
+         *
+         * @return false, if the end of the records was reached.
+         */
+        boolean execute(ByteBuffer window) throws IOException {
+            while (window.remaining() >= EventRingBuffer.RECORD_SIZE) {
+                long header = window.getLong();
+                long levelPair = window.getLong();
+                long threadId = window.getLong();
+                long nanoTime = window.getLong();
+                int op = (int) (header >>> 32) - 1;
+                if (op < 0) {
+                    return false; // the unused rest of a trace, that was not closed
+                }
+                if (op >= OPERATIONS.length) {
+                    throw new IOException("Unknown operation " + op + " in trace");
+                }
+                ThreadState t = current;
+                if (t == null || t.id != threadId) {
+                    t = threads.get(threadId);
+                    if (t == null) {
+                        t = new ThreadState(threadId, nanoTime);
+                        threads.put(threadId, t);
+                    }
+                    current = t;
+                }
+                t.last = nanoTime;
+                counts[op]++;
+                operations++;
+                execute(t, OPERATIONS[op], (int) header, (int) (levelPair >>> 32));
+            }
+            return true;
+        }
+
+        private void execute(ThreadState t, MonitorOperation op, int operand, int level) {
+            Frame f = t.frames.get(t.depth);
+            switch (op) {
+                case ENTER:
+                    t.enter();
+                    break;
+                case CLOSE:
+                    t.close();
+                    break;
+                case ADD_LOCAL:
+                case SET_LOCAL:
+                    f.set(operand, level(level));
+                    break;
+                case JOIN_LOCAL:
+                    t.pending = domain.lub(t.pending, f.levelOf(operand));
+                    break;
+                case JOIN_LEVEL:
+                    t.pending = domain.lub(t.pending, level(level));
+                    break;
+                case ASSIGN:
+                    f.set(operand, domain.lub(t.pending, f.localPC()));
+                    t.pending = domain.bottom();
+                    break;
+                case CHECK_LOCAL:
+                    if (policy == Policy.NSU) {
+                        checks++;
+                        if (f.isTracked(operand) && !domain.le(f.localPC(), f.levelOf(operand))) {
+                            violation(ViolationAudit.NSU, name(operand));
+                        }
+                    }
+                    break;
+                case CHECK_PUBLIC:
+                    if (policy == Policy.NSU) {
+                        checks++;
+                        if (!domain.le(f.localPC(), domain.bottom())) {
+                            violation(ViolationAudit.NSU, "public variable");
+                        }
+                    }
+                    break;
+                case BRANCH:
+                    Level localPC = domain.lub(t.pending, f.localPC());
+                    f.pushLocalPC(localPC, operand);
+                    t.pushGlobalPC(domain.lub(t.globalPC(), localPC));
+                    t.pending = domain.bottom();
+                    break;
+                case EXIT_BRANCH:
+                    while (f.popLocalPC(operand)) {
+                        t.popGlobalPC();
+                    }
+                    break;
+                case RAISE:
+                    if (policy == Policy.HYBRID && f.isTracked(operand)) {
+                        f.set(operand, domain.lub(f.levelOf(operand), f.localPC()));
+                    }
+                    break;
+                case CHECK_LE:
+                    checks++;
+                    if (!domain.le(f.levelOf(operand), level(level))) {
+                        violation(ViolationAudit.ILLEGAL_FLOW, name(operand));
+                    }
+                    break;
+                case CHECK_PC_LE:
+                    checks++;
+                    if (!domain.le(f.localPC(), level(level))) {
+                        violation(ViolationAudit.ILLEGAL_FLOW, "PC");
+                    }
+                    break;
+                case CHECK_FIELD:
+                    checks++;
+                    if (!domain.le(t.globalPC(), level(level))) {
+                        violation(ViolationAudit.NSU, name(operand));
+                    }
+                    break;
+                case PUSH_PC:
+                    t.pushGlobalPC(domain.lub(t.globalPC(), level(level)));
+                    break;
+                case POP_PC:
+                    t.popGlobalPC();
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled operation " + op);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Level level(int ordinal) {
+            if (ordinal == EventRecorder.NO_LEVEL) {
+                return domain.bottom();
+            }
+            if (ordinal < 0 || ordinal >= levels.length) {
+                throw new IllegalArgumentException("Level #" + ordinal + " is missing in the level table");
+            }
+            return (Level) levels[ordinal];
+        }
+
+        private String name(int ordinal) {
+            return ordinal >= 0 && ordinal < names.length ? names[ordinal] : "#" + ordinal;
+        }
+
+        private void violation(String kind, String subject) {
+            String key = kind + ": " + subject;
+            long[] count = violations.get(key);
+            if (count == null) {
+                count = new long[1];
+                violations.put(key, count);
+            }
+            count[0]++;
+        }
+
+        Report report(long replayNanos) {
+            Map<MonitorOperation, Long> operationCounts = new EnumMap<>(MonitorOperation.class);
+            for (MonitorOperation op : OPERATIONS) {
+                if (counts[op.ordinal()] > 0) {
+                    operationCounts.put(op, counts[op.ordinal()]);
+                }
+            }
+            Map<String, Long> violationCounts = new LinkedHashMap<>();
+            long total = 0;
+            for (Map.Entry<String, long[]> e : violations.entrySet()) {
+                violationCounts.put(e.getKey(), e.getValue()[0]);
+                total += e.getValue()[0];
+            }
+            long recordedNanos = 0;
+            for (ThreadState t : threads.values()) {
+                recordedNanos += t.last - t.first;
+            }
+            return new Report(policy, operations, threads.size(), operationCounts, checks, total,
+                              violationCounts, recordedNanos, replayNanos);
+        }
+
+        /**
+         * The PCs and frames of a thread of the trace.
+         */
+        private final class ThreadState {
+            final long id;
+            final long first;
+            long last;
+            final List<Frame> frames = new ArrayList<>();
+            int depth = 0;
+            Object[] globalPC = new Object[16];
+            int globalPCSize = 1;
+            Level pending = domain.bottom();
+
+            ThreadState(long id, long first) {
+                this.id = id;
+                this.first = first;
+                this.last = first;
+                // operations outside of any recorded method run in the root frame
+                frames.add(new Frame());
+                globalPC[0] = domain.bottom();
+            }
+
+            void enter() {
+                depth++;
+                if (depth == frames.size()) {
+                    frames.add(new Frame());
+                } else {
+                    frames.get(depth).reset();
+                }
+                pushGlobalPC(globalPC());
+            }
+
+            void close() {
+                popGlobalPC();
+                if (depth > 0) {
+                    depth--;
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            Level globalPC() {
+                return (Level) globalPC[globalPCSize - 1];
+            }
+
+            void pushGlobalPC(Level level) {
+                if (globalPCSize == globalPC.length) {
+                    globalPC = Arrays.copyOf(globalPC, 2 * globalPC.length);
+                }
+                globalPC[globalPCSize++] = level;
+            }
+
+            void popGlobalPC() {
+                // like the MonitorContext, the bottom of the global PC is never popped
+                if (globalPCSize > 1) {
+                    globalPCSize--;
+                }
+            }
+        }
+
+        /**
+         * The locals and the local PC of a method. The levels of the locals
+         * are indexed by the ordinals of their names; a level is only valid,
+         * if its stamp is the generation of the frame, such that a reused
+         * frame need not be cleared.
+         */
+        private final class Frame {
+            Object[] locals = new Object[names.length];
+            int[] stamps = new int[names.length];
+            int generation = 1;
+            Object[] localPC = new Object[8];
+            int[] dominators = new int[8];
+            int localPCSize = 0;
+
+            void reset() {
+                generation++;
+                localPCSize = 0;
+            }
+
+            boolean isTracked(int local) {
+                return local >= 0 && local < stamps.length && stamps[local] == generation;
+            }
+
+            /**
+             * @return the level of the local, or bottom, if it is not tracked.
+             */
+            @SuppressWarnings("unchecked")
+            Level levelOf(int local) {
+                return isTracked(local) ? (Level) locals[local] : domain.bottom();
+            }
+
+            void set(int local, Level level) {
+                if (local < 0) {
+                    return;
+                }
+                if (local >= locals.length) {
+                    int length = Math.max(local + 1, 2 * locals.length);
+                    locals = Arrays.copyOf(locals, length);
+                    stamps = Arrays.copyOf(stamps, length);
+                }
+                locals[local] = level;
+                stamps[local] = generation;
+            }
+
+            @SuppressWarnings("unchecked")
+            Level localPC() {
+                return localPCSize == 0 ? domain.bottom() : (Level) localPC[localPCSize - 1];
+            }
+
+            void pushLocalPC(Level level, int dominator) {
+                if (localPCSize == localPC.length) {
+                    localPC = Arrays.copyOf(localPC, 2 * localPC.length);
+                    dominators = Arrays.copyOf(dominators, 2 * dominators.length);
+                }
+                localPC[localPCSize] = level;
+                dominators[localPCSize] = dominator;
+                localPCSize++;
+            }
+
+            /**
+             * Pops the local PC, if it belongs to the given postdominator.
+             *
+             * @return true, if it was popped.
+             */
+            boolean popLocalPC(int dominator) {
+                if (localPCSize == 0 || dominators[localPCSize - 1] != dominator) {
+                    return false;
+                }
+                localPCSize--;
+                return true;
+            }
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Report">
+
+    /**
+     * The result of a replay.
+     */
+    public static final class Report {
+        public final Policy policy;
+        public final long operations;
+        public final int threads;
+        public final Map<MonitorOperation, Long> operationCounts;
+        public final long checks;
+        public final long violations;
+        /** The number of violations per kind and local or field. */
+        public final Map<String, Long> violationCounts;
+        /** The time between the first and the last record of each thread, summed over the threads. */
+        public final long recordedNanos;
+        public final long replayNanos;
+
+        Report(Policy policy, long operations, int threads, Map<MonitorOperation, Long> operationCounts,
+               long checks, long violations, Map<String, Long> violationCounts,
+               long recordedNanos, long replayNanos) {
+            this.policy = policy;
+            this.operations = operations;
+            this.threads = threads;
+            this.operationCounts = Collections.unmodifiableMap(operationCounts);
+            this.checks = checks;
+            this.violations = violations;
+            this.violationCounts = Collections.unmodifiableMap(violationCounts);
+            this.recordedNanos = recordedNanos;
+            this.replayNanos = replayNanos;
+        }
+
+        public void print(PrintStream out) {
+            double seconds = Math.max(replayNanos, 1) / 1e9;
+            out.printf("%d operations of %d threads replayed under %s in %.3f s (%.0f operations/s)%n",
+                       operations, threads, policy, seconds, operations / seconds);
+            out.printf("recorded time: %.3f ms%n", recordedNanos / 1e6);
+            for (Map.Entry<MonitorOperation, Long> e : operationCounts.entrySet()) {
+                out.println("\t" + e.getValue() + "\t" + e.getKey());
+            }
+            out.println(checks + " checks, " + violations + " violations");
+            for (Map.Entry<String, Long> e : violationCounts.entrySet()) {
+                out.println("\t" + e.getValue() + "\t" + e.getKey());
+            }
+        }
+    }
+
+    // </editor-fold>
+
+    private static <L> Report replay(SecDomain<L> domain, Policy policy, File trace) throws IOException {
+        return new TraceReplay<>(domain, policy).replay(trace);
+    }
+
+    private static SecDomain<?> loadDomain(String className) throws ReflectiveOperationException {
+        Class<?> c = Class.forName(className);
+        if (SecDomain.class.isAssignableFrom(c)) {
+            return (SecDomain<?>) c.getDeclaredConstructor().newInstance();
+        }
+        return (SecDomain<?>) c.getMethod("get").invoke(null);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Policy policy = Policy.NSU;
+        String domainClass = null;
+        String trace = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--policy") && i + 1 < args.length) {
+                policy = Policy.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--domain") && i + 1 < args.length) {
+                domainClass = args[++i];
+            } else if (trace == null && !args[i].startsWith("--")) {
+                trace = args[i];
+            } else {
+                trace = null;
+                break;
+            }
+        }
+        if (trace == null) {
+            System.err.println("Usage: TraceReplay [--policy nsu|hybrid] [--domain <class>] <trace>");
+            System.exit(1);
+        }
+        SecDomain<?> domain = domainClass == null
+                              ? CurrentSecurityDomain.getInstance()
+                              : loadDomain(domainClass);
+        replay(domain, policy, new File(trace)).print(System.out);
+    }
+}
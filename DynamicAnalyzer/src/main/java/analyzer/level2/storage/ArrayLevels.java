@@ -0,0 +1,148 @@
+package analyzer.level2.storage;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * The Security Levels of the elements of a tracked array, stored as a summary
+ * plus overrides: as long as all elements have the same level, only this
+ * summary level is stored. The first update of a single element, that
+ * changes its level, expands the levels to an array of the length of the
+ * tracked array. Filling the whole array collapses it to a summary again.
+ * So the bulk operations, that fill or copy ranges of elements, take constant
+ * time for uniform arrays, and one {@link System#arraycopy} or
+ * {@link Arrays#fill} otherwise.
+ * <p>
+ * A level of <code>null</code> stands for {@link de.unifreiburg.cs.proglang.jgs.constraints.SecDomain#bottom()}.
+ * The instances are not thread safe; they are guarded by the stripe of the
+ * {@link ObjectMap}, that stores them.
+ */
+final class ArrayLevels {
+
+    /** The length of the tracked array. */
+    final int length;
+
+    /** The level of all elements, as long as {@link ArrayLevels#levels} is null. */
+    private Object summary;
+
+    /** The level of each element, or null, if all have the level {@link ArrayLevels#summary}. */
+    private Object[] levels;
+
+    /**
+     * Creates the levels of an array, whose elements all have the given level.
+     * @param length The length of the tracked array.
+     * @param summary The level of the elements.
+     */
+    ArrayLevels(int length, Object summary) {
+        this.length = length;
+        this.summary = summary;
+    }
+
+    /**
+     * @return true, if all elements have the same level.
+     */
+    boolean isUniform() {
+        return levels == null;
+    }
+
+    /**
+     * Gets the level of the element at the given index.
+     * @throws ArrayIndexOutOfBoundsException if the index is not an index of the array.
+     */
+    Object get(int index) {
+        checkIndex(index);
+        return levels == null ? summary : levels[index];
+    }
+
+    /**
+     * Sets the level of the element at the given index.
+     * @throws ArrayIndexOutOfBoundsException if the index is not an index of the array.
+     */
+    void set(int index, Object level) {
+        checkIndex(index);
+        if (levels == null) {
+            if (Objects.equals(summary, level)) return;
+            expand();
+        }
+        levels[index] = level;
+    }
+
+    /**
+     * Sets the level of the elements from <code>from</code>, inclusive, to
+     * <code>to</code>, exclusive. The range has to be checked by the caller.
+     */
+    void fill(int from, int to, Object level) {
+        if (from == 0 && to == length) {
+            summary = level;
+            levels = null;
+            return;
+        }
+        if (from == to) return;
+        if (levels == null) {
+            if (Objects.equals(summary, level)) return;
+            expand();
+        }
+        Arrays.fill(levels, from, to, level);
+    }
+
+    /**
+     * Copies the levels of <code>count</code> elements of <code>src</code>,
+     * starting at <code>srcPos</code>, to the elements starting at
+     * <code>destPos</code>, like {@link System#arraycopy} copies the elements.
+     * Every copied level is joined with <code>extra</code>, unless it is null.
+     * The ranges have to be checked by the caller.
+     * @param src The levels of the source array, which may be this.
+     * @param lub The join of the Security Domain.
+     */
+    void copy(ArrayLevels src, int srcPos, int destPos, int count, Object extra,
+              BinaryOperator<Object> lub) {
+        if (src.levels == null) {
+            fill(destPos, destPos + count, join(src.summary, extra, lub));
+            return;
+        }
+        if (count == 0) return;
+        if (levels == null) expand();
+        if (extra == null) {
+            // arraycopy behaves as if it copied through a temporary array, if src is this
+            System.arraycopy(src.levels, srcPos, levels, destPos, count);
+            return;
+        }
+        Object[] copied = Arrays.copyOfRange(src.levels, srcPos, srcPos + count);
+        for (int i = 0; i < count; i++) {
+            levels[destPos + i] = join(copied[i], extra, lub);
+        }
+    }
+
+    /**
+     * Gets the meet of the levels of the elements in the given range, which
+     * is the greatest level, that is less or equal than each of them.
+     * @param top The level, that is returned for an empty range.
+     * @param glb The meet of the Security Domain, which is called with non-null levels.
+     * @param bottom The bottom level, that replaces null.
+     */
+    Object meet(int from, int to, Object top, BinaryOperator<Object> glb, Object bottom) {
+        if (from == to) return top;
+        if (levels == null) return summary == null ? bottom : summary;
+        Object result = top;
+        for (int i = from; i < to; i++) {
+            result = glb.apply(result, levels[i] == null ? bottom : levels[i]);
+        }
+        return result;
+    }
+
+    private void expand() {
+        levels = new Object[length];
+        if (summary != null) Arrays.fill(levels, summary);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) throw new ArrayIndexOutOfBoundsException(index);
+    }
+
+    private static Object join(Object level, Object extra, BinaryOperator<Object> lub) {
+        if (extra == null) return level;
+        if (level == null) return extra;
+        return lub.apply(level, extra);
+    }
+}
@@ -1,11 +1,14 @@
 package analyzer.level2.storage;
 
 import analyzer.level2.CurrentSecurityDomain;
+import analyzer.level2.metrics.MonitorMetrics;
 import de.unifreiburg.cs.proglang.jgs.constraints.SecDomain;
 import util.exceptions.InternalAnalyzerException;
+import util.logging.L2Trace;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -28,12 +31,18 @@ public class LocalMap<Level> {
 	private static final Logger logger = Logger.getLogger(LocalMap.class.getName());
 
 	/** The internal representation of the Local PC or simply LPC */
-	private LinkedList<LPCDominatorPair<Level>> localPC = new LinkedList<>();
+	private PCStack<Level> localPC = new PCStack<>();
 
 	/** The internal representation of the Local Map.
-	 *  It maps an identifier String of a Local variable to its Security Level
+	 *  It maps an identifier String of a Local variable to the slot of its Security Level
 	 *  */
-	private HashMap<String, Level> localMap = new HashMap<>();
+	private HashMap<String, Slot<Level>> localMap = new HashMap<>();
+
+	/** The generation of the tracked locals. It changes, whenever a local starts or stops being tracked. */
+	private int generation = 0;
+
+	/** The resolved raise sites of {@link LocalMap#raiseLevels(String, String, Object)}, by their indices. */
+	private final IdentityHashMap<String, RaiseSite<Level>> raiseSites = new IdentityHashMap<>();
 
 	/** The {@link SecDomain} instance, that is used for the calculations. */
 	private SecDomain<Level> secDomain = CurrentSecurityDomain.getInstance();
@@ -44,7 +53,19 @@ public class LocalMap<Level> {
 	 * Creates a new LocalMap
 	 */
 	public LocalMap() {
-		localPC.push(new LPCDominatorPair<>(secDomain.bottom() , -1));
+		localPC.push(secDomain.bottom(), -1);
+	}
+
+	/**
+	 * Resets the LocalMap to the state after its creation: no local is tracked
+	 * and the LPC only contains bottom. This is used, when the LocalMap is reused
+	 * for another invocation.
+	 */
+	public void reset() {
+		localMap.clear();
+		generation++;
+		localPC.clear();
+		localPC.push(secDomain.bottom(), -1);
 	}
 
 	// <editor-fold desc="LPC Operations">
@@ -69,7 +90,8 @@ public class LocalMap<Level> {
 	 * @param dominatorIdentity Its identity.
 	 */
 	public void pushLocalPC(Level securityLevel, int dominatorIdentity) {
-		localPC.push(new LPCDominatorPair<>(securityLevel, dominatorIdentity));
+		localPC.push(securityLevel, dominatorIdentity);
+		if (MonitorMetrics.ENABLED) MonitorMetrics.localPCDepth(localPC.size());
 	}
 	// </editor-fold>
 
@@ -81,8 +103,8 @@ public class LocalMap<Level> {
 	 * @throws InternalAnalyzerException If LPC is empty.
 	 */
 	public Level getLocalPC() {
-		if (localPC == null || localPC.size() < 1) throw new InternalAnalyzerException("LocalPCStack is empty");
-		return localPC.getFirst().getSecurityLevel();
+		if (localPC.isEmpty()) throw new InternalAnalyzerException("LocalPCStack is empty");
+		return localPC.peek();
 	}
 
 	// </editor-fold>
@@ -100,7 +122,7 @@ public class LocalMap<Level> {
 		if (!dominatorIdentityEquals(dominatorIdentity))
 			throw new InternalAnalyzerException("Trying to pop LPC with wrong identity");
 		localPC.pop();
-		logger.finer("Reduced stack size from " + n+ " to " + localPC.size() + " elements.");
+		if (L2Trace.ENABLED) logger.finer("Reduced stack size from " + n+ " to " + localPC.size() + " elements.");
 	}
 	// </editor-fold>
 
@@ -115,7 +137,56 @@ public class LocalMap<Level> {
      * @param securityLevel The security level, the Local will have now.
      */
     public void setLevel(String signature, Level securityLevel) {
-        localMap.put(signature, securityLevel);
+        Slot<Level> slot = localMap.get(signature);
+        if (slot == null) {
+            localMap.put(signature, new Slot<>(securityLevel));
+            generation++;
+        } else {
+            slot.level = securityLevel;
+        }
+    }
+
+    /**
+     * Raises the security levels of some locals to at least the given Level,
+     * like the hybrid enforcement raises the write effect of a branch. The
+     * locals are given by their indices in a table of signatures. Locals,
+     * that are not tracked, are skipped, as they are checked statically.
+     * <p>
+     * The indices are a constant of the instrumented site, so they identify
+     * it. The site is resolved to the slots of its tracked locals once, and
+     * again only, if a local started or stopped being tracked since.
+     * @param table The signatures of the locals of a method, separated by ';'.
+     * @param indices The indices of the raised locals in the table, each as one char.
+     * @param securityLevel The level, the locals are raised to.
+     */
+    public void raiseLevels(String table, String indices, Level securityLevel) {
+        if (secDomain.le(securityLevel, secDomain.bottom())) return;
+        RaiseSite<Level> site = raiseSites.get(indices);
+        if (site == null || site.table != table || site.generation != generation) {
+            site = resolve(table, indices);
+            raiseSites.put(indices, site);
+        }
+        for (Slot<Level> slot : site.slots) {
+            slot.level = secDomain.lub(slot.level, securityLevel);
+        }
+    }
+
+    /**
+     * Resolves a site of {@link LocalMap#raiseLevels(String, String, Object)}
+     * to the slots of its tracked locals.
+     */
+    private RaiseSite<Level> resolve(String table, String indices) {
+        String[] signatures = table.split(";");
+        @SuppressWarnings("unchecked")
+        Slot<Level>[] slots = new Slot[indices.length()];
+        int n = 0;
+        for (int i = 0; i < indices.length(); i++) {
+            Slot<Level> slot = localMap.get(signatures[indices.charAt(i)]);
+            if (slot != null) {
+                slots[n++] = slot;
+            }
+        }
+        return new RaiseSite<>(table, generation, n == slots.length ? slots : Arrays.copyOf(slots, n));
     }
 
     /**
@@ -123,7 +194,7 @@ public class LocalMap<Level> {
      * @param signature The signature of the local, which level shall be reset.
      */
     public void setToBottom(String signature) {
-        localMap.put(signature, secDomain.bottom());
+        setLevel(signature, secDomain.bottom());
     }
     // </editor-fold>
 
@@ -145,10 +216,10 @@ public class LocalMap<Level> {
      * @return The security Level of the identification.
      */
     public Level getLevel(String signature) {
-        Level result = (localMap.containsKey(signature)) ? localMap.get(signature) : secDomain.bottom();
+        Slot<Level> slot = localMap.get(signature);
         // Todo: Check, if the Bottom shall be saved... asumed yes - but was not
-        if (!localMap.containsKey(signature)) logger.fine("Local "+signature+" is not tracked!");
-        return result;
+        if (L2Trace.ENABLED && slot == null) logger.fine("Local "+signature+" is not tracked!");
+        return slot == null ? secDomain.bottom() : slot.level;
     }
 
     // </editor-fold>
@@ -161,7 +232,9 @@ public class LocalMap<Level> {
      * @param signature The identification of a Local.
      */
     public void removeLocal(String signature) {
-        localMap.remove(signature);
+        if (localMap.remove(signature) != null) {
+            generation++;
+        }
     }
     // </editor-fold>
 	// </editor-fold>
@@ -170,9 +243,9 @@ public class LocalMap<Level> {
 	 * Print elements of localmap in a readable form.
 	 */
 	public void printElements() {
-		for (Map.Entry<String, Level> entry : localMap.entrySet()) {
+		for (Map.Entry<String, Slot<Level>> entry : localMap.entrySet()) {
 			System.out.println("Key " + entry.getKey() + " , Value: " 
-					+ entry.getValue());
+					+ entry.getValue().level);
 		}
 	}
 	
@@ -182,6 +255,34 @@ public class LocalMap<Level> {
 	 * @return true if the identity equals to the first element on the stack.
 	 */
 	public boolean dominatorIdentityEquals(int dominatorIdentity) {
-		return localPC.getFirst().getPostDominatorIdentity() == dominatorIdentity;	
+		return localPC.peekIdentity() == dominatorIdentity;
+	}
+
+	/**
+	 * The security level of a tracked local. The slot stays the same, while
+	 * the local is tracked, such that a resolved raise site can update it.
+	 */
+	private static final class Slot<Level> {
+		Level level;
+
+		Slot(Level level) {
+			this.level = level;
+		}
+	}
+
+	/**
+	 * A site of {@link LocalMap#raiseLevels(String, String, Object)}, resolved
+	 * to the slots of its tracked locals in the given generation.
+	 */
+	private static final class RaiseSite<Level> {
+		final String table;
+		final int generation;
+		final Slot<Level>[] slots;
+
+		RaiseSite(String table, int generation, Slot<Level>[] slots) {
+			this.table = table;
+			this.generation = generation;
+			this.slots = slots;
+		}
 	}
 }
@@ -0,0 +1,319 @@
+package analyzer.level2.storage;
+
+import analyzer.level2.CurrentSecurityDomain;
+import analyzer.level2.metrics.MonitorMetrics;
+import de.unifreiburg.cs.proglang.jgs.constraints.SecDomain;
+import util.exceptions.InternalAnalyzerException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The MonitorContext holds the state of the run-time monitor, that belongs to
+ * one thread of the analyzed program: the global PC, the level of the
+ * right-hand side of the current assignment and the levels of the arguments
+ * and the return value of the least recently called method. The levels of
+ * the arguments are passed in a register file, that the caller writes slot
+ * by slot and the callee reads, such that calls do not allocate. Furthermore it
+ * keeps the frames of the methods, that are currently running in the thread,
+ * such that they can be reused by later invocations.
+ * Each thread gets its own context from {@link ObjectMap#getContext()}, such
+ * that threads running instrumented code do not corrupt each others PC.
+ * The MonitorContext should never used directly. For each action exists an
+ * appropriate method in {@link analyzer.level2.HandleStmt}.
+ *
+ * @param <Level> The type of the security levels.
+ */
+public class MonitorContext<Level> {
+
+    // <editor-fold desc="Fields">
+
+    /** The Security Domain, that is used for the calculations */
+    private SecDomain<Level> secDomain = CurrentSecurityDomain.getInstance();
+
+    /** The internal representation of the global PC or GPC*/
+    private PCStack<Level> globalPC = new PCStack<>();
+
+    /** Defines the Security Level of the last checked assign statement
+     * of the analyzed code. In specific the right-hand-side security level
+     * */
+    private Level assignStmtLevel = secDomain.bottom();
+
+    /** The argument registers. Slot i holds the Security Level of the i-th argument of the next invoked method. */
+    private Object[] argumentRegisters = new Object[8];
+
+    /** The number of arguments, that are stored in the registers. */
+    private int argumentCount = 0;
+
+    /** Defines the Security Level of the last returned value. */
+    private Level actualReturnLevel = secDomain.bottom();
+
+    /** The frames of the invocations, the ones above frameDepth are free for reuse. */
+    private Object[] frames = new Object[16];
+
+    /** The number of frames, that are in use. */
+    private int frameDepth = 0;
+
+    /** The number of the site of the current check, or -1 if it is unknown. */
+    private int site = -1;
+
+    // </editor-fold>
+
+    /**
+     * Creates a new context, whose GPC only contains bottom.
+     */
+    MonitorContext() {
+        globalPC.push(secDomain.bottom(), -1);
+    }
+
+    // <editor-fold desc="Methods related to last function call">
+
+    /**
+     * Starts the arguments of the next method, which will be invoked. All
+     * argument registers are set to {@link SecDomain#bottom()}, which is the
+     * level of constants and of arguments with a static type.
+     * @param count The number of arguments.
+     * @see MonitorContext#setArgumentRegister(int, Object)
+     */
+    public void beginArguments(int count) {
+        if (count > argumentRegisters.length) {
+            argumentRegisters = new Object[Math.max(count, 2 * argumentRegisters.length)];
+        }
+        Arrays.fill(argumentRegisters, 0, count, secDomain.bottom());
+        argumentCount = count;
+    }
+
+    /**
+     * Stores the security-level of an argument of the next method, which will be invoked.
+     * @param i position of the argument, less than the count of {@link MonitorContext#beginArguments(int)}.
+     * @param securityLevel The security-level of the argument.
+     */
+    public void setArgumentRegister(int i, Level securityLevel) {
+        if (i >= argumentCount)
+            throw new InternalAnalyzerException("Argument " + i + " of " + argumentCount + " stored.");
+        argumentRegisters[i] = securityLevel;
+    }
+
+    /**
+     * Store the arguments security-levels for the next method which will be invoked.
+     * @param args ArrayList containing the security-levels of the arguments
+     * @see MonitorContext#getArgLevelAt(int)
+     */
+    public void setActualArguments(ArrayList<Level> args) {
+        beginArguments(args.size());
+        for (int i = 0; i < args.size(); i++) {
+            argumentRegisters[i] = args.get(i);
+        }
+    }
+
+    /**
+     * Returns ArrayList of the security-levels of the arguments for the least
+     * recently invoked method. The list is a copy of the argument registers.
+     * @return ArrayList of the security-levels
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<Level> getActualArguments() {
+        ArrayList<Level> result = new ArrayList<>(argumentCount);
+        for (int i = 0; i < argumentCount; i++) {
+            result.add((Level) argumentRegisters[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the security-level of the argument on the i-th position.
+     * @param i position of the argument
+     * @return SecurityLevel of i-th argument
+     * @throws InternalAnalyzerException if less arguments were stored.
+     */
+    @SuppressWarnings("unchecked")
+    public Level getArgLevelAt(int i) {
+        if (i >= argumentCount)
+            throw new InternalAnalyzerException("Argument " + i + " requested, but only "
+                                                + argumentCount + " stored.");
+        return (Level) argumentRegisters[i];
+    }
+
+    /**
+     * Sets the security level of the last return operation to the given Security Level.
+     * @param securityLevel The Security Level of last return statement, that occurred in the analyzed code.
+     */
+    public void setActualReturnLevel(Level securityLevel) {
+        actualReturnLevel = securityLevel;
+    }
+
+    /**
+     * Gets the Security Level of the least recently called method.
+     * @return The Security Level of the last return Statement.
+     */
+    public Level getActualReturnLevel() {
+        return actualReturnLevel;
+    }
+
+    /**
+     * Copies the argument registers, such that they can be restored in
+     * another thread by {@link MonitorContext#restoreArguments(Object[])}.
+     * @return the levels of the stored arguments, or null if no arguments are stored.
+     */
+    public Object[] captureArguments() {
+        return argumentCount == 0 ? null : Arrays.copyOf(argumentRegisters, argumentCount);
+    }
+
+    /**
+     * Stores the argument levels, that were captured by
+     * {@link MonitorContext#captureArguments()}, in the registers.
+     * @param levels The captured levels, or null for no arguments.
+     */
+    public void restoreArguments(Object[] levels) {
+        if (levels == null) {
+            argumentCount = 0;
+            return;
+        }
+        beginArguments(levels.length);
+        System.arraycopy(levels, 0, argumentRegisters, 0, levels.length);
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Methods related to assignments.">
+
+    /**
+     * Sets the security level of the RHS of the assign statement.
+     * @param securityLevel the security level of the last
+     */
+    public void setAssignmentLevel(Level securityLevel) {
+        assignStmtLevel = securityLevel;
+    }
+
+    /**
+     * Gets the security level of the RHS of the last assign statement.
+     * @return the security level of the right-hand-side of the last assignment.
+     */
+    public Level getAssignmentLevel() {
+        return assignStmtLevel;
+    }
+
+    /**
+     * Sets the security level of RHS of the last assign statement to default-value, that
+     * is defined by {@link SecDomain#bottom()}.
+     */
+    public void clearAssignmentLevel() {
+        assignStmtLevel = secDomain.bottom();
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Global PC Operations">
+
+    /**
+     * Puts the given Security Level as top Element of the GPC.
+     * This is needed when a method is invoked in the analyzed code.
+     * @param securityLevel the security level for globalPC
+     */
+    public void pushGlobalPC(Level securityLevel) {
+        globalPC.push(securityLevel, -1);
+        if (MonitorMetrics.ENABLED) MonitorMetrics.globalPCDepth(globalPC.size());
+    }
+
+    /** Gets the Security Level of the global PC without removing it.
+     * @return the Security Level, that defines the GPC.
+     */
+    public Level getGlobalPC() {
+        return globalPC.peek();
+    }
+
+    /**
+     * Gets the Security Level from GlobalPC stack and removes it.
+     * This is needed when a method in the analyzed code is closed.
+     * The last element, that is bottom, is never removed.
+     * @return the last globalPC before it was changed.
+     * @throws InternalAnalyzerException if GPC is empty.
+     */
+    public Level popGlobalPC() {
+        if (globalPC.isEmpty())
+            throw new InternalAnalyzerException("GPC is empty.");
+        if (globalPC.size() > 1) return globalPC.pop();
+        return globalPC.peek();
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Frame Operations">
+
+    /**
+     * Reserves the next frame for a method, that is invoked.
+     * @return The index of the frame.
+     * @see MonitorContext#getFrame(int)
+     * @see MonitorContext#exitFrame(int)
+     */
+    public int enterFrame() {
+        if (frameDepth == frames.length) {
+            frames = Arrays.copyOf(frames, 2 * frameDepth);
+        }
+        return frameDepth++;
+    }
+
+    /**
+     * Gets the frame with the given index.
+     * @param index The index of the frame.
+     * @return The frame, or <b>null</b> if no frame is stored yet at this index.
+     */
+    public Object getFrame(int index) {
+        return frames[index];
+    }
+
+    /**
+     * Stores the given frame at the given index, such that it can be reused.
+     * @param index The index of the frame.
+     * @param frame The frame.
+     */
+    public void setFrame(int index, Object frame) {
+        frames[index] = frame;
+    }
+
+    /**
+     * Releases the frame with the given index and all frames above it. The
+     * frames above are only in use, if their methods were left without
+     * releasing them, for instance by an exception.
+     * @param index The index of the frame, that is released.
+     */
+    public void exitFrame(int index) {
+        if (index < 0 || index >= frameDepth)
+            throw new InternalAnalyzerException("Frame " + index + " is not in use.");
+        frameDepth = index;
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Check Site Operations">
+
+    /**
+     * Sets the site of the check, that is executed next.
+     * @param site The number of the site, that the instrumentation gave to the check.
+     */
+    public void setSite(int site) {
+        this.site = site;
+    }
+
+    /**
+     * Gets the site of the current check. It is the site, that was set
+     * last, as a build either numbers the sites of all checks or of none.
+     * @return The number of the site, or -1 if the sites are not numbered.
+     */
+    public int getSite() {
+        return site;
+    }
+
+    // </editor-fold>
+
+    /**
+     * Resets the context. The GPC then contains only bottom and the
+     * assignment level is bottom.
+     */
+    void flush() {
+        globalPC.clear();
+        globalPC.push(secDomain.bottom(), -1);
+        clearAssignmentLevel();
+        site = -1;
+    }
+}
@@ -7,21 +7,35 @@ import util.exceptions.InternalAnalyzerException;
 import org.apache.commons.collections4.map.AbstractReferenceMap;
 import org.apache.commons.collections4.map.ReferenceIdentityMap;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 
 /**
- * The ObjectMap holds all objects which are created in the analyzed code. 
- * To each object belongs a HashMap with the SercurityLevel of the respective 
- * fields.
+ * The ObjectMap holds the objects of the analyzed code, that have a field
+ * with a SecurityLevel above bottom. To each object belongs a HashMap with
+ * the SercurityLevel of the respective fields. An object or field, that is
+ * not contained, has the SecurityLevel bottom. So reading a level never
+ * changes the map, and an object gets its entry, when one of its fields is
+ * raised above bottom for the first time.
  * The ObjectMap should never used directly. For each action exists an 
  * appropriate method in {@link analyzer.level2.HandleStmt}.
- * Additionally the ObjectMap holds the SecurityLevels of the arguments and 
+ * Additionally the ObjectMap gives each thread its {@link MonitorContext},
+ * which holds the global PC and the SecurityLevels of the arguments and
  * return variable of the least recently called method.
  * 
- * If we analyze an assignment, assignmentStmtLevel accumulates the security level 
- * of the right-hand-side of the current assignment.
+ * The objects are shared between the threads of the analyzed program. So the
+ * map is split into stripes, each of them guarded by its own lock, such that
+ * threads accessing different objects rarely wait for each other.
+ * 
+ * Arrays are not stored with a HashMap of their indices, but with their
+ * {@link ArrayLevels}: a summary level for all elements, that is expanded to
+ * a level array parallel to the tracked array, as soon as the elements have
+ * different levels. So ranges of elements are filled and copied in one
+ * operation, see {@link ObjectMap#fillArrayFields(Object, int, int, Object)}
+ * and {@link ObjectMap#copyArrayFields(Object, int, Object, int, int, Object)}.
+ * The methods, that identify a field by its signature, accept the index as
+ * decimal string for arrays.
  * 
  * @author Regina König, Karsten Fix (2017)
  * @version 2.0
@@ -35,32 +49,28 @@ public class ObjectMap<Level> {
 
 	// <editor-fold desc="Data structures">
 
+	/** The number of stripes, a power of two. */
+	private static final int STRIPES = stripeCount();
+
 	/** The internal representation of the Object Map.
 	 * It maps actual Objects to a Map, that maps the field identifications to their
-	 * Security Level.
+	 * Security Level. An object is stored in the stripe, that is selected by
+	 * its identity hash code. Each stripe is also the lock for its content.
 	 * <br><b>Example:</b> Let C be a class with an int field, that is named foo. Now Let c and d be instances of C,
 	 * it could be, that c.foo has a HIGH Security Level, where d.foo is still LOW security Level,
 	 * so it would save: c -> foo -> HIGH and d -> foo -> LOW
 	 * */
-	private ReferenceIdentityMap<Object, HashMap<String, Level>> objectMap;
-
-	/** The internal representation of the global PC or GPC*/
-	private LinkedList<Level> globalPC = new LinkedList<>();
-
-	// </editor-fold>
-
-    /** Defines the Security Level of the last checked assign statement
-     * of the analyzed code. In specific the right-hand-side security level
-     * */
-    private Level assignStmtLevel = secDomain.bottom();
+	private final ReferenceIdentityMap<Object, HashMap<String, Level>>[] objectMap;
 
-	// <editor-fold desc="global levels of last function">
-
-    /** Defines the list of Security Levels of a Methods Arguments, that shall be ordered in the order of appearance */
-	private ArrayList<Level> actualArguments = new ArrayList<>();
+	/** The internal representation of the tracked arrays.
+	 * It maps an array to the {@link ArrayLevels}, that hold the Security Level
+	 * of each element. An element, whose level is <code>null</code>, has the level
+	 * {@link SecDomain#bottom()}. The stripes are selected like the ones of the objectMap.
+	 */
+	private final ReferenceIdentityMap<Object, ArrayLevels>[] arrayMap;
 
-	/** Defines the Security Level of the last returned value. */
-	private Level actualReturnLevel = secDomain.bottom();
+	/** The state of the monitor, that belongs to the current thread. */
+	private final ThreadLocal<MonitorContext<Level>> context = ThreadLocal.withInitial(MonitorContext::new);
 
 	// </editor-fold>
 
@@ -88,12 +98,97 @@ public class ObjectMap<Level> {
 
 	/**
 	 * Creates the only instance of the Object Map.
-	 * Hereby it initialises the GPC, the Object Map itself and the return Levels
+	 * Hereby it initialises the stripes of the Object Map.
 	 */
+	@SuppressWarnings("unchecked")
 	private ObjectMap() {
-		globalPC.push(secDomain.bottom());
-		objectMap = new ReferenceIdentityMap<>(AbstractReferenceMap.ReferenceStrength.WEAK,
-											   AbstractReferenceMap.ReferenceStrength.WEAK);
+		objectMap = new ReferenceIdentityMap[STRIPES];
+		arrayMap = new ReferenceIdentityMap[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			// Only the objects are weak. The field maps are referenced by nothing else,
+			// so weak values would be collected while their object is still alive.
+			objectMap[i] = new ReferenceIdentityMap<>(AbstractReferenceMap.ReferenceStrength.WEAK,
+													  AbstractReferenceMap.ReferenceStrength.HARD);
+			arrayMap[i] = new ReferenceIdentityMap<>(AbstractReferenceMap.ReferenceStrength.WEAK,
+													 AbstractReferenceMap.ReferenceStrength.HARD);
+		}
+	}
+
+	/**
+	 * Calculates the number of stripes: the next power of two, that is at
+	 * least four times the number of available processors.
+	 * @return the number of stripes.
+	 */
+	private static int stripeCount() {
+		int wanted = 4 * Runtime.getRuntime().availableProcessors();
+		int count = 1;
+		while (count < wanted) count <<= 1;
+		return count;
+	}
+
+	/**
+	 * Gets the stripe, that stores the given object.
+	 * @param object The object instance.
+	 * @return The stripe, that is also the lock for the object.
+	 */
+	private ReferenceIdentityMap<Object, HashMap<String, Level>> stripeFor(Object object) {
+		return objectMap[stripeIndex(object)];
+	}
+
+	/**
+	 * Gets the stripe, that stores the levels of the given array.
+	 * @param array The array instance.
+	 * @return The stripe, that is also the lock for the array.
+	 */
+	private ReferenceIdentityMap<Object, ArrayLevels> arrayStripeFor(Object array) {
+		return arrayMap[stripeIndex(array)];
+	}
+
+	/**
+	 * Calculates the index of the stripe for the given instance.
+	 * @param object The object instance.
+	 * @return the index of its stripe.
+	 */
+	private static int stripeIndex(Object object) {
+		int h = System.identityHashCode(object);
+		return (h ^ (h >>> 16)) & (STRIPES - 1);
+	}
+
+	/**
+	 * Tells, if the given Security Level is bottom, such that it need not be stored.
+	 * @param securityLevel The Security Level.
+	 * @return <b>true</b> if the level is {@link SecDomain#bottom()}.
+	 */
+	private boolean isBottom(Level securityLevel) {
+		return secDomain.le(securityLevel, secDomain.bottom());
+	}
+
+	/**
+	 * Parses the signature of an array-field, that is its index.
+	 * @param field The index as decimal string.
+	 * @return the index.
+	 * @throws InternalAnalyzerException if the signature is not an index.
+	 */
+	private static int arrayIndex(String field) {
+		try {
+			return Integer.parseInt(field);
+		} catch (NumberFormatException e) {
+			throw new InternalAnalyzerException("Invalid index of array-field: " + field);
+		}
+	}
+
+	// </editor-fold>
+
+	// <editor-fold desc="Thread Context">
+
+	/**
+	 * Gets the state of the monitor, that belongs to the current thread.
+	 * A HandleStmt looks it up once, when it is created, because the
+	 * HandleStmt is only used by the thread, that runs its method.
+	 * @return The MonitorContext of the current thread.
+	 */
+	public MonitorContext<Level> getContext() {
+		return context.get();
 	}
 
 	// </editor-fold>
@@ -107,7 +202,7 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getArgLevelAt(int)
 	 */
 	public void setActualArguments(ArrayList<Level> args) {
-		actualArguments = new ArrayList<>(args);
+		getContext().setActualArguments(args);
 	}
 
 	/**
@@ -118,7 +213,7 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getArgLevelAt(int)
 	 */
 	public ArrayList<Level> getActualArguments() {
-		return actualArguments;
+		return getContext().getActualArguments();
 	}
 
 	/**
@@ -129,7 +224,7 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getActualArguments()
 	 */
 	public Level getArgLevelAt(int i) {
-		return actualArguments.get(i);	
+		return getContext().getArgLevelAt(i);
 	}
 
     /**
@@ -138,7 +233,7 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getActualReturnLevel()
      */
     public void setActualReturnLevel(Level securityLevel) {
-        actualReturnLevel = securityLevel;
+        getContext().setActualReturnLevel(securityLevel);
     }
 
     /**
@@ -147,7 +242,7 @@ public class ObjectMap<Level> {
      * @see ObjectMap#setActualReturnLevel(Object)
      */
     public Level getActualReturnLevel() {
-        return actualReturnLevel;
+        return getContext().getActualReturnLevel();
     }
 
 	// </editor-fold>
@@ -161,7 +256,7 @@ public class ObjectMap<Level> {
      * @see ObjectMap#clearAssignmentLevel()
      */
     public void setAssignmentLevel(Level securityLevel) {
-        assignStmtLevel = securityLevel;
+        getContext().setAssignmentLevel(securityLevel);
     }
 
     /**
@@ -171,7 +266,7 @@ public class ObjectMap<Level> {
      * @see ObjectMap#clearAssignmentLevel()
      */
     public Level getAssignmentLevel() {
-        return assignStmtLevel;
+        return getContext().getAssignmentLevel();
     }
 
     /**
@@ -181,15 +276,13 @@ public class ObjectMap<Level> {
      * @see ObjectMap#setAssignmentLevel(Object)
      */
     public void clearAssignmentLevel() {
-        assignStmtLevel = secDomain.bottom();
+        getContext().clearAssignmentLevel();
     }
 
     // </editor-fold>
 
     // <editor-fold desc="Global PC Operations">
 
-    // <editor-fold desc="Putting Stuff into GPC">
-
     /**
      * Puts the given Security Level as top Element of the GPC.
      * This is needed when a method is invoked in the analyzed code.
@@ -198,24 +291,17 @@ public class ObjectMap<Level> {
      * @see ObjectMap#popGlobalPC()
      */
     public void pushGlobalPC(Level securityLevel) {
-        globalPC.push(securityLevel);
+        getContext().pushGlobalPC(securityLevel);
     }
 
-    // </editor-fold>
-
-    // <editor-fold desc="Getting Stuff from GPC">
-
     /** Gets the Security Level of the global PC without removing it.
      * @return the Security Level, that defines the GPC.
      * @see ObjectMap#pushGlobalPC(Object)
      * @see ObjectMap#popGlobalPC()
      */
     public Level getGlobalPC() {
-        return globalPC.getFirst();
+        return getContext().getGlobalPC();
     }
-    // </editor-fold>
-
-    // <editor-fold desc="Removing Stuff from GPC">
 
     /**
      * Gets the Security Level from GlobalPC stack and removes it.
@@ -226,16 +312,11 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getGlobalPC()
      */
     public Level popGlobalPC() {
-        if (globalPC == null || globalPC.size() < 1 )
-            throw new InternalAnalyzerException("GPC is empty.");
-        if (globalPC.size() > 1) return globalPC.pop();
-        return globalPC.getFirst();
+        return getContext().popGlobalPC();
     }
 
     // </editor-fold>
 
-    // </editor-fold>
-
     // <editor-fold desc="Object Map Operations">
 
     // <editor-fold desc="Putting Stuff into Map">
@@ -247,12 +328,18 @@ public class ObjectMap<Level> {
      * @see ObjectMap#setField(Object, String, Object)
      */
     public void insertNewObject(Object o) {
-        if (!objectMap.containsKey(o)) objectMap.put(o, new HashMap<>());
+        if (o.getClass().isArray()) { insertNewArray(o); return; }
+        ReferenceIdentityMap<Object, HashMap<String, Level>> stripe = stripeFor(o);
+        synchronized (stripe) {
+            if (!stripe.containsKey(o)) stripe.put(o, new HashMap<>());
+        }
     }
 
     /**
      * Sets the security level of the given Object instances field to the given Security Level.
-     * In Case the instance or the identification is not known it creates a new entry for it.
+     * In Case the instance or the identification is not known it creates a new entry for it,
+     * unless the Security Level is {@link SecDomain#bottom()}, which is the level of a field,
+     * that is not contained.
      * @param object The instance of an Object, that may be or is then tracked in the Object Map.
      * @param field The signature of the field, which security Level is set.
      * @param securityLevel the security level of the Field for the given instance of an Object
@@ -260,23 +347,154 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getFieldLevel(Object, String)
      */
     public void setField(Object object, String field, Level securityLevel) {
-        HashMap<String, Level> objMap = (!objectMap.containsKey(object)) ? new HashMap<>() : objectMap.get(object);
-        objMap.put(field, securityLevel); objectMap.put(object, objMap);
+        if (object.getClass().isArray()) { setArrayField(object, arrayIndex(field), securityLevel); return; }
+        boolean bottom = isBottom(securityLevel);
+        ReferenceIdentityMap<Object, HashMap<String, Level>> stripe = stripeFor(object);
+        synchronized (stripe) {
+            HashMap<String, Level> objMap = stripe.get(object);
+            if (objMap == null) {
+                if (bottom) return;
+                objMap = new HashMap<>();
+                stripe.put(object, objMap);
+            }
+            if (!bottom || objMap.containsKey(field)) objMap.put(field, securityLevel);
+        }
     }
 
     /**
-     * Sets the security level of the given Object instances field to the default Security Level, that is defined by
+     * Adds the given Object instances field with the default Security Level, that is defined by
      * {@link SecDomain#bottom()}.
      * In Case the instance or the identification is not known it creates a new entry for it.
+     * In contrast to {@link ObjectMap#setField(Object, String, Object)} the entry is created, even
+     * though the level is bottom.
      * @param object The instance of an Object, that may be or is then tracked in the Object Map.
      * @param field The signature of the field, which security Level is set.
      * @see ObjectMap#insertNewObject(Object)
      * @see ObjectMap#getFieldLevel(Object, String)
      * @see ObjectMap#setField(Object, String, Object)
      */
-    void addField(Object object, String field) {
-        HashMap<String, Level> objMap = (!objectMap.containsKey(object)) ? new HashMap<>() : objectMap.get(object);
-        objMap.put(field, secDomain.bottom()); objectMap.put(object, objMap);
+    public void addField(Object object, String field) {
+        if (object.getClass().isArray()) { insertNewArray(object); return; }
+        ReferenceIdentityMap<Object, HashMap<String, Level>> stripe = stripeFor(object);
+        synchronized (stripe) {
+            HashMap<String, Level> objMap = stripe.get(object);
+            if (objMap == null) {
+                objMap = new HashMap<>();
+                stripe.put(object, objMap);
+            }
+            objMap.put(field, secDomain.bottom());
+        }
+    }
+
+    /**
+     * Inserts the given array to the Object Map in case it does not already exist.
+     * All its elements have the Security Level {@link SecDomain#bottom()}.
+     * In Case it exists it will not be overwritten.
+     * @param array The array, that might have been just created. Can also be an array of primitives.
+     * @see ObjectMap#setArrayField(Object, int, Object)
+     */
+    public void insertNewArray(Object array) {
+        ReferenceIdentityMap<Object, ArrayLevels> stripe = arrayStripeFor(array);
+        synchronized (stripe) {
+            if (!stripe.containsKey(array)) stripe.put(array, new ArrayLevels(Array.getLength(array), null));
+        }
+    }
+
+    /**
+     * Sets the security level of the element of the given array to the given Security Level.
+     * In Case the array is not known it creates a new entry for it, unless the Security Level
+     * is {@link SecDomain#bottom()}.
+     * @param array The array, that may be or is then tracked in the Object Map.
+     * @param index The index of the element, which security Level is set.
+     * @param securityLevel the security level of the element.
+     * @see ObjectMap#insertNewArray(Object)
+     * @see ObjectMap#getArrayFieldLevel(Object, int)
+     */
+    public void setArrayField(Object array, int index, Level securityLevel) {
+        ReferenceIdentityMap<Object, ArrayLevels> stripe = arrayStripeFor(array);
+        synchronized (stripe) {
+            ArrayLevels levels = stripe.get(array);
+            if (levels == null) {
+                if (isBottom(securityLevel)) return;
+                levels = new ArrayLevels(Array.getLength(array), null);
+                stripe.put(array, levels);
+            }
+            levels.set(index, securityLevel);
+        }
+    }
+
+    /**
+     * Sets the security level of the elements from <code>from</code>, inclusive,
+     * to <code>to</code>, exclusive, like {@link java.util.Arrays#fill} sets the
+     * elements. It takes constant time, if the whole array is filled.
+     * In Case the array is not known it creates a new entry for it, unless the Security Level
+     * is {@link SecDomain#bottom()}. An invalid range is ignored, such that the
+     * instrumented operation throws its exception.
+     * @param array The array, that may be or is then tracked in the Object Map.
+     * @param from The index of the first element, which security Level is set.
+     * @param to The index after the last element, which security Level is set.
+     * @param securityLevel the security level of the elements.
+     * @return <b>true</b> if the range was valid.
+     */
+    public boolean fillArrayFields(Object array, int from, int to, Level securityLevel) {
+        int length = Array.getLength(array);
+        if (from < 0 || from > to || to > length) return false;
+        ReferenceIdentityMap<Object, ArrayLevels> stripe = arrayStripeFor(array);
+        synchronized (stripe) {
+            ArrayLevels levels = stripe.get(array);
+            if (levels == null) {
+                if (isBottom(securityLevel)) return true;
+                levels = new ArrayLevels(length, null);
+                stripe.put(array, levels);
+            }
+            levels.fill(from, to, securityLevel);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the security levels of <code>length</code> elements of
+     * <code>src</code>, starting at <code>srcPos</code>, to the elements of
+     * <code>dest</code>, starting at <code>destPos</code>, like
+     * {@link System#arraycopy} copies the elements. Each copied level is joined
+     * with the given level. It takes constant time, if all elements of
+     * <code>src</code> have the same level. The destination array is tracked
+     * afterwards. An invalid range is ignored, such that the instrumented
+     * operation throws its exception.
+     * @param src The source array, that may be tracked in the Object Map.
+     * @param srcPos The index of the first copied element of src.
+     * @param dest The destination array, which may be src.
+     * @param destPos The index of the first element of dest, that is written.
+     * @param length The number of copied elements.
+     * @param securityLevel The level, that is joined to the copied levels.
+     * @return <b>true</b> if the ranges were valid.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean copyArrayFields(Object src, int srcPos, Object dest, int destPos, int length,
+                                   Level securityLevel) {
+        int srcLength = Array.getLength(src);
+        int destLength = Array.getLength(dest);
+        if (length < 0 || srcPos < 0 || destPos < 0
+            || srcPos > srcLength - length || destPos > destLength - length) return false;
+        Object extra = isBottom(securityLevel) ? null : securityLevel;
+        ReferenceIdentityMap<Object, ArrayLevels> srcStripe = arrayStripeFor(src);
+        ReferenceIdentityMap<Object, ArrayLevels> destStripe = arrayStripeFor(dest);
+        // Both stripes are locked in the order of their index, to avoid a deadlock.
+        boolean srcFirst = stripeIndex(src) <= stripeIndex(dest);
+        synchronized (srcFirst ? srcStripe : destStripe) {
+            synchronized (srcFirst ? destStripe : srcStripe) {
+                ArrayLevels from = srcStripe.get(src);
+                if (from == null) from = new ArrayLevels(srcLength, null);
+                ArrayLevels to = destStripe.get(dest);
+                if (to == null) {
+                    to = new ArrayLevels(destLength, null);
+                    destStripe.put(dest, to);
+                }
+                to.copy(from, srcPos, destPos, length, extra,
+                        (l1, l2) -> secDomain.lub((Level) l1, (Level) l2));
+            }
+        }
+        return true;
     }
 
     // </editor-fold>
@@ -285,17 +503,65 @@ public class ObjectMap<Level> {
 
     /**
      * Gets the security level of the given instances field, which is specified by a identification string.
-     * In Case the instance or the identification is not known it creates an entry with the default security level,
-     * that is defined by {@link SecDomain#bottom()}
-     * @param object The instance of an Object, that may be or is then tracked in the Object Map.
+     * In Case the instance or the identification is not known, the field has the default security level,
+     * that is defined by {@link SecDomain#bottom()}. The Object Map is not changed by this method.
+     * @param object The instance of an Object, that may be tracked in the Object Map.
      * @param field The signature of the field, which security Level is asked.
      * @return the security level of the Field for the given instance of an Object
      */
     public Level getFieldLevel(Object object, String field) {
-        HashMap<String, Level> objMap = !objectMap.containsKey(object) ? new HashMap<>() : objectMap.get(object);
-        if (!objMap.containsKey(field)) objMap.put(field, secDomain.bottom());
-        objectMap.put(object, objMap);
-        return objectMap.get(object).get(field);
+        if (object.getClass().isArray()) return getArrayFieldLevel(object, arrayIndex(field));
+        Level level;
+        ReferenceIdentityMap<Object, HashMap<String, Level>> stripe = stripeFor(object);
+        synchronized (stripe) {
+            HashMap<String, Level> objMap = stripe.get(object);
+            level = objMap == null ? null : objMap.get(field);
+        }
+        return level == null ? secDomain.bottom() : level;
+    }
+
+    /**
+     * Gets the security level of the element of the given array. An array or an element,
+     * that is not known, has the default security level, that is defined by
+     * {@link SecDomain#bottom()}. The Object Map is not changed by this method.
+     * @param array The array, that may be tracked in the Object Map.
+     * @param index The index of the element, which security Level is asked.
+     * @return the security level of the element.
+     */
+    @SuppressWarnings("unchecked")
+    public Level getArrayFieldLevel(Object array, int index) {
+        ReferenceIdentityMap<Object, ArrayLevels> stripe = arrayStripeFor(array);
+        Object level;
+        synchronized (stripe) {
+            ArrayLevels levels = stripe.get(array);
+            level = levels == null ? null : levels.get(index);
+        }
+        return level == null ? secDomain.bottom() : (Level) level;
+    }
+
+    /**
+     * Gets the greatest security level, that is less or equal than the level of
+     * each element from <code>from</code>, inclusive, to <code>to</code>, exclusive.
+     * So a value of a level <code>l</code> may be written to all these elements without
+     * a sensitive upgrade, if <code>l</code> is less or equal than the result.
+     * It takes constant time, if all elements of the array have the same level.
+     * The Object Map is not changed by this method.
+     * @param array The array, that may be tracked in the Object Map.
+     * @param from The index of the first element.
+     * @param to The index after the last element.
+     * @return the meet of the levels, or {@link SecDomain#top()} for an empty or invalid range.
+     */
+    @SuppressWarnings("unchecked")
+    public Level getArrayRangeLevel(Object array, int from, int to) {
+        if (from < 0 || from >= to || to > Array.getLength(array)) return secDomain.top();
+        ReferenceIdentityMap<Object, ArrayLevels> stripe = arrayStripeFor(array);
+        synchronized (stripe) {
+            ArrayLevels levels = stripe.get(array);
+            if (levels == null) return secDomain.bottom();
+            return (Level) levels.meet(from, to, secDomain.top(),
+                                       (l1, l2) -> secDomain.glb((Level) l1, (Level) l2),
+                                       secDomain.bottom());
+        }
     }
 
     // </editor-fold>
@@ -308,7 +574,37 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getNumberOfFields(Object)
      */
     public int getNumberOfElements() {
-        return objectMap.size();
+        return getNumberOfObjects() + getNumberOfArrays();
+    }
+
+    /**
+     * Tells how many object instances, that are not arrays, are currently tracked.
+     * @return The number of objects contained in the map.
+     * @see ObjectMap#getNumberOfElements()
+     */
+    public int getNumberOfObjects() {
+        int size = 0;
+        for (ReferenceIdentityMap<Object, HashMap<String, Level>> stripe : objectMap) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Tells how many arrays are currently tracked.
+     * @return The number of arrays contained in the map.
+     * @see ObjectMap#getNumberOfElements()
+     */
+    public int getNumberOfArrays() {
+        int size = 0;
+        for (ReferenceIdentityMap<Object, ArrayLevels> stripe : arrayMap) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
     }
 
     /**
@@ -318,7 +614,16 @@ public class ObjectMap<Level> {
      * @see ObjectMap#getNumberOfElements()
      */
     public int getNumberOfFields(Object object) {
-        return objectMap.get(object).size();
+        if (object.getClass().isArray()) {
+            ReferenceIdentityMap<Object, ArrayLevels> stripe = arrayStripeFor(object);
+            synchronized (stripe) {
+                return stripe.get(object).length;
+            }
+        }
+        ReferenceIdentityMap<Object, HashMap<String, Level>> stripe = stripeFor(object);
+        synchronized (stripe) {
+            return stripe.get(object).size();
+        }
     }
 
     // </editor-fold>
@@ -332,7 +637,16 @@ public class ObjectMap<Level> {
      * @see ObjectMap#containsField(Object, String)
      */
     public boolean containsObject(Object object) {
-        return objectMap.containsKey(object);
+        if (object.getClass().isArray()) {
+            ReferenceIdentityMap<Object, ArrayLevels> stripe = arrayStripeFor(object);
+            synchronized (stripe) {
+                return stripe.containsKey(object);
+            }
+        }
+        ReferenceIdentityMap<Object, HashMap<String, Level>> stripe = stripeFor(object);
+        synchronized (stripe) {
+            return stripe.containsKey(object);
+        }
     }
 
     /**
@@ -343,7 +657,14 @@ public class ObjectMap<Level> {
      * @see ObjectMap#containsObject(Object)
      */
     public boolean containsField(Object object, String fieldSignature) {
-        return objectMap.containsKey(object) && objectMap.get(object).containsKey(fieldSignature);
+        if (object.getClass().isArray()) {
+            int index = arrayIndex(fieldSignature);
+            return containsObject(object) && index >= 0 && index < Array.getLength(object);
+        }
+        ReferenceIdentityMap<Object, HashMap<String, Level>> stripe = stripeFor(object);
+        synchronized (stripe) {
+            return stripe.containsKey(object) && stripe.get(object).containsKey(fieldSignature);
+        }
     }
 
     // </editor-fold>
@@ -352,12 +673,20 @@ public class ObjectMap<Level> {
 
 	/**
 	 * Clear the Object map. This operation removes all elements from objectMap
-	 * and globalPC stack. The stack then contains only one element 
-	 * {@link CurrentSecurityDomain}.bottom().
+	 * and resets the {@link MonitorContext} of the current thread, so its globalPC
+	 * stack then contains only one element {@link CurrentSecurityDomain}.bottom().
 	 */
 	public void flush() {
-		objectMap.clear();
-		globalPC.clear();
-		globalPC.push(secDomain.bottom());
+		for (ReferenceIdentityMap<Object, HashMap<String, Level>> stripe : objectMap) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+		for (ReferenceIdentityMap<Object, ArrayLevels> stripe : arrayMap) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+		getContext().flush();
 	}
-}
\ No newline at end of file
+}
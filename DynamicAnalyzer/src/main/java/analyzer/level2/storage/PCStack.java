@@ -0,0 +1,152 @@
+package analyzer.level2.storage;
+
+import analyzer.level2.CurrentSecurityDomain;
+import util.exceptions.InternalAnalyzerException;
+
+import java.util.Arrays;
+
+/**
+ * A stack of Security Levels, that is used for the global and the local PC.
+ * Each entry has an identity, which is the identity of the dominator for the
+ * local PC. The levels and the identities are stored in parallel arrays,
+ * that grow when needed, such that pushing and popping does not allocate.
+ *
+ * As long as the stack only contains bottom, pushing another bottom does not
+ * store an entry: the bottom prefix of the stack is kept as runs of entries
+ * with the same identity, and a push with the identity of the top run only
+ * increases its count. Only a bottom with another identity starts a new run,
+ * as {@link LocalMap#dominatorIdentityEquals(int)} needs the identity of every
+ * entry. The pushes of the global PC, whose identities are all -1, are
+ * counts. Only the levels above this bottom prefix are stored in the arrays.
+ *
+ * @param <Level> The type of the security levels.
+ */
+class PCStack<Level> {
+
+    // <editor-fold desc="Fields">
+
+    /** The initial capacity of the arrays. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The bottom Level of the current Security Domain. */
+    private final Level bottom = CurrentSecurityDomain.<Level>getInstance().bottom();
+
+    /** The levels of the entries above the bottom prefix. Entry i is stored at i - bottomDepth. */
+    private Object[] levels = new Object[INITIAL_CAPACITY];
+
+    /** The identities of the entries above the bottom prefix, stored like the levels. */
+    private int[] identities = new int[INITIAL_CAPACITY];
+
+    /** The identities of the runs of the bottom prefix. */
+    private int[] runIdentities = new int[INITIAL_CAPACITY];
+
+    /** The number of entries of each run of the bottom prefix. */
+    private int[] runCounts = new int[INITIAL_CAPACITY];
+
+    /** The number of runs of the bottom prefix. */
+    private int runs = 0;
+
+    /** The number of entries. */
+    private int size = 0;
+
+    /** The number of entries at the bottom of the stack, that are all bottom. */
+    private int bottomDepth = 0;
+
+    // </editor-fold>
+
+    /**
+     * Puts the given Level with the given identity on top of the stack.
+     * @param securityLevel The Level.
+     * @param identity The identity of the entry.
+     */
+    void push(Level securityLevel, int identity) {
+        if (size == bottomDepth && bottom.equals(securityLevel)) {
+            if (runs > 0 && runIdentities[runs - 1] == identity) {
+                runCounts[runs - 1]++;
+            } else {
+                if (runs == runIdentities.length) {
+                    runIdentities = Arrays.copyOf(runIdentities, 2 * runs);
+                    runCounts = Arrays.copyOf(runCounts, 2 * runs);
+                }
+                runIdentities[runs] = identity;
+                runCounts[runs++] = 1;
+            }
+            bottomDepth++;
+        } else {
+            int i = size - bottomDepth;
+            if (i == levels.length) {
+                levels = Arrays.copyOf(levels, 2 * i);
+                identities = Arrays.copyOf(identities, 2 * i);
+            }
+            levels[i] = securityLevel;
+            identities[i] = identity;
+        }
+        size++;
+    }
+
+    /**
+     * Gets the Level on top of the stack without removing it.
+     * @return The Level on top of the stack.
+     * @throws InternalAnalyzerException if the stack is empty.
+     */
+    @SuppressWarnings("unchecked")
+    Level peek() {
+        if (size < 1) throw new InternalAnalyzerException("PC stack is empty");
+        return size <= bottomDepth ? bottom : (Level) levels[size - 1 - bottomDepth];
+    }
+
+    /**
+     * Gets the identity of the entry on top of the stack.
+     * @return The identity of the top entry.
+     * @throws InternalAnalyzerException if the stack is empty.
+     */
+    int peekIdentity() {
+        if (size < 1) throw new InternalAnalyzerException("PC stack is empty");
+        return size <= bottomDepth ? runIdentities[runs - 1] : identities[size - 1 - bottomDepth];
+    }
+
+    /**
+     * Removes the entry on top of the stack.
+     * @return The Level of the removed entry.
+     * @throws InternalAnalyzerException if the stack is empty.
+     */
+    Level pop() {
+        Level top = peek();
+        size--;
+        if (size < bottomDepth) {
+            bottomDepth = size;
+            if (--runCounts[runs - 1] == 0) {
+                runs--;
+            }
+        } else {
+            levels[size - bottomDepth] = null;
+        }
+        return top;
+    }
+
+    /**
+     * Gets the number of entries.
+     * @return The number of entries on the stack.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Tells, if the stack is empty.
+     * @return <b>true</b> if there is no entry on the stack.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries from the stack.
+     */
+    void clear() {
+        Arrays.fill(levels, 0, Math.max(0, size - bottomDepth), null);
+        size = 0;
+        bottomDepth = 0;
+        runs = 0;
+    }
+}
@@ -1,6 +1,11 @@
 package main;
 
 import analyzer.level1.BodyAnalyzer;
+import analyzer.level1.CheckSites;
+import analyzer.level1.DynamicPolicy;
+import analyzer.level1.InstrumentationMode;
+import analyzer.level1.JimpleInjector;
+import analyzer.level1.LabelPassing;
 import de.unifreiburg.cs.proglang.jgs.instrumentation.*;
 import soot.*;
 import util.logging.DebugCSVHandler;
@@ -187,6 +192,25 @@ public class Main {
 		Casts<L> casts = c;
 
 
+        InstrumentationMode.labelLocals = sootOptionsContainer.useLabelLocals();
+        InstrumentationMode.labelParameters = sootOptionsContainer.useLabelParameters();
+        DynamicPolicy.audit = sootOptionsContainer.useAudit();
+        if (sootOptionsContainer.getProfile() != null) {
+            CheckSites.startProfiling(new File(sootOptionsContainer.getProfile()));
+        }
+        if (sootOptionsContainer.getUsedProfile() != null) {
+            CheckSites.useProfile(new File(sootOptionsContainer.getUsedProfile()));
+        }
+
+        // The clones must exist before the body packs run. They are created
+        // for the classes, that the type checker has loaded already.
+        if (InstrumentationMode.labelParameters) {
+            LabelPassing.createClones(Scene.v().getApplicationClasses());
+        }
+        // Likewise the shadow label fields, and the level holders with the level constants.
+        JimpleInjector.createLabelFields(Scene.v().getApplicationClasses());
+        JimpleInjector.createLevelHolders(Scene.v().getApplicationClasses(), casts);
+
         BodyAnalyzer<L> bodyAnalyzer = new BodyAnalyzer<>(methodTypings, casts);
 
 		PackManager.v()
@@ -196,8 +220,13 @@ public class Main {
 		soot.Main.main(sootOptions.toArray(new String[sootOptions.size()]));
 
 
+		// the profiling build numbered its check sites while instrumenting
+		CheckSites.writeSites();
+
 		// for multiple runs, soot needs to be reset, which is done in the following line
 		G.reset();
+		LabelPassing.reset();
+		CheckSites.reset();
 
 		// open question:
 		// was ist der empfohlene weg, exceptions zu werfen aus einer analyse heraus.
@@ -0,0 +1,39 @@
+package testclasses;
+
+/**
+ * A virtual call of a method, that has a label-passing clone, must dispatch
+ * to the override of the class of the receiver. Calls of final methods may
+ * call the clone directly.
+ */
+public class LabelPassingOverrideSuccess {
+
+	public static void main(String[] args) {
+		LabelPassingBase base = new LabelPassingDoubling();
+		int result = base.scale(21);
+		if (result != 42) {
+			throw new IllegalStateException("Called LabelPassingBase.scale instead of its override");
+		}
+		if (base.offset(result) != 43) {
+			throw new IllegalStateException("Final method returned a wrong result");
+		}
+	}
+}
+
+class LabelPassingBase {
+
+	int scale(int x) {
+		return x;
+	}
+
+	final int offset(int x) {
+		return x + 1;
+	}
+}
+
+class LabelPassingDoubling extends LabelPassingBase {
+
+	@Override
+	int scale(int x) {
+		return 2 * x;
+	}
+}
@@ -103,6 +103,25 @@ public class DominatorFinder {
 		return domList.get(dom);
 	}
 	
+	/**
+	 * Same as {@link #getImmediateDominatorIdentity(Unit)}, but as int, such
+	 * that the identity can be passed to the run-time as an IntConstant.
+	 * @param node IfStmt.
+	 * @return Identity of the immediate dominator.
+	 */
+	public static int getImmediateDominatorId(Unit node) {
+		return Integer.parseInt(getImmediateDominatorIdentity(node));
+	}
+
+	/**
+	 * Same as {@link #getIdentityForUnit(Unit)}, but as int.
+	 * @param dom The Object.
+	 * @return Identity of the given unit.
+	 */
+	public static int getIdForUnit(Unit dom) {
+		return Integer.parseInt(getIdentityForUnit(dom));
+	}
+
 	public static void printDomList() {
 		System.out.println(domList.toString());
 	}
@@ -163,6 +163,23 @@ public class WriteEffectCollector {
         return t;
     }
 
+    /**
+     * Gets the Write Effect of a branching Unit, like an if or a switch. It is the
+     * Write Effect, that is cached for its immediate post dominator.
+     * @param typeClass The Class of the Value (or Subclass of Value) which is interesting
+     *                  to be considered.
+     * @param branch The branching Unit.
+     * @param <Type> The Parameter Type of the subclass of Value, that is given as
+     *              a class.
+     * @return A Set of those Values (or Subtypes), that may be written under the branch
+     * <b>or an EmptySet</b>, if there is no Write Effect or no post dominator.
+     * @see WriteEffectCollector#get(Class, Unit)
+     */
+    public <Type extends Value> Set<Type> getOfBranch(Class<Type> typeClass, Unit branch) {
+        Unit endIf = postDom.getImmediateDominator(branch);
+        return endIf == null ? Collections.emptySet() : get(typeClass, endIf);
+    }
+
     /**
      * Gets a set of all Write Effects appearing in the analyzed body.
      * This is the Union of all Sets, that could be gained from {@link WriteEffectCollector#get(Class, Unit)}.
@@ -302,18 +302,29 @@ public class JimpleFactory {
      * @return A Stmt, that the JimpleInjector could inject.
      */
     public InvokeStmt createStmt(String name, Value... args) {
-        Value op;
+        return Jimple.v().newInvokeStmt(createExpr(name, args));
+    }
+
+    /**
+     * Creates an InvokeExpr using the Parameters. In contrast to
+     * {@link JimpleFactory#createStmt(String, Value...)} the result can be
+     * used as the right-hand side of an assign statement, such that the
+     * JimpleInjector could store the returned value in a Local or a Field.
+     * @param name The Method, that shall be executed by the created Expr
+     * @param args The Arguments, that shall be passed to the called Method.
+     * @return An InvokeExpr, that fits the given name and arguments
+     */
+    public InvokeExpr createExpr(String name, Value... args) {
         SootMethodRef s = getMethodRefFor(name, args);
         // Assuming being a constructor is defined over name of constructor
         // if this assumption is incorrect, then both caches has the same name
         // and getMethodRefFor will throw an Exception, not nice, but okay
         // at least for the moment
         if (constructorCache.containsKey(name))
-            op = createConstructorExpression(name, args);
+            return createConstructorExpression(name, args);
         else if (s.isStatic())
-            op = createStaticExpr(name, args);
-        else op = createVirtualExpr(name,args);
-        return Jimple.v().newInvokeStmt(op);
+            return createStaticExpr(name, args);
+        else return createVirtualExpr(name,args);
     }
     // </editor-fold>
 
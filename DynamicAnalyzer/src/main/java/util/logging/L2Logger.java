@@ -16,12 +16,7 @@ public class L2Logger {
       private static final Level logLevel;
 	static {
 		logger = Logger.getLogger(LOGGER_NAME);
-		String wantVerbose = System.getenv("JGS_VERBOSE_LOGGING");
-        logLevel = (wantVerbose == null
-					|| wantVerbose.isEmpty()
-					|| wantVerbose.equals("0")) ?
-				   Level.WARNING :
-				   Level.ALL;
+        logLevel = L2Trace.ENABLED ? Level.ALL : Level.WARNING;
 		logger.setLevel(logLevel);
 	}
 
@@ -0,0 +1,30 @@
+package util.logging;
+
+/**
+ * The switch for the verbose tracing of the run-time monitor. Every trace
+ * message of {@link analyzer.level2.HandleStmt} and its helpers is guarded
+ * by {@link L2Trace#ENABLED}. As the flag is static final, the JIT removes
+ * the guarded code, if tracing is off: no message is built, no argument is
+ * evaluated and no handler is called.
+ * <p>
+ * Tracing is switched on by the system property <code>jgs.trace=true</code>
+ * or by the environment variable <code>JGS_VERBOSE_LOGGING</code> (any
+ * value but empty or "0"). The flag is read once, when this class is
+ * initialised, so it has to be set before the analyzed program starts.
+ */
+public final class L2Trace {
+
+	/** Specifies, if the run-time monitor traces its actions. */
+	public static final boolean ENABLED = isRequested();
+
+	private L2Trace() {
+	}
+
+	private static boolean isRequested() {
+		if (Boolean.getBoolean("jgs.trace")) {
+			return true;
+		}
+		String wantVerbose = System.getenv("JGS_VERBOSE_LOGGING");
+		return wantVerbose != null && !wantVerbose.isEmpty() && !wantVerbose.equals("0");
+	}
+}
@@ -18,6 +18,11 @@ public class ArgParser {
     final static String MAINCLASS_FLAG = "m";
     final static String ONLY_DYNAMIC_FLAG = "onlydynamic";
     final static String FORCE_MONOMORPHIC_METHODS = "forcemonomorphic";
+    final static String LABEL_LOCALS = "labellocals";
+    final static String LABEL_PARAMETERS = "labelparameters";
+    final static String AUDIT = "audit";
+    final static String PROFILE = "profile";
+    final static String USE_PROFILE = "useprofile";
     final static String CLASSPATH = "cp";
     final static String SECDOMAIN_CLASSPATH = "scp";
     final static String OTHER_CLASSES_FOR_STATIC_ANALYZER = "s";
@@ -113,6 +118,26 @@ public class ArgParser {
         forceMonomorphic.setRequired(false);
         options.addOption(forceMonomorphic);
 
+        Option labelLocals = new Option(LABEL_LOCALS, "keep the levels of locals in companion locals of the instrumented methods instead of the LocalMap");
+        labelLocals.setRequired(false);
+        options.addOption(labelLocals);
+
+        Option labelParameters = new Option(LABEL_PARAMETERS, "pass the labels of arguments as extra parameters of label-passing clones of the instrumented methods; implies -" + LABEL_LOCALS);
+        labelParameters.setRequired(false);
+        options.addOption(labelParameters);
+
+        Option audit = new Option(AUDIT, "record violations and keep running instead of aborting (audit mode)");
+        audit.setRequired(false);
+        options.addOption(audit);
+
+        Option profile = new Option(PROFILE, PROFILE, true, "count the executions of every check site and write the profile to the given file (profiling build)");
+        profile.setRequired(false);
+        options.addOption(profile);
+
+        Option useProfile = new Option(USE_PROFILE, USE_PROFILE, true, "specialize the hot check sites of the given profile, that was written by a profiling build; requires -" + LABEL_LOCALS + " or -" + LABEL_PARAMETERS);
+        useProfile.setRequired(false);
+        options.addOption(useProfile);
+
 
 		Option help = new Option(HELP, "help", false, "Print Help");
 		help.setRequired(false);
@@ -179,6 +204,14 @@ public class ArgParser {
 
             boolean forceMonomorphicMethods = cmd.hasOption(FORCE_MONOMORPHIC_METHODS);
 
+            if (cmd.hasOption(USE_PROFILE) && !new File(cmd.getOptionValue(USE_PROFILE)).isFile()) {
+                throw new ParseException("Profile not found: " + cmd.getOptionValue(USE_PROFILE));
+            }
+            // only the label-local checks have a specialized form, so the profile would change nothing
+            if (cmd.hasOption(USE_PROFILE) && !(cmd.hasOption(LABEL_LOCALS) || cmd.hasOption(LABEL_PARAMETERS))) {
+                throw new ParseException("-" + USE_PROFILE + " requires -" + LABEL_LOCALS + " or -" + LABEL_PARAMETERS);
+            }
+
             //
 
             return new ArgumentContainer(mainclass,
@@ -190,7 +223,12 @@ public class ArgParser {
                                          additionalFiles,
                                          usePublicTyping,
                                          cmd.hasOption(VERBOSE),
-                                         cmd.hasOption(ONLY_DYNAMIC_FLAG), forceMonomorphicMethods);
+                                         cmd.hasOption(ONLY_DYNAMIC_FLAG), forceMonomorphicMethods,
+                                         cmd.hasOption(LABEL_LOCALS) || cmd.hasOption(LABEL_PARAMETERS),
+                                         cmd.hasOption(LABEL_PARAMETERS),
+                                         cmd.hasOption(AUDIT),
+                                         cmd.getOptionValue(PROFILE),
+                                         cmd.getOptionValue(USE_PROFILE));
 
 			// if illegal input
             // TODO: handle bad options (exit) in main
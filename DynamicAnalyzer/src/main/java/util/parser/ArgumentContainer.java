@@ -25,9 +25,16 @@ public class ArgumentContainer {
     private boolean usePublicTyping;
     private final boolean verbose;
     private final boolean forceMonomorphicMethods;
+    private final boolean labelLocals;
+    private final boolean labelParameters;
+    private final boolean audit;
+    private final String profile;
+    private final String usedProfile;
 
     ArgumentContainer(String mainclass, Deque<String> addDirsToClasspath, List<URL> secDomainClasspath, List<String> addClasses,
-                      boolean toJimple, String outputFolder, List<String> additionalFiles, boolean usePublicTyping, boolean verbose, boolean onlyDynamic, boolean forceMonomorphicMethods) {
+                      boolean toJimple, String outputFolder, List<String> additionalFiles, boolean usePublicTyping, boolean verbose, boolean onlyDynamic, boolean forceMonomorphicMethods,
+                      boolean labelLocals, boolean labelParameters, boolean audit,
+                      String profile, String usedProfile) {
         this.mainclass = mainclass;
         this.secDomainClasspath = secDomainClasspath;
         this.toJimple = toJimple;
@@ -39,6 +46,11 @@ public class ArgumentContainer {
         this.verbose = verbose;
         this.onlyDynamic = onlyDynamic;
         this.forceMonomorphicMethods = forceMonomorphicMethods;
+        this.labelLocals = labelLocals;
+        this.labelParameters = labelParameters;
+        this.audit = audit;
+        this.profile = profile;
+        this.usedProfile = usedProfile;
     }
 
     public String getMainclass() {
@@ -97,4 +109,24 @@ public class ArgumentContainer {
     public boolean forceMonomorphicMethods() {
         return this.forceMonomorphicMethods;
     }
+
+    public boolean useLabelLocals() {
+        return labelLocals;
+    }
+
+    public boolean useLabelParameters() {
+        return labelParameters;
+    }
+
+    public boolean useAudit() {
+        return audit;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getUsedProfile() {
+        return usedProfile;
+    }
 }
@@ -79,6 +79,11 @@ public class AnnotationStmtSwitch implements StmtSwitch {
 												+ stmt.getDefBoxes().size());
 		}
 
+		// Common shapes, like x = a + b, are instrumented by a single fused call.
+		if (JimpleInjector.fuseAssignStmt(stmt)) {
+			return;
+		}
+
 		// Switching the Right hand side values using the RHSInstrumentationSwitch
 		/*
 		RHSInstrumentationSwitch rhsValSwitch = new RHSInstrumentationSwitch(stmt);
@@ -1,6 +1,8 @@
 package util.visitor;
 
+import analyzer.level1.InstrumentationMode;
 import analyzer.level1.JimpleInjector;
+import analyzer.level1.LabelPassing;
 import soot.Local;
 import soot.SootMethod;
 import soot.jimple.*;
@@ -563,7 +565,13 @@ public class AnnotationValueSwitch implements JimpleValueSwitch {
 				// aber überall noch mal checken ob nirgendwo das right element
 				// überschrieben wird, d.h. ob das hier eine eindeutige 
 				// positioin ist
-				JimpleInjector.storeArgumentLevels(callingStmt, args);	// this is where we could push a global pc
+				if (InstrumentationMode.labelParameters && LabelPassing.callsCloneDirectly(v)) {
+					// the labels are passed as parameters of the clone, see LabelPassing.
+					// Calls, that may dispatch to an override, go through the bridge.
+					JimpleInjector.invokeClone(callingStmt, v, args);
+				} else {
+					JimpleInjector.storeArgumentLevels(callingStmt, args);	// this is where we could push a global pc
+				}
 			}
 
 		} else {
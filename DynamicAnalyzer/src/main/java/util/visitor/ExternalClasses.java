@@ -1,15 +1,22 @@
 package util.visitor;
 
 import analyzer.level1.JimpleInjector;
+import soot.ArrayType;
 import soot.Local;
 import soot.SootMethod;
 import soot.Unit;
+import soot.Value;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.IntConstant;
+import soot.jimple.InvokeExpr;
+import soot.jimple.Stmt;
 import util.exceptions.InternalAnalyzerException;
 import util.logging.L1Logger;
 import util.visitor.AnnotationValueSwitch.RequiredActionForRHS;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
 
@@ -115,6 +122,26 @@ public class ExternalClasses {
 		instrumentationForSpecialMethods.put("<java.lang.Boolean: boolean "
 											 + "booleanValue()>", new DoNothing());
 
+		// Bulk operations on arrays, that copy or fill the levels of a range of elements
+		instrumentationForSpecialMethods.put("<java.lang.System: void arraycopy(java.lang.Object,int,java.lang.Object,int,int)>",
+											 new ArrayCopy());
+		instrumentationForSpecialMethods.put("<java.lang.Object: java.lang.Object clone()>", new ArrayClone());
+		for (String t : new String[] {"boolean", "byte", "char", "short", "int", "long", "float", "double",
+									  "java.lang.Object"}) {
+			instrumentationForSpecialMethods.put("<java.util.Arrays: void fill(" + t + "[]," + t + ")>",
+												 new ArrayFill());
+			instrumentationForSpecialMethods.put("<java.util.Arrays: void fill(" + t + "[],int,int," + t + ")>",
+												 new ArrayFill());
+			instrumentationForSpecialMethods.put("<java.util.Arrays: " + t + "[] copyOf(" + t + "[],int)>",
+												 new ArrayCopyOf());
+			instrumentationForSpecialMethods.put("<java.util.Arrays: " + t + "[] copyOfRange(" + t + "[],int,int)>",
+												 new ArrayCopyOf());
+		}
+		instrumentationForSpecialMethods.put("<java.util.Arrays: java.lang.Object[] copyOf(java.lang.Object[],int,java.lang.Class)>",
+											 new ArrayCopyOf());
+		instrumentationForSpecialMethods.put("<java.util.Arrays: java.lang.Object[] copyOfRange(java.lang.Object[],int,int,java.lang.Class)>",
+											 new ArrayCopyOf());
+
 		// Handling of uninstrumented methods that occur in the testcases
 		instrumentationForSpecialMethods.put("<testclasses.util.SimpleObject: void <init>()>", new DoNothing());
 	}
@@ -129,10 +156,30 @@ public class ExternalClasses {
 		return instrumentationForSpecialMethods.get(method.toString())
 											   .execute(pos, params);
 	}
+
+	/**
+	 * Gets the level, that the instrumentation of a call of the given
+	 * special method loads as a constant, e.g. the maximal level of the
+	 * arguments of a print method.
+	 *
+	 * @param signature The signature of the called method.
+	 * @return The level, or nothing if the method is no special method or does not use a level.
+	 */
+	public static Optional<String> levelOf(String signature) {
+		Command command = instrumentationForSpecialMethods.get(signature);
+		return command == null ? Optional.<String>empty() : command.level();
+	}
 	
 	
 	interface Command {
 		Optional<RequiredActionForRHS> execute(Unit pos, Local[] params);
+
+		/**
+		 * The level, that the instrumentation of a call loads as a constant, if any.
+		 */
+		default Optional<String> level() {
+			return Optional.empty();
+		}
 	}
 
 	// TODO: the commands should be abstract. Then we can move ExternalClasses to InstrumentationSupport (where it belongs, together with the external signatures for type checking
@@ -175,6 +222,60 @@ public class ExternalClasses {
 			}
 			return Optional.empty();
 		}
+
+		@Override
+		public Optional<String> level() {
+			return Optional.of(level);
+		}
+	}
+
+	static class ArrayCopy implements Command {
+		@Override
+		public Optional<RequiredActionForRHS> execute(Unit pos, Local[] params) {
+			logger.fine("Copy the levels of the elements of an array");
+			JimpleInjector.arraycopy(pos, ((Stmt) pos).getInvokeExpr().getArgs());
+			return Optional.empty();
+		}
+	}
+
+	static class ArrayFill implements Command {
+		@Override
+		public Optional<RequiredActionForRHS> execute(Unit pos, Local[] params) {
+			logger.fine("Fill the levels of the elements of an array");
+			JimpleInjector.fillArray(pos, ((Stmt) pos).getInvokeExpr().getArgs());
+			return Optional.empty();
+		}
+	}
+
+	static class ArrayCopyOf implements Command {
+		@Override
+		public Optional<RequiredActionForRHS> execute(Unit pos, Local[] params) {
+			logger.fine("Copy the levels of the elements of an array to its copy");
+			// the levels of the arguments are joined as use boxes of the assign statement
+			List<Value> args = ((Stmt) pos).getInvokeExpr().getArgs();
+			boolean range = ((Stmt) pos).getInvokeExpr().getMethod().getName().equals("copyOfRange");
+			JimpleInjector.copyOfArray(pos, args.get(0), range ? args.get(1) : IntConstant.v(0));
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Object.clone is only modelled for arrays. Other objects are treated
+	 * like the results of any other library method.
+	 */
+	static class ArrayClone implements Command {
+		@Override
+		public Optional<RequiredActionForRHS> execute(Unit pos, Local[] params) {
+			InvokeExpr invoke = ((Stmt) pos).getInvokeExpr();
+			Value base = invoke instanceof InstanceInvokeExpr ? ((InstanceInvokeExpr) invoke).getBase() : null;
+			if (base == null || !(base.getType() instanceof ArrayType)) {
+				JimpleInjector.storeArgumentLevels(pos, params);
+				return Optional.of(RequiredActionForRHS.SET_RETURN_LEVEL);
+			}
+			logger.fine("Copy the levels of the elements of an array to its clone");
+			JimpleInjector.copyOfArray(pos, base, IntConstant.v(0));
+			return Optional.empty();
+		}
 	}
 
 	static class DoCast implements Command {
@@ -202,6 +303,11 @@ public class ExternalClasses {
 			JimpleInjector.makeLocalHigh(params[0], pos);*/
 			return Optional.of(RequiredActionForRHS.MAKE_HIGH);
 		}
+
+		@Override
+		public Optional<String> level() {
+			return Optional.of("HIGH");
+		}
 	}
 	
 	static class MakeMedium implements Command {
@@ -210,6 +316,11 @@ public class ExternalClasses {
 			logger.info("Right element is a makeMedium method");
 			return Optional.of(RequiredActionForRHS.MAKE_MEDIUM);
 		}
+
+		@Override
+		public Optional<String> level() {
+			return Optional.of("MEDIUM");
+		}
 	}
 	
 	static class MakeBot implements Command {
@@ -217,5 +328,10 @@ public class ExternalClasses {
 		public Optional<RequiredActionForRHS> execute(Unit pos, Local[] params) {
 			return Optional.of(RequiredActionForRHS.MAKE_LOW);
 		}
+
+		@Override
+		public Optional<String> level() {
+			return Optional.of("LOW");
+		}
 	}
 }
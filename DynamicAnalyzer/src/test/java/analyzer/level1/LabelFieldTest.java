@@ -0,0 +1,79 @@
+package analyzer.level1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import soot.*;
+import soot.options.Options;
+
+import java.util.Arrays;
+
+public class LabelFieldTest {
+
+    private SootClass point;
+    private SootClass library;
+
+    /**
+     * Creates the application class <code>Point</code> with the instance
+     * field <code>private int x</code> and the static field
+     * <code>ORIGIN</code>, and the library class <code>Library</code> with
+     * the instance field <code>y</code>.
+     */
+    @Before
+    public void setUp() {
+        G.reset();
+        Options.v().set_allow_phantom_refs(true);
+        point = newClass("Point");
+        point.setApplicationClass();
+        point.addField(new SootField("x", IntType.v(), Modifier.PRIVATE));
+        point.addField(new SootField("ORIGIN", point.getType(), Modifier.PUBLIC | Modifier.STATIC));
+
+        library = newClass("Library");
+        library.setLibraryClass();
+        library.addField(new SootField("y", IntType.v(), Modifier.PUBLIC));
+
+        JimpleInjector.createLabelFields(Arrays.asList(point, library));
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    private static SootClass newClass(String name) {
+        SootClass c = new SootClass(name, Modifier.PUBLIC);
+        c.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(c);
+        return c;
+    }
+
+    /**
+     * The label fields exist before any body is instrumented, such that
+     * looking them up does not change the class.
+     */
+    @Test
+    public void testLabelFieldsAreCreatedUpFront() {
+        assertEquals(3, point.getFieldCount());
+        SootField label = JimpleInjector.getLabelField(point.getFieldByName("x"));
+        assertEquals(JimpleInjector.LABEL_FIELD_PREFIX + "x", label.getName());
+        assertTrue(label.isPrivate() && label.isTransient() && !label.isStatic());
+        assertEquals(3, point.getFieldCount());
+    }
+
+    @Test
+    public void testLevelsOfOtherFieldsAreKeptInTheObjectMap() {
+        assertNull(JimpleInjector.getLabelField(point.getFieldByName("ORIGIN")));
+        assertNull(JimpleInjector.getLabelField(library.getFieldByName("y")));
+        assertEquals(1, library.getFieldCount());
+    }
+
+    @Test
+    public void testLabelFieldsAreNotCreatedTwice() {
+        JimpleInjector.createLabelFields(Arrays.asList(point, library));
+        assertEquals(3, point.getFieldCount());
+    }
+}
@@ -0,0 +1,103 @@
+package analyzer.level1;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import soot.*;
+import soot.jimple.*;
+import soot.options.Options;
+
+import java.util.Collections;
+
+public class LabelPassingTest {
+
+    private SootClass base;
+    private SootMethod scale;
+    private SootMethod offset;
+    private SootMethod subScale;
+    private Local receiver;
+
+    /**
+     * Creates <code>Base</code> with <code>int scale(int)</code> and
+     * <code>final int offset(int)</code>, and its subclass <code>Sub</code>,
+     * which overrides <code>scale</code>. Only <code>Base</code> is
+     * instrumented, such that <code>Sub</code> has no clone.
+     */
+    @Before
+    public void setUp() {
+        G.reset();
+        Options.v().set_allow_phantom_refs(true);
+        SootClass object = Scene.v().getSootClass("java.lang.Object");
+
+        base = new SootClass("Base", Modifier.PUBLIC);
+        base.setSuperclass(object);
+        Scene.v().addClass(base);
+        scale = identity(base, "scale", 0);
+        offset = identity(base, "offset", Modifier.FINAL);
+
+        SootClass sub = new SootClass("Sub", Modifier.PUBLIC);
+        sub.setSuperclass(base);
+        Scene.v().addClass(sub);
+        subScale = identity(sub, "scale", 0);
+
+        receiver = Jimple.v().newLocal("b", base.getType());
+        LabelPassing.createClones(Collections.singletonList(base));
+    }
+
+    @After
+    public void tearDown() {
+        LabelPassing.reset();
+        G.reset();
+    }
+
+    private static SootMethod identity(SootClass c, String name, int modifiers) {
+        SootMethod m = new SootMethod(name, Collections.<Type>singletonList(IntType.v()), IntType.v(),
+                                      Modifier.PUBLIC | modifiers);
+        c.addMethod(m);
+        JimpleBody body = Jimple.v().newBody(m);
+        Local self = Jimple.v().newLocal("this", c.getType());
+        Local x = Jimple.v().newLocal("x", IntType.v());
+        body.getLocals().add(self);
+        body.getLocals().add(x);
+        body.getUnits().add(Jimple.v().newIdentityStmt(self, Jimple.v().newThisRef(c.getType())));
+        body.getUnits().add(Jimple.v().newIdentityStmt(x, Jimple.v().newParameterRef(IntType.v(), 0)));
+        body.getUnits().add(Jimple.v().newReturnStmt(x));
+        m.setActiveBody(body);
+        return m;
+    }
+
+    @Test
+    public void testOnlyInstrumentedClassesAreCloned() {
+        assertNotNull(LabelPassing.cloneOf(scale));
+        assertNotNull(LabelPassing.cloneOf(offset));
+        assertNull(LabelPassing.cloneOf(subScale));
+        assertTrue(LabelPassing.isBridge(scale));
+    }
+
+    /**
+     * <code>b.scale(1)</code> may dispatch to <code>Sub.scale</code>, which has
+     * no clone. Calling <code>Base.scale$jgs</code> would bypass it.
+     */
+    @Test
+    public void testOverridableCallGoesThroughBridge() {
+        InvokeExpr call = Jimple.v().newVirtualInvokeExpr(receiver, scale.makeRef(), IntConstant.v(1));
+        assertFalse(LabelPassing.callsCloneDirectly(call));
+    }
+
+    @Test
+    public void testCallsThatCannotBeOverriddenCallTheClone() {
+        assertTrue(LabelPassing.callsCloneDirectly(
+                Jimple.v().newVirtualInvokeExpr(receiver, offset.makeRef(), IntConstant.v(1))));
+        assertTrue(LabelPassing.callsCloneDirectly(
+                Jimple.v().newSpecialInvokeExpr(receiver, scale.makeRef(), IntConstant.v(1))));
+
+        base.setModifiers(base.getModifiers() | Modifier.FINAL);
+        assertTrue(LabelPassing.callsCloneDirectly(
+                Jimple.v().newVirtualInvokeExpr(receiver, scale.makeRef(), IntConstant.v(1))));
+    }
+}
@@ -0,0 +1,114 @@
+package analyzer.level1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import de.unifreiburg.cs.proglang.jgs.instrumentation.NoCasts;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import soot.*;
+import soot.jimple.*;
+import soot.options.Options;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LevelHolderTest {
+
+    private SootClass printer;
+    private SootClass silent;
+
+    /**
+     * Creates <code>Printer</code>, whose method prints a string, i.e. needs
+     * the level <code>LOW</code>, and <code>Silent</code>, whose method uses
+     * no level.
+     */
+    @Before
+    public void setUp() {
+        G.reset();
+        Options.v().set_allow_phantom_refs(true);
+        SootClass printStream = Scene.v().getSootClass("java.io.PrintStream");
+
+        printer = newClass("Printer");
+        Body print = newMethod(printer);
+        Local out = Jimple.v().newLocal("out", printStream.getType());
+        print.getLocals().add(out);
+        SootMethodRef println = Scene.v().makeMethodRef(
+                printStream, "println", Collections.<Type>singletonList(RefType.v("java.lang.String")),
+                VoidType.v(), false);
+        print.getUnits().addFirst(Jimple.v().newInvokeStmt(
+                Jimple.v().newVirtualInvokeExpr(out, println, StringConstant.v("hello"))));
+
+        silent = newClass("Silent");
+        newMethod(silent);
+
+        JimpleInjector.createLevelHolders(Arrays.asList(printer, silent), NoCasts.apply());
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    private static SootClass newClass(String name) {
+        SootClass c = new SootClass(name, Modifier.PUBLIC);
+        c.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(c);
+        c.setApplicationClass();
+        return c;
+    }
+
+    private static Body newMethod(SootClass c) {
+        SootMethod m = new SootMethod("run", Collections.<Type>emptyList(), VoidType.v(),
+                                      Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(m);
+        JimpleBody body = Jimple.v().newBody(m);
+        body.getUnits().add(Jimple.v().newReturnVoidStmt());
+        m.setActiveBody(body);
+        return body;
+    }
+
+    /**
+     * The holder and its constants exist before any body is instrumented,
+     * and the constant is initialised in the static initializer of the holder.
+     */
+    @Test
+    public void testHolderIsCreatedWithTheUsedLevels() {
+        String name = "Printer" + JimpleInjector.LEVEL_HOLDER_SUFFIX;
+        assertTrue(Scene.v().containsClass(name));
+        SootClass holder = Scene.v().getSootClass(name);
+        assertTrue(holder.isApplicationClass());
+        assertTrue(JimpleInjector.isLevelHolder(holder));
+        assertEquals(1, holder.getFieldCount());
+        SootField low = holder.getFieldByName("LEVEL_LOW");
+        assertTrue(low.isStatic() && low.isFinal());
+
+        Body clinit = holder.getMethodByName(SootMethod.staticInitializerName).getActiveBody();
+        boolean initialised = false;
+        for (Unit u : clinit.getUnits()) {
+            if (u instanceof AssignStmt && ((AssignStmt) u).getLeftOp() instanceof StaticFieldRef) {
+                initialised |= ((StaticFieldRef) ((AssignStmt) u).getLeftOp()).getField().equals(low);
+            }
+        }
+        assertTrue(initialised);
+        assertTrue(clinit.getUnits().getLast() instanceof ReturnVoidStmt);
+    }
+
+    @Test
+    public void testClassWithoutLevelsGetsNoHolder() {
+        assertFalse(Scene.v().containsClass("Silent" + JimpleInjector.LEVEL_HOLDER_SUFFIX));
+    }
+
+    /**
+     * The holders are skipped, if they are passed again.
+     */
+    @Test
+    public void testHoldersAreNotCreatedTwice() {
+        int classes = Scene.v().getClasses().size();
+        JimpleInjector.createLevelHolders(Scene.v().getApplicationClasses(), NoCasts.apply());
+        assertEquals(classes, Scene.v().getClasses().size());
+        assertEquals(1, Scene.v().getSootClass("Printer" + JimpleInjector.LEVEL_HOLDER_SUFFIX).getFieldCount());
+    }
+}
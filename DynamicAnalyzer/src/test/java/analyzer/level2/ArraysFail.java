@@ -92,4 +92,28 @@ public class ArraysFail {
 		
 	}
 
+	@Test(expected = IFCError.class)
+	public void fillArrayInHighContext() {
+
+		logger.log(Level.INFO, "FILL ARRAY FAIL TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+
+		int[] a = new int[8];
+		hs.addArrayToObjectMap(a);
+		hs.addLocal("int[]_a", CurrentSecurityDomain.top());
+
+		/*
+		 * Arrays.fill(a, 0) with a high array local:
+		 * check(a_i >= join(gpc, a)) fails for the low elements
+		 */
+		hs.joinLevelOfLocalAndAssignmentLevel("int[]_a");
+		hs.checkArrayRangeWithGlobalPC(a, "int[]_a");
+
+		hs.close();
+
+		logger.log(Level.INFO, "FILL ARRAY FAIL TEST FINISHED");
+	}
+
 }
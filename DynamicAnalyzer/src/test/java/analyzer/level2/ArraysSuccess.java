@@ -7,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 import util.logging.L2Logger;
 
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -109,4 +110,127 @@ public class ArraysSuccess {
 		
 	}
 
+	@Test
+	public void writePrimitiveArray() {
+
+		logger.log(Level.INFO, "WRITE PRIMITIVE ARRAY SUCCESS TEST STARTED");
+		
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		
+		int[] a = new int[1000];
+		hs.addArrayToObjectMap(a);
+		assertTrue(hs.containsObjectInObjectMap(a));
+		assertEquals(1000, hs.getNumberOfFieldsInObjectMap(a));
+		
+		hs.addLocal("int[]_a");
+		hs.addLocal("int_i");
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+		
+		/*
+		 * a[i] = x;
+		 * check(a_i >= join(gpc, a, i))
+		 * level(a_i) = join(gpc, x)
+		 */
+		int i = 999;
+		hs.joinLevelOfLocalAndAssignmentLevel("int_x");
+		hs.checkArrayElementWithGlobalPC(a, i, "int[]_a", "int_i");
+		assertEquals(CurrentSecurityDomain.top(), hs.setLevelOfArrayElement(a, i));
+		a[i] = 3;
+		
+		assertEquals(CurrentSecurityDomain.top(), hs.getFieldLevel(a, Integer.toString(i)));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getFieldLevel(a, Integer.toString(0)));
+		assertEquals(CurrentSecurityDomain.top(), hs.joinLevelOfArrayElementAndAssignmentLevel(a, i));
+		
+		hs.close();
+		
+		logger.log(Level.INFO, "WRITE PRIMITIVE ARRAY SUCCESS TEST FINISHED");
+		
+	}
+
+	@Test
+	public void writePrimitiveArrayFused() {
+
+		logger.log(Level.INFO, "WRITE PRIMITIVE ARRAY FUSED SUCCESS TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+
+		int[] a = new int[10];
+		hs.addArrayToObjectMap(a);
+		hs.addLocal("int[]_a");
+		hs.addLocal("int_i");
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+
+		/*
+		 * a[i] = x; by a single call
+		 */
+		int i = 9;
+		assertEquals(CurrentSecurityDomain.top(), hs.assignArrayElement(a, i, "int[]_a", "int_i", "int_x"));
+		a[i] = 3;
+		assertEquals(CurrentSecurityDomain.top(), hs.getFieldLevel(a, Integer.toString(i)));
+
+		// a[0] = x; with label locals
+		assertEquals(CurrentSecurityDomain.bottom(),
+				hs.assignArrayElementWithLabels(a, 0, "int[]_a", null, CurrentSecurityDomain.bottom()));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getFieldLevel(a, Integer.toString(0)));
+
+		hs.close();
+
+		logger.log(Level.INFO, "WRITE PRIMITIVE ARRAY FUSED SUCCESS TEST FINISHED");
+	}
+
+	@Test
+	public void bulkArrayOperations() {
+
+		logger.log(Level.INFO, "BULK ARRAY OPERATIONS SUCCESS TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+
+		byte[] src = new byte[64];
+		byte[] dest = new byte[64];
+		hs.addArrayToObjectMap(src);
+		hs.addArrayToObjectMap(dest);
+		hs.addLocal("byte[]_src");
+		hs.addLocal("byte[]_dest");
+		hs.addLocal("byte_x", CurrentSecurityDomain.top());
+
+		/*
+		 * Arrays.fill(src, 0, 32, x);
+		 * check(src_i >= join(gpc, src)) for i in [0, 32)
+		 * level(src_i) = join(gpc, x)
+		 */
+		hs.joinLevelOfLocalAndAssignmentLevel("byte[]_src");
+		hs.checkArrayRangeWithGlobalPC(src, 0, 32, "byte[]_src");
+		hs.joinLevelOfLocalAndAssignmentLevel("byte_x");
+		assertEquals(CurrentSecurityDomain.top(), hs.fillArrayLevels(src, 0, 32));
+		Arrays.fill(src, 0, 32, (byte) 1);
+		assertEquals(CurrentSecurityDomain.top(), hs.getFieldLevel(src, "31"));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getFieldLevel(src, "32"));
+
+		/*
+		 * System.arraycopy(src, 16, dest, 0, 32);
+		 */
+		hs.joinLevelOfLocalAndAssignmentLevel("byte[]_dest");
+		hs.checkArrayCopyWithGlobalPC(dest, 0, 32, "byte[]_dest");
+		hs.joinLevelOfLocalAndAssignmentLevel("byte[]_src");
+		hs.arraycopyLevels(src, 16, dest, 0, 32);
+		System.arraycopy(src, 16, dest, 0, 32);
+		assertEquals(CurrentSecurityDomain.top(), hs.getFieldLevel(dest, "15"));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getFieldLevel(dest, "16"));
+
+		/*
+		 * byte[] c = Arrays.copyOfRange(dest, 8, 24);
+		 */
+		byte[] c = Arrays.copyOfRange(dest, 8, 24);
+		hs.copyOfArrayLevels(dest, 8, c);
+		assertTrue(hs.containsObjectInObjectMap(c));
+		assertEquals(CurrentSecurityDomain.top(), hs.getFieldLevel(c, "7"));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getFieldLevel(c, "8"));
+
+		hs.close();
+
+		logger.log(Level.INFO, "BULK ARRAY OPERATIONS SUCCESS TEST FINISHED");
+	}
 }
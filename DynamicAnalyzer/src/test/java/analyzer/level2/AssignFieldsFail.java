@@ -105,4 +105,24 @@ public class AssignFieldsFail {
 		hs.close();	
 	}
 	
+	@Test(expected = IFCError.class)
+	public void assignConstantToFieldLabel() {
+		logger.log(Level.INFO, "ASSIGN CONSTANT TO FIELD LABEL FAIL TEST STARTED");
+		
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		
+		/* Assign Constant to Field, whose level is stored in a label field
+		 *  field = c;
+		 *  1. Check if label >= gpc
+		 */
+		
+		// label = null (bottom), gpc = HIGH
+		hs.pushGlobalPC(CurrentSecurityDomain.top());
+		hs.checkGlobalPCWithFieldLabel(null, "int_field");
+		hs.setLevelOfFieldLabel("int_field");
+		
+		hs.close();	
+	}
+	
 }
@@ -1,6 +1,8 @@
 package analyzer.level2;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -181,4 +183,66 @@ public class AssignFieldsSuccess {
 	
 	
 
+	@Test
+	public void assignLocalToFieldLabel() {
+		
+		logger.log(Level.INFO, "ASSIGN LOCAL TO FIELD LABEL STARTED");
+		
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		
+		/*
+		 * The level of field is stored in its label field, not in the ObjectMap
+		 * field = local;
+		 * 1. check(label >= gpc)
+		 * 2. label = join(local, gpc)
+		 */
+		hs.addLocal("int_local", CurrentSecurityDomain.top());
+		Object label = null;
+		
+		// label = null (bottom), gpc = LOW
+		hs.checkGlobalPCWithFieldLabel(label, "int_field");
+		assertEquals(CurrentSecurityDomain.top(), hs.joinLevelOfLocalAndAssignmentLevel("int_local"));
+		label = hs.setLevelOfFieldLabel("int_field");
+		assertEquals(CurrentSecurityDomain.top(), label);
+		assertEquals(0, hs.getNumberOfElementsInObjectMap());
+		
+		// local = field;
+		assertEquals(CurrentSecurityDomain.top(), hs.joinLevelOfFieldLabelAndAssignmentLevel(label));
+		assertEquals(CurrentSecurityDomain.top(), hs.setLocalToCurrentAssingmentLevel("int_local"));
+		
+		// label = HIGH, gpc = HIGH
+		hs.pushGlobalPC(CurrentSecurityDomain.top());
+		hs.checkGlobalPCWithFieldLabel(label, "int_field");
+		assertEquals(CurrentSecurityDomain.top(), hs.setLevelOfFieldLabel("int_field"));
+		
+		hs.close();
+		
+		logger.log(Level.INFO, "ASSIGN LOCAL TO FIELD LABEL FINISHED");
+	}
+
+	@Test
+	public void addFieldOfUntrackedObject() {
+		
+		logger.log(Level.INFO, "ADD FIELD OF UNTRACKED OBJECT STARTED");
+		
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		
+		/*
+		 * An object, that is not tracked, has only bottom fields,
+		 * so adding one of its fields also tracks the object
+		 */
+		Object o = new Object();
+		assertFalse(hs.containsFieldInObjectMap(o, "int_field"));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getFieldLevel(o, "int_field"));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.addFieldToObjectMap(o, "int_field"));
+		assertTrue(hs.containsObjectInObjectMap(o));
+		assertTrue(hs.containsFieldInObjectMap(o, "int_field"));
+		
+		hs.close();
+		
+		logger.log(Level.INFO, "ADD FIELD OF UNTRACKED OBJECT FINISHED");
+	}
+
 }
@@ -71,6 +71,23 @@ public class AssignLocalsFail {
 		
 	}
 	
+	@Test(expected = IFCError.class)
+	public void assignLocalsToLocalFused() {
+
+		logger.log(Level.INFO, "ASSIGN LOCALS TO LOCAL FUSED TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.bottom());
+		hs.addLocal("int_y");
+
+		/*
+		 *  int x = y; with x = LOW and lpc = HIGH
+		 */
+		hs.pushLocalPC(CurrentSecurityDomain.top(), 123);
+		hs.assignLocal("int_x", "int_y", HandleStmt.PC_CHECK_LOCAL);
+	}
+
 	/*
 	 * TestSubClass xy is not initialized here, so no NSU IFCError.
 	 */
@@ -231,4 +248,24 @@ public class AssignLocalsFail {
 		logger.log(Level.INFO, "ASSIGN CONSTANT AND LOCAL TO LOCAL FAIL TEST FINISHED");
 	}
 
+	@Test(expected = IFCError.class)
+	public void assignConstantToLabelLocal() {
+		
+		logger.log(Level.INFO, "ASSIGN CONSTANT TO LABEL LOCAL FAIL TEST STARTED");
+				
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		
+		/*
+		 * x = 1; in a high context, where the level of x is kept in x$lbl
+		 */
+		Object x$lbl = hs.labelFromString("int_x", "LOW");
+		Object h$lbl = hs.labelFromString("int_h", "HIGH");
+		hs.checkConditionWithLabels(123, x$lbl, h$lbl);
+		hs.checkLocalPCWithLabel(x$lbl, "int_x");
+		
+		hs.exitInnerScope("123");
+		hs.close();
+	}
+
 }
@@ -288,4 +288,79 @@ public class AssignLocalsSuccess {
 		logger.log(Level.INFO, "ASSIGN CONSTANT AND LOCAL TO LOCAL SUCCESS TEST FINISHED");
 	}
 
+	@Test
+	public void assignLocalsToLabelLocal() {
+		
+		logger.log(Level.INFO, "ASSIGN LOCALS TO LABEL LOCAL TEST STARTED");
+		
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		
+		/*
+		 *  The levels are kept in label locals instead of the LocalMap
+		 *  int x = y + z;
+		 *  1. Check if x$lbl >= lpc
+		 *  2. x$lbl = Join(y$lbl, z$lbl, lpc)
+		 */
+		Object x$lbl = null;
+		Object y$lbl = null;
+		Object z$lbl = hs.labelFromString("int_z", "HIGH");
+		
+		// x untracked, lpc = LOW
+		hs.checkLocalPCWithLabel(x$lbl, "int_x");
+		assertEquals(CurrentSecurityDomain.bottom(), hs.joinLevelOfLocalLabelAndAssignmentLevel(y$lbl));
+		assertEquals(CurrentSecurityDomain.top(), hs.joinLevelOfLocalLabelAndAssignmentLevel(z$lbl));
+		x$lbl = hs.setLocalLabelToCurrentAssignmentLevel("int_x");
+		assertEquals(CurrentSecurityDomain.top(), x$lbl);
+		
+		// if (x) { y = 1 } with y untracked: no NSU error
+		hs.checkConditionWithLabels(123, x$lbl);
+		assertEquals(CurrentSecurityDomain.top(), hs.getLocalPC());
+		hs.checkLocalPCWithLabel(y$lbl, "int_y");
+		y$lbl = hs.setLocalLabelToCurrentAssignmentLevel("int_y");
+		assertEquals(CurrentSecurityDomain.top(), y$lbl);
+		hs.exitInnerScope("123");
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getLocalPC());
+		
+		hs.close();
+
+		logger.log(Level.INFO, "ASSIGN LOCALS TO LABEL LOCAL TEST FINISHED");
+	}
+
+	@Test
+	public void assignLocalsToLocalFused() {
+
+		logger.log(Level.INFO, "ASSIGN LOCALS TO LOCAL FUSED TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x");
+		hs.addLocal("int_y");
+		hs.addLocal("int_z", CurrentSecurityDomain.top());
+
+		/*
+		 *  int x = y + z; by a single call, that joins the levels
+		 *  of y and z, checks the lpc and assigns the level to x.
+		 */
+		assertEquals(CurrentSecurityDomain.top(),
+				hs.assignLocal("int_x", "int_y", "int_z", HandleStmt.PC_CHECK_LOCAL));
+		assertEquals(CurrentSecurityDomain.top(), hs.getLocalLevel("int_x"));
+
+		// int x = 5; in a HIGH context, where x is HIGH
+		hs.pushLocalPC(CurrentSecurityDomain.top(), 123);
+		assertEquals(CurrentSecurityDomain.top(), hs.assignLocal("int_x", HandleStmt.PC_CHECK_LOCAL));
+		hs.popLocalPC(123);
+
+		// the same with label locals
+		Object labelX = hs.assignLocalLabel("int_x", null, CurrentSecurityDomain.bottom(),
+				HandleStmt.PC_CHECK_PUBLIC);
+		assertEquals(CurrentSecurityDomain.bottom(), labelX);
+		assertEquals(CurrentSecurityDomain.top(), hs.assignLocalLabel("int_x", labelX,
+				CurrentSecurityDomain.bottom(), CurrentSecurityDomain.top(), HandleStmt.PC_CHECK_LOCAL));
+
+		hs.close();
+
+		logger.log(Level.INFO, "ASSIGN LOCALS TO LOCAL FUSED TEST FINISHED");
+	}
+
 }
@@ -60,4 +60,25 @@ public class CheckThatNotHigh {
 		LOGGER.info("CheckThatNotHigh-failTest finished");
 			
 	}
+
+	@Test(expected = IFCError.class)
+	public void failWithLevelConstantTest() {
+
+		LOGGER.info("CheckThatNotHigh-failWithLevelConstantTest started");
+
+		Object low = HandleStmt.levelConstant("LOW");
+		assertEquals(CurrentSecurityDomain.bottom(), low);
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+
+		hs.addLocal("String_high");
+		hs.setLocal("String_high", CurrentSecurityDomain.top());
+		hs.checkThatPCLe(low);
+		hs.checkThatLe("String_high", low);
+
+		hs.close();
+
+		LOGGER.info("CheckThatNotHigh-failWithLevelConstantTest finished");
+	}
 }
@@ -1,6 +1,7 @@
 package analyzer.level2;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -95,4 +96,37 @@ public class IfStmtSuccess {
 		
 	}
 
+	@Test
+	public void raiseWriteEffectTest() {
+
+		System.out.println("RAISE WRITE EFFECT TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+		hs.addLocal("int_y", CurrentSecurityDomain.bottom());
+		hs.addLocal("int_z", CurrentSecurityDomain.bottom());
+		String locals = "int_x;int_y;int_z";
+
+		// In a low branch, nothing is raised
+		hs.checkCondition(123, "int_y");
+		hs.raiseWriteEffect(locals, "\u0001\u0002");
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getLocalLevel("int_y"));
+		hs.exitInnerScope(123);
+
+		// In a high branch, the write effect y is raised, z is not
+		hs.checkCondition(124, "int_x");
+		hs.raiseWriteEffect(locals, "\u0001");
+		assertEquals(CurrentSecurityDomain.top(), hs.getLocalLevel("int_y"));
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getLocalLevel("int_z"));
+		assertEquals(CurrentSecurityDomain.top(), hs.raiseLabelToLocalPC(CurrentSecurityDomain.bottom(), "int_z"));
+		// a local, that is not tracked, stays untracked
+		assertNull(hs.raiseLabelToLocalPC(null, "int_z"));
+		hs.exitInnerScope(124);
+
+		hs.close();
+
+		System.out.println("RAISE WRITE EFFECT TEST FINISHED");
+	}
+
 }
@@ -1,6 +1,8 @@
 package analyzer.level2;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
@@ -103,6 +105,70 @@ public class InvokeSuccess {
 		logger.log(Level.INFO, "INVOKE METHOD WITH ARGUMENTS TEST STARTED");		
 	}
 	
+	@Test
+	public void invokeMethodWithArgumentRegisters() {
+
+		logger.log(Level.INFO, "INVOKE METHOD WITH ARGUMENT REGISTERS TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		TestSubClass xy = new TestSubClass();
+		int a = 0;
+		int b = 1;
+		int c = 2;
+		hs.addLocal("int_a");
+		hs.addLocal("int_b");
+		hs.addLocal("int_c");
+
+		/*
+		 *  The second argument is a constant, so it is left bottom.
+		 */
+		hs.setLocalFromString("int_b", "HIGH");
+		hs.beginArguments(3);
+		hs.setArgumentLevel(0, "int_a");
+		hs.setArgumentLevel(2, "int_c");
+		xy.methodWithParams(a, 1, c);
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getActualReturnLevel());
+
+		hs.beginArguments(3);
+		hs.setArgumentLevel(0, "int_a");
+		hs.setArgumentLevel(1, "int_b");
+		hs.setArgumentLevel(2, "int_c");
+		xy.methodWithParams(a, b, c);
+		assertEquals(CurrentSecurityDomain.top(), hs.getActualReturnLevel());
+
+		hs.close();
+
+		logger.log(Level.INFO, "INVOKE METHOD WITH ARGUMENT REGISTERS TEST FINISHED");
+	}
+
+	@Test
+	public void invokeMethodWithLabelParameters() {
+
+		logger.log(Level.INFO, "INVOKE METHOD WITH LABEL PARAMETERS TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+
+		/*
+		 *  A bridge reads the labels from the registers and passes them
+		 *  to the clone, which joins them with its local pc.
+		 */
+		hs.beginArguments(2);
+		hs.setArgumentLabel(1, CurrentSecurityDomain.top());
+		Object label0 = HandleStmt.argumentLabel(0);
+		Object label1 = HandleStmt.argumentLabel(1);
+		assertEquals(CurrentSecurityDomain.bottom(), label0);
+		assertEquals(CurrentSecurityDomain.top(), label1);
+
+		assertEquals(CurrentSecurityDomain.bottom(), hs.assignLabelParameter(null, "int_a"));
+		assertEquals(CurrentSecurityDomain.top(), hs.assignLabelParameter(label1, "int_b"));
+
+		hs.close();
+
+		logger.log(Level.INFO, "INVOKE METHOD WITH LABEL PARAMETERS TEST FINISHED");
+	}
+
 	@Test
 	public void nestedMethodsTest() {
 		
@@ -173,4 +239,33 @@ public class InvokeSuccess {
 		logger.log(Level.INFO, "INVOKE NESTED METHODS TEST FINISHED");
 	}
 
+	@Test
+	public void invokeMethodWithPooledFrames() {
+		
+		logger.log(Level.INFO, "INVOKE METHOD WITH POOLED FRAMES TEST STARTED");
+		
+		HandleStmt caller = HandleStmt.enter();
+		caller.initHandleStmtUtils(false, 0);
+		
+		/*
+		 * The callee gets another frame, that is reused by the next
+		 * invocation after it was closed. Its locals are not tracked anymore.
+		 */
+		HandleStmt callee = HandleStmt.enter();
+		assertNotSame(caller, callee);
+		callee.initHandleStmtUtils(false, 0);
+		callee.addLocal("int_a", CurrentSecurityDomain.top());
+		callee.close();
+		
+		HandleStmt next = HandleStmt.enter();
+		assertSame(callee, next);
+		next.initHandleStmtUtils(false, 0);
+		assertEquals(CurrentSecurityDomain.bottom(), next.getLocalLevel("int_a"));
+		next.close();
+		
+		caller.close();
+		
+		logger.log(Level.INFO, "INVOKE METHOD WITH POOLED FRAMES TEST FINISHED");
+	}
+
 }
@@ -0,0 +1,131 @@
+package analyzer.level2;
+
+import static org.junit.Assert.assertEquals;
+
+import analyzer.level2.storage.ObjectMap;
+import de.unifreiburg.cs.proglang.jgs.support.LabeledExecutors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaskPropagatorTest {
+
+	private ExecutorService pool;
+
+	@Before
+	public void init() {
+		HandleStmt.init();
+		pool = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	private static Object workerPC() {
+		return ObjectMap.getInstance().getContext().getGlobalPC();
+	}
+
+	@Test
+	public void submitInHighContext() throws Exception {
+
+		System.out.println("SUBMIT IN HIGH CONTEXT TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+		ExecutorService labeled = LabeledExecutors.wrap(pool);
+		Callable<Object> task = TaskPropagatorTest::workerPC;
+
+		assertEquals(CurrentSecurityDomain.bottom(), labeled.submit(task).get());
+
+		hs.checkCondition(123, "int_x");
+		assertEquals(CurrentSecurityDomain.top(), labeled.submit(task).get());
+		hs.exitInnerScope(123);
+
+		// the worker left the context of the task
+		assertEquals(CurrentSecurityDomain.bottom(), pool.submit(task).get());
+		assertEquals(CurrentSecurityDomain.bottom(), labeled.submit(task).get());
+
+		hs.close();
+
+		System.out.println("SUBMIT IN HIGH CONTEXT TEST FINISHED");
+	}
+
+	@Test
+	public void completableFutureStages() throws Exception {
+
+		System.out.println("COMPLETABLE FUTURE STAGES TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+
+		hs.checkCondition(123, "int_x");
+		CompletableFuture<Object> first = LabeledExecutors.supplyAsync(TaskPropagatorTest::workerPC, pool);
+		// the value passed to the next stage gets the captured PC
+		CompletableFuture<Object> second = LabeledExecutors.thenApplyAsync(first,
+				x -> ObjectMap.getInstance().getContext().getArgLevelAt(0), pool);
+		hs.exitInnerScope(123);
+
+		assertEquals(CurrentSecurityDomain.top(), first.get());
+		assertEquals(CurrentSecurityDomain.top(), second.get());
+
+		hs.close();
+
+		System.out.println("COMPLETABLE FUTURE STAGES TEST FINISHED");
+	}
+
+	@Test
+	public void argumentsAreRestored() throws Exception {
+
+		System.out.println("ARGUMENTS ARE RESTORED TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+
+		hs.storeArgumentLevels("int_x");
+		Callable<Object> decorated = LabeledExecutors.decorate((Callable<Object>) () ->
+				ObjectMap.getInstance().getContext().getArgLevelAt(0));
+		assertEquals(CurrentSecurityDomain.top(), pool.submit(decorated).get());
+
+		hs.close();
+
+		System.out.println("ARGUMENTS ARE RESTORED TEST FINISHED");
+	}
+
+	/**
+	 * A task, that runs on the submitting thread, e.g. by the
+	 * CallerRunsPolicy of a saturated pool, leaves the argument registers
+	 * of the thread as they were.
+	 */
+	@Test
+	public void callerRunsKeepsArguments() throws Exception {
+
+		System.out.println("CALLER RUNS KEEPS ARGUMENTS TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+		hs.addLocal("int_y", CurrentSecurityDomain.bottom());
+
+		hs.storeArgumentLevels("int_y");
+		Callable<Object> decorated = LabeledExecutors.decorate((Callable<Object>) () ->
+				ObjectMap.getInstance().getContext().getArgLevelAt(0));
+		hs.storeArgumentLevels("int_x");
+		assertEquals(CurrentSecurityDomain.bottom(), decorated.call());
+		assertEquals(CurrentSecurityDomain.top(), ObjectMap.getInstance().getContext().getArgLevelAt(0));
+
+		hs.close();
+
+		System.out.println("CALLER RUNS KEEPS ARGUMENTS TEST FINISHED");
+	}
+}
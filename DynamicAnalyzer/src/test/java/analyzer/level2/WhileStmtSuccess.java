@@ -50,6 +50,34 @@ public class WhileStmtSuccess {
 		LOGGER.log(Level.INFO, "WHILE STMT LOW TEST FINISHED");
 	}
 	
+	@Test
+	public void whileStmtWithIntIdentityTest() {
+
+		LOGGER.log(Level.INFO, "WHILE STMT WITH INT IDENTITY TEST STARTED");
+
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+		int x = 0;
+
+		hs.checkCondition(123, "int_x");
+		while (x == 0) {
+
+			assertEquals(CurrentSecurityDomain.top(), hs.getLocalPC());
+
+			hs.checkLocalPC("int_x");
+			hs.setLocalToCurrentAssingmentLevel("int_x");
+			x = 1;
+
+			hs.exitInnerScope(123);
+		}
+
+		assertEquals(CurrentSecurityDomain.bottom(), hs.getLocalPC());
+
+		LOGGER.log(Level.INFO, "WHILE STMT WITH INT IDENTITY TEST FINISHED");
+	}
+
 	@Test
 	public void whileStmtHighTest() {
 		
@@ -0,0 +1,136 @@
+package analyzer.level2.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import analyzer.level2.CurrentSecurityDomain;
+import analyzer.level2.HandleStmt;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import util.exceptions.NSUError;
+
+public class ViolationAuditTest {
+
+	@Before
+	public void init() {
+		HandleStmt.init();
+		ViolationAudit.reset();
+		ViolationAudit.setEnabled(true);
+	}
+
+	@After
+	public void disable() {
+		ViolationAudit.setEnabled(false);
+	}
+
+	@Test
+	public void testDeduplicationPerSite() {
+		for (int i = 0; i < 100; i++) {
+			ViolationAudit.report(ViolationAudit.NSU, 7, "int_x", "Sensitive update to int_x",
+					CurrentSecurityDomain.bottom(), CurrentSecurityDomain.top());
+		}
+		ViolationAudit.report(ViolationAudit.NSU, 8, "Sensitive update to ", "int_x", "",
+				CurrentSecurityDomain.bottom(), CurrentSecurityDomain.top());
+
+		Map<String, Long> counts = ViolationAudit.getSiteCounts();
+		assertEquals(2, counts.size());
+		assertEquals(100L, (long) counts.get("NSUError site=7: int_x"));
+		assertEquals(1L, (long) counts.get("NSUError site=8: int_x"));
+		assertEquals(101, ViolationAudit.getViolations());
+		// only the budget of each site was recorded
+		int flushed = ViolationAudit.flush();
+		assertTrue(flushed <= 11);
+		assertTrue(flushed >= 2);
+	}
+
+	/**
+	 * The elements of an array are one site, such that writing an array in
+	 * a loop does not fill up the sites.
+	 */
+	@Test
+	public void testArrayElementsAreOneSite() {
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		int[] a = new int[100];
+		hs.addLocal("int[]_a", CurrentSecurityDomain.top());
+		for (int i = 0; i < a.length; i++) {
+			hs.checkArrayElementWithGlobalPC(a, i, "int[]_a");
+		}
+		hs.joinLevelOfLocalAndAssignmentLevel("int[]_a");
+		hs.checkArrayRangeWithGlobalPC(a, 0, 10, "int[]_a");
+
+		Map<String, Long> counts = ViolationAudit.getSiteCounts();
+		assertEquals(1, counts.size());
+		assertEquals(101L, (long) counts.get("NSUError site=-1: int[]_a"));
+		ViolationAudit.flush();
+	}
+
+	/**
+	 * An illegal flow is deduplicated by the checked local and the site, that
+	 * was told by countSite, and not by its message, which contains levels.
+	 */
+	@Test
+	public void testIllegalFlowsAreDeduplicatedBySiteAndLocal() {
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.top());
+		for (int i = 0; i < 3; i++) {
+			hs.countSite(5);
+			hs.checkThatLe("int_x", CurrentSecurityDomain.bottom(), "Flow number " + i);
+		}
+		hs.countSite(6);
+		hs.checkThatLe("int_x", CurrentSecurityDomain.bottom());
+
+		Map<String, Long> counts = ViolationAudit.getSiteCounts();
+		assertEquals(2, counts.size());
+		assertEquals(3L, (long) counts.get("IllegalFlowError site=5: int_x"));
+		assertEquals(1L, (long) counts.get("IllegalFlowError site=6: int_x"));
+		ViolationAudit.flush();
+	}
+
+	@Test
+	public void testViolationKeepsRunning() {
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.bottom());
+		hs.addLocal("int_y", CurrentSecurityDomain.top());
+
+		// x = y, with x = LOW and y = HIGH in a HIGH context
+		hs.checkConditionWithLabels(123, CurrentSecurityDomain.top());
+		assertEquals(CurrentSecurityDomain.top(),
+				hs.assignLocal("int_x", "int_y", HandleStmt.PC_CHECK_LOCAL));
+		assertEquals(1, ViolationAudit.getViolations());
+		assertEquals(1L, (long) ViolationAudit.getSiteCounts().get("NSUError site=-1: int_x"));
+		ViolationAudit.flush();
+	}
+
+	@Test(expected = NSUError.class)
+	public void testViolationAbortsWithoutAudit() {
+		ViolationAudit.setEnabled(false);
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		hs.addLocal("int_x", CurrentSecurityDomain.bottom());
+		hs.checkConditionWithLabels(123, CurrentSecurityDomain.top());
+		hs.checkLocalPC("int_x");
+	}
+
+	@Test
+	public void testArrayViolationNamesTheArray() {
+		ViolationAudit.setEnabled(false);
+		HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		int[] a = new int[4];
+		hs.addLocal("int[]_a", CurrentSecurityDomain.top());
+		try {
+			hs.checkArrayElementWithGlobalPC(a, 3, "int[]_a");
+			fail("Expected an NSUError");
+		} catch (NSUError e) {
+			assertEquals("Sensitive update to int[]_a[3]", e.getMessage());
+		}
+	}
+}
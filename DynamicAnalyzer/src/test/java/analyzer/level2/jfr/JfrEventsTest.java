@@ -0,0 +1,158 @@
+package analyzer.level2.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import analyzer.level2.CurrentSecurityDomain;
+import analyzer.level2.HandleStmt;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import util.exceptions.NSUError;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JfrEventsTest {
+
+	@Before
+	public void init() {
+		Assume.assumeTrue(JfrEvents.AVAILABLE);
+		HandleStmt.init();
+	}
+
+	private List<RecordedEvent> record(String eventName, Runnable action) throws IOException {
+		File file = File.createTempFile("jgs", ".jfr");
+		file.deleteOnExit();
+		try (Recording recording = new Recording()) {
+			recording.enable(eventName);
+			recording.start();
+			action.run();
+			recording.stop();
+			recording.dump(file.toPath());
+		}
+		return RecordingFile.readAllEvents(file.toPath());
+	}
+
+	@Test
+	public void testEventsAreDisabledByDefault() {
+		assertFalse(new IFCViolationEvent().isEnabled());
+		assertFalse(JfrEvents.checkDurationsEnabled());
+	}
+
+	@Test
+	public void testViolation() throws IOException {
+		List<RecordedEvent> events = record("jgs.IFCViolation", new Runnable() {
+			@Override
+			public void run() {
+				JfrEvents.violation(new NSUError("Sensitive update to x"),
+						CurrentSecurityDomain.top(), CurrentSecurityDomain.bottom());
+			}
+		});
+		assertEquals(1, events.size());
+		assertEquals("NSUError", events.get(0).getString("kind"));
+		assertEquals(CurrentSecurityDomain.top().toString(), events.get(0).getString("globalPC"));
+	}
+
+	@Test
+	public void testCastCheck() throws IOException {
+		List<RecordedEvent> events = record("jgs.CastCheck", new Runnable() {
+			@Override
+			public void run() {
+				JfrEvents.castCheck("x", CurrentSecurityDomain.top(), CurrentSecurityDomain.bottom());
+			}
+		});
+		assertEquals(1, events.size());
+		assertFalse(events.get(0).getBoolean("passed"));
+	}
+
+	@Test
+	public void testSinkCheck() throws IOException {
+		List<RecordedEvent> events = record("jgs.SinkCheck", new Runnable() {
+			@Override
+			public void run() {
+				JfrEvents.sinkCheck(CurrentSecurityDomain.bottom(), CurrentSecurityDomain.top());
+			}
+		});
+		assertEquals(1, events.size());
+		assertTrue(events.get(0).getBoolean("passed"));
+	}
+
+	@Test
+	public void testCheckDurationsAreSampled() throws IOException {
+		List<RecordedEvent> events = record("jgs.CheckDuration", new Runnable() {
+			@Override
+			public void run() {
+				assertTrue(JfrEvents.checkDurationsEnabled());
+				for (int i = 0; i < 1000; i++) {
+					JfrEvents.checkDuration("checkLocalPC", 7, System.nanoTime());
+				}
+			}
+		});
+		assertEquals(10, events.size());
+		assertEquals("checkLocalPC", events.get(0).getString("check"));
+		assertEquals(7, events.get(0).getInt("callSite"));
+	}
+
+	/**
+	 * A check names the site, that was told by countSite.
+	 */
+	@Test
+	public void testCheckDurationNamesTheSite() throws IOException {
+		final HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		List<RecordedEvent> events = record("jgs.CheckDuration", new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 100; i++) {
+					hs.countSite(42);
+					hs.checkLocalPCWithLabel(CurrentSecurityDomain.bottom(), "int_x");
+				}
+			}
+		});
+		hs.close();
+		assertEquals(1, events.size());
+		assertEquals(42, events.get(0).getInt("callSite"));
+	}
+
+	/**
+	 * The checks of label locals are sampled like the string-keyed ones.
+	 * Every block of 100 checks contains one sample.
+	 */
+	@Test
+	public void testChecksOfLabelLocalsAreSampled() throws IOException {
+		final HandleStmt hs = new HandleStmt();
+		hs.initHandleStmtUtils(false, 0);
+		List<RecordedEvent> events = record("jgs.CheckDuration", new Runnable() {
+			@Override
+			public void run() {
+				Object label = CurrentSecurityDomain.bottom();
+				for (int i = 0; i < 100; i++) {
+					hs.checkLocalPCWithLabel(label, "int_x");
+				}
+				for (int i = 0; i < 100; i++) {
+					hs.checkThatLeWithLabel(label, "int_x", CurrentSecurityDomain.bottom());
+				}
+				for (int i = 0; i < 100; i++) {
+					hs.checkCastToStaticWithLabel(label, "int_x", CurrentSecurityDomain.bottom());
+				}
+			}
+		});
+		hs.close();
+		Set<String> checks = new HashSet<>();
+		for (RecordedEvent event : events) {
+			checks.add(event.getString("check"));
+		}
+		assertEquals(new HashSet<>(Arrays.asList("checkLocalPCWithLabel", "checkThatLeWithLabel",
+		                                         "checkCastToStaticWithLabel")), checks);
+	}
+}
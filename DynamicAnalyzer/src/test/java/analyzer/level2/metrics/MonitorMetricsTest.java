@@ -0,0 +1,68 @@
+package analyzer.level2.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import analyzer.level2.SecurityMonitoringEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MonitorMetricsTest {
+
+	private final MonitorMetrics metrics = MonitorMetrics.getInstance();
+
+	@Before
+	public void init() {
+		metrics.reset();
+	}
+
+	@Test
+	public void testEventCounts() {
+		MonitorMetrics.event(SecurityMonitoringEvent.CHECK_THAT_LE);
+		MonitorMetrics.event(SecurityMonitoringEvent.CHECK_THAT_LE);
+		MonitorMetrics.event(SecurityMonitoringEvent.NSU_FAILURE);
+		assertEquals(2L, (long) metrics.getEventCounts().get("CHECK_THAT_LE"));
+		assertEquals(1, metrics.getNsuFailures());
+		assertEquals(0, metrics.getIllegalFlows());
+	}
+
+	@Test
+	public void testHighWaterMarks() {
+		MonitorMetrics.globalPCDepth(3);
+		MonitorMetrics.globalPCDepth(2);
+		MonitorMetrics.localPCDepth(5);
+		assertEquals(3, metrics.getMaxGlobalPCDepth());
+		assertEquals(5, metrics.getMaxLocalPCDepth());
+		metrics.reset();
+		assertEquals(0, metrics.getMaxGlobalPCDepth());
+	}
+
+	@Test
+	public void testChecksAreTimed() {
+		MonitorMetrics.check(System.nanoTime());
+		MonitorMetrics.check(System.nanoTime());
+		assertEquals(2, metrics.getCheckCalls());
+		assertTrue(metrics.getCheckNanos() >= 0);
+	}
+
+	@Test
+	public void testHooksReceiveCounters() {
+		final List<Map<String, Long>> reports = new ArrayList<>();
+		MonitorMetrics.addHook(new MetricsHook() {
+			@Override
+			public void report(Map<String, Long> counters) {
+				reports.add(counters);
+			}
+		});
+		MonitorMetrics.event(SecurityMonitoringEvent.ILLEGAL_FLOW);
+		MonitorMetrics.report();
+		assertEquals(1, reports.size());
+		assertEquals(1L, (long) reports.get(0).get("ILLEGAL_FLOW"));
+		assertTrue(reports.get(0).containsKey("TrackedObjects"));
+	}
+}
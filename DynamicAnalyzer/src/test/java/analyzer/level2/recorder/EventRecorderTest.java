@@ -0,0 +1,115 @@
+package analyzer.level2.recorder;
+
+import static org.junit.Assert.assertEquals;
+
+import analyzer.level2.SecurityMonitoringEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class EventRecorderTest {
+
+	private File newTrace() throws IOException {
+		File trace = File.createTempFile("jgs-events", ".bin");
+		trace.deleteOnExit();
+		File levels = new File(trace.getPath() + ".levels");
+		levels.deleteOnExit();
+		Files.write(levels.toPath(), Arrays.asList("LOW", "HIGH"), StandardCharsets.UTF_8);
+		return trace;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer buffer = new EventRingBuffer(8, 42);
+		EventTraceWriter writer = new EventTraceWriter(trace);
+		buffer.record(SecurityMonitoringEvent.CHECK_THAT_LE.ordinal(), 7, 0, 1, 100);
+		buffer.record(SecurityMonitoringEvent.ILLEGAL_FLOW.ordinal(), EventRecorder.UNKNOWN_SITE,
+				1, EventRecorder.NO_LEVEL, 200);
+		writer.drain(buffer);
+		writer.close();
+
+		List<EventDecoder.Record> records = EventDecoder.read(trace);
+		assertEquals(2, records.size());
+		EventDecoder.Record first = records.get(0);
+		assertEquals(SecurityMonitoringEvent.CHECK_THAT_LE, first.event);
+		assertEquals(7, first.callSite);
+		assertEquals("LOW", first.level1);
+		assertEquals("HIGH", first.level2);
+		assertEquals(42, first.threadId);
+		assertEquals(100, first.nanoTime);
+		EventDecoder.Record second = records.get(1);
+		assertEquals(SecurityMonitoringEvent.ILLEGAL_FLOW, second.event);
+		assertEquals(EventRecorder.UNKNOWN_SITE, second.callSite);
+		assertEquals("HIGH", second.level1);
+		assertEquals("-", second.level2);
+	}
+
+	@Test
+	public void testOverflowDropsOldestRecords() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer buffer = new EventRingBuffer(4, 1);
+		EventTraceWriter writer = new EventTraceWriter(trace);
+		for (int i = 0; i < 10; i++) {
+			buffer.record(SecurityMonitoringEvent.PASSED.ordinal(), i, 0, 0, i);
+		}
+		writer.drain(buffer);
+		writer.close();
+
+		// the oldest record of a full buffer is the one, that the next record
+		// overwrites, so the flusher cannot tell whether it is torn
+		List<EventDecoder.Record> records = EventDecoder.read(trace);
+		assertEquals(3, records.size());
+		assertEquals(7, records.get(0).callSite);
+		assertEquals(9, records.get(2).callSite);
+		assertEquals(7, buffer.dropped());
+	}
+
+	@Test
+	public void testUnclosedTraceEndsAtFirstEmptyRecord() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer buffer = new EventRingBuffer(4, 1);
+		EventTraceWriter writer = new EventTraceWriter(trace);
+		buffer.record(SecurityMonitoringEvent.PASSED.ordinal(), 3, 0, 0, 1);
+		writer.drain(buffer);
+
+		assertEquals(1, EventDecoder.read(trace).size());
+		writer.close();
+	}
+
+	@Test
+	public void testBuffersOfDeadThreadsAreRemovedOnceDrained() throws Exception {
+		File trace = newTrace();
+		final List<EventRingBuffer> buffers = new CopyOnWriteArrayList<>();
+		Thread worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				EventRingBuffer b = new EventRingBuffer(4, Thread.currentThread());
+				buffers.add(b);
+				b.record(SecurityMonitoringEvent.PASSED.ordinal(), 5, 0, 0, 1);
+			}
+		});
+		worker.start();
+		worker.join();
+		EventRingBuffer alive = new EventRingBuffer(4, Thread.currentThread());
+		buffers.add(alive);
+		alive.record(SecurityMonitoringEvent.PASSED.ordinal(), 6, 0, 0, 2);
+
+		EventTraceWriter writer = new EventTraceWriter(trace);
+		TraceFlusher.flush(writer, buffers, new AtomicLong());
+		writer.close();
+
+		assertEquals(Arrays.asList(alive), buffers);
+		List<EventDecoder.Record> records = EventDecoder.read(trace);
+		assertEquals(2, records.size());
+		assertEquals(5, records.get(0).callSite);
+	}
+}
@@ -0,0 +1,59 @@
+package analyzer.level2.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SiteProfileTest {
+
+	private static final String MAIN = "<Main: void main(java.lang.String[])>";
+
+	private File newProfile() throws IOException {
+		File profile = File.createTempFile("jgs-profile", ".txt");
+		profile.deleteOnExit();
+		SiteProfile.sitesOf(profile).deleteOnExit();
+		return profile;
+	}
+
+	@Test
+	public void testProfileIsKeyedBySite() throws IOException {
+		File profile = newProfile();
+		List<String> sites = Arrays.asList(SiteProfile.key(MAIN, 3, "checkLocalPC"),
+		                                   SiteProfile.key(MAIN, 3, "assignLocal"),
+		                                   SiteProfile.key(MAIN, 12, "checkThatLe"));
+		SiteProfile.writeSites(profile, sites);
+		assertEquals(sites, Files.readAllLines(SiteProfile.sitesOf(profile).toPath(),
+		                                       StandardCharsets.UTF_8));
+
+		SiteProfile.write(profile, sites, new long[] {5000, 0, 7});
+		assertEquals(MAIN + "\t12\tcheckThatLe\t7",
+		             Files.readAllLines(profile.toPath(), StandardCharsets.UTF_8).get(2));
+
+		Map<String, Long> counts = SiteProfile.read(profile);
+		assertEquals(3, counts.size());
+		assertEquals(5000L, (long) counts.get(SiteProfile.key(MAIN, 3, "checkLocalPC")));
+		assertEquals(0L, (long) counts.get(SiteProfile.key(MAIN, 3, "assignLocal")));
+		assertFalse(counts.containsKey(SiteProfile.key(MAIN, 12, "checkLocalPC")));
+	}
+
+	/**
+	 * The profiles of several runs can be concatenated.
+	 */
+	@Test
+	public void testCountsOfConcatenatedProfilesAreAdded() throws IOException {
+		File profile = newProfile();
+		String site = SiteProfile.key(MAIN, 3, "checkLocalPC");
+		Files.write(profile.toPath(), Arrays.asList(site + "\t10", "", site + "\t32"),
+		            StandardCharsets.UTF_8);
+		assertEquals(42L, (long) SiteProfile.read(profile).get(site));
+	}
+}
@@ -0,0 +1,190 @@
+package analyzer.level2.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import de.unifreiburg.cs.proglang.jgs.rt.LowMediumHigh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TraceReplayTest {
+
+	private static final int X = 0;
+	private static final int Y = 1;
+	private static final int LOW = 0;
+	private static final int HIGH = 1;
+
+	private File newTrace() throws IOException {
+		File trace = File.createTempFile("jgs-ops", ".bin");
+		trace.deleteOnExit();
+		File names = new File(trace.getPath() + ".names");
+		names.deleteOnExit();
+		Files.write(names.toPath(), Arrays.asList("int_x", "int_y"), StandardCharsets.UTF_8);
+		File levels = new File(trace.getPath() + ".levels");
+		levels.deleteOnExit();
+		Files.write(levels.toPath(), Arrays.asList("LOW", "HIGH"), StandardCharsets.UTF_8);
+		return trace;
+	}
+
+	private static void record(EventRingBuffer buffer, MonitorOperation op, int operand, int level) {
+		buffer.record(op.ordinal(), operand, level, 0, 0);
+	}
+
+	private static TraceReplay.Report replay(File trace, TraceReplay.Policy policy) throws IOException {
+		return new TraceReplay<>(new LowMediumHigh(), policy).replay(trace);
+	}
+
+	/**
+	 * y = x in a branch on the high local x, followed by an output of y
+	 * to a low sink.
+	 */
+	@Test
+	public void testSensitiveUpdate() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer buffer = new EventRingBuffer(32, 1);
+		EventTraceWriter writer = new EventTraceWriter(trace, EventTraceWriter.OPERATIONS_MAGIC);
+		record(buffer, MonitorOperation.ENTER, 0, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.ADD_LOCAL, X, HIGH);
+		record(buffer, MonitorOperation.ADD_LOCAL, Y, LOW);
+		record(buffer, MonitorOperation.JOIN_LOCAL, X, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.BRANCH, 7, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.CHECK_LOCAL, Y, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.ASSIGN, Y, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.EXIT_BRANCH, 7, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.CHECK_LE, Y, LOW);
+		record(buffer, MonitorOperation.CHECK_PC_LE, 0, LOW);
+		record(buffer, MonitorOperation.CLOSE, 0, EventRecorder.NO_LEVEL);
+		writer.drain(buffer);
+		writer.close();
+
+		TraceReplay.Report nsu = replay(trace, TraceReplay.Policy.NSU);
+		assertEquals(11, nsu.operations);
+		assertEquals(1, nsu.threads);
+		assertEquals(2L, (long) nsu.operationCounts.get(MonitorOperation.ADD_LOCAL));
+		assertEquals(3, nsu.checks);
+		assertEquals(2, nsu.violations);
+		assertEquals(1L, (long) nsu.violationCounts.get("NSUError: int_y"));
+		assertEquals(1L, (long) nsu.violationCounts.get("IllegalFlowError: int_y"));
+
+		// the hybrid enforcement does not check the update
+		TraceReplay.Report hybrid = replay(trace, TraceReplay.Policy.HYBRID);
+		assertEquals(2, hybrid.checks);
+		assertEquals(1, hybrid.violations);
+		assertEquals(1L, (long) hybrid.violationCounts.get("IllegalFlowError: int_y"));
+	}
+
+	/**
+	 * The same program as {@link TraceReplayTest#testSensitiveUpdate()}, as
+	 * it is recorded by the label variants of the HandleStmt: the levels of
+	 * the labels are set as observed, and the checks are keyed by the
+	 * signatures of the locals, so the label locals are tracked by the replay.
+	 */
+	@Test
+	public void testSensitiveUpdateOfLabelLocal() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer buffer = new EventRingBuffer(32, 1);
+		EventTraceWriter writer = new EventTraceWriter(trace, EventTraceWriter.OPERATIONS_MAGIC);
+		record(buffer, MonitorOperation.ENTER, 0, EventRecorder.NO_LEVEL);
+		// x$lbl = hs.labelFromLevel("int_x", HIGH); y$lbl = hs.assignArgumentToLabel(0, "int_y");
+		record(buffer, MonitorOperation.SET_LOCAL, X, HIGH);
+		record(buffer, MonitorOperation.SET_LOCAL, Y, LOW);
+		// hs.checkConditionWithLabels(7, x$lbl);
+		record(buffer, MonitorOperation.JOIN_LEVEL, 0, HIGH);
+		record(buffer, MonitorOperation.BRANCH, 7, EventRecorder.NO_LEVEL);
+		// hs.checkLocalPCWithLabel(y$lbl, "int_y"); y$lbl = hs.setLocalLabelToCurrentAssignmentLevel("int_y");
+		record(buffer, MonitorOperation.CHECK_LOCAL, Y, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.ASSIGN, Y, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.EXIT_BRANCH, 7, EventRecorder.NO_LEVEL);
+		// hs.checkThatLeWithLabel(y$lbl, "int_y", LOW);
+		record(buffer, MonitorOperation.CHECK_LE, Y, LOW);
+		record(buffer, MonitorOperation.CLOSE, 0, EventRecorder.NO_LEVEL);
+		writer.drain(buffer);
+		writer.close();
+
+		TraceReplay.Report nsu = replay(trace, TraceReplay.Policy.NSU);
+		assertEquals(2, nsu.checks);
+		assertEquals(1L, (long) nsu.violationCounts.get("NSUError: int_y"));
+		assertEquals(1L, (long) nsu.violationCounts.get("IllegalFlowError: int_y"));
+	}
+
+	/**
+	 * y is in the write effect of a branch on the high local x, but it is
+	 * not written, because the branch is not taken.
+	 */
+	@Test
+	public void testWriteEffectIsOnlyRaisedUnderHybrid() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer buffer = new EventRingBuffer(32, 1);
+		EventTraceWriter writer = new EventTraceWriter(trace, EventTraceWriter.OPERATIONS_MAGIC);
+		record(buffer, MonitorOperation.ENTER, 0, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.ADD_LOCAL, X, HIGH);
+		record(buffer, MonitorOperation.ADD_LOCAL, Y, LOW);
+		record(buffer, MonitorOperation.JOIN_LOCAL, X, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.BRANCH, 7, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.RAISE, Y, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.EXIT_BRANCH, 7, EventRecorder.NO_LEVEL);
+		record(buffer, MonitorOperation.CHECK_LE, Y, LOW);
+		writer.drain(buffer);
+		// the trace is not closed, the replay stops at the first empty record
+
+		assertEquals(0, replay(trace, TraceReplay.Policy.NSU).violations);
+		TraceReplay.Report hybrid = replay(trace, TraceReplay.Policy.HYBRID);
+		assertEquals(8, hybrid.operations);
+		assertEquals(1L, (long) hybrid.violationCounts.get("IllegalFlowError: int_y"));
+		writer.close();
+	}
+
+	@Test
+	public void testThreadsHaveTheirOwnContext() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer high = new EventRingBuffer(8, 1);
+		EventRingBuffer low = new EventRingBuffer(8, 2);
+		EventTraceWriter writer = new EventTraceWriter(trace, EventTraceWriter.OPERATIONS_MAGIC);
+		record(high, MonitorOperation.ENTER, 0, EventRecorder.NO_LEVEL);
+		record(high, MonitorOperation.PUSH_PC, 0, HIGH);
+		record(low, MonitorOperation.ENTER, 0, EventRecorder.NO_LEVEL);
+		record(low, MonitorOperation.CHECK_FIELD, X, LOW);
+		record(high, MonitorOperation.CHECK_FIELD, Y, LOW);
+		writer.drain(high);
+		writer.drain(low);
+		writer.close();
+
+		TraceReplay.Report report = replay(trace, TraceReplay.Policy.NSU);
+		assertEquals(2, report.threads);
+		assertEquals(1, report.violations);
+		assertEquals(1L, (long) report.violationCounts.get("NSUError: int_y"));
+		assertTrue(report.replayNanos > 0);
+	}
+
+	/**
+	 * A writer, that drains its full buffer itself, loses no operations,
+	 * even though the buffer is much smaller than the trace.
+	 */
+	@Test
+	public void testFullBufferIsDrainedWithoutLoss() throws IOException {
+		File trace = newTrace();
+		EventRingBuffer buffer = new EventRingBuffer(4, 1);
+		EventTraceWriter writer = new EventTraceWriter(trace, EventTraceWriter.OPERATIONS_MAGIC);
+		record(buffer, MonitorOperation.ENTER, 0, EventRecorder.NO_LEVEL);
+		for (int i = 0; i < 20; i++) {
+			if (buffer.isFull()) {
+				TraceFlusher.drainNow(writer, buffer);
+			}
+			record(buffer, i % 2 == 0 ? MonitorOperation.BRANCH : MonitorOperation.EXIT_BRANCH,
+			       7, EventRecorder.NO_LEVEL);
+		}
+		writer.drain(buffer);
+		writer.close();
+
+		TraceReplay.Report report = replay(trace, TraceReplay.Policy.NSU);
+		assertEquals(21, report.operations);
+		assertEquals(10L, (long) report.operationCounts.get(MonitorOperation.BRANCH));
+		assertEquals(0, buffer.dropped());
+	}
+}
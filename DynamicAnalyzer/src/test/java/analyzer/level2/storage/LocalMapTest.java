@@ -1,6 +1,8 @@
 package analyzer.level2.storage;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import analyzer.level2.CurrentSecurityDomain;
 import analyzer.level2.HandleStmt;
@@ -38,6 +40,75 @@ public class LocalMapTest {
 		assertSame(CurrentSecurityDomain.bottom(), lm.getLevel("a"));
 	}
 
+	@Test
+	public void testLocalPCStack() {
+		LocalMap lm = new LocalMap();
+		// More entries than the initial capacity, bottom and top interleaved
+		for (int i = 0; i < 40; i++) {
+			lm.pushLocalPC(i % 10 < 5 ? CurrentSecurityDomain.bottom() : CurrentSecurityDomain.top(), i);
+		}
+		for (int i = 39; i >= 0; i--) {
+			assertTrue(lm.dominatorIdentityEquals(i));
+			assertSame(i % 10 < 5 ? CurrentSecurityDomain.bottom() : CurrentSecurityDomain.top(), lm.getLocalPC());
+			lm.popLocalPC(i);
+		}
+		assertSame(CurrentSecurityDomain.bottom(), lm.getLocalPC());
+		lm.isEmptyLPC();
+	}
+
+	/**
+	 * Bottom entries with the same identity share a run of the bottom
+	 * prefix, but each of them is popped on its own.
+	 */
+	@Test
+	public void testLocalPCStackOfBottomRuns() {
+		LocalMap lm = new LocalMap();
+		int[] identities = {1, 1, 2, 2, 2, 1};
+		for (int identity : identities) {
+			lm.pushLocalPC(CurrentSecurityDomain.bottom(), identity);
+		}
+		lm.pushLocalPC(CurrentSecurityDomain.top(), 1);
+		lm.pushLocalPC(CurrentSecurityDomain.bottom(), 3);
+		assertTrue(lm.dominatorIdentityEquals(3));
+		assertSame(CurrentSecurityDomain.bottom(), lm.getLocalPC());
+		lm.popLocalPC(3);
+		assertSame(CurrentSecurityDomain.top(), lm.getLocalPC());
+		lm.popLocalPC(1);
+		for (int i = identities.length - 1; i >= 0; i--) {
+			assertTrue(lm.dominatorIdentityEquals(identities[i]));
+			assertSame(CurrentSecurityDomain.bottom(), lm.getLocalPC());
+			lm.popLocalPC(identities[i]);
+		}
+		lm.isEmptyLPC();
+	}
+
+	/**
+	 * The raised locals, that are not tracked, are skipped. A local, that is
+	 * tracked later, is raised by the next raise of the same site.
+	 */
+	@Test
+	public void testRaiseLevelsSkipsUntrackedLocals() {
+		LocalMap lm = new LocalMap();
+		String table = "a;b;c";
+		String indices = "\u0000\u0002";
+		lm.setToBottom("a");
+		lm.raiseLevels(table, indices, CurrentSecurityDomain.top());
+		assertSame(CurrentSecurityDomain.top(), lm.getLevel("a"));
+		assertFalse(lm.isTracked("c"));
+
+		lm.setToBottom("c");
+		lm.raiseLevels(table, indices, CurrentSecurityDomain.top());
+		assertSame(CurrentSecurityDomain.top(), lm.getLevel("c"));
+		assertFalse(lm.isTracked("b"));
+
+		// after a reset, the site is resolved again
+		lm.reset();
+		lm.setToBottom("c");
+		lm.raiseLevels(table, indices, CurrentSecurityDomain.top());
+		assertFalse(lm.isTracked("a"));
+		assertSame(CurrentSecurityDomain.top(), lm.getLevel("c"));
+	}
+
 	@Test
 	public void testPrintElements() {
 		LocalMap lm = new LocalMap();
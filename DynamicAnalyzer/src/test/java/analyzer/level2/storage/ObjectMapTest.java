@@ -1,8 +1,10 @@
 package analyzer.level2.storage;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import analyzer.level2.CurrentSecurityDomain;
 import analyzer.level2.HandleStmt;
@@ -119,4 +121,98 @@ public class ObjectMapTest {
 	}
 
 
+	@Test
+	public void threadContextTest() throws InterruptedException {
+
+		logger.info("THREAD CONTEXT TEST STARTED");
+
+		ObjectMap m = ObjectMap.getInstance();
+		Object shared = new Object();
+		m.pushGlobalPC(CurrentSecurityDomain.top());
+		m.setField(shared, "<int i1>", CurrentSecurityDomain.top());
+
+		// Another thread has its own GPC, but sees the same objects
+		Object[] seen = new Object[2];
+		Thread t = new Thread(() -> {
+			seen[0] = m.getGlobalPC();
+			seen[1] = m.getFieldLevel(shared, "<int i1>");
+		});
+		t.start();
+		t.join();
+
+		assertEquals(CurrentSecurityDomain.bottom(), seen[0]);
+		assertEquals(CurrentSecurityDomain.top(), seen[1]);
+		assertEquals(CurrentSecurityDomain.top(), m.getGlobalPC());
+
+		logger.info("THREAD CONTEXT TEST FINISHED");
+	}
+
+	@Test
+	public void sparseFieldsTest() {
+
+		logger.info("SPARSE FIELDS TEST STARTED");
+
+		ObjectMap m = ObjectMap.getInstance();
+		Object o = new Object();
+		String f = "<int i1>";
+
+		// Reading and lowering do not insert the object
+		assertEquals(CurrentSecurityDomain.bottom(), m.getFieldLevel(o, f));
+		m.setField(o, f, CurrentSecurityDomain.bottom());
+		assertFalse(m.containsObject(o));
+
+		// Raising inserts it
+		m.setField(o, f, CurrentSecurityDomain.top());
+		assertTrue(m.containsField(o, f));
+		assertEquals(CurrentSecurityDomain.top(), m.getFieldLevel(o, f));
+
+		logger.info("SPARSE FIELDS TEST FINISHED");
+	}
+
+	@Test
+	public void arrayRangesTest() {
+
+		logger.info("ARRAY RANGES TEST STARTED");
+
+		ObjectMap m = ObjectMap.getInstance();
+		int[] a = new int[100];
+		int[] b = new int[100];
+
+		// Filling the whole array keeps a single level
+		assertTrue(m.fillArrayFields(a, 0, 100, CurrentSecurityDomain.top()));
+		assertEquals(CurrentSecurityDomain.top(), m.getArrayFieldLevel(a, 42));
+		assertEquals(CurrentSecurityDomain.top(), m.getArrayRangeLevel(a, 0, 100));
+
+		// A part of it
+		m.fillArrayFields(a, 10, 20, CurrentSecurityDomain.bottom());
+		assertEquals(CurrentSecurityDomain.bottom(), m.getArrayFieldLevel(a, 10));
+		assertEquals(CurrentSecurityDomain.top(), m.getArrayFieldLevel(a, 20));
+		assertEquals(CurrentSecurityDomain.bottom(), m.getArrayRangeLevel(a, 5, 15));
+		assertEquals(CurrentSecurityDomain.top(), m.getArrayRangeLevel(a, 20, 100));
+
+		// Copying tracks the destination
+		assertFalse(m.containsObject(b));
+		assertTrue(m.copyArrayFields(a, 5, b, 0, 10, CurrentSecurityDomain.bottom()));
+		assertTrue(m.containsObject(b));
+		assertEquals(CurrentSecurityDomain.top(), m.getArrayFieldLevel(b, 4));
+		assertEquals(CurrentSecurityDomain.bottom(), m.getArrayFieldLevel(b, 5));
+		assertEquals(CurrentSecurityDomain.bottom(), m.getArrayFieldLevel(b, 10));
+
+		// Overlapping copies behave like System.arraycopy
+		m.copyArrayFields(a, 10, a, 15, 10, CurrentSecurityDomain.bottom());
+		assertEquals(CurrentSecurityDomain.bottom(), m.getArrayFieldLevel(a, 24));
+		assertEquals(CurrentSecurityDomain.top(), m.getArrayFieldLevel(a, 25));
+
+		// The copied levels are joined with the given level
+		m.copyArrayFields(a, 10, b, 50, 5, CurrentSecurityDomain.top());
+		assertEquals(CurrentSecurityDomain.top(), m.getArrayFieldLevel(b, 52));
+
+		// Invalid ranges are ignored
+		assertFalse(m.copyArrayFields(a, 95, b, 0, 10, CurrentSecurityDomain.top()));
+		assertFalse(m.fillArrayFields(a, 20, 10, CurrentSecurityDomain.top()));
+		assertEquals(CurrentSecurityDomain.bottom(), m.getArrayFieldLevel(b, 5));
+
+		logger.info("ARRAY RANGES TEST FINISHED");
+	}
+
 }
@@ -1,5 +1,6 @@
 package classfiletests.utils;
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import analyzer.level2.storage.LowMediumHigh;
@@ -39,6 +40,21 @@ public class ClassCompiler {
 				+ outputDir);
 	}
 
+	/**
+	 * Same as {@link ClassCompiler#compile(String, String)}, with additional
+	 * options of the instrumentation, e.g. <code>-labelparameters</code>.
+	 */
+	public static void compile(String name, String outputDir, String... options) {
+
+		String[] args = {"-m", "testclasses." + name, "-o", "sootOutput/" + outputDir};
+		String[] all = Arrays.copyOf(args, args.length + options.length);
+		System.arraycopy(options, 0, all, args.length, options.length);
+		logger.info("Compilation of src file started with options " + Arrays.toString(options));
+		Main.execute(all, FixedTypings.allDynamic(), casts);
+		logger.info("Compilation successful, binary put in sootOutput/"
+				+ outputDir);
+	}
+
 	public static void compileWithFakeTyping(String name, String outputDir,
 											 MethodTypings<LowMediumHigh.Level> methodTypings) {
 
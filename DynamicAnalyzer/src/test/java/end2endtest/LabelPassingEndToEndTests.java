@@ -0,0 +1,29 @@
+package end2endtest;
+
+import analyzer.level2.SecurityMonitoringEvent;
+import classfiletests.utils.ClassCompiler;
+import classfiletests.utils.ClassRunner;
+import main.Main;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs testclasses, that are instrumented with label-passing clones, i.e.
+ * with the option <code>-labelparameters</code>.
+ */
+public class LabelPassingEndToEndTests {
+
+	@Before
+	public void setupLogger() {
+		Main.setupLogger();
+	}
+
+	@Test
+	public void testVirtualCallDispatchesToOverride() {
+		String name = "LabelPassingOverrideSuccess";
+		String outputDir = "junit-labelparameters";
+		ClassCompiler.compile(name, outputDir, "-labelparameters");
+		ClassRunner.testClass(name, outputDir, "testclasses",
+		                      SecurityMonitoringEvent.PASSED, new String[] {});
+	}
+}
@@ -0,0 +1,390 @@
+package de.unifreiburg.cs.proglang.jgs.constraints.secdomains;
+
+import de.unifreiburg.cs.proglang.jgs.constraints.secdomains.UserDefined.Edge;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * The compiled form of a {@link UserDefined} security domain. The levels are
+ * interned to ordinals, which are their positions in the sorted list of
+ * level names. Least upper and greatest lower bounds are looked up in
+ * <code>int[][]</code> tables and the ordering is a bitset per level, such
+ * that the int API does not allocate.
+ */
+public final class CompiledLattice {
+
+    /** The first four bytes of an artifact, "JGSL". */
+    private static final int MAGIC = 0x4A47534C;
+    private static final int VERSION = 1;
+
+    private final String[] names;
+    private final Map<String, Integer> ordinals;
+    private final int[][] lubTable;
+    private final int[][] glbTable;
+    /** leBits[i] has the bit j set, iff level i is less or equal to level j. */
+    private final long[][] leBits;
+    private final int top;
+    private final int bottom;
+
+    private CompiledLattice(String[] names, Map<String, Integer> ordinals,
+                            int[][] lubTable, int[][] glbTable, long[][] leBits,
+                            int top, int bottom) {
+        this.names = names;
+        this.ordinals = ordinals;
+        this.lubTable = lubTable;
+        this.glbTable = glbTable;
+        this.leBits = leBits;
+        this.top = top;
+        this.bottom = bottom;
+    }
+
+    /**
+     * Compiles the tables of a security domain. A pair of levels, that has
+     * no entry in <code>lubMap</code> or <code>glbMap</code>, gets the
+     * ordinal -1. The ordering is the reflexive and transitive closure of
+     * <code>lt</code>.
+     */
+    public static CompiledLattice compile(Set<String> levels, Set<Edge> lt,
+                                          Map<Edge, String> lubMap,
+                                          Map<Edge, String> glbMap,
+                                          String topLevel, String bottomLevel) {
+        String[] names = levels.toArray(new String[0]);
+        Arrays.sort(names);
+        int n = names.length;
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ordinals.put(names[i], i);
+        }
+
+        int[][] lubTable = new int[n][n];
+        int[][] glbTable = new int[n][n];
+        long[][] leBits = new long[n][(n + 63) >>> 6];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                Edge e = new Edge(names[i], names[j]);
+                lubTable[i][j] = ordinalOrMissing(ordinals, lubMap.get(e));
+                glbTable[i][j] = ordinalOrMissing(ordinals, glbMap.get(e));
+                if (i == j || lt.contains(e)) {
+                    leBits[i][j >>> 6] |= 1L << j;
+                }
+            }
+        }
+        // close the ordering transitively, as lt may only contain the essential edges
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                if ((leBits[i][k >>> 6] & (1L << k)) != 0) {
+                    for (int w = 0; w < leBits[i].length; w++) {
+                        leBits[i][w] |= leBits[k][w];
+                    }
+                }
+            }
+        }
+        return new CompiledLattice(names, ordinals, lubTable, glbTable, leBits,
+                                   ordinalOrMissing(ordinals, topLevel),
+                                   ordinalOrMissing(ordinals, bottomLevel));
+    }
+
+    private static int ordinalOrMissing(Map<String, Integer> ordinals, String level) {
+        Integer i = level == null ? null : ordinals.get(level);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return the ordinal of the given level, or -1 if it is not a level of the domain.
+     */
+    public int ordinal(String level) {
+        return ordinalOrMissing(ordinals, level);
+    }
+
+    /**
+     * @return the level with the given ordinal, or null if the ordinal is -1.
+     */
+    public String level(int ordinal) {
+        return ordinal < 0 ? null : names[ordinal];
+    }
+
+    /**
+     * @return the number of levels.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    public int top() {
+        return top;
+    }
+
+    public int bottom() {
+        return bottom;
+    }
+
+    public int lub(int l1, int l2) {
+        return lubTable[l1][l2];
+    }
+
+    public int glb(int l1, int l2) {
+        return glbTable[l1][l2];
+    }
+
+    public boolean le(int l1, int l2) {
+        return (leBits[l1][l2 >>> 6] & (1L << l2)) != 0;
+    }
+
+    // <editor-fold desc="Artifacts">
+
+    /**
+     * Writes the lattice as a binary artifact.
+     *
+     * @param specChecksum The checksum of the specification, that the lattice
+     *                     was compiled from. See {@link #readChecksum(File)}.
+     */
+    public void write(File file, long specChecksum) throws IOException {
+        int n = names.length;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(specChecksum);
+            out.writeInt(n);
+            out.writeInt(top);
+            out.writeInt(bottom);
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (int[][] table : new int[][][]{lubTable, glbTable}) {
+                for (int[] row : table) {
+                    for (int entry : row) {
+                        out.writeInt(entry);
+                    }
+                }
+            }
+            for (long[] row : leBits) {
+                for (long word : row) {
+                    out.writeLong(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the checksum of the specification from the header of an
+     * artifact, without loading the tables.
+     *
+     * @throws IOException if the file is not an artifact of this version.
+     */
+    public static long readChecksum(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            checkHeader(file, in.readInt(), in.readInt());
+            return in.readLong();
+        }
+    }
+
+    /**
+     * Loads a lattice from an artifact, which is mapped into memory.
+     *
+     * @throws IOException if the file is not an artifact of this version or truncated.
+     */
+    public static CompiledLattice load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(file, buf.getInt(), buf.getInt());
+            buf.getLong();
+            int n = buf.getInt();
+            int top = buf.getInt();
+            int bottom = buf.getInt();
+            String[] names = new String[n];
+            Map<String, Integer> ordinals = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                byte[] bytes = new byte[buf.getInt()];
+                buf.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+                ordinals.put(names[i], i);
+            }
+            int[][] lubTable = readTable(buf, n);
+            int[][] glbTable = readTable(buf, n);
+            long[][] leBits = new long[n][(n + 63) >>> 6];
+            for (long[] row : leBits) {
+                buf.asLongBuffer().get(row);
+                buf.position(buf.position() + 8 * row.length);
+            }
+            return new CompiledLattice(names, ordinals, lubTable, glbTable, leBits, top, bottom);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, NegativeArraySizeException, ...
+            throw new IOException("Corrupt security domain artifact " + file + ": " + e, e);
+        }
+    }
+
+    private static int[][] readTable(ByteBuffer buf, int n) {
+        int[][] table = new int[n][n];
+        for (int[] row : table) {
+            buf.asIntBuffer().get(row);
+            buf.position(buf.position() + 4 * n);
+        }
+        return table;
+    }
+
+    private static void checkHeader(File file, int magic, int version) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("Not a security domain artifact: " + file);
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported version " + version
+                                  + " of security domain artifact " + file);
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Views">
+
+    /**
+     * @return the level names, as an unmodifiable set.
+     */
+    public Set<String> levelSet() {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(names)));
+    }
+
+    /**
+     * @return the strict ordering, as an unmodifiable set of edges backed by the bitsets.
+     */
+    public Set<Edge> ltSet() {
+        return new AbstractSet<Edge>() {
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Edge)) return false;
+                Edge e = (Edge) o;
+                int i = ordinal(e.left);
+                int j = ordinal(e.right);
+                return i >= 0 && j >= 0 && i != j && le(i, j);
+            }
+
+            @Override
+            public Iterator<Edge> iterator() {
+                return pairs(null);
+            }
+
+            @Override
+            public int size() {
+                int result = 0;
+                for (long[] row : leBits) {
+                    for (long word : row) {
+                        result += Long.bitCount(word);
+                    }
+                }
+                return result - names.length;
+            }
+        };
+    }
+
+    /**
+     * @return the least upper bounds, as an unmodifiable map backed by the
+     * lub table. Pairs without a least upper bound have no entry.
+     */
+    public Map<Edge, String> lubMap() {
+        return tableView(lubTable);
+    }
+
+    /**
+     * @return the greatest lower bounds, as an unmodifiable map backed by the
+     * glb table. Pairs without a greatest lower bound have no entry.
+     */
+    public Map<Edge, String> glbMap() {
+        return tableView(glbTable);
+    }
+
+    private Map<Edge, String> tableView(final int[][] table) {
+        return new AbstractMap<Edge, String>() {
+            @Override
+            public String get(Object o) {
+                if (!(o instanceof Edge)) return null;
+                Edge e = (Edge) o;
+                int i = ordinal(e.left);
+                int j = ordinal(e.right);
+                return i < 0 || j < 0 ? null : level(table[i][j]);
+            }
+
+            @Override
+            public boolean containsKey(Object o) {
+                return get(o) != null;
+            }
+
+            @Override
+            public Set<Entry<Edge, String>> entrySet() {
+                return new AbstractSet<Entry<Edge, String>>() {
+                    @Override
+                    public Iterator<Entry<Edge, String>> iterator() {
+                        final Iterator<Edge> keys = pairs(table);
+                        return new Iterator<Entry<Edge, String>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return keys.hasNext();
+                            }
+
+                            @Override
+                            public Entry<Edge, String> next() {
+                                Edge e = keys.next();
+                                return new SimpleImmutableEntry<>(e, get(e));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        int result = 0;
+                        for (int[] row : table) {
+                            for (int entry : row) {
+                                if (entry >= 0) result++;
+                            }
+                        }
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Iterates over the pairs of levels, either the pairs, that have an
+     * entry in the given table, or, if it is null, the pairs of the strict
+     * ordering.
+     */
+    private Iterator<Edge> pairs(final int[][] table) {
+        return new Iterator<Edge>() {
+            private int next = advance(-1);
+
+            private int advance(int from) {
+                int n = names.length;
+                for (int k = from + 1; k < n * n; k++) {
+                    int i = k / n;
+                    int j = k % n;
+                    if (table == null ? i != j && le(i, j) : table[i][j] >= 0) return k;
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Edge next() {
+                if (next < 0) throw new NoSuchElementException();
+                int n = names.length;
+                Edge e = new Edge(names[next / n], names[next % n]);
+                next = advance(next);
+                return e;
+            }
+        };
+    }
+
+    // </editor-fold>
+}
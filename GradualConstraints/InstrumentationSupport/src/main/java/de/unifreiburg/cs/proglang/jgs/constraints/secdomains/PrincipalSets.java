@@ -0,0 +1,247 @@
+package de.unifreiburg.cs.proglang.jgs.constraints.secdomains;
+
+import de.unifreiburg.cs.proglang.jgs.constraints.SecDomain;
+import de.unifreiburg.cs.proglang.jgs.signatures.parse.AnnotationParser;
+import scala.Option;
+
+import java.util.*;
+
+/**
+ * The powerset lattice over a fixed list of principals. A level is the set of
+ * principals, that may observe a value, ordered by inclusion: the empty set
+ * is bottom and the set of all principals is top.
+ *
+ * Levels are written as <code>{alice,bob}</code>. Up to 64 principals a level
+ * is a single <code>long</code>, where bit i stands for the i-th principal,
+ * such that lub, glb and le are a single OR, AND and subset test. Above 64
+ * principals the levels are backed by a {@link BitSet}.
+ */
+public class PrincipalSets implements SecDomain<PrincipalSets.Level> {
+
+    /**
+     * A set of principals. Levels of different domains should not be mixed.
+     */
+    public static final class Level {
+
+        private final PrincipalSets domain;
+        /** The principals of the set, if the domain has at most 64 principals. */
+        private final long bits;
+        /** The principals of the set, if the domain has more than 64 principals, otherwise null. */
+        private final BitSet wideBits;
+
+        private Level(PrincipalSets domain, long bits, BitSet wideBits) {
+            this.domain = domain;
+            this.bits = bits;
+            this.wideBits = wideBits;
+        }
+
+        /**
+         * @return true, if the i-th principal of the domain is in the set.
+         */
+        public boolean contains(int i) {
+            return wideBits == null ? (bits & (1L << i)) != 0 : wideBits.get(i);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Level level = (Level) o;
+            return bits == level.bits && Objects.equals(wideBits, level.wideBits);
+        }
+
+        @Override
+        public int hashCode() {
+            return wideBits == null ? Long.hashCode(bits) : wideBits.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder("{");
+            for (int i = 0; i < domain.principals.length; i++) {
+                if (contains(i)) {
+                    if (result.length() > 1) result.append(",");
+                    result.append(domain.principals[i]);
+                }
+            }
+            return result.append("}").toString();
+        }
+    }
+
+    private final String[] principals;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final boolean wide;
+    private final Level bottom;
+    private final Level top;
+
+    /**
+     * @param principals The principals of the domain. Their order determines
+     *                   the bit of each principal and the order, in which they
+     *                   are printed.
+     */
+    public PrincipalSets(List<String> principals) {
+        this.principals = principals.toArray(new String[0]);
+        for (int i = 0; i < this.principals.length; i++) {
+            String p = this.principals[i];
+            if (p.isEmpty() || p.contains(",") || p.contains("{") || p.contains("}")
+                || !p.trim().equals(p)) {
+                throw new IllegalArgumentException("Illegal principal name: \"" + p + "\"");
+            }
+            if (indices.put(p, i) != null) {
+                throw new IllegalArgumentException("Duplicate principal: " + p);
+            }
+        }
+        this.wide = this.principals.length > 64;
+        if (wide) {
+            BitSet all = new BitSet(this.principals.length);
+            all.set(0, this.principals.length);
+            this.bottom = new Level(this, 0, new BitSet(this.principals.length));
+            this.top = new Level(this, 0, all);
+        } else {
+            long all = this.principals.length == 64 ? -1L : (1L << this.principals.length) - 1;
+            this.bottom = new Level(this, 0, null);
+            this.top = new Level(this, all, null);
+        }
+    }
+
+    /**
+     * @return the principals of the domain, in the order of their bits.
+     */
+    public List<String> principals() {
+        return Collections.unmodifiableList(Arrays.asList(principals));
+    }
+
+    /**
+     * @return the level, that contains exactly the given principals.
+     * @throws UnknownSecurityLevelException if one of the principals is not part of the domain.
+     */
+    public Level level(String... members) {
+        long bits = 0;
+        BitSet wideBits = wide ? new BitSet(principals.length) : null;
+        for (String p : members) {
+            Integer i = indices.get(p);
+            if (i == null) {
+                throw new UnknownSecurityLevelException(p);
+            }
+            if (wide) {
+                wideBits.set(i);
+            } else {
+                bits |= 1L << i;
+            }
+        }
+        return new Level(this, bits, wideBits);
+    }
+
+    @Override
+    public Level bottom() {
+        return bottom;
+    }
+
+    @Override
+    public Level top() {
+        return top;
+    }
+
+    @Override
+    public Level lub(Level l1, Level l2) {
+        if (!wide) {
+            return new Level(this, l1.bits | l2.bits, null);
+        }
+        BitSet result = (BitSet) l1.wideBits.clone();
+        result.or(l2.wideBits);
+        return new Level(this, 0, result);
+    }
+
+    @Override
+    public Level glb(Level l1, Level l2) {
+        if (!wide) {
+            return new Level(this, l1.bits & l2.bits, null);
+        }
+        BitSet result = (BitSet) l1.wideBits.clone();
+        result.and(l2.wideBits);
+        return new Level(this, 0, result);
+    }
+
+    @Override
+    public boolean le(Level l1, Level l2) {
+        if (!wide) {
+            return (l1.bits & ~l2.bits) == 0;
+        }
+        BitSet rest = (BitSet) l1.wideBits.clone();
+        rest.andNot(l2.wideBits);
+        return rest.isEmpty();
+    }
+
+    public AnnotationParser<Level> levelParser() {
+        return new AnnotationParser<Level>() {
+            @Override
+            public Option<Level> parse(String input) {
+                try {
+                    return Option.apply(readLevel(input));
+                } catch (UnknownSecurityLevelException e) {
+                    return Option.empty();
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads a level of the form <code>{alice,bob}</code>. Whitespace around
+     * the principals is ignored and <code>{}</code> is bottom.
+     */
+    @Override
+    public Level readLevel(String s) {
+        String trimmed = s.trim();
+        if (!trimmed.startsWith("{") || !trimmed.endsWith("}")) {
+            throw new UnknownSecurityLevelException(s);
+        }
+        String body = trimmed.substring(1, trimmed.length() - 1).trim();
+        if (body.isEmpty()) {
+            return bottom;
+        }
+        String[] members = body.split(",");
+        for (int i = 0; i < members.length; i++) {
+            members[i] = members[i].trim();
+            if (!indices.containsKey(members[i])) {
+                throw new UnknownSecurityLevelException(s);
+            }
+        }
+        return level(members);
+    }
+
+    /**
+     * Enumerates all 2^n levels lazily, starting with bottom. This is only
+     * feasible for few principals, e.g. for the constraint solver of
+     * {@link de.unifreiburg.cs.proglang.jgs.constraints.NaiveConstraints}.
+     */
+    @Override
+    public Iterator<Level> enumerate() {
+        return new Iterator<Level>() {
+            // the next set as a binary counter, null when all sets were enumerated
+            private long[] next = new long[Math.max(1, (principals.length + 63) >>> 6)];
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Level next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Level result = wide
+                               ? new Level(PrincipalSets.this, 0, BitSet.valueOf(next))
+                               : new Level(PrincipalSets.this, next[0], null);
+                if (result.equals(top)) {
+                    next = null;
+                } else {
+                    for (int w = 0; w < next.length && ++next[w] == 0; w++) {
+                        // carry into the next word
+                    }
+                }
+                return result;
+            }
+        };
+    }
+}
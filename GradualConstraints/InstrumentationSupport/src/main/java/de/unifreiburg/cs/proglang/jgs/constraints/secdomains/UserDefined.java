@@ -7,6 +7,14 @@ import java.util.*;
 
 public class UserDefined implements SecDomain<String> {
 
+    /**
+     * The compiled lattices of the examples below, such that they are only
+     * compiled at their first construction. Other callers, that construct a
+     * domain repeatedly, share its compiled lattice by
+     * {@link UserDefined#UserDefined(CompiledLattice)}.
+     */
+    private static volatile CompiledLattice lowHighLattice;
+    private static volatile CompiledLattice aliceBobCharlieLattice;
 
     public final Set<String> levels;
     public final Set<Edge> lt;
@@ -14,16 +22,41 @@ public class UserDefined implements SecDomain<String> {
     public final Map<Edge, String> glbMap;
     public final String topLevel;
     public final String bottomLevel;
+    /** The tables, that are used by the operations of the domain. */
+    public final CompiledLattice compiled;
 
     public UserDefined(Set<String> levels, Set<Edge> lt, Map<Edge, String>
             lubMap, Map<Edge, String> glbMap, String topLevel, String
             bottomLevel) {
+        this(levels, lt, lubMap, glbMap, topLevel, bottomLevel,
+             CompiledLattice.compile(levels, lt, lubMap, glbMap,
+                                     topLevel, bottomLevel));
+    }
+
+    private UserDefined(Set<String> levels, Set<Edge> lt, Map<Edge, String>
+            lubMap, Map<Edge, String> glbMap, String topLevel, String
+            bottomLevel, CompiledLattice compiled) {
         this.levels = levels;
         this.lt = lt;
         this.lubMap = lubMap;
         this.glbMap = glbMap;
         this.topLevel = topLevel;
         this.bottomLevel = bottomLevel;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Creates the domain of a compiled lattice, e.g. one loaded from an
+     * artifact. The sets and maps of the domain are views of its tables.
+     */
+    public UserDefined(CompiledLattice compiled) {
+        this.levels = compiled.levelSet();
+        this.lt = compiled.ltSet();
+        this.lubMap = compiled.lubMap();
+        this.glbMap = compiled.glbMap();
+        this.topLevel = compiled.level(compiled.top());
+        this.bottomLevel = compiled.level(compiled.bottom());
+        this.compiled = compiled;
     }
 
     @Override
@@ -38,17 +71,24 @@ public class UserDefined implements SecDomain<String> {
 
     @Override
     public String lub(String l1, String l2) {
-        return lubMap.get(new Edge(l1, l2));
+        int i = compiled.ordinal(l1);
+        int j = compiled.ordinal(l2);
+        return i < 0 || j < 0 ? null : compiled.level(compiled.lub(i, j));
     }
 
     @Override
     public String glb(String l1, String l2) {
-        return glbMap.get(new Edge(l1, l2));
+        int i = compiled.ordinal(l1);
+        int j = compiled.ordinal(l2);
+        return i < 0 || j < 0 ? null : compiled.level(compiled.glb(i, j));
     }
 
     @Override
     public boolean le(String l1, String l2) {
-        return l1.equals(l2) || lt.contains(new Edge(l1, l2));
+        if (l1.equals(l2)) return true;
+        int i = compiled.ordinal(l1);
+        int j = compiled.ordinal(l2);
+        return i >= 0 && j >= 0 && compiled.le(i, j);
     }
 
     @Override
@@ -123,7 +163,12 @@ public class UserDefined implements SecDomain<String> {
             glbMap.put(new Edge("LOW", l), "LOW");
             glbMap.put(new Edge(l, "LOW"), "LOW");
         }
-        return new UserDefined(levels, lt, lubMap, glbMap, "HIGH", "LOW");
+        CompiledLattice compiled = lowHighLattice;
+        if (compiled == null) {
+            compiled = CompiledLattice.compile(levels, lt, lubMap, glbMap, "HIGH", "LOW");
+            lowHighLattice = compiled;
+        }
+        return new UserDefined(levels, lt, lubMap, glbMap, "HIGH", "LOW", compiled);
     }
     public static final UserDefined aliceBobCharlie() {
         Set<String> levels = new HashSet<>(Arrays.asList("BOT", "alice", "bob", "charlie", "TOP"));
@@ -138,7 +183,7 @@ public class UserDefined implements SecDomain<String> {
         for (String l : levels) {
             lubMap.put(new Edge(l, l), l);
             for (String l2 : levels) {
-                if (!l.equals(l2) && !l2.equals("BOT")) {
+                if (!l.equals(l2) && !l.equals("BOT") && !l2.equals("BOT")) {
                     lubMap.put(new Edge(l, l2), "TOP");
                     lubMap.put(new Edge(l2, l), "TOP");
                 }
@@ -152,9 +197,9 @@ public class UserDefined implements SecDomain<String> {
         for (String l : levels) {
             glbMap.put(new Edge(l, l), l);
             for (String l2 : levels) {
-                if (!l.equals(l2) && !l2.equals("TOP")) {
-                    lubMap.put(new Edge(l, l2), "BOT");
-                    lubMap.put(new Edge(l2, l), "BOT");
+                if (!l.equals(l2) && !l.equals("TOP") && !l2.equals("TOP")) {
+                    glbMap.put(new Edge(l, l2), "BOT");
+                    glbMap.put(new Edge(l2, l), "BOT");
                 }
             }
             glbMap.put(new Edge(l, "TOP"), l);
@@ -162,7 +207,12 @@ public class UserDefined implements SecDomain<String> {
             glbMap.put(new Edge("BOT", l), "BOT");
             glbMap.put(new Edge(l, "BOT"), "BOT");
         }
-        return new UserDefined(levels, lt, lubMap, glbMap, "TOP", "BOT");
+        CompiledLattice compiled = aliceBobCharlieLattice;
+        if (compiled == null) {
+            compiled = CompiledLattice.compile(levels, lt, lubMap, glbMap, "TOP", "BOT");
+            aliceBobCharlieLattice = compiled;
+        }
+        return new UserDefined(levels, lt, lubMap, glbMap, "TOP", "BOT", compiled);
     }
 
 }
@@ -1,6 +1,8 @@
 package de.unifreiburg.cs.proglang.jgs.constraints.secdomains
 
-import java.io.File
+import java.io.{File, IOException}
+import java.nio.file.{Files, StandardCopyOption}
+import java.util.zip.CRC32
 
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper
 import de.unifreiburg.cs.proglang.jgs.constraints.secdomains.UserDefined.Edge
@@ -34,11 +36,68 @@ object UserDefinedUtils {
                                       glbMap : java.util.Map[Edge, String],
                                       topLevel : String,
                                       bottomLevel : String) {
-    def writeToDir(dir : File): Unit = {
-      throw new RuntimeException("NOT IMPLEMENTED")
+    /**
+      * Compile the parameters and write them as a binary artifact `artifactName` into `dir`.
+      * The artifact is written to a temporary file, that is then moved into place atomically,
+      * such that a concurrent `loadOrCompile` never sees a partially written artifact.
+      *
+      * @param specChecksum the checksum of the specification (see `specChecksum`), used to detect stale artifacts
+      * @return the written artifact
+      */
+    def writeToDir(dir : File, specChecksum : Long): File = {
+      dir.mkdirs()
+      val artifact = new File(dir, artifactName)
+      val tmp = File.createTempFile(artifactName, ".tmp", dir)
+      try {
+        CompiledLattice.compile(levels, lt, lubMap, glbMap, topLevel, bottomLevel).write(tmp, specChecksum)
+        Files.move(tmp.toPath, artifact.toPath, StandardCopyOption.ATOMIC_MOVE)
+      } finally {
+        Files.deleteIfExists(tmp.toPath)
+      }
+      artifact
     }
   }
 
+  /**
+    * The file name of a compiled security domain in an artifact directory.
+    */
+  val artifactName = "secdomain.jgsl"
+
+  /**
+    * The CRC32 checksum of a security domain specification file.
+    */
+  def specChecksum(jsonFile : File) : Long = {
+    val crc = new CRC32()
+    crc.update(Files.readAllBytes(jsonFile.toPath))
+    crc.getValue
+  }
+
+  /**
+    * Load the domain specified in `jsonFile` from its artifact in `artifactDir`, if the artifact was
+    * compiled from the current content of `jsonFile` and can be loaded. Otherwise, e.g. if the artifact
+    * is stale or corrupt, the domain is constructed from the specification and the artifact is (re)written.
+    */
+  def loadOrCompile(jsonFile : File, artifactDir : File) : UserDefined = {
+    val checksum = specChecksum(jsonFile)
+    val artifact = new File(artifactDir, artifactName)
+    val loaded =
+      if (artifact.isFile && Try(CompiledLattice.readChecksum(artifact)).toOption == Some(checksum)) load(artifact)
+      else None
+    loaded.getOrElse {
+      val spec = fromJSon(jsonFile)
+      val params = secDomainParameters(spec.levels, spec.edges)
+      params.writeToDir(artifactDir, checksum)
+      new UserDefined(params.levels, params.lt, params.lubMap, params.glbMap, params.topLevel, params.bottomLevel)
+    }
+  }
+
+  private def load(artifact : File) : Option[UserDefined] =
+    try {
+      Some(new UserDefined(CompiledLattice.load(artifact)))
+    } catch {
+      case _ : IOException => None
+    }
+
   // TODO: there is a duplicate of this code in JgsCheck. They should be merged.
   val parseJson = {
     val yamlMapper = new YAMLMapper()
@@ -66,14 +125,7 @@ object UserDefinedUtils {
     * Create a domainspec directly from a JSON or YAML file.
     */
   def fromJSon(jsonFile : File) : Spec = {
-    val domainSpecJson = Try(parseJson(Source.fromFile(jsonFile).mkString)) match {
-      case Failure(exc) =>
-        throw new IllegalArgumentException(
-          s"Error parsing security domain specification ${jsonFile}: ${exc.getMessage}"
-        )
-      case Success(json) => json
-    }
-    val domainSpec = UserDefinedUtils.fromJSon(domainSpecJson)
+    val domainSpec = UserDefinedUtils.fromJSon(readJSon(jsonFile))
     // a little validation
     if (domainSpec.levels.isEmpty) {
       throw new IllegalArgumentException(
@@ -88,6 +140,35 @@ object UserDefinedUtils {
     domainSpec
   }
 
+  /**
+    * Read the principals of a powerset domain from a JSON or YAML file. The
+    * file describes such a domain, if it has an entry `principals`, e.g.
+    * `principals: [alice, bob, charlie]`. Otherwise the result is None.
+    */
+  def principalsFromJSon(jsonFile : File) : Option[Seq[String]] = {
+    val json = readJSon(jsonFile)
+    val entries : Seq[JValue] = for {
+      JObject(entries) <- json
+      JField("principals", ps) <- entries
+    } yield ps
+    entries.headOption.map(ps => for (JString(p) <- ps) yield p)
+  }
+
+  /**
+    * Create a powerset domain from a JSON or YAML file, if it has a `principals` entry.
+    */
+  def makePrincipalSets(jsonFile : File) : Option[PrincipalSets] =
+    principalsFromJSon(jsonFile).map(ps => new PrincipalSets(ps))
+
+  private def readJSon(jsonFile : File) : JValue =
+    Try(parseJson(Source.fromFile(jsonFile).mkString)) match {
+      case Failure(exc) =>
+        throw new IllegalArgumentException(
+          s"Error parsing security domain specification ${jsonFile}: ${exc.getMessage}"
+        )
+      case Success(json) => json
+    }
+
   /**
     * Construct a UserDefined lattice of security levels.
     *
@@ -95,6 +176,9 @@ object UserDefinedUtils {
     * @param ltEgdes The essential less-than pairs that induce the ordering on `levels` by closing transitively
     *
     *  If `ltEdges` does not induce a lattice for `levels` an IllegalArgumentException is thrown.
+    *
+    *  The resulting domain carries its compiled form (`UserDefined.compiled`), where levels are
+    *  ordinals and lub, glb and le are table lookups.
     */
   def makeSecDomain(levels : Set[String], ltEgdes : Set[Edge]) : UserDefined = {
     val DomainParameters(_, lt, lubMap, glbMap, top, bottom) = secDomainParameters(levels, ltEgdes)
@@ -103,32 +187,149 @@ object UserDefinedUtils {
 
   def makeSecDomain(spec: UserDefinedUtils.Spec) : UserDefined = makeSecDomain(spec.levels, spec.edges)
 
+  /**
+    * Compute the lattice parameters of `levels` ordered by `ltEdges`.
+    *
+    * The ordering is closed transitively as one bitset row per level (see `Reachability`).
+    * The least upper bound of two incomparable levels is then found by intersecting their
+    * up-sets and picking the candidate with the largest up-set, which must contain all
+    * other candidates. Greatest lower bounds work the same on the down-sets.
+    */
   def secDomainParameters(levels : Set[String], ltEgdes : Set[Edge]) : DomainParameters = {
-    val lt = closeTransitively(ltEgdes)
-    checkIrreflexivity(lt)
-    checkAsymmetry(lt)
-    val gt = for (p <- lt) yield new Edge(p.right, p.left)
-    val lubMap = bounds(levels, (l1, l2) => lt.contains(new Edge(l1, l2)))
-    val glbMap = bounds(levels, (l1, l2) => gt.contains(new Edge(l1, l2)))
-    val top = levels.find(l => levels.forall(otherL => otherL == l || lt(new Edge(otherL, l))))
+    val r = Reachability(levels ++ ltEgdes.flatMap(e => Seq(e.left, e.right)), ltEgdes)
+    for (i <- 0 until r.size; if r.lt(i, i)) {
+      throw new IllegalArgumentException(s"Found reflexive pair in a strict ordering: ${r.names(i)}, ${r.names(i)}")
+    }
+    for (i <- 0 until r.size; j <- r.above(i); if r.lt(j, i)) {
+      throw new IllegalArgumentException(
+        s"Found symmetric pair in an ordering: ${new Edge(r.names(i), r.names(j))}, ${new Edge(r.names(j), r.names(i))}")
+    }
+
+    val levelMask = r.mask(levels)
+    val upSets = Reachability.withDiagonal(r.rows, levelMask)
+    val downSets = Reachability.withDiagonal(Reachability.transpose(r.rows), levelMask)
+    val lubMap = bounds(r, levels, upSets)
+    val glbMap = bounds(r, levels, downSets)
+    val top = levels.find(l => Reachability.containsAll(downSets(r.index(l)), levelMask))
     if (top.isEmpty) throw new IllegalArgumentException("Unable to find top element for lattice")
-    val bottom = levels.find(l => levels.forall(otherL => otherL == l || lt(new Edge(l, otherL))))
+    val bottom = levels.find(l => Reachability.containsAll(upSets(r.index(l)), levelMask))
     if (bottom.isEmpty) throw new IllegalArgumentException("Unable to find bottom element for lattice")
 
-    DomainParameters(levels, lt, lubMap, glbMap, top.get, bottom.get)
+    DomainParameters(levels, r.edges, lubMap, glbMap, top.get, bottom.get)
+  }
+
+  /**
+    * The least bounds of all pairs of `levels`, where `boundSets(i)` contains the levels that bound
+    * level `i` (including `i` itself).
+    */
+  private def bounds(r : Reachability, levels : Set[String], boundSets : Array[Array[Long]]) : java.util.Map[Edge, String] = {
+    val sizes = boundSets.map(row => row.map(w => java.lang.Long.bitCount(w)).sum)
+    val result = new java.util.HashMap[Edge, String](4 * levels.size * levels.size / 3 + 1)
+    val indices = levels.toArray.map(r.index)
+    for (a <- indices.indices; b <- a until indices.length) {
+      val (i, j) = (indices(a), indices(b))
+      val least =
+        if (Reachability.contains(boundSets(i), j)) j
+        else if (Reachability.contains(boundSets(j), i)) i
+        else {
+          val common = Reachability.intersect(boundSets(i), boundSets(j))
+          val candidates = Reachability.members(common)
+          // TODO: improve error messages... at least state that this is a "lattice-error" or something
+          if (candidates.isEmpty)
+            throw new IllegalArgumentException(s"No upper bound found for levels ${r.names(i)} and ${r.names(j)}")
+          val best = candidates.maxBy(c => sizes(c))
+          if (!Reachability.containsAll(boundSets(best), common))
+            throw new IllegalArgumentException(s"No least upper bound found for levels ${r.names(i)} and ${r.names(j)}")
+          best
+        }
+      result.put(new Edge(r.names(i), r.names(j)), r.names(least))
+      result.put(new Edge(r.names(j), r.names(i)), r.names(least))
+    }
+    result
   }
 
-  private def bounds(levels : Set[String], lt : (String, String) => Boolean) : Map[Edge, String] = {
-    val le = (l1 : String, l2 : String) => lt(l1, l2) || l1 == l2
-    (for {l1 <- levels
-          l2 <- levels }
-      yield {
-        val ubs = upperBounds(levels, le, l1, l2)
-        // TODO: improve error messages... at least state that this is a "lattice-error" or something
-        if (ubs.isEmpty) throw new IllegalArgumentException(s"No upper bound found for levels ${l1} and ${l2}")
-        val lub = ubs.min(Ordering.fromLessThan(lt))
-        new Edge(l1, l2) -> lub
-      }).toMap
+  /**
+    * The transitive closure of a strict ordering on `names`, given by `edges`. The ordering is kept
+    * as one bitset row per name: bit `j` of `rows(i)` is set iff `names(i) < names(j)`.
+    */
+  private class Reachability(val names : Array[String], val index : Map[String, Int], val rows : Array[Array[Long]]) {
+
+    def size : Int = names.length
+
+    def lt(i : Int, j : Int) : Boolean = Reachability.contains(rows(i), j)
+
+    def above(i : Int) : Seq[Int] = Reachability.members(rows(i))
+
+    def mask(subset : Set[String]) : Array[Long] = {
+      val result = new Array[Long](Reachability.words(size))
+      for (l <- subset) Reachability.add(result, index(l))
+      result
+    }
+
+    def edges : java.util.Set[Edge] = {
+      val result = new java.util.HashSet[Edge]()
+      for (i <- 0 until size; j <- above(i)) result.add(new Edge(names(i), names(j)))
+      result
+    }
+  }
+
+  private object Reachability {
+
+    def apply(levels : Set[String], edges : Set[Edge]) : Reachability = {
+      val names = levels.toArray.sorted
+      val index = names.zipWithIndex.toMap
+      val n = names.length
+      val rows = Array.fill(n)(new Array[Long](words(n)))
+      for (e <- edges) add(rows(index(e.left)), index(e.right))
+      // Warshall: after round k, all paths with intermediate levels up to k are closed
+      for (k <- 0 until n; i <- 0 until n; if contains(rows(i), k)) {
+        val (row, via) = (rows(i), rows(k))
+        var w = 0
+        while (w < row.length) {
+          row(w) |= via(w)
+          w += 1
+        }
+      }
+      new Reachability(names, index, rows)
+    }
+
+    def words(n : Int) : Int = (n + 63) >>> 6
+
+    def contains(row : Array[Long], i : Int) : Boolean = (row(i >>> 6) & (1L << i)) != 0
+
+    def add(row : Array[Long], i : Int) : Unit = row(i >>> 6) |= 1L << i
+
+    def containsAll(row : Array[Long], subset : Array[Long]) : Boolean =
+      row.indices.forall(w => (subset(w) & ~row(w)) == 0)
+
+    def intersect(row1 : Array[Long], row2 : Array[Long]) : Array[Long] =
+      Array.tabulate(row1.length)(w => row1(w) & row2(w))
+
+    def members(row : Array[Long]) : Seq[Int] = {
+      val result = Seq.newBuilder[Int]
+      for (w <- row.indices) {
+        var bits = row(w)
+        while (bits != 0) {
+          result += (w << 6) + java.lang.Long.numberOfTrailingZeros(bits)
+          bits &= bits - 1
+        }
+      }
+      result.result()
+    }
+
+    def transpose(rows : Array[Array[Long]]) : Array[Array[Long]] = {
+      val result = Array.fill(rows.length)(new Array[Long](words(rows.length)))
+      for (i <- rows.indices; j <- members(rows(i))) add(result(j), i)
+      result
+    }
+
+    /** The rows, reflexively closed and restricted to `mask`. */
+    def withDiagonal(rows : Array[Array[Long]], mask : Array[Long]) : Array[Array[Long]] =
+      Array.tabulate(rows.length)(i => {
+        val row = rows(i).clone()
+        add(row, i)
+        intersect(row, mask)
+      })
   }
 
   def upperBounds(levels : Set[String], le : (String, String) => Boolean, l1 : String, l2 : String) : Set[String] = {
@@ -139,13 +340,8 @@ object UserDefinedUtils {
 
 
   def closeTransitively(edges : Set[Edge]) : Set[Edge] = {
-    val next : Set[Edge] =
-      edges ++
-        (for { (lhs, mid1) <- edges.map(edgeAsTuple)
-               (mid2, rhs) <- edges.map(edgeAsTuple)
-               if mid1 == mid2 }
-          yield new Edge(lhs, rhs))
-    if (next == edges) next else closeTransitively(next)
+    val r = Reachability(edges.flatMap(e => Seq(e.left, e.right)), edges)
+    (for (i <- 0 until r.size; j <- r.above(i)) yield new Edge(r.names(i), r.names(j))).toSet
   }
 
   def checkIrreflexivity(rel : Set[Edge]) : Unit = {
@@ -154,9 +350,8 @@ object UserDefinedUtils {
 
   def checkAsymmetry(rel : Set[Edge]) : Unit = {
     for { p1 <- rel
-          p2 <- rel
-          if p1.left == p2.right && p1.right == p2.left && p1.left != p1.right} {
-      throw new IllegalArgumentException(s"Found symmetric pair in an ordering: ${p1}, ${p2}")
+          if p1.left != p1.right && rel.contains(new Edge(p1.right, p1.left))} {
+      throw new IllegalArgumentException(s"Found symmetric pair in an ordering: ${p1}, ${new Edge(p1.right, p1.left)}")
     }
 
   }
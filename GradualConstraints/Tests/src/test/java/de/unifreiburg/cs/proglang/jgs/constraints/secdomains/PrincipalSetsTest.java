@@ -0,0 +1,71 @@
+package de.unifreiburg.cs.proglang.jgs.constraints.secdomains;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import scala.Option;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class PrincipalSetsTest {
+
+    private final PrincipalSets levels =
+            new PrincipalSets(Arrays.asList("alice", "bob", "charlie"));
+
+    @Test
+    public void test() {
+        PrincipalSets.Level alice = levels.level("alice");
+        PrincipalSets.Level bob = levels.level("bob");
+        assertEquals(levels.level(), levels.bottom());
+        assertEquals(levels.level("alice", "bob", "charlie"), levels.top());
+        assertEquals(levels.level("alice", "bob"), levels.lub(alice, bob));
+        assertEquals(levels.bottom(), levels.glb(alice, bob));
+        assertTrue("alice <= alice,bob", levels.le(alice, levels.lub(alice, bob)));
+        assertFalse("alice /<= bob", levels.le(alice, bob));
+        assertTrue("{} <= alice", levels.le(levels.bottom(), alice));
+    }
+
+    @Test
+    public void testParser() {
+        assertThat(levels.readLevel("{alice,bob}"), is(equalTo(levels.level("alice", "bob"))));
+        assertThat(levels.readLevel("{ bob , alice }"), is(equalTo(levels.level("alice", "bob"))));
+        assertThat(levels.readLevel("{}"), is(equalTo(levels.bottom())));
+        assertThat(levels.levelParser().parse("{eve}"), is(equalTo(Option.empty())));
+        assertThat(levels.levelParser().parse("alice"), is(equalTo(Option.empty())));
+        assertThat(levels.level("charlie", "alice").toString(), is(equalTo("{alice,charlie}")));
+    }
+
+    @Test
+    public void testEnumerate() {
+        List<PrincipalSets.Level> all = new ArrayList<>();
+        for (Iterator<PrincipalSets.Level> it = levels.enumerate(); it.hasNext(); ) {
+            all.add(it.next());
+        }
+        assertEquals(8, all.size());
+        assertEquals(levels.bottom(), all.get(0));
+        assertEquals(levels.top(), all.get(7));
+    }
+
+    @Test
+    public void testWide() {
+        List<String> principals = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            principals.add("p" + i);
+        }
+        PrincipalSets wide = new PrincipalSets(principals);
+        PrincipalSets.Level low = wide.readLevel("{p1,p70}");
+        PrincipalSets.Level high = wide.readLevel("{p1,p70,p99}");
+        assertTrue(wide.le(low, high));
+        assertFalse(wide.le(high, low));
+        assertEquals(high, wide.lub(low, wide.level("p99")));
+        assertEquals(wide.level("p70"), wide.glb(high, wide.level("p70", "p2")));
+        assertTrue(wide.le(high, wide.top()));
+        assertEquals(low, wide.readLevel(low.toString()));
+    }
+
+}
@@ -78,6 +78,102 @@ class UserDefinedDomainsTest extends FlatSpec with Matchers {
     }
   }
 
+  "Compiled tables" should "agree with lub, glb and the ordering" in {
+    for (dom <- validDomains; l1 <- dom.enumerate(); l2 <- dom.enumerate()) {
+      val c = dom.compiled
+      val (i, j) = (c.ordinal(l1), c.ordinal(l2))
+      c.level(c.lub(i, j)) should be (dom.lubMap.get(new Edge(l1, l2)))
+      c.level(c.glb(i, j)) should be (dom.glbMap.get(new Edge(l1, l2)))
+      c.le(i, j) should be (l1 == l2 || dom.lt.contains(new Edge(l1, l2)))
+    }
+  }
+
+  "An example domain, that is constructed again," should "reuse its compiled lattice" in {
+    UserDefined.lowHigh().compiled should be theSameInstanceAs (UserDefined.lowHigh().compiled)
+    UserDefined.lowHigh().compiled should not be theSameInstanceAs (UserDefined.aliceBobCharlie().compiled)
+  }
+
+  "A powerset lattice of four principals" should "agree with PrincipalSets" in {
+    val principals = new PrincipalSets(java.util.Arrays.asList("a", "b", "c", "d"))
+    val levels = principals.enumerate().toList
+    val edges = for (l1 <- levels; l2 <- levels; if l1 != l2 && principals.le(l1, l2))
+      yield new Edge(l1.toString, l2.toString)
+    val dom = UserDefinedUtils.makeSecDomain(levels.map(_.toString).toSet, edges.toSet)
+    dom.bottom() should be ("{}")
+    dom.top() should be ("{a,b,c,d}")
+    for (l1 <- levels; l2 <- levels) {
+      dom.lub(l1.toString, l2.toString) should be (principals.lub(l1, l2).toString)
+      dom.glb(l1.toString, l2.toString) should be (principals.glb(l1, l2).toString)
+      dom.le(l1.toString, l2.toString) should be (principals.le(l1, l2))
+    }
+  }
+
+  "A lattice of a thousand levels" should "be constructed" in {
+    val principals = (1 to 998).map(i => s"p${i}").toSet
+    val dom = UserDefinedUtils.makeSecDomain(
+      principals ++ Set(levPublic, levTop),
+      (for (l <- principals) yield new Edge(levPublic, l)) ++ (for (l <- principals) yield new Edge(l, levTop))
+    )
+    dom.lub("p1", "p2") should be (levTop)
+    dom.glb("p1", "p2") should be (levPublic)
+    dom.le(levPublic, levTop) should be (true)
+  }
+
+  "A domain artifact" should "load the same lattice" in {
+    val dir = java.nio.file.Files.createTempDirectory("jgs-domain").toFile
+    val spec = new java.io.File(dir, "domain.yaml")
+    java.nio.file.Files.write(spec.toPath,
+      "levels: [public, employee, manager, top]\nlt-edges: [[public, employee], [employee, manager], [manager, top]]\n".getBytes)
+    val compiled = UserDefinedUtils.loadOrCompile(spec, dir)
+    val artifact = new java.io.File(dir, UserDefinedUtils.artifactName)
+    artifact.isFile should be (true)
+    CompiledLattice.readChecksum(artifact) should be (UserDefinedUtils.specChecksum(spec))
+
+    val loaded = new UserDefined(CompiledLattice.load(artifact))
+    loaded.top() should be ("top")
+    loaded.bottom() should be ("public")
+    for (l1 <- compiled.enumerate(); l2 <- compiled.enumerate()) {
+      loaded.lub(l1, l2) should be (compiled.lub(l1, l2))
+      loaded.glb(l1, l2) should be (compiled.glb(l1, l2))
+      loaded.le(l1, l2) should be (compiled.le(l1, l2))
+      loaded.lubMap.get(new Edge(l1, l2)) should be (compiled.lubMap.get(new Edge(l1, l2)))
+    }
+  }
+
+  "The maps of a compiled lattice" should "only contain the pairs with a bound" in {
+    val c = CompiledLattice.compile(
+      Set(levPublic, "a", "b"), Set(new Edge(levPublic, "a"), new Edge(levPublic, "b")),
+      Map(new Edge(levPublic, "a") -> "a", new Edge("a", levPublic) -> "a"),
+      Map[Edge, String](), "a", levPublic)
+    val loaded = new UserDefined(c)
+    loaded.lubMap.size should be (2)
+    loaded.lubMap.values.toList should not contain (null)
+    loaded.lubMap.containsKey(new Edge("a", "b")) should be (false)
+    loaded.glbMap.isEmpty should be (true)
+  }
+
+  "A corrupt domain artifact" should "be recompiled" in {
+    val dir = java.nio.file.Files.createTempDirectory("jgs-domain").toFile
+    val spec = new java.io.File(dir, "domain.yaml")
+    java.nio.file.Files.write(spec.toPath,
+      "levels: [public, employee, top]\nlt-edges: [[public, employee], [employee, top]]\n".getBytes)
+    UserDefinedUtils.loadOrCompile(spec, dir)
+    val artifact = new java.io.File(dir, UserDefinedUtils.artifactName)
+    // the header with the checksum is intact, but the tables are cut off
+    val truncated = java.util.Arrays.copyOf(java.nio.file.Files.readAllBytes(artifact.toPath), 24)
+    java.nio.file.Files.write(artifact.toPath, truncated)
+
+    val dom = UserDefinedUtils.loadOrCompile(spec, dir)
+    dom.lub("public", "employee") should be ("employee")
+    new UserDefined(CompiledLattice.load(artifact)).top() should be ("top")
+    dir.listFiles().map(_.getName).sorted should be (Array("domain.yaml", UserDefinedUtils.artifactName))
+  }
+
+  "Cyclic edges" should "be rejected" in {
+    an [IllegalArgumentException] should be thrownBy
+      UserDefinedUtils.makeSecDomain(Set(levPublic, levTop), Set(new Edge(levPublic, levTop), new Edge(levTop, levPublic)))
+  }
+
 
 
 
@@ -59,6 +59,7 @@ object JgsCheck {
    val castMethods: File,
    val genericCasts: Boolean,
    val secdomainChoice: SecDomainChoice,
+   val secdomainArtifacts: Option[File],
    val verbosity: Verbosity,
    testMode: Boolean
   )
@@ -95,6 +96,7 @@ object JgsCheck {
       castMethods = new File("cast-methods.yaml"),
       genericCasts = false,
       secdomainChoice = LowHigh,
+      secdomainArtifacts = None,
       verbosity = Warn,
       testMode = false
     )
@@ -123,6 +125,10 @@ object JgsCheck {
         .text("Use the {bottom, alice, bob, charlie, top} security domain instead of {LOW, HIGH}")
       opt[File]("security-domain")
           .action { (f, c) => c.copy(secdomainChoice = UserDomain(f))}
+          .text("json or yaml file specifying the security domain, either by `levels` and `lt-edges`, or by `principals` for their powerset")
+      opt[File]("security-domain-artifacts")
+          .action { (d, c) => c.copy(secdomainArtifacts = Some(d))}
+          .text("directory for the compiled security domain; it is reused as long as the --security-domain file is unchanged")
       opt[Unit]("generic-casts")
         .action { (_, c) => c.copy(genericCasts = true)}
         .text("Use the generic casts from cast-methods")
@@ -186,12 +192,21 @@ object JgsCheck {
           }
           case UserDomain(secDomainClass) =>
 
-            // create the domains
-            val domainSpec = UserDefinedUtils.fromJSon(secDomainClass)
-            val secdomain = UserDefinedUtils.makeSecDomain(domainSpec)
-            val types = new TypeDomain(secdomain)
-            val csets = new NaiveConstraintsFactory(types)
-            new Config(types, csets, opt)
+            // create the domains; a specification with principals describes their powerset
+            UserDefinedUtils.makePrincipalSets(secDomainClass) match {
+              case Some(secdomain) =>
+                val types = new TypeDomain(secdomain)
+                val csets = new NaiveConstraintsFactory(types)
+                new Config(types, csets, opt)
+              case None =>
+                val secdomain = opt.secdomainArtifacts match {
+                  case Some(dir) => UserDefinedUtils.loadOrCompile(secDomainClass, dir)
+                  case None => UserDefinedUtils.makeSecDomain(UserDefinedUtils.fromJSon(secDomainClass))
+                }
+                val types = new TypeDomain(secdomain)
+                val csets = new NaiveConstraintsFactory(types)
+                new Config(types, csets, opt)
+            }
         }
         cfg.typeCheck(s, classes, log)
 
@@ -0,0 +1,307 @@
+package de.unifreiburg.cs.proglang.jgs.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Executors and task decorators, that carry the security context of the
+ * submitting thread over to the thread, that runs the task. Otherwise a task
+ * of an {@link ExecutorService}, a {@link java.util.concurrent.ForkJoinPool}
+ * or a {@link CompletableFuture} starts with a bottom PC, and a secret that
+ * decided about the submission would be laundered.
+ * <p>
+ * The context is captured when a task is decorated, which is at submission
+ * for the wrapped executors, and it is restored in the worker around the
+ * task. Values, that a pool passes to a task, like the result of the previous
+ * stage of a {@link CompletableFuture}, get the level of the captured context.
+ */
+public class LabeledExecutors {
+
+    private static final TaskContextPropagator NONE = new TaskContextPropagator() {
+        @Override
+        public Object capture() {
+            return null;
+        }
+
+        @Override
+        public Object enter(Object captured, int arity) {
+            return null;
+        }
+
+        @Override
+        public void exit(Object token) {
+        }
+    };
+
+    private static volatile TaskContextPropagator propagator = NONE;
+
+    /**
+     * Installs the propagator of the run-time monitor.
+     *
+     * @param p The propagator, or null to stop propagating.
+     */
+    public static void setPropagator(TaskContextPropagator p) {
+        propagator = p == null ? NONE : p;
+    }
+
+    public static TaskContextPropagator getPropagator() {
+        return propagator;
+    }
+
+    // <editor-fold desc="Task decorators">
+
+    public static Runnable decorate(Runnable task) {
+        TaskContextPropagator p = propagator;
+        Object captured = p.capture();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Object token = p.enter(captured, 0);
+            try {
+                task.run();
+            } finally {
+                p.exit(token);
+            }
+        };
+    }
+
+    public static <V> Callable<V> decorate(Callable<V> task) {
+        TaskContextPropagator p = propagator;
+        Object captured = p.capture();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Object token = p.enter(captured, 0);
+            try {
+                return task.call();
+            } finally {
+                p.exit(token);
+            }
+        };
+    }
+
+    public static <T> Supplier<T> decorateSupplier(Supplier<T> task) {
+        TaskContextPropagator p = propagator;
+        Object captured = p.capture();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Object token = p.enter(captured, 0);
+            try {
+                return task.get();
+            } finally {
+                p.exit(token);
+            }
+        };
+    }
+
+    public static <T, R> Function<T, R> decorateFunction(Function<T, R> task) {
+        TaskContextPropagator p = propagator;
+        Object captured = p.capture();
+        if (captured == null) {
+            return task;
+        }
+        return x -> {
+            Object token = p.enter(captured, 1);
+            try {
+                return task.apply(x);
+            } finally {
+                p.exit(token);
+            }
+        };
+    }
+
+    public static <T> Consumer<T> decorateConsumer(Consumer<T> task) {
+        TaskContextPropagator p = propagator;
+        Object captured = p.capture();
+        if (captured == null) {
+            return task;
+        }
+        return x -> {
+            Object token = p.enter(captured, 1);
+            try {
+                task.accept(x);
+            } finally {
+                p.exit(token);
+            }
+        };
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="Executors">
+
+    /**
+     * @return an executor, that decorates every task with the context of the submitting thread.
+     */
+    public static Executor wrap(Executor executor) {
+        if (executor instanceof ExecutorService) {
+            return wrap((ExecutorService) executor);
+        }
+        return task -> executor.execute(decorate(task));
+    }
+
+    /**
+     * @return an executor service, that decorates every task with the context of the submitting thread.
+     */
+    public static ExecutorService wrap(ExecutorService executor) {
+        if (executor instanceof LabeledExecutorService) {
+            return executor;
+        }
+        return new LabeledExecutorService(executor);
+    }
+
+    /**
+     * Wraps a thread factory, such that a new thread runs with the context of
+     * the thread, that created it. This covers pools, that start their
+     * workers on demand, if the tasks themselves can not be decorated.
+     * It is not an overload of <code>wrap</code>, because a lambda would be
+     * ambiguous between an {@link Executor} and a {@link ThreadFactory}.
+     */
+    public static ThreadFactory wrapThreadFactory(ThreadFactory factory) {
+        return task -> factory.newThread(decorate(task));
+    }
+
+    // </editor-fold>
+
+    // <editor-fold desc="CompletableFuture">
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(decorateSupplier(task));
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor) {
+        return CompletableFuture.supplyAsync(decorateSupplier(task), executor);
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(decorate(task));
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+        return CompletableFuture.runAsync(decorate(task), executor);
+    }
+
+    public static <T, R> CompletableFuture<R> thenApplyAsync(CompletableFuture<T> future,
+                                                             Function<T, R> fn) {
+        return future.thenApplyAsync(decorateFunction(fn));
+    }
+
+    public static <T, R> CompletableFuture<R> thenApplyAsync(CompletableFuture<T> future,
+                                                             Function<T, R> fn, Executor executor) {
+        return future.thenApplyAsync(decorateFunction(fn), executor);
+    }
+
+    public static <T> CompletableFuture<Void> thenAcceptAsync(CompletableFuture<T> future,
+                                                             Consumer<T> action) {
+        return future.thenAcceptAsync(decorateConsumer(action));
+    }
+
+    // </editor-fold>
+
+    /**
+     * Delegates to an executor service and decorates each submitted task.
+     */
+    private static class LabeledExecutorService implements ExecutorService {
+
+        private final ExecutorService delegate;
+
+        LabeledExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        private static <T> List<Callable<T>> decorateAll(Collection<? extends Callable<T>> tasks) {
+            List<Callable<T>> result = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                result.add(decorate(task));
+            }
+            return result;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(decorate(command));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return delegate.submit(decorate(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            return delegate.submit(decorate(task), result);
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return delegate.submit(decorate(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks)
+                throws InterruptedException {
+            return delegate.invokeAll(decorateAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks,
+                                             long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return delegate.invokeAll(decorateAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+                throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(decorateAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(decorateAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
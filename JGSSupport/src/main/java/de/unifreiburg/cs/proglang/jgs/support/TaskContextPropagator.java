@@ -0,0 +1,33 @@
+package de.unifreiburg.cs.proglang.jgs.support;
+
+/**
+ * Carries the security context of a thread over to a task, that runs in
+ * another thread. The run-time monitor installs its implementation by
+ * {@link LabeledExecutors#setPropagator(TaskContextPropagator)}; without a
+ * monitor, tasks are not decorated at all.
+ */
+public interface TaskContextPropagator {
+
+    /**
+     * Captures the context of the current thread, when a task is submitted.
+     *
+     * @return the captured context, or null if there is nothing to propagate.
+     */
+    Object capture();
+
+    /**
+     * Restores a captured context in the current thread, before the task runs.
+     *
+     * @param captured The result of {@link TaskContextPropagator#capture()}.
+     * @param arity The number of values, that are passed to the task.
+     * @return a token for {@link TaskContextPropagator#exit(Object)}.
+     */
+    Object enter(Object captured, int arity);
+
+    /**
+     * Leaves the restored context, after the task has finished.
+     *
+     * @param token The result of {@link TaskContextPropagator#enter(Object, int)}.
+     */
+    void exit(Object token);
+}
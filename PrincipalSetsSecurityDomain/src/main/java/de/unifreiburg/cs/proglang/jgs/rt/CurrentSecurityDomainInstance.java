@@ -0,0 +1,23 @@
+package de.unifreiburg.cs.proglang.jgs.rt;
+
+
+import de.unifreiburg.cs.proglang.jgs.constraints.SecDomain;
+import de.unifreiburg.cs.proglang.jgs.constraints.secdomains.PrincipalSets;
+
+import java.util.Arrays;
+
+
+/**
+ * The powerset of the principals given in the system property
+ * <code>jgs.principals</code>, as a comma separated list. Without the
+ * property, the principals are alice, bob and charlie.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class CurrentSecurityDomainInstance {
+	@SuppressWarnings("rawtypes")
+	public static SecDomain get() {
+		String principals = System.getProperty("jgs.principals", "alice,bob,charlie");
+		return new PrincipalSets(Arrays.asList(principals.trim().split("\\s*,\\s*")));
+	}
+
+}
@@ -2,17 +2,31 @@ package de.unifreiburg.cs.proglang.jgs.rt;
 
 
 import de.unifreiburg.cs.proglang.jgs.constraints.SecDomain;
+import de.unifreiburg.cs.proglang.jgs.constraints.secdomains.CompiledLattice;
 import de.unifreiburg.cs.proglang.jgs.constraints.secdomains.UserDefined;
 
+import java.io.File;
+import java.io.IOException;
+
 
 /**
- *
+ * The security domain loaded from the artifact given in the system property
+ * <code>jgs.security-domain-artifact</code>, as written by the checker.
+ * Without the property, the domain is alice, bob and charlie.
  */
 @SuppressWarnings({ "rawtypes", "unchecked" })
 public class CurrentSecurityDomainInstance {
 	@SuppressWarnings("rawtypes")
 	public static SecDomain get() {
-		return UserDefined.aliceBobCharlie();
+		String artifact = System.getProperty("jgs.security-domain-artifact");
+		if (artifact == null) {
+			return UserDefined.aliceBobCharlie();
+		}
+		try {
+			return new UserDefined(CompiledLattice.load(new File(artifact)));
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to load security domain: " + e.getMessage(), e);
+		}
 	}
 
 }